@@ -445,6 +445,22 @@ List<RutaStatement> stmts = new ArrayList<RutaStatement>();
 	EOF
 	;
 
+// parses additional statements in the context of an existing block, e.g., a single rule
+statements_input [RutaBlock parent] returns [List<RutaStatement> stmts = new ArrayList<RutaStatement>()]
+	:
+	{
+	moduleName = parent.getName();
+	namespace = StringUtils.removeEnd(parent.getNamespace(), "." + moduleName);
+	if(StringUtils.equals(namespace, moduleName)) {
+		namespace = null;
+	}
+	}
+	{$blockDeclaration.push(new blockDeclaration_scope());$blockDeclaration::env = parent;}
+	s = statements		{stmts.addAll(s);}
+	
+	EOF
+	;
+
 packageDeclaration returns [String pack = ""]
 	:	PackageString p = dottedIdentifier SEMI {pack = p;}
 	;
@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.TypeSystem;
+import org.apache.uima.cas.text.AnnotationFS;
+
+/**
+ * Inverted index of the values of primitive features. For each requested combination of type and
+ * feature, the annotations are grouped by their feature value, so that an equality feature match
+ * like <code>Token.pos=="NN"</code> is a lookup instead of a scan over all annotations of the type.
+ * <p>
+ * The entries are created lazily on the first request and are maintained by the
+ * {@link RutaStream}: annotations are added and removed with the stream, and actions changing
+ * feature values call {@link RutaStream#featureValuesChanged(FeatureStructure)}. Actions applying
+ * other analysis engines, which modify the CAS directly, call
+ * {@link RutaStream#featureValuesChanged()} and all entries are rebuilt on their next request. An
+ * entry is also rebuilt if its size differs from the annotation index of the CAS, e.g., because
+ * annotations were added without the stream. The index is shared by all streams and windows of one
+ * CAS and its methods are synchronized, because the rules of a block can be matched concurrently.
+ */
+public class FeatureValueIndex {
+
+  private static final Object NULL = new Object();
+
+  private static class Entry {
+
+    private final Type type;
+
+    private final Feature feature;
+
+    private final Map<Object, Set<AnnotationFS>> values = new HashMap<Object, Set<AnnotationFS>>();
+
+    private final Map<AnnotationFS, Object> indexed = new HashMap<AnnotationFS, Object>();
+
+    private Entry(Type type, Feature feature) {
+      super();
+      this.type = type;
+      this.feature = feature;
+    }
+
+    private void add(AnnotationFS annotation) {
+      Object value = getValue(annotation, feature);
+      Object old = indexed.put(annotation, value);
+      if (old != null) {
+        if (old.equals(value)) {
+          return;
+        }
+        removeValue(annotation, old);
+      }
+      Set<AnnotationFS> set = values.get(value);
+      if (set == null) {
+        set = new HashSet<AnnotationFS>();
+        values.put(value, set);
+      }
+      set.add(annotation);
+    }
+
+    private void remove(AnnotationFS annotation) {
+      Object old = indexed.remove(annotation);
+      if (old != null) {
+        removeValue(annotation, old);
+      }
+    }
+
+    private void removeValue(AnnotationFS annotation, Object value) {
+      Set<AnnotationFS> set = values.get(value);
+      if (set != null) {
+        set.remove(annotation);
+        if (set.isEmpty()) {
+          values.remove(value);
+        }
+      }
+    }
+
+    private void clear() {
+      values.clear();
+      indexed.clear();
+    }
+  }
+
+  private final CAS cas;
+
+  private final Map<Type, Map<Feature, Entry>> entries = new HashMap<Type, Map<Feature, Entry>>();
+
+  public FeatureValueIndex(CAS cas) {
+    super();
+    this.cas = cas;
+  }
+
+  /**
+   * @return true, if the values of the feature can be indexed
+   */
+  public static boolean isSupported(Feature feature) {
+    if (feature == null) {
+      // coveredText
+      return false;
+    }
+    String rangeName = feature.getRange().getName();
+    return rangeName.equals(UIMAConstants.TYPE_STRING)
+            || rangeName.equals(UIMAConstants.TYPE_BOOLEAN)
+            || rangeName.equals(UIMAConstants.TYPE_INTEGER);
+  }
+
+  /**
+   * Returns the annotations of the given type with the given feature value. The value must be a
+   * String, Boolean or Integer depending on the range of the feature. The result is a copy, which
+   * is not changed by later modifications of the annotations, e.g., by other threads.
+   */
+  public synchronized Collection<AnnotationFS> get(Type type, Feature feature, Object value) {
+    Entry entry = getEntry(type, feature);
+    Set<AnnotationFS> result = entry.values.get(value == null ? NULL : value);
+    if (result == null) {
+      return Collections.emptyList();
+    }
+    return new ArrayList<AnnotationFS>(result);
+  }
+
+  /**
+   * @return the amount of annotations of the given type with the given feature value
+   */
+  public synchronized int count(Type type, Feature feature, Object value) {
+    Entry entry = getEntry(type, feature);
+    Set<AnnotationFS> result = entry.values.get(value == null ? NULL : value);
+    return result == null ? 0 : result.size();
+  }
+
+  public synchronized void add(AnnotationFS annotation) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    TypeSystem typeSystem = cas.getTypeSystem();
+    for (Map<Feature, Entry> each : entries.values()) {
+      for (Entry entry : each.values()) {
+        if (typeSystem.subsumes(entry.type, annotation.getType())) {
+          entry.add(annotation);
+        }
+      }
+    }
+  }
+
+  public synchronized void remove(AnnotationFS annotation) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    for (Map<Feature, Entry> each : entries.values()) {
+      for (Entry entry : each.values()) {
+        entry.remove(annotation);
+      }
+    }
+  }
+
+  /**
+   * Updates the values of an annotation that is already indexed.
+   */
+  public synchronized void update(AnnotationFS annotation) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    for (Map<Feature, Entry> each : entries.values()) {
+      for (Entry entry : each.values()) {
+        if (entry.indexed.containsKey(annotation)) {
+          entry.add(annotation);
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes all entries, because the feature values may have been changed without the stream.
+   */
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  private Entry getEntry(Type type, Feature feature) {
+    Map<Feature, Entry> map = entries.get(type);
+    if (map == null) {
+      map = new HashMap<Feature, Entry>();
+      entries.put(type, map);
+    }
+    Entry entry = map.get(feature);
+    if (entry == null) {
+      entry = new Entry(type, feature);
+      map.put(feature, entry);
+      build(entry);
+    } else if (entry.indexed.size() != cas.getAnnotationIndex(type).size()) {
+      build(entry);
+    }
+    return entry;
+  }
+
+  private void build(Entry entry) {
+    entry.clear();
+    for (AnnotationFS each : cas.getAnnotationIndex(entry.type)) {
+      entry.add(each);
+    }
+  }
+
+  private static Object getValue(AnnotationFS annotation, Feature feature) {
+    String rangeName = feature.getRange().getName();
+    Object result;
+    if (rangeName.equals(UIMAConstants.TYPE_BOOLEAN)) {
+      result = annotation.getBooleanValue(feature);
+    } else if (rangeName.equals(UIMAConstants.TYPE_INTEGER)) {
+      result = annotation.getIntValue(feature);
+    } else {
+      result = annotation.getStringValue(feature);
+    }
+    return result == null ? NULL : result;
+  }
+
+}
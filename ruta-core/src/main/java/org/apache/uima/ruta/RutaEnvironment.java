@@ -701,6 +701,18 @@ public class RutaEnvironment {
     return list && varclass != null && varclass.equals(aclass);
   }
 
+  /**
+   * @return the environment that declares the variable, or null if the variable is unknown
+   */
+  public RutaEnvironment getVariableOwner(String name) {
+    if (ownsVariable(name)) {
+      return this;
+    } else if (owner.getParent() != null) {
+      return owner.getParent().getEnvironment().getVariableOwner(name);
+    }
+    return null;
+  }
+
   public boolean isVariable(String name) {
     return ownsVariable(name) || owner.getParent().getEnvironment().isVariable(name);
   }
@@ -19,13 +19,55 @@
 
 package org.apache.uima.ruta;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.uima.cas.Type;
+import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.ruta.action.AbstractRutaAction;
+import org.apache.uima.ruta.action.AddAction;
+import org.apache.uima.ruta.action.AssignAction;
+import org.apache.uima.ruta.action.CallAction;
+import org.apache.uima.ruta.action.ClearAction;
+import org.apache.uima.ruta.action.ComposedAction;
+import org.apache.uima.ruta.action.ConfigureAction;
+import org.apache.uima.ruta.action.CreateAction;
+import org.apache.uima.ruta.action.ExecAction;
+import org.apache.uima.ruta.action.FillAction;
+import org.apache.uima.ruta.action.GatherAction;
+import org.apache.uima.ruta.action.GetAction;
+import org.apache.uima.ruta.action.GetFeatureAction;
+import org.apache.uima.ruta.action.GetListAction;
+import org.apache.uima.ruta.action.MarkTableAction;
+import org.apache.uima.ruta.action.MatchedTextAction;
+import org.apache.uima.ruta.action.MergeAction;
+import org.apache.uima.ruta.action.RemoveAction;
+import org.apache.uima.ruta.action.RemoveDuplicateAction;
+import org.apache.uima.ruta.action.TypeSensitiveAction;
+import org.apache.uima.ruta.action.VariableAction;
+import org.apache.uima.ruta.condition.AbstractRutaCondition;
+import org.apache.uima.ruta.condition.ComposedRutaCondition;
+import org.apache.uima.ruta.condition.ContextCountCondition;
+import org.apache.uima.ruta.condition.CountCondition;
+import org.apache.uima.ruta.condition.CurrentCountCondition;
+import org.apache.uima.ruta.condition.ParseCondition;
+import org.apache.uima.ruta.condition.ScoreCondition;
+import org.apache.uima.ruta.condition.SizeCondition;
+import org.apache.uima.ruta.condition.TotalCountCondition;
+import org.apache.uima.ruta.condition.TypeSentiveCondition;
+import org.apache.uima.ruta.condition.VoteCondition;
+import org.apache.uima.ruta.expression.type.TypeExpression;
 import org.apache.uima.ruta.rule.AbstractRule;
+import org.apache.uima.ruta.rule.AbstractRuleElement;
 import org.apache.uima.ruta.rule.AbstractRuleMatch;
+import org.apache.uima.ruta.rule.ComposedRuleElement;
 import org.apache.uima.ruta.rule.RuleApply;
+import org.apache.uima.ruta.rule.RuleElement;
 import org.apache.uima.ruta.rule.RuleMatch;
 import org.apache.uima.ruta.rule.RutaRule;
 import org.apache.uima.ruta.rule.RutaRuleElement;
@@ -43,6 +85,11 @@ public class RutaScriptBlock extends RutaBlock {
     BlockApply result = new BlockApply(this);
     crowd.beginVisit(this, result);
     RuleApply apply = rule.apply(stream, crowd, true);
+    ExecutorService executor = stream.getBlockExecutor();
+    List<RutaStream> windows = null;
+    if (executor != null && crowd.isEmpty() && isParallelizable(stream)) {
+      windows = new ArrayList<RutaStream>();
+    }
     for (AbstractRuleMatch<? extends AbstractRule> eachMatch : apply.getList()) {
       if (eachMatch.matched()) {
         List<AnnotationFS> matchedAnnotations = ((RuleMatch) eachMatch).getMatchedAnnotations(null,
@@ -58,6 +105,10 @@ public class RutaScriptBlock extends RutaBlock {
                 getParent() == null ? this : getParent(), stream);
         for (Type eachType : types) {
           RutaStream window = stream.getWindowStream(each, eachType);
+          if (windows != null) {
+            windows.add(window);
+            continue;
+          }
           for (RutaStatement element : getElements()) {
             if (element != null) {
               element.apply(window, crowd);
@@ -66,10 +117,263 @@ public class RutaScriptBlock extends RutaBlock {
         }
       }
     }
+    if (windows != null) {
+      applyParallel(windows, executor, crowd);
+    }
     crowd.endVisit(this, result);
     return result;
   }
 
+  /**
+   * Applies the rules of this block one after another on all windows. The windows are matched
+   * concurrently and the actions of the matches are executed afterwards in the order of the
+   * windows. The result is the same as the sequential application, if the rules only depend on
+   * their own window.
+   */
+  private void applyParallel(List<RutaStream> windows, ExecutorService executor,
+          final InferenceCrowd crowd) {
+    for (RutaStatement element : getElements()) {
+      if (element == null) {
+        continue;
+      }
+      final RutaRule each = (RutaRule) element;
+      List<Callable<RuleApply>> tasks = new ArrayList<Callable<RuleApply>>(windows.size());
+      for (final RutaStream window : windows) {
+        tasks.add(new Callable<RuleApply>() {
+          public RuleApply call() {
+            return each.match(window, crowd);
+          }
+        });
+      }
+      List<Future<RuleApply>> futures;
+      try {
+        futures = executor.invokeAll(tasks);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while applying " + each, e);
+      }
+      for (int i = 0; i < windows.size(); i++) {
+        each.applyDeferred(getResult(futures.get(i)), windows.get(i), crowd);
+      }
+    }
+  }
+
+  private RuleApply getResult(Future<RuleApply> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * Only plain rules without inlined rules are matched concurrently, since other statements
+   * modify the CAS while they are matched. Rules that match or check the types created or removed
+   * by their own actions are excluded as well, since later matches depend on the actions of
+   * earlier matches. Rules that assign variables or apply other scripts and engines are excluded,
+   * since the environment is shared by all windows. Thus, the variables only read by the rules of
+   * a parallel block do not change while the block is applied.
+   */
+  private boolean isParallelizable(RutaStream stream) {
+    for (RutaStatement element : getElements()) {
+      if (element == null) {
+        continue;
+      }
+      if (!(element instanceof RutaRule)) {
+        return false;
+      }
+      List<RuleElement> ruleElements = ((RutaRule) element).getRuleElements();
+      if (hasInlinedRules(ruleElements) || hasSharedEffects(ruleElements)
+              || dependsOnOwnActions(ruleElements, stream)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean hasSharedEffects(List<RuleElement> ruleElements) {
+    for (RuleElement each : ruleElements) {
+      if (each.getConditions() != null) {
+        for (AbstractRutaCondition condition : each.getConditions()) {
+          if (hasSharedEffects(condition)) {
+            return true;
+          }
+        }
+      }
+      if (each.getActions() != null) {
+        for (AbstractRutaAction action : each.getActions()) {
+          if (hasSharedEffects(action)) {
+            return true;
+          }
+        }
+      }
+      if (each instanceof ComposedRuleElement
+              && hasSharedEffects(((ComposedRuleElement) each).getRuleElements())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean hasSharedEffects(AbstractRutaCondition condition) {
+    if (condition instanceof ComposedRutaCondition) {
+      for (AbstractRutaCondition each : ((ComposedRutaCondition) condition).getConditions()) {
+        if (hasSharedEffects(each)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    if (condition instanceof ParseCondition) {
+      return ((ParseCondition) condition).getVar() != null;
+    } else if (condition instanceof CountCondition) {
+      return ((CountCondition) condition).getVar() != null;
+    } else if (condition instanceof ContextCountCondition) {
+      return ((ContextCountCondition) condition).getVar() != null;
+    } else if (condition instanceof CurrentCountCondition) {
+      return ((CurrentCountCondition) condition).getVar() != null;
+    } else if (condition instanceof TotalCountCondition) {
+      return ((TotalCountCondition) condition).getVar() != null;
+    } else if (condition instanceof SizeCondition) {
+      return ((SizeCondition) condition).getVarExpr() != null;
+    } else if (condition instanceof ScoreCondition) {
+      return ((ScoreCondition) condition).getVar() != null;
+    }
+    return false;
+  }
+
+  private boolean hasSharedEffects(AbstractRutaAction action) {
+    if (action instanceof ComposedAction) {
+      for (AbstractRutaAction each : ((ComposedAction) action).getActions()) {
+        if (hasSharedEffects(each)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    return action instanceof AssignAction || action instanceof AddAction
+            || action instanceof RemoveAction || action instanceof RemoveDuplicateAction
+            || action instanceof ClearAction || action instanceof GetAction
+            || action instanceof GetFeatureAction || action instanceof GetListAction
+            || action instanceof MatchedTextAction || action instanceof MergeAction
+            || action instanceof VariableAction || action instanceof ExecAction
+            || action instanceof CallAction || action instanceof ConfigureAction;
+  }
+
+  private boolean dependsOnOwnActions(List<RuleElement> ruleElements, RutaStream stream) {
+    List<Type> readTypes = new ArrayList<Type>();
+    List<Type> actionTypes = new ArrayList<Type>();
+    collectTypes(ruleElements, readTypes, actionTypes, stream);
+    TypeSystem typeSystem = stream.getCas().getTypeSystem();
+    for (Type actionType : actionTypes) {
+      for (Type readType : readTypes) {
+        if (typeSystem.subsumes(readType, actionType) || typeSystem.subsumes(actionType, readType)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private void collectTypes(List<RuleElement> ruleElements, List<Type> readTypes,
+          List<Type> actionTypes, RutaStream stream) {
+    for (RuleElement each : ruleElements) {
+      if (each instanceof RutaRuleElement) {
+        readTypes.addAll(((RutaRuleElement) each).getMatcher().getTypes(this, stream));
+      }
+      if (each.getConditions() != null) {
+        for (AbstractRutaCondition condition : each.getConditions()) {
+          collectConditionTypes(condition, readTypes, stream);
+        }
+      }
+      if (each.getActions() != null) {
+        for (AbstractRutaAction action : each.getActions()) {
+          collectActionTypes(action, actionTypes);
+        }
+      }
+      if (each instanceof ComposedRuleElement) {
+        collectTypes(((ComposedRuleElement) each).getRuleElements(), readTypes, actionTypes, stream);
+      }
+    }
+  }
+
+  private void collectConditionTypes(AbstractRutaCondition condition, List<Type> result,
+          RutaStream stream) {
+    if (condition instanceof ComposedRutaCondition) {
+      for (AbstractRutaCondition each : ((ComposedRutaCondition) condition).getConditions()) {
+        collectConditionTypes(each, result, stream);
+      }
+    } else if (condition instanceof TypeSentiveCondition) {
+      TypeSentiveCondition typeCondition = (TypeSentiveCondition) condition;
+      if (typeCondition.isWorkingOnList()) {
+        result.addAll(typeCondition.getList().getList(this, stream));
+      } else {
+        addType(typeCondition.getType(), result);
+      }
+    } else if (condition instanceof VoteCondition) {
+      addType(((VoteCondition) condition).getType1(), result);
+      addType(((VoteCondition) condition).getType2(), result);
+    }
+  }
+
+  private void collectActionTypes(AbstractRutaAction action, List<Type> result) {
+    if (action instanceof ComposedAction) {
+      for (AbstractRutaAction each : ((ComposedAction) action).getActions()) {
+        collectActionTypes(each, result);
+      }
+    } else if (action instanceof TypeSensitiveAction) {
+      addType(((TypeSensitiveAction) action).getType(), result);
+    } else if (action instanceof CreateAction) {
+      addType(((CreateAction) action).getStructureType(), result);
+    } else if (action instanceof FillAction) {
+      addType(((FillAction) action).getStructureType(), result);
+    } else if (action instanceof GatherAction) {
+      addType(((GatherAction) action).getStructureType(), result);
+    } else if (action instanceof MarkTableAction) {
+      addType(((MarkTableAction) action).getTypeExpr(), result);
+    }
+  }
+
+  private void addType(TypeExpression expression, List<Type> result) {
+    if (expression != null) {
+      Type type = expression.getType(this);
+      if (type != null) {
+        result.add(type);
+      }
+    }
+  }
+
+  private boolean hasInlinedRules(List<RuleElement> ruleElements) {
+    for (RuleElement each : ruleElements) {
+      if (each instanceof AbstractRuleElement) {
+        AbstractRuleElement element = (AbstractRuleElement) each;
+        if (element.getInlinedConditionRules() != null
+                && !element.getInlinedConditionRules().isEmpty()) {
+          return true;
+        }
+        if (element.getInlinedActionRules() != null
+                && !element.getInlinedActionRules().isEmpty()) {
+          return true;
+        }
+      }
+      if (each instanceof ComposedRuleElement
+              && hasInlinedRules(((ComposedRuleElement) each).getRuleElements())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @Override
   public String toString() {
     String ruleString = rule == null ? "Document" : rule.toString();
@@ -30,6 +30,7 @@ import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.CASException;
@@ -46,6 +47,7 @@ import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.ruta.engine.RutaEngine;
 import org.apache.uima.ruta.rule.AbstractRule;
 import org.apache.uima.ruta.rule.AbstractRuleMatch;
+import org.apache.uima.ruta.rule.CandidateBuffer;
 import org.apache.uima.ruta.type.RutaAnnotation;
 import org.apache.uima.ruta.type.RutaBasic;
 import org.apache.uima.ruta.visitor.InferenceCrowd;
@@ -88,6 +90,12 @@ public class RutaStream extends FSIteratorImplBase<AnnotationFS> {
 
   private boolean onlyOnce = false;
 
+  private CandidateBuffer candidateBuffer;
+
+  private FeatureValueIndex featureValueIndex;
+
+  private ExecutorService blockExecutor;
+
   public RutaStream(CAS cas, Type basicType, FilterManager filter, boolean lowMemoryProfile,
           boolean simpleGreedyForComposed, InferenceCrowd crowd) {
     super();
@@ -227,6 +235,62 @@ public class RutaStream extends FSIteratorImplBase<AnnotationFS> {
     }
   }
 
+  /**
+   * Creates the basics only for the window of this stream, e.g., for processing a long document
+   * window by window. The given annotations must contain all annotations of the CAS that overlap
+   * with the window. The basics of the window are added to the indexes and need to be released
+   * with {@link #releaseBasics()} before the next window is initialized.
+   */
+  public void initalizeBasics(Collection<AnnotationFS> annotations) {
+    int windowBegin = documentAnnotation.getBegin();
+    int windowEnd = documentAnnotation.getEnd();
+    TreeSet<Integer> anchors = new TreeSet<Integer>();
+    anchors.add(windowBegin);
+    anchors.add(windowEnd);
+    for (AnnotationFS a : annotations) {
+      if (a.getBegin() != a.getEnd()) {
+        anchors.add(Math.min(windowEnd, Math.max(windowBegin, a.getBegin())));
+        anchors.add(Math.min(windowEnd, Math.max(windowBegin, a.getEnd())));
+      }
+    }
+    if (anchors.size() == 1) {
+      Integer first = anchors.first();
+      RutaBasic newTMB = new RutaBasic(getJCas(), first, first);
+      newTMB.setLowMemoryProfile(lowMemoryProfile);
+      beginAnchors.put(first, newTMB);
+      endAnchors.put(first, newTMB);
+      cas.addFsToIndexes(newTMB);
+    } else {
+      Integer first = anchors.pollFirst();
+      for (Integer second : anchors) {
+        RutaBasic newTMB = new RutaBasic(getJCas(), first, second);
+        newTMB.setLowMemoryProfile(lowMemoryProfile);
+        beginAnchors.put(first, newTMB);
+        endAnchors.put(second, newTMB);
+        cas.addFsToIndexes(newTMB);
+        first = second;
+      }
+    }
+    for (AnnotationFS a : annotations) {
+      if (a.getBegin() != a.getEnd()) {
+        addAnnotation(a, false, false, null);
+      }
+    }
+    updateIterators(documentAnnotation);
+  }
+
+  /**
+   * Removes the basics of this stream from the indexes and releases their information.
+   */
+  public void releaseBasics() {
+    for (RutaBasic each : beginAnchors.values()) {
+      cas.removeFsFromIndexes(each);
+      each.release();
+    }
+    beginAnchors.clear();
+    endAnchors.clear();
+  }
+
   public void addAnnotation(AnnotationFS annotation, boolean addToIndex,
           AbstractRuleMatch<? extends AbstractRule> creator) {
     addAnnotation(annotation, addToIndex, true, creator);
@@ -262,6 +326,9 @@ public class RutaStream extends FSIteratorImplBase<AnnotationFS> {
     if (addToIndex) {
       cas.addFsToIndexes(annotation);
     }
+    if (featureValueIndex != null) {
+      featureValueIndex.add(annotation);
+    }
     crowd.annotationAdded(annotation, creator);
   }
 
@@ -349,6 +416,9 @@ public class RutaStream extends FSIteratorImplBase<AnnotationFS> {
     }
     if (!(annotation instanceof RutaBasic)) {
       cas.removeFsFromIndexes(annotation);
+      if (featureValueIndex != null) {
+        featureValueIndex.remove(annotation);
+      }
     }
 
   }
@@ -379,6 +449,8 @@ public class RutaStream extends FSIteratorImplBase<AnnotationFS> {
     stream.setDynamicAnchoring(dynamicAnchoring);
     stream.setGreedyRuleElement(greedyRuleElement);
     stream.setGreedyRule(greedyRule);
+    stream.setFeatureValueIndex(featureValueIndex);
+    stream.setBlockExecutor(blockExecutor);
     return stream;
   }
 
@@ -388,6 +460,8 @@ public class RutaStream extends FSIteratorImplBase<AnnotationFS> {
     stream.setDynamicAnchoring(dynamicAnchoring);
     stream.setGreedyRuleElement(greedyRuleElement);
     stream.setGreedyRule(greedyRule);
+    stream.setFeatureValueIndex(featureValueIndex);
+    stream.setBlockExecutor(blockExecutor);
     return stream;
   }
 
@@ -553,7 +627,8 @@ public class RutaStream extends FSIteratorImplBase<AnnotationFS> {
 
   public RutaBasic getBasicNextTo(boolean before, AnnotationFS annotation) {
     if (annotation == null) {
-      return beginAnchors.get(0);
+      // the first basic of the document or of the processed window
+      return beginAnchors.isEmpty() ? null : beginAnchors.firstEntry().getValue();
     }
     if (before) {
       RutaBasic pointer = beginAnchors.get(annotation.getBegin());
@@ -694,6 +769,58 @@ public class RutaStream extends FSIteratorImplBase<AnnotationFS> {
     return filter;
   }
 
+  /**
+   * @return the buffer for collecting the candidates of rule elements in this stream
+   */
+  public CandidateBuffer getCandidateBuffer() {
+    if (candidateBuffer == null) {
+      candidateBuffer = new CandidateBuffer();
+    }
+    return candidateBuffer;
+  }
+
+  /**
+   * @return the index of feature values or null, if feature values are not indexed
+   */
+  public FeatureValueIndex getFeatureValueIndex() {
+    return featureValueIndex;
+  }
+
+  public void setFeatureValueIndex(FeatureValueIndex featureValueIndex) {
+    this.featureValueIndex = featureValueIndex;
+  }
+
+  /**
+   * @return the executor for matching the rules of blocks on their windows concurrently or null,
+   *         if blocks are applied sequentially
+   */
+  public ExecutorService getBlockExecutor() {
+    return blockExecutor;
+  }
+
+  public void setBlockExecutor(ExecutorService blockExecutor) {
+    this.blockExecutor = blockExecutor;
+  }
+
+  /**
+   * Needs to be called if feature values of an annotation were modified after it was added.
+   */
+  public void featureValuesChanged(FeatureStructure fs) {
+    if (featureValueIndex != null && fs instanceof AnnotationFS) {
+      featureValueIndex.update((AnnotationFS) fs);
+    }
+  }
+
+  /**
+   * Needs to be called if feature values may have been modified directly in the CAS, e.g., by
+   * another analysis engine.
+   */
+  public void featureValuesChanged() {
+    if (featureValueIndex != null) {
+      featureValueIndex.clear();
+    }
+  }
+
   public RutaBasic getFirstBasicOfAll() {
     if (beginAnchors.isEmpty()) {
       return null;
@@ -855,7 +982,7 @@ public class RutaStream extends FSIteratorImplBase<AnnotationFS> {
   }
 
   public Collection<AnnotationFS> getAnnotations(Type type) {
-    Collection<AnnotationFS> result = new LinkedList<AnnotationFS>();
+    Collection<AnnotationFS> result = new ArrayList<AnnotationFS>();
     AnnotationFS windowAnnotation = filter.getWindowAnnotation();
     if (windowAnnotation != null
             && (windowAnnotation.getBegin() != cas.getDocumentAnnotation().getBegin() || windowAnnotation
@@ -193,6 +193,7 @@ public class CallAction extends AbstractRutaAction {
         }
       }
     }
+    stream.featureValuesChanged();
   }
 
   private void transform(FeatureStructure each, Map<Integer, Integer> new2oldBegin,
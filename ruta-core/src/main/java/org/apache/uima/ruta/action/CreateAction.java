@@ -76,6 +76,7 @@ public class CreateAction extends AbstractStructureAction {
       if (newFS instanceof TOP) {
         newStructure = (TOP) newFS;
         fillFeatures(newStructure, features, matchedAnnotation, element, stream);
+        stream.featureValuesChanged(newStructure);
         newStructure.addToIndexes();
       }
     }
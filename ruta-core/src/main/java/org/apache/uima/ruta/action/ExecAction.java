@@ -91,6 +91,7 @@ public class ExecAction extends CallAction {
       }
     }
     targetEngine.process(cas);
+    stream.featureValuesChanged();
 
     if (typeList != null && view == null) {
       List<Type> list = typeList.getList(element.getParent(), stream);
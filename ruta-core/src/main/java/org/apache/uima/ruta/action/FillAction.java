@@ -73,6 +73,7 @@ public class FillAction extends AbstractStructureAction {
         AnnotationFS annotationFS = list.get(0);
         stream.getCas().removeFsFromIndexes(annotationFS);
         fillFeatures((Annotation) annotationFS, features, matchedAnnotation, element, stream);
+        stream.featureValuesChanged(annotationFS);
         stream.getCas().addFsToIndexes(annotationFS);
       }
     }
@@ -88,6 +88,7 @@ public class GatherAction extends AbstractStructureAction {
       if (newFS instanceof TOP) {
         newStructure = (TOP) newFS;
         gatherFeatures(newStructure, features, matchedAnnotation, element, match, stream);
+        stream.featureValuesChanged(newStructure);
         newStructure.addToIndexes();
       }
     }
@@ -81,6 +81,7 @@ public class ImplicitFeatureAction extends AbstractRutaAction {
     IRutaExpression arg = expr.getArg();
     for (AnnotationFS each : featureAnnotations) {
       setFeatureValue(each, feature, arg, element, stream);
+      stream.featureValuesChanged(each);
     }
     for (AnnotationFS each : annotations) {
       stream.getCas().addFsToIndexes(each);
@@ -135,6 +135,7 @@ public class MarkTableAction extends AbstractRutaAction {
       if (newFS instanceof TOP) {
         newStructure = (TOP) newFS;
         fillFeatures(newStructure, map, annotationFS, element, rowWhere, stream);
+        stream.featureValuesChanged(newStructure);
         newStructure.addToIndexes();
       }
     }
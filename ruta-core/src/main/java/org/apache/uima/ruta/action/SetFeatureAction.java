@@ -127,6 +127,7 @@ public class SetFeatureAction extends AbstractRutaAction {
             annotationFS.setFeatureValue(feature, annotation);
           }
         }
+        stream.featureValuesChanged(annotationFS);
         stream.getCas().addFsToIndexes(annotationFS);
       } else {
         throw new IllegalArgumentException("Not able to assign feature value (e.g., coveredText).");
@@ -28,10 +28,22 @@ import org.apache.uima.ruta.visitor.InferenceCrowd;
 
 public abstract class AbstractRutaCondition extends RutaElement {
 
+  private final EvaluatedCondition evaluatedTrue = new EvaluatedCondition(this, true);
+
+  private final EvaluatedCondition evaluatedFalse = new EvaluatedCondition(this, false);
+
   public AbstractRutaCondition() {
     super();
   }
 
+  /**
+   * Returns the shared result of this condition without nested conditions. The result is
+   * immutable, thus, it does not need to be allocated for each evaluation.
+   */
+  protected EvaluatedCondition evaluated(boolean value) {
+    return value ? evaluatedTrue : evaluatedFalse;
+  }
+
   public abstract EvaluatedCondition eval(AnnotationFS annotation, RuleElement element,
           RutaStream stream, InferenceCrowd crowd);
 
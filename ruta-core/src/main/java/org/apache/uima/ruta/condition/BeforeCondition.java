@@ -47,7 +47,7 @@ public class BeforeCondition extends TypeSentiveCondition {
     if (!isWorkingOnList()) {
       Type t = type.getType(element.getParent());
       boolean result = check(annotation, stream, t);
-      return new EvaluatedCondition(this, result);
+      return evaluated(result);
     } else {
       boolean result = false;
       List<Type> types = getList().getList(element.getParent(), stream);
@@ -57,7 +57,7 @@ public class BeforeCondition extends TypeSentiveCondition {
           break;
         }
       }
-      return new EvaluatedCondition(this, result);
+      return evaluated(result);
     }
   }
 
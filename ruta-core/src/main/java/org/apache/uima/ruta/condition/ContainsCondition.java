@@ -137,11 +137,11 @@ public class ContainsCondition extends TypeSentiveCondition {
       }
       boolean value = percentValue >= min.getDoubleValue(element.getParent(), annotation, stream)
               && percentValue <= max.getDoubleValue(element.getParent(), annotation, stream);
-      return new EvaluatedCondition(this, value);
+      return evaluated(value);
     } else {
       boolean value = anchorCount >= min.getIntegerValue(element.getParent(), annotation, stream)
               && anchorCount <= max.getIntegerValue(element.getParent(), annotation, stream);
-      return new EvaluatedCondition(this, value);
+      return evaluated(value);
     }
   }
 
@@ -102,7 +102,7 @@ public class ContextCountCondition extends TypeSentiveCondition {
       }
     }
 
-    return new EvaluatedCondition(this, result);
+    return evaluated(result);
   }
 
   public INumberExpression getMin() {
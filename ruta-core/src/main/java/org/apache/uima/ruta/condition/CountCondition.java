@@ -81,7 +81,7 @@ public class CountCondition extends TypeSentiveCondition {
       }
       boolean value = count >= min.getIntegerValue(element.getParent(), annotation, stream)
               && count <= max.getIntegerValue(element.getParent(), annotation, stream);
-      return new EvaluatedCondition(this, value);
+      return evaluated(value);
     } else {
       int count = 0;
       if (arg instanceof IBooleanExpression && list instanceof BooleanListExpression) {
@@ -122,7 +122,7 @@ public class CountCondition extends TypeSentiveCondition {
       }
       boolean value = count >= min.getIntegerValue(element.getParent(), annotation, stream)
               && count <= max.getIntegerValue(element.getParent(), annotation, stream);
-      return new EvaluatedCondition(this, value);
+      return evaluated(value);
     }
   }
 
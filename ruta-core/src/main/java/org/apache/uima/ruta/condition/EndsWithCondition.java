@@ -47,7 +47,7 @@ public class EndsWithCondition extends TypeSentiveCondition {
     if (!isWorkingOnList()) {
       Type givenType = type.getType(element.getParent());
       boolean result = check(stream, annotation, givenType);
-      return new EvaluatedCondition(this, result);
+      return evaluated(result);
     } else {
       boolean result = false;
       List<Type> types = getList().getList(element.getParent(), stream);
@@ -57,7 +57,7 @@ public class EndsWithCondition extends TypeSentiveCondition {
           break;
         }
       }
-      return new EvaluatedCondition(this, result);
+      return evaluated(result);
     }
   }
 
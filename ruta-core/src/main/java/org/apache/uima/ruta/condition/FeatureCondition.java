@@ -54,9 +54,9 @@ public class FeatureCondition extends AbstractRutaCondition {
     if(featureExpression instanceof FeatureMatchExpression) {
       FeatureMatchExpression fme = (FeatureMatchExpression) featureExpression;
       boolean checkFeatureValue = fme.checkFeatureValue(annotation, stream, parent);
-      return new EvaluatedCondition(this, checkFeatureValue);
+      return evaluated(checkFeatureValue);
     }
-    return new EvaluatedCondition(this, false);
+    return evaluated(false);
   }
 
   public IStringExpression getFeatureStringExpression() {
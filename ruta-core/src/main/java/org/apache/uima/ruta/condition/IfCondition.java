@@ -38,7 +38,7 @@ public class IfCondition extends AbstractRutaCondition {
   @Override
   public EvaluatedCondition eval(AnnotationFS annotation, RuleElement element, RutaStream stream,
           InferenceCrowd crowd) {
-    return new EvaluatedCondition(this, expression.getBooleanValue(element.getParent(), annotation,
+    return evaluated(expression.getBooleanValue(element.getParent(), annotation,
             stream));
   }
 
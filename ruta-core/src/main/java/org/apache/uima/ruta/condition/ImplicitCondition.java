@@ -50,7 +50,7 @@ public class ImplicitCondition extends AbstractRutaCondition {
           InferenceCrowd crowd) {
     if (expr instanceof IBooleanExpression) {
       IBooleanExpression be = (IBooleanExpression) expr;
-      return new EvaluatedCondition(this, be.getBooleanValue(element.getParent(), annotation, stream));
+      return evaluated(be.getBooleanValue(element.getParent(), annotation, stream));
     } else if (expr instanceof FeatureMatchExpression) {
       FeatureMatchExpression fme = (FeatureMatchExpression) expr;
       TypeExpression typeExpr = fme.getTypeExpr(element.getParent());
@@ -58,9 +58,9 @@ public class ImplicitCondition extends AbstractRutaCondition {
       List<AnnotationFS> annotations = getAnnotationsToCheck(annotation, type, fme, stream);
       Collection<AnnotationFS> featureAnnotations = fme.getFeatureAnnotations(annotations, stream,
               element.getParent(), true);
-      return new EvaluatedCondition(this, !featureAnnotations.isEmpty());
+      return evaluated(!featureAnnotations.isEmpty());
     }
-    return new EvaluatedCondition(this, false);
+    return evaluated(false);
   }
 
   private List<AnnotationFS> getAnnotationsToCheck(AnnotationFS annotation, Type type,
@@ -59,15 +59,15 @@ public class InListCondition extends TerminalRutaCondition {
       text = arg.getStringValue(element.getParent(), annotation, stream);
     }
     if(text == null) {
-      return new EvaluatedCondition(this, false);
+      return evaluated(false);
     }
     if (stringList == null) {
       RutaWordList wordList = listExpr.getList(element.getParent());
-      return new EvaluatedCondition(this, wordList.contains(text, false, 0, null, 0, true));
+      return evaluated(wordList.contains(text, false, 0, null, 0, true));
     }
     List<String> sList = stringList.getList(element.getParent(), stream);
     boolean contains = sList.contains(text);
-    return new EvaluatedCondition(this, contains);
+    return evaluated(contains);
   }
 
   public WordListExpression getListExpression() {
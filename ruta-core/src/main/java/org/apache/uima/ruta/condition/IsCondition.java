@@ -58,7 +58,7 @@ public class IsCondition extends TypeSentiveCondition {
           }
         }
       }
-      return new EvaluatedCondition(this, result);
+      return evaluated(result);
     } else {
       boolean result = false;
       List<Type> types = getList().getList(element.getParent(), stream);
@@ -73,7 +73,7 @@ public class IsCondition extends TypeSentiveCondition {
           }
         }
       }
-      return new EvaluatedCondition(this, result);
+      return evaluated(result);
     }
   }
 
@@ -40,7 +40,7 @@ public class LastCondition extends TypeSentiveCondition {
     RutaBasic endAnchor = stream.getEndAnchor(annotation.getEnd());
     Type t = type.getType(element.getParent());
     boolean result = endAnchor.beginsWith(t) && endAnchor.endsWith(t);
-    return new EvaluatedCondition(this, result);
+    return evaluated(result);
   }
 
 }
@@ -75,7 +75,7 @@ public class NearCondition extends TypeSentiveCondition {
         if (featureStructure instanceof RutaBasic) {
           RutaBasic each = (RutaBasic) featureStructure;
           if (each.isPartOf(type.getType(element.getParent()))) {
-            return new EvaluatedCondition(this, true);
+            return evaluated(true);
           }
         }
       }
@@ -86,7 +86,7 @@ public class NearCondition extends TypeSentiveCondition {
       }
       count++;
     }
-    return new EvaluatedCondition(this, false);
+    return evaluated(false);
   }
 
   public INumberExpression getMin() {
@@ -67,30 +67,30 @@ public class ParseCondition extends AbstractRutaCondition {
       if (Integer.class.equals(type)) {
         Number parse = nf.parse(text);
         env.setVariableValue(var, parse.intValue());
-        return new EvaluatedCondition(this, true);
+        return evaluated(true);
       } else if (Double.class.equals(type)) {
         Number parse = nf.parse(text);
         env.setVariableValue(var, parse.doubleValue());
-        return new EvaluatedCondition(this, true);
+        return evaluated(true);
       } else if (Float.class.equals(type)) {
         Number parse = nf.parse(text);
         env.setVariableValue(var, parse.floatValue());
-        return new EvaluatedCondition(this, true);
+        return evaluated(true);
       } else if (String.class.equals(type)) {
         env.setVariableValue(var, text);
-        return new EvaluatedCondition(this, true);
+        return evaluated(true);
       } else if (Boolean.class.equals(type)) {
         env.setVariableValue(var, Boolean.valueOf(text));
-        return new EvaluatedCondition(this, true);
+        return evaluated(true);
       } else if (Type.class.equals(type)) {
         Type value = stream.getCas().getTypeSystem().getType(text);
         env.setVariableValue(var, value);
-        return new EvaluatedCondition(this, true);
+        return evaluated(true);
       } else {
-        return new EvaluatedCondition(this, false);
+        return evaluated(false);
       }
     } catch (Exception e) {
-      return new EvaluatedCondition(this, false);
+      return evaluated(false);
     }
   }
 
@@ -48,7 +48,7 @@ public class PartOfCondition extends TypeSentiveCondition {
     if (!isWorkingOnList()) {
       Type t = type.getType(element.getParent());
       boolean result = check(t, annotation, element, stream);
-      return new EvaluatedCondition(this, result);
+      return evaluated(result);
     } else {
       boolean result = false;
       List<Type> types = getList().getList(element.getParent(), stream);
@@ -58,7 +58,7 @@ public class PartOfCondition extends TypeSentiveCondition {
           break;
         }
       }
-      return new EvaluatedCondition(this, result);
+      return evaluated(result);
     }
   }
 
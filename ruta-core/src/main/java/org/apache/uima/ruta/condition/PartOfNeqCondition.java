@@ -48,7 +48,7 @@ public class PartOfNeqCondition extends TypeSentiveCondition {
     if (!isWorkingOnList()) {
       Type t = type.getType(element.getParent());
       boolean result = check(annotation, stream, t);
-      return new EvaluatedCondition(this, result);
+      return evaluated(result);
     } else {
       boolean result = false;
       List<Type> types = getList().getList(element.getParent(), stream);
@@ -58,7 +58,7 @@ public class PartOfNeqCondition extends TypeSentiveCondition {
           break;
         }
       }
-      return new EvaluatedCondition(this, result);
+      return evaluated(result);
     }
   }
 
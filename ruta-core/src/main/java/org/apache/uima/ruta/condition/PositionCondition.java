@@ -57,7 +57,7 @@ public class PositionCondition extends TypeSentiveCondition {
     RutaBasic endAnchor = stream.getEndAnchor(annotation.getEnd());
     if (beginAnchor == null || endAnchor == null || !beginAnchor.isPartOf(t)
             || !endAnchor.isPartOf(t)) {
-      return new EvaluatedCondition(this, false);
+      return evaluated(false);
     }
 
     boolean relatively = relative == null ? true : relative.getBooleanValue(element.getParent(),
@@ -90,7 +90,7 @@ public class PositionCondition extends TypeSentiveCondition {
     }
 
     if (window == null) {
-      return new EvaluatedCondition(this, false);
+      return evaluated(false);
     }
     int integerValue = position.getIntegerValue(element.getParent(), annotation, stream);
     if (relatively) {
@@ -101,16 +101,16 @@ public class PositionCondition extends TypeSentiveCondition {
           counter++;
           if (counter == integerValue) {
             if (each.getBegin() == beginAnchor.getBegin()) {
-              return new EvaluatedCondition(this, true);
+              return evaluated(true);
             } else {
-              return new EvaluatedCondition(this, false);
+              return evaluated(false);
             }
           } else if (counter > integerValue) {
-            return new EvaluatedCondition(this, false);
+            return evaluated(false);
           }
         }
       }
-      return new EvaluatedCondition(this, false);
+      return evaluated(false);
     } else {
       int counter = 0;
       List<RutaBasic> inWindow = stream.getBasicsInWindow(window);
@@ -118,12 +118,12 @@ public class PositionCondition extends TypeSentiveCondition {
         counter++;
         boolean beginsWith = beginsWith(each, targetTypes);
         if (each.getBegin() == beginAnchor.getBegin() && beginsWith && counter == integerValue) {
-          return new EvaluatedCondition(this, true);
+          return evaluated(true);
         } else if (counter > integerValue) {
-          return new EvaluatedCondition(this, false);
+          return evaluated(false);
         }
       }
-      return new EvaluatedCondition(this, false);
+      return evaluated(false);
     }
   }
 
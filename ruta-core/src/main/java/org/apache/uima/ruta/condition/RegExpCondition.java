@@ -68,7 +68,7 @@ public class RegExpCondition extends TerminalRutaCondition {
     } else {
       String variableValue = variable.getStringValue(element.getParent(), annotation, stream);
       if(variableValue == null) {
-        return new EvaluatedCondition(this, false);
+        return evaluated(false);
       }
       Pattern regularExpPattern = null;
       if (ignore) {
@@ -79,7 +79,7 @@ public class RegExpCondition extends TerminalRutaCondition {
       matcher = regularExpPattern.matcher(variableValue);
     }
     boolean matches = matcher.matches();
-    return new EvaluatedCondition(this, matches);
+    return evaluated(matches);
   }
 
   public IStringExpression getPattern() {
@@ -65,7 +65,7 @@ public class ScoreCondition extends TerminalRutaCondition {
     }
     boolean value = score >= min.getDoubleValue(element.getParent(), annotation, stream)
             && score <= max.getDoubleValue(element.getParent(), annotation, stream);
-    return new EvaluatedCondition(this, value);
+    return evaluated(value);
   }
 
   public INumberExpression getMin() {
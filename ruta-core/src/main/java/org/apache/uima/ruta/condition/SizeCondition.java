@@ -56,7 +56,7 @@ public class SizeCondition extends AbstractRutaCondition {
     if (varExpr != null) {
       element.getParent().getEnvironment().setVariableValue(varExpr, count);
     }
-    return new EvaluatedCondition(this, value);
+    return evaluated(value);
   }
 
   public ListExpression<?> getListExpr() {
@@ -49,19 +49,19 @@ public class StartsWithCondition extends TypeSentiveCondition {
     if (!isWorkingOnList()) {
       Type t = type.getType(element.getParent());
       boolean result = check(annotation, t, stream);
-      return new EvaluatedCondition(this, result);
+      return evaluated(result);
     } else {
       boolean result = false;
       List<Type> types = getList().getList(element.getParent(), stream);
       for (Type t : types) {
         result |= check(annotation, t, stream);
         if (result == true) {
-          return new EvaluatedCondition(this, result);
+          return evaluated(result);
         }
       }
     }
     boolean result = false;
-    return new EvaluatedCondition(this, result);
+    return evaluated(result);
   }
 
   private boolean check(AnnotationFS annotation, Type t, RutaStream stream) {
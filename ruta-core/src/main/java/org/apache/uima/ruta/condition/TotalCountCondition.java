@@ -60,7 +60,7 @@ public class TotalCountCondition extends TypeSentiveCondition {
     }
     boolean value = count >= min.getIntegerValue(element.getParent(), annotation, stream)
             && count <= max.getIntegerValue(element.getParent(), annotation, stream);
-    return new EvaluatedCondition(this, value);
+    return evaluated(value);
   }
 
   public INumberExpression getMin() {
@@ -62,7 +62,7 @@ public class VoteCondition extends TerminalRutaCondition {
         }
       }
     }
-    return new EvaluatedCondition(this, count1 > count2);
+    return evaluated(count1 > count2);
   }
 
   public TypeExpression getType1() {
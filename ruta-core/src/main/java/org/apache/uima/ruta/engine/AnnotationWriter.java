@@ -33,7 +33,7 @@ import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.resource.ResourceInitializationException;
-import org.apache.uima.util.FileUtils;
+import org.apache.uima.util.Level;
 
 /**
  * This Analysis Engine can be utilized to write the covered text of annotations in a text file,
@@ -78,8 +78,37 @@ public class AnnotationWriter extends JCasAnnotator_ImplBase {
   @ConfigurationParameter(name = PARAM_TYPE, mandatory = false, defaultValue = ">uima.tcas.DocumentAnnotation")
   private String type;
 
+  /**
+   * This parameter specifies the amount of threads, which write the files to the disk in the
+   * background. The default value is 0: the file is written before the next CAS is processed.
+   */
+  public static final String PARAM_WRITER_THREADS = XMIWriter.PARAM_WRITER_THREADS;
+
+  @ConfigurationParameter(name = PARAM_WRITER_THREADS, mandatory = false, defaultValue = "0")
+  private Integer writerThreads;
+
+  /**
+   * This parameter specifies the maximal amount of files waiting for a writer thread. If the queue
+   * is full, the file is written immediately. The default value is 16.
+   */
+  public static final String PARAM_WRITER_QUEUE_SIZE = XMIWriter.PARAM_WRITER_QUEUE_SIZE;
+
+  @ConfigurationParameter(name = PARAM_WRITER_QUEUE_SIZE, mandatory = false, defaultValue = "16")
+  private Integer writerQueueSize;
+
+  /**
+   * If this boolean parameter is set to true, then each file is forced to the storage device
+   * before it is considered as written. The default value is false.
+   */
+  public static final String PARAM_FSYNC = XMIWriter.PARAM_FSYNC;
+
+  @ConfigurationParameter(name = PARAM_FSYNC, mandatory = false, defaultValue = "false")
+  private Boolean fsync;
+
   private UimaContext context;
 
+  private BackgroundFileWriter writer;
+
   @Override
   public void initialize(UimaContext aContext) throws ResourceInitializationException {
     super.initialize(aContext);
@@ -90,8 +119,43 @@ public class AnnotationWriter extends JCasAnnotator_ImplBase {
       output = (String) aContext.getConfigParameterValue(PARAM_OUTPUT);
       type = (String) aContext.getConfigParameterValue(PARAM_TYPE);
       encoding = (String) aContext.getConfigParameterValue(PARAM_ENCODING);
+      writerThreads = (Integer) aContext.getConfigParameterValue(PARAM_WRITER_THREADS);
+      writerQueueSize = (Integer) aContext.getConfigParameterValue(PARAM_WRITER_QUEUE_SIZE);
+      fsync = (Boolean) aContext.getConfigParameterValue(PARAM_FSYNC);
       this.context = aContext;
     }
+    writerThreads = writerThreads == null ? 0 : writerThreads;
+    writerQueueSize = writerQueueSize == null ? 16 : writerQueueSize;
+    fsync = fsync == null ? false : fsync;
+    closeWriter();
+    writer = new BackgroundFileWriter(writerThreads, writerQueueSize, fsync);
+  }
+
+  @Override
+  public void collectionProcessComplete() throws AnalysisEngineProcessException {
+    super.collectionProcessComplete();
+    try {
+      writer.flush();
+    } catch (IOException e) {
+      throw new AnalysisEngineProcessException(e);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    closeWriter();
+    super.destroy();
+  }
+
+  private void closeWriter() {
+    if (writer != null) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        getContext().getLogger().log(Level.SEVERE, e.getMessage(), e);
+      }
+      writer = null;
+    }
   }
 
   @Override
@@ -128,7 +192,7 @@ public class AnnotationWriter extends JCasAnnotator_ImplBase {
 
     }
     try {
-      FileUtils.saveString2File(newDocument.toString(), file, encoding);
+      writer.write(file, newDocument.toString().getBytes(encoding));
     } catch (IOException e) {
       throw new AnalysisEngineProcessException(e);
     }
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.engine;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes the content of files, which was already serialized by an analysis engine, to the disk.
+ * If threads are configured, the files are written in the background and the analysis engine can
+ * continue with the next CAS. The queue of pending files is bounded: if it is full, the file is
+ * written by the calling thread. If no threads are configured, all files are written immediately.
+ * <p>
+ * A failed write is reported by the next call of {@link #write(File, byte[])} or
+ * {@link #flush()}. Writes to the same file are not ordered if several threads are used.
+ */
+public class BackgroundFileWriter {
+
+  private final ThreadPoolExecutor executor;
+
+  private final boolean fsync;
+
+  private final Object lock = new Object();
+
+  private int pending = 0;
+
+  private IOException failure;
+
+  /**
+   * @param threads
+   *          the amount of background threads, 0 writes the files synchronously
+   * @param queueSize
+   *          the maximal amount of files waiting for a background thread
+   * @param fsync
+   *          forces the content of each file to the storage device before it is considered as
+   *          written
+   */
+  public BackgroundFileWriter(int threads, int queueSize, boolean fsync) {
+    super();
+    this.fsync = fsync;
+    if (threads > 0) {
+      executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+              new ArrayBlockingQueue<Runnable>(Math.max(1, queueSize)), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                public Thread newThread(Runnable r) {
+                  Thread thread = new Thread(r, "RutaFileWriter-" + count.incrementAndGet());
+                  thread.setDaemon(true);
+                  return thread;
+                }
+              }, new ThreadPoolExecutor.CallerRunsPolicy());
+    } else {
+      executor = null;
+    }
+  }
+
+  public void write(final File file, final byte[] content) throws IOException {
+    checkFailure();
+    if (executor == null) {
+      writeFile(file, content, fsync);
+      return;
+    }
+    synchronized (lock) {
+      pending++;
+    }
+    executor.execute(new Runnable() {
+      public void run() {
+        IOException exception = null;
+        try {
+          writeFile(file, content, fsync);
+        } catch (IOException e) {
+          exception = e;
+        } finally {
+          synchronized (lock) {
+            if (failure == null) {
+              failure = exception;
+            }
+            pending--;
+            lock.notifyAll();
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Waits until all pending files are written.
+   */
+  public void flush() throws IOException {
+    synchronized (lock) {
+      while (pending > 0) {
+        try {
+          lock.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted while waiting for pending files", e);
+        }
+      }
+    }
+    checkFailure();
+  }
+
+  /**
+   * Writes all pending files and stops the background threads.
+   */
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      if (executor != null) {
+        executor.shutdown();
+      }
+    }
+  }
+
+  private void checkFailure() throws IOException {
+    IOException exception;
+    synchronized (lock) {
+      exception = failure;
+      failure = null;
+    }
+    if (exception != null) {
+      throw exception;
+    }
+  }
+
+  private static void writeFile(File file, byte[] content, boolean fsync) throws IOException {
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      FileChannel channel = out.getChannel();
+      ByteBuffer buffer = ByteBuffer.wrap(content);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      if (fsync) {
+        channel.force(true);
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+}
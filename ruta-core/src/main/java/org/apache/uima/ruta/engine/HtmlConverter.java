@@ -227,7 +227,7 @@ public class HtmlConverter extends JCasAnnotator_ImplBase {
   @ConfigurationParameter(name = PARAM_CONVERSION_REPLACEMENTS, mandatory = false)
   private String[] conversionReplacements;
 
-  private int[] map;
+  private OffsetMapping map;
 
   @Override
   public void initialize(UimaContext aContext) throws ResourceInitializationException {
@@ -316,7 +316,6 @@ public class HtmlConverter extends JCasAnnotator_ImplBase {
     // init:
     String documentText = jcas.getDocumentText();
     String splitSeq = documentText.contains("\r\n") ? "\r\n" : "\n";
-    map = new int[documentText.length() + 1];
     JCas modview = null;
     try {
       // check if view already exists:
@@ -369,43 +368,32 @@ public class HtmlConverter extends JCasAnnotator_ImplBase {
     visibleSpansSoFar.addAll(gapsFromHtmlTags);
 
     // create new doc-text and the map from deletions and visible-text-spans:
-    StringBuffer sbu = new StringBuffer(documentText.length());
-    int originalOffsetI = 0;
-    int outOffset = 0;
+    StringBuilder sbu = new StringBuilder(documentText.length());
+    map = new OffsetMapping();
     for (HtmlConverterPSpan vis : visibleSpansSoFar) {
       final int begin = vis.getBegin();
       final int end = vis.getEnd();
 
       // map text before annotation:
-      while (originalOffsetI < begin) {
-        map[originalOffsetI++] = outOffset;
-      }
+      map.delete(begin);
 
       // get and map text/replacement:
-      String s = "";
       if (vis instanceof HtmlConverterPSpanReplacement) {
         // conversion/replacement:
-        s = vis.getTxt();
+        String s = vis.getTxt();
         // asserts that s is shorter than the original source
-        while (originalOffsetI < begin + s.length()) {
-          map[originalOffsetI++] = outOffset++;
-        }
-        while (originalOffsetI < end) {
-          map[originalOffsetI++] = outOffset;
-        }
+        map.keep(begin + s.length());
+        map.delete(end);
+        sbu.append(s);
       } else {
-        // simple annotation:
-        s = documentText.substring(begin, end);
-        while (originalOffsetI < end) {
-          map[originalOffsetI++] = outOffset++;
-        }
+        // simple annotation, appended without a substring:
+        map.keep(end);
+        sbu.append(documentText, begin, end);
       }
-      sbu.append(s);
-    }
-    while (originalOffsetI < documentText.length()) {
-      map[originalOffsetI++] = outOffset;
     }
-    map[documentText.length()] = outOffset + 1; // handle doc end separately
+    map.delete(documentText.length());
+    // handle doc end separately
+    map.setEnd(documentText.length(), map.getTarget() + 1);
     String modTxt = sbu.toString();
     modview.setDocumentText(modTxt);
 
@@ -417,7 +405,7 @@ public class HtmlConverter extends JCasAnnotator_ImplBase {
     }
   }
 
-  private void mapAnnotations(JCas fromJcas, int[] map, String toView) throws CASException {
+  private void mapAnnotations(JCas fromJcas, OffsetMapping map, String toView) throws CASException {
     JCas modview = fromJcas.getView(toView);
 
     Set<Annotation> indexedFs = new HashSet<Annotation>();
@@ -436,8 +424,8 @@ public class HtmlConverter extends JCasAnnotator_ImplBase {
       // see: http://osdir.com/ml/apache.uima.general/2007-09/msg00107.html
       clone.setFeatureValue(modview.getTypeSystem()
               .getFeatureByFullName(CAS.FEATURE_FULL_NAME_SOFA), modview.getSofa());
-      final int mappedBegin = map[clone.getBegin()];
-      final int mappedEnd = map[clone.getEnd()];
+      final int mappedBegin = map.map(clone.getBegin());
+      final int mappedEnd = map.map(clone.getEnd());
       if (mappedBegin < mappedEnd) {
         if (mappedEnd > fromJcas.getCas().getDocumentAnnotation().getEnd()) {
           getContext().getLogger().log(Level.WARNING, "illegal annotation offset mapping");
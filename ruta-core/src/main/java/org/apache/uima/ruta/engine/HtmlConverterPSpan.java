@@ -86,6 +86,9 @@ public class HtmlConverterPSpan implements Comparable<HtmlConverterPSpan> {
 
   @Override
   public String toString() {
+    if (txt == null) {
+      return String.format("[%d-%d]", begin, end);
+    }
     String shortTxt = this.txt.length() > 100 ? this.txt.substring(0, 100) + "..." : this.txt;
     return String.format("[%d-%d : %s]", begin, end, shortTxt);
   }
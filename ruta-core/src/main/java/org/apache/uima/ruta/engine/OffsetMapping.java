@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.engine;
+
+import java.util.Arrays;
+
+/**
+ * Mapping of the offsets of an original document to the offsets of a modified document, which
+ * only keeps or deletes parts of the original text. The mapping is stored as a list of segments:
+ * a kept segment maps the original offsets to consecutive target offsets, a deleted segment maps
+ * all its offsets to the same target offset. Adjacent segments of the same kind are merged, thus
+ * the memory depends on the amount of changes and not on the length of the document.
+ * <p>
+ * The mapping is created from the beginning to the end of the original document by calling
+ * {@link #keep(int)} and {@link #delete(int)}.
+ */
+public class OffsetMapping {
+
+  private int[] offsets = new int[16];
+
+  private int[] targets = new int[16];
+
+  private boolean[] kept = new boolean[16];
+
+  private int size = 0;
+
+  private int offset = 0;
+
+  private int target = 0;
+
+  private int endOffset = -1;
+
+  private int endTarget = -1;
+
+  /**
+   * Maps the original offsets from the current offset up to the given end to consecutive target
+   * offsets.
+   */
+  public void keep(int end) {
+    if (end <= offset) {
+      return;
+    }
+    addSegment(true);
+    target += end - offset;
+    offset = end;
+  }
+
+  /**
+   * Maps the original offsets from the current offset up to the given end to the current target
+   * offset.
+   */
+  public void delete(int end) {
+    if (end <= offset) {
+      return;
+    }
+    addSegment(false);
+    offset = end;
+  }
+
+  /**
+   * Maps the given original offset, normally the end of the document, to the given target offset
+   * regardless of the segments.
+   */
+  public void setEnd(int end, int endTarget) {
+    this.endOffset = end;
+    this.endTarget = endTarget;
+  }
+
+  /**
+   * @return the next original offset, which is not yet mapped
+   */
+  public int getOffset() {
+    return offset;
+  }
+
+  /**
+   * @return the target offset of the next original offset
+   */
+  public int getTarget() {
+    return target;
+  }
+
+  /**
+   * @return the amount of segments
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return the target offset of the given original offset
+   */
+  public int map(int original) {
+    if (original == endOffset) {
+      return endTarget;
+    }
+    if (original >= offset) {
+      return target;
+    }
+    int index = Arrays.binarySearch(offsets, 0, size, original);
+    if (index < 0) {
+      index = -index - 2;
+    }
+    if (index < 0) {
+      return 0;
+    }
+    if (kept[index]) {
+      return targets[index] + original - offsets[index];
+    }
+    return targets[index];
+  }
+
+  private void addSegment(boolean keep) {
+    if (size > 0 && kept[size - 1] == keep) {
+      // continues the last segment
+      return;
+    }
+    if (size == offsets.length) {
+      int length = size * 2;
+      offsets = Arrays.copyOf(offsets, length);
+      targets = Arrays.copyOf(targets, length);
+      kept = Arrays.copyOf(kept, length);
+    }
+    offsets[size] = offset;
+    targets[size] = target;
+    kept[size] = keep;
+    size++;
+  }
+
+}
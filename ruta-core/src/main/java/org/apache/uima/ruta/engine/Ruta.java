@@ -19,6 +19,7 @@
 
 package org.apache.uima.ruta.engine;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -27,8 +28,10 @@ import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.uima.UIMAFramework;
@@ -37,11 +40,13 @@ import org.apache.uima.analysis_engine.AnalysisEngineDescription;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.analysis_engine.metadata.AnalysisEngineMetaData;
 import org.apache.uima.cas.CAS;
+import org.apache.uima.fit.factory.AggregateBuilder;
 import org.apache.uima.resource.ResourceConfigurationException;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.resource.ResourceSpecifier;
 import org.apache.uima.resource.metadata.ConfigurationParameterSettings;
 import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.ruta.extensions.RutaParseRuntimeException;
 import org.apache.uima.util.CasCreationUtils;
 import org.apache.uima.util.FileUtils;
 import org.apache.uima.util.InvalidXMLException;
@@ -49,29 +54,179 @@ import org.apache.uima.util.XMLInputSource;
 
 public class Ruta {
 
+  /**
+   * Maximum amount of engines that are kept for repeated calls of
+   * {@link #apply(CAS, String, Map)}.
+   */
+  public static final int MAX_CACHED_ENGINES = 16;
+
+  /**
+   * An engine of the cache, which is only used and destroyed while holding its monitor.
+   */
+  private static class CachedEngine {
+
+    private final AnalysisEngine ae;
+
+    private boolean destroyed = false;
+
+    private CachedEngine(AnalysisEngine ae) {
+      super();
+      this.ae = ae;
+    }
+
+    /**
+     * Destroys the engine after another thread finished processing a CAS with it.
+     */
+    private synchronized void destroy() {
+      if (!destroyed) {
+        destroyed = true;
+        ae.destroy();
+      }
+    }
+  }
+
+  // engines removed from the cache, destroyed after the lock of the cache is released
+  private static final List<CachedEngine> EVICTED_ENGINES = new ArrayList<CachedEngine>();
+
+  private static final Map<String, CachedEngine> ENGINE_CACHE = new LinkedHashMap<String, CachedEngine>(
+          MAX_CACHED_ENGINES, 0.75f, true) {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, CachedEngine> eldest) {
+      if (size() > MAX_CACHED_ENGINES) {
+        EVICTED_ENGINES.add(eldest.getValue());
+        return true;
+      }
+      return false;
+    }
+  };
+
+  /**
+   * Applies the given rules on the CAS. The rules are passed to the analysis engine with the
+   * parameter {@link RutaEngine#PARAM_RULES}. The engine is cached for the combination of script,
+   * view and parameters, and reused if this method is called again with the same arguments.
+   */
   public static void apply(CAS cas, String script, Map<String, Object> parameters)
           throws IOException, InvalidXMLException, ResourceInitializationException,
           ResourceConfigurationException, AnalysisEngineProcessException, URISyntaxException {
     String viewName = cas.getViewName();
-    URL aedesc = RutaEngine.class.getResource("BasicEngine.xml");
-    AnalysisEngine ae = wrapAnalysisEngine(aedesc, viewName);
+    String key = getCacheKey(script, viewName, parameters);
+    while (true) {
+      CachedEngine cached = null;
+      synchronized (ENGINE_CACHE) {
+        cached = ENGINE_CACHE.get(key);
+      }
+      if (cached == null) {
+        CachedEngine created = new CachedEngine(createEngine(script, viewName, parameters));
+        List<CachedEngine> evicted = null;
+        synchronized (ENGINE_CACHE) {
+          cached = ENGINE_CACHE.get(key);
+          if (cached == null) {
+            ENGINE_CACHE.put(key, created);
+            cached = created;
+          }
+          evicted = new ArrayList<CachedEngine>(EVICTED_ENGINES);
+          EVICTED_ENGINES.clear();
+        }
+        if (cached != created) {
+          created.destroy();
+        }
+        for (CachedEngine each : evicted) {
+          each.destroy();
+        }
+      }
+      synchronized (cached) {
+        if (!cached.destroyed) {
+          cached.ae.process(cas);
+          return;
+        }
+      }
+      // the engine was removed from the cache and destroyed by another thread in the meantime
+    }
+  }
 
-    File scriptFile = File.createTempFile("Ruta", RutaEngine.SCRIPT_FILE_EXTENSION);
-    scriptFile.deleteOnExit();
-    FileUtils.saveString2File(script, scriptFile);
-    ae.setConfigParameterValue(RutaEngine.PARAM_SCRIPT_PATHS, new String[] { scriptFile.getParentFile()
-            .getAbsolutePath() });
-    String name = scriptFile.getName().substring(0, scriptFile.getName().length() - 5);
-    ae.setConfigParameterValue(RutaEngine.PARAM_MAIN_SCRIPT, name);
+  private static AnalysisEngine createEngine(String script, String viewName,
+          Map<String, Object> parameters) throws InvalidXMLException, IOException,
+          ResourceInitializationException {
+    URL url = RutaEngine.class.getResource("BasicEngine.xml");
+    XMLInputSource in = new XMLInputSource(url);
+    AnalysisEngineDescription aed = (AnalysisEngineDescription) UIMAFramework.getXMLParser()
+            .parseResourceSpecifier(in);
+    ConfigurationParameterSettings settings = aed.getAnalysisEngineMetaData()
+            .getConfigurationParameterSettings();
+    settings.setParameterValue(RutaEngine.PARAM_RULES, script);
     if (parameters != null) {
       for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
-        ae.setConfigParameterValue(parameter.getKey(), parameter.getValue());
+        settings.setParameterValue(parameter.getKey(), parameter.getValue());
+      }
+    }
+    try {
+      if (viewName.equals(CAS.NAME_DEFAULT_SOFA)) {
+        return UIMAFramework.produceAnalysisEngine(aed);
+      }
+      AggregateBuilder builder = new AggregateBuilder();
+      builder.add(aed, CAS.NAME_DEFAULT_SOFA, viewName);
+      return builder.createAggregate();
+    } catch (ResourceInitializationException e) {
+      // report parse errors of the given script directly
+      Throwable cause = e.getCause();
+      while (cause != null) {
+        if (cause instanceof RutaParseRuntimeException) {
+          throw (RutaParseRuntimeException) cause;
+        }
+        cause = cause.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Destroys all analysis engines cached by {@link #apply(CAS, String, Map)}.
+   */
+  public static void clearEngineCache() {
+    List<CachedEngine> engines = null;
+    synchronized (ENGINE_CACHE) {
+      engines = new ArrayList<CachedEngine>(ENGINE_CACHE.values());
+      engines.addAll(EVICTED_ENGINES);
+      ENGINE_CACHE.clear();
+      EVICTED_ENGINES.clear();
+    }
+    for (CachedEngine each : engines) {
+      each.destroy();
+    }
+  }
+
+  /**
+   * @return the analysis engine cached for the given arguments of
+   *         {@link #apply(CAS, String, Map)}, or null
+   */
+  static AnalysisEngine getCachedEngine(String script, String viewName,
+          Map<String, Object> parameters) {
+    synchronized (ENGINE_CACHE) {
+      CachedEngine cached = ENGINE_CACHE.get(getCacheKey(script, viewName, parameters));
+      return cached == null ? null : cached.ae;
+    }
+  }
+
+  private static String getCacheKey(String script, String viewName, Map<String, Object> parameters) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(viewName).append('\n');
+    if (parameters != null) {
+      for (Map.Entry<String, Object> each : new TreeMap<String, Object>(parameters).entrySet()) {
+        Object value = each.getValue();
+        sb.append(each.getKey()).append('=');
+        if (value instanceof Object[]) {
+          sb.append(Arrays.deepToString((Object[]) value));
+        } else {
+          sb.append(value);
+        }
+        sb.append('\n');
       }
     }
-    ae.reconfigure();
-    ae.process(cas);
-    scriptFile.delete();
-    ae.destroy();
+    sb.append(script);
+    return sb.toString();
   }
 
   public static void apply(CAS cas, String script) throws IOException, InvalidXMLException,
@@ -105,12 +260,10 @@ public class Ruta {
       String absolutePath = descriptorUrl.toExternalForm();
       aaedString = aaedString.replaceAll("\\$\\{sofaName\\}", viewName);
       aaedString = aaedString.replaceAll("\\$\\{descriptorLocation\\}", absolutePath);
-      File tempFile = File.createTempFile("RutaAAED", ".xml");
-      FileUtils.saveString2File(aaedString, tempFile);
-      XMLInputSource in = new XMLInputSource(tempFile);
+      XMLInputSource in = new XMLInputSource(new ByteArrayInputStream(
+              aaedString.getBytes(encoding)), null);
       ResourceSpecifier specifier = UIMAFramework.getXMLParser().parseResourceSpecifier(in);
       AnalysisEngine ae = UIMAFramework.produceAnalysisEngine(specifier);
-      tempFile.delete();
       return ae;
     }
   }
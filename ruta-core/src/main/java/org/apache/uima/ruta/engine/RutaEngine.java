@@ -29,9 +29,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 import org.antlr.runtime.ANTLRFileStream;
 import org.antlr.runtime.ANTLRInputStream;
@@ -46,6 +49,7 @@ import org.apache.uima.analysis_component.AnalysisComponent;
 import org.apache.uima.analysis_engine.AnalysisEngine;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIterator;
 import org.apache.uima.cas.Feature;
 import org.apache.uima.cas.Type;
 import org.apache.uima.cas.TypeSystem;
@@ -58,6 +62,7 @@ import org.apache.uima.jcas.JCas;
 import org.apache.uima.resource.ResourceConfigurationException;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.resource.ResourceManager;
+import org.apache.uima.ruta.FeatureValueIndex;
 import org.apache.uima.ruta.FilterManager;
 import org.apache.uima.ruta.RutaBlock;
 import org.apache.uima.ruta.RutaEnvironment;
@@ -72,6 +77,8 @@ import org.apache.uima.ruta.parser.RutaLexer;
 import org.apache.uima.ruta.parser.RutaParser;
 import org.apache.uima.ruta.seed.RutaAnnotationSeeder;
 import org.apache.uima.ruta.verbalize.RutaVerbalizer;
+import org.apache.uima.ruta.visitor.AggregatedStatistics;
+import org.apache.uima.ruta.visitor.AggregatedStatisticsVisitor;
 import org.apache.uima.ruta.visitor.CreatedByVisitor;
 import org.apache.uima.ruta.visitor.DebugInfoCollectorVisitor;
 import org.apache.uima.ruta.visitor.InferenceCrowd;
@@ -79,6 +86,7 @@ import org.apache.uima.ruta.visitor.RutaInferenceVisitor;
 import org.apache.uima.ruta.visitor.StatisticsVisitor;
 import org.apache.uima.ruta.visitor.TimeProfilerVisitor;
 import org.apache.uima.util.InvalidXMLException;
+import org.apache.uima.util.Level;
 
 public class RutaEngine extends JCasAnnotator_ImplBase {
 
@@ -221,6 +229,18 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
   @ConfigurationParameter(name = PARAM_RELOAD_SCRIPT, mandatory = false, defaultValue = "false")
   private Boolean reloadScript;
 
+  /**
+   * This boolean parameter is only considered if the parameter reloadScript is set to true. If set
+   * to true, then only the script files that have been modified since they were loaded are parsed
+   * again and linked with the remaining scripts. Unchanged scripts, their word lists and all
+   * additional analysis engines are kept. Scripts loaded from the classpath or given by the
+   * parameter rules are never reloaded in this mode. The default value is set to false.
+   */
+  public static final String PARAM_RELOAD_ONLY_MODIFIED = "reloadOnlyModified";
+
+  @ConfigurationParameter(name = PARAM_RELOAD_ONLY_MODIFIED, mandatory = false, defaultValue = "false")
+  private Boolean reloadOnlyModified;
+
   /**
    * This list of string values refers to implementations of the interface
    * "org.apache.uima.ruta.seed.RutaAnnotationSeeder", which can be used to automatically add
@@ -267,6 +287,71 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
   @ConfigurationParameter(name = PARAM_DYNAMIC_ANCHORING, mandatory = false, defaultValue = "false")
   private Boolean dynamicAnchoring;
 
+  /**
+   * If this parameter is set to true, then the values of primitive features are indexed when they
+   * are first used in an equality feature match of a rule element, e.g., Token.pos=="NN". The
+   * candidates of such rule elements are then looked up in the index instead of checking all
+   * annotations of the type, and the dynamic anchoring estimates the amount of candidates with the
+   * index. Feature values changed by external code during the processing of the script are not
+   * tracked. The default value is set to false.
+   */
+  public static final String PARAM_FEATURE_VALUE_INDEX = "featureValueIndex";
+
+  @ConfigurationParameter(name = PARAM_FEATURE_VALUE_INDEX, mandatory = false, defaultValue = "false")
+  private Boolean featureValueIndex;
+
+  /**
+   * This parameter specifies the complete name of a type, which splits the document into windows.
+   * If this parameter is set, then the script is applied on each annotation of this type
+   * separately, similar to a BLOCK, and the internal information about the annotations is only
+   * created for the current window. Text not covered by an annotation of this type is not
+   * processed. This reduces the memory consumption for long documents. Rules cannot match across
+   * the borders of the windows and the values of variables are carried over to the next window.
+   */
+  public static final String PARAM_WINDOW_TYPE = "windowType";
+
+  @ConfigurationParameter(name = PARAM_WINDOW_TYPE, mandatory = false)
+  private String windowType;
+
+  /**
+   * This parameter specifies the maximal amount of characters of a window, if the document should
+   * be split into windows without a window type. The document is split at line breaks or
+   * whitespaces before this limit, if possible. The script is applied on each window separately
+   * like with the parameter windowType. The default value is 0, which disables the windows.
+   */
+  public static final String PARAM_WINDOW_SIZE = "windowSize";
+
+  @ConfigurationParameter(name = PARAM_WINDOW_SIZE, mandatory = false, defaultValue = "0")
+  private Integer windowSize;
+
+  /**
+   * This parameter specifies the amount of characters, by which two consecutive windows of the
+   * parameter windowSize overlap. This allows rules to match on text near the border of a window.
+   * Annotations created in the overlap, which were already created with the same type and offsets
+   * in the previous window, are removed again. The value must not be negative and must be smaller
+   * than the window size. The default value is 0.
+   */
+  public static final String PARAM_WINDOW_OVERLAP = "windowOverlap";
+
+  @ConfigurationParameter(name = PARAM_WINDOW_OVERLAP, mandatory = false, defaultValue = "0")
+  private Integer windowOverlap;
+
+  /**
+   * This parameter specifies the amount of threads, which match the rules of a BLOCK concurrently
+   * on the windows of the block. The rules of the block are applied one after another on all
+   * windows: each rule is matched on the windows in parallel and the actions of its matches are
+   * executed afterwards in the order of the windows. This is only equivalent to the sequential
+   * application if the windows are independent, i.e., the rules only use annotations of their own
+   * window. Blocks containing other statements than rules, inlined rules, rules that match or check
+   * the types created by their own actions, rules that assign variables or apply other scripts and
+   * engines, and blocks applied with debugging or profiling are still applied sequentially. The
+   * default value is 0, which applies all blocks sequentially.
+   */
+  public static final String PARAM_PARALLEL_BLOCKS = "parallelBlocks";
+
+  @ConfigurationParameter(name = PARAM_PARALLEL_BLOCKS, mandatory = false, defaultValue = "0")
+  private Integer parallelBlocks;
+
   /**
    * This parameter specifies whether the memory consumption should be reduced. This parameter
    * should be set to true for very large CAS documents (e.g., &gt; 500k tokens), but it also
@@ -335,15 +420,51 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
   @ConfigurationParameter(name = PARAM_DEBUG_ONLY_FOR, mandatory = false, defaultValue = {})
   private String[] debugOnlyFor;
 
+  /**
+   * If this parameter is set to true, then the debug information of a rule is created as soon as
+   * the rule was applied and its matches are released afterwards. Thus, less memory is needed for
+   * the debug information of large documents. The default value of this parameter is set to false.
+   */
+  public static final String PARAM_DEBUG_STREAMING = "debugStreaming";
+
+  @ConfigurationParameter(name = PARAM_DEBUG_STREAMING, mandatory = false, defaultValue = "false")
+  private Boolean debugStreaming;
+
+  /**
+   * This parameter specifies the maximal amount of matches of each rule in a document that are
+   * stored in the debug information. Further matches are only counted. A negative value stands for
+   * no limit. The default value of this parameter is set to -1.
+   */
+  public static final String PARAM_DEBUG_MAX_MATCHES = "debugMaxMatches";
+
+  @ConfigurationParameter(name = PARAM_DEBUG_MAX_MATCHES, mandatory = false, defaultValue = "-1")
+  private Integer debugMaxMatches;
+
   /**
    * If this parameter is set to true, then additional information about the runtime of applied
-   * rules is added to the CAS. The default value of this parameter is set to false.
+   * rules is added to the CAS. Additionally, the runtime, the amount of tried and applied matches
+   * of all statements is accumulated over all processed documents and logged when the processing of
+   * the collection is completed. The default value of this parameter is set to false.
    */
   public static final String PARAM_PROFILE = "profile";
 
   @ConfigurationParameter(name = PARAM_PROFILE, mandatory = false, defaultValue = "false")
   private Boolean profile;
 
+  /**
+   * This parameter specifies the location of a file. If set, the amount of invocations and the
+   * runtime of all conditions, actions, rules and blocks are accumulated over all processed
+   * documents without adding any annotations to the CAS. The statistics are written to the file as
+   * JSON, or as CSV if the file name ends with ".csv", when the processing of the collection is
+   * completed. Engines, e.g., replicas in a multi-threaded pipeline, with the same file location
+   * share their statistics. The next collection starts with new statistics after all engines
+   * completed the collection. No location is given by default.
+   */
+  public static final String PARAM_AGGREGATED_STATISTICS = "aggregatedStatistics";
+
+  @ConfigurationParameter(name = PARAM_AGGREGATED_STATISTICS, mandatory = false)
+  private String aggregatedStatistics;
+
   /**
    * If this parameter is set to true, then additional information about the runtime of UIMA Ruta
    * language elements like conditions and actions is added to the CAS. The default value of this
@@ -363,6 +484,18 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
   @ConfigurationParameter(name = PARAM_CREATED_BY, mandatory = false, defaultValue = "false")
   private Boolean createdBy;
 
+  /**
+   * This parameter is only considered if the parameter createdBy is set to true. If set to true,
+   * then only the address of each created annotation and the index of its rule are remembered for
+   * the processed document. The annotations with the information which rule created which
+   * annotation are added to the CAS on demand with {@link CreatedByVisitor#materialize(CAS)}. The
+   * default value of this parameter is set to false.
+   */
+  public static final String PARAM_CREATED_BY_COMPACT = "createdByCompact";
+
+  @ConfigurationParameter(name = PARAM_CREATED_BY_COMPACT, mandatory = false, defaultValue = "false")
+  private Boolean createdByCompact;
+
   /**
    * If this parameter is set to true, then only types in declared type systems are available by
    * their short name.
@@ -416,6 +549,8 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
 
   private RutaVerbalizer verbalizer;
 
+  private ExecutorService blockExecutor;
+
   private boolean initialized = false;
 
   private List<Type> seedTypes;
@@ -424,6 +559,22 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
 
   private ResourceManager resourceManager = null;
 
+  private ScriptModificationWatcher scriptWatcher;
+
+  private Map<String, RutaModule> additionalScriptsMap;
+
+  private Map<String, AnalysisEngine> additionalEnginesMap;
+
+  private String lastViewName;
+
+  private TimeProfilerVisitor profiler;
+
+  private AggregatedStatisticsVisitor statisticsCollector;
+
+  private CreatedByVisitor createdByVisitor;
+
+  private DebugInfoCollectorVisitor debugVisitor;
+
   @Override
   public void initialize(UimaContext aContext) throws ResourceInitializationException {
     super.initialize(aContext);
@@ -448,9 +599,16 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
 
       debug = (Boolean) aContext.getConfigParameterValue(PARAM_DEBUG);
       debugOnlyFor = (String[]) aContext.getConfigParameterValue(PARAM_DEBUG_ONLY_FOR);
+      debugStreaming = (Boolean) aContext.getConfigParameterValue(PARAM_DEBUG_STREAMING);
+      debugMaxMatches = (Integer) aContext.getConfigParameterValue(PARAM_DEBUG_MAX_MATCHES);
       profile = (Boolean) aContext.getConfigParameterValue(PARAM_PROFILE);
+      // the location of the statistics may have changed
+      releaseAggregatedStatistics();
+      aggregatedStatistics = (String) aContext
+              .getConfigParameterValue(PARAM_AGGREGATED_STATISTICS);
       statistics = (Boolean) aContext.getConfigParameterValue(PARAM_STATISTICS);
       createdBy = (Boolean) aContext.getConfigParameterValue(PARAM_CREATED_BY);
+      createdByCompact = (Boolean) aContext.getConfigParameterValue(PARAM_CREATED_BY_COMPACT);
       debugWithMatches = (Boolean) aContext.getConfigParameterValue(PARAM_DEBUG_WITH_MATCHES);
 
       resourcePaths = (String[]) aContext.getConfigParameterValue(PARAM_RESOURCE_PATHS);
@@ -458,7 +616,13 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
       defaultFilteredTypes = (String[]) aContext
               .getConfigParameterValue(PARAM_DEFAULT_FILTERED_TYPES);
       dynamicAnchoring = (Boolean) aContext.getConfigParameterValue(PARAM_DYNAMIC_ANCHORING);
+      featureValueIndex = (Boolean) aContext.getConfigParameterValue(PARAM_FEATURE_VALUE_INDEX);
+      windowType = (String) aContext.getConfigParameterValue(PARAM_WINDOW_TYPE);
+      windowSize = (Integer) aContext.getConfigParameterValue(PARAM_WINDOW_SIZE);
+      windowOverlap = (Integer) aContext.getConfigParameterValue(PARAM_WINDOW_OVERLAP);
+      parallelBlocks = (Integer) aContext.getConfigParameterValue(PARAM_PARALLEL_BLOCKS);
       reloadScript = (Boolean) aContext.getConfigParameterValue(PARAM_RELOAD_SCRIPT);
+      reloadOnlyModified = (Boolean) aContext.getConfigParameterValue(PARAM_RELOAD_ONLY_MODIFIED);
       lowMemoryProfile = (Boolean) aContext.getConfigParameterValue(PARAM_LOW_MEMORY_PROFILE);
       simpleGreedyForComposed = (Boolean) aContext
               .getConfigParameterValue(PARAM_SIMPLE_GREEDY_FOR_COMPOSED);
@@ -469,15 +633,28 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
       removeBasics = removeBasics == null ? false : removeBasics;
       debug = debug == null ? false : debug;
       debugOnlyFor = debugOnlyFor == null ? new String[0] : debugOnlyFor;
+      debugStreaming = debugStreaming == null ? false : debugStreaming;
+      debugMaxMatches = debugMaxMatches == null ? -1 : debugMaxMatches;
       profile = profile == null ? false : profile;
       statistics = statistics == null ? false : statistics;
       createdBy = createdBy == null ? false : createdBy;
+      createdByCompact = createdByCompact == null ? false : createdByCompact;
       debugWithMatches = debugWithMatches == null ? true : debugWithMatches;
 
       scriptEncoding = scriptEncoding == null ? "UTF-8" : scriptEncoding;
       defaultFilteredTypes = defaultFilteredTypes == null ? new String[0] : defaultFilteredTypes;
       dynamicAnchoring = dynamicAnchoring == null ? false : dynamicAnchoring;
+      featureValueIndex = featureValueIndex == null ? false : featureValueIndex;
+      windowSize = windowSize == null ? 0 : windowSize;
+      windowOverlap = windowOverlap == null ? 0 : windowOverlap;
+      if (windowOverlap < 0 || (windowSize > 0 && windowOverlap >= windowSize)) {
+        throw new ResourceInitializationException(
+                "windowOverlap must not be negative and must be smaller than windowSize",
+                new Object[0]);
+      }
+      parallelBlocks = parallelBlocks == null ? 0 : parallelBlocks;
       reloadScript = reloadScript == null ? false : reloadScript;
+      reloadOnlyModified = reloadOnlyModified == null ? false : reloadOnlyModified;
       lowMemoryProfile = lowMemoryProfile == null ? false : lowMemoryProfile;
       simpleGreedyForComposed = simpleGreedyForComposed == null ? false : simpleGreedyForComposed;
       greedyRuleElement = greedyRuleElement == null ? false : greedyRuleElement;
@@ -490,10 +667,16 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
 
       this.context = aContext;
 
+      if (blockExecutor != null) {
+        blockExecutor.shutdown();
+      }
+      blockExecutor = parallelBlocks > 0 ? new ForkJoinPool(parallelBlocks) : null;
+
       factory = new RutaExternalFactory();
       factory.setContext(aContext);
       engineLoader = new RutaEngineLoader();
       verbalizer = new RutaVerbalizer();
+      scriptWatcher = new ScriptModificationWatcher();
 
       resourceManager = UIMAFramework.newDefaultResourceManager();
       String dataPath = "";
@@ -527,8 +710,18 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
   public void process(JCas jcas) throws AnalysisEngineProcessException {
 
     CAS cas = jcas.getCas();
+    if (createdBy && createdByCompact) {
+      // the information of the previous document is not valid if this one fails
+      CreatedByVisitor.clear(cas);
+    }
 
-    if (reloadScript || (!initialized && !cas.getViewName().equals(CAS.NAME_DEFAULT_SOFA))) {
+    if (reloadScript && reloadOnlyModified && script != null
+            && cas.getViewName().equals(lastViewName)) {
+      reloadModifiedScripts(cas.getViewName());
+      resetEnvironments(cas);
+      initializeVariableValues();
+    } else if (reloadScript
+            || (!initialized && !cas.getViewName().equals(CAS.NAME_DEFAULT_SOFA))) {
       initializeScript(cas.getViewName());
     } else {
       resetEnvironments(cas);
@@ -541,21 +734,26 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
       lastTypeSystem = cas.getTypeSystem();
     }
     InferenceCrowd crowd = initializeCrowd();
-    RutaStream stream = initializeStream(cas, crowd);
-    stream.setDynamicAnchoring(dynamicAnchoring);
-    stream.setGreedyRuleElement(greedyRuleElement);
-    stream.setGreedyRule(greedyRule);
-    try {
-      script.apply(stream, crowd);
-    } catch (Throwable e) {
-      throw new AnalysisEngineProcessException(AnalysisEngineProcessException.ANNOTATOR_EXCEPTION,
-              new Object[] {}, e);
+    Type basicType = cas.getTypeSystem().getType(BASIC_TYPE);
+    if (windowType != null || windowSize > 0) {
+      processWindows(cas, crowd);
+    } else {
+      RutaStream stream = initializeStream(cas, crowd);
+      if (debugVisitor != null) {
+        debugVisitor.setStream(stream);
+      }
+      configureStream(stream, createFeatureValueIndex(cas));
+      try {
+        script.apply(stream, crowd);
+      } catch (Throwable e) {
+        throw new AnalysisEngineProcessException(
+                AnalysisEngineProcessException.ANNOTATOR_EXCEPTION, new Object[] {}, e);
+      }
+      crowd.finished(stream);
     }
-    crowd.finished(stream);
 
     if (removeBasics) {
       List<AnnotationFS> toRemove = new ArrayList<AnnotationFS>();
-      Type basicType = cas.getTypeSystem().getType(BASIC_TYPE);
       AnnotationIndex<AnnotationFS> basicIndex = cas.getAnnotationIndex(basicType);
       for (AnnotationFS fs : basicIndex) {
         toRemove.add(fs);
@@ -654,40 +852,275 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
 
   private InferenceCrowd initializeCrowd() {
     List<RutaInferenceVisitor> visitors = new ArrayList<RutaInferenceVisitor>();
+    debugVisitor = null;
     if (debug) {
-      visitors.add(new DebugInfoCollectorVisitor(debug, debugWithMatches, Arrays
-              .asList(debugOnlyFor), verbalizer));
+      debugVisitor = new DebugInfoCollectorVisitor(debug, debugWithMatches,
+              Arrays.asList(debugOnlyFor), verbalizer, debugStreaming, debugMaxMatches);
+      visitors.add(debugVisitor);
     }
     if (profile) {
-      visitors.add(new TimeProfilerVisitor());
+      // the profiler accumulates the measures of all documents
+      if (profiler == null) {
+        profiler = new TimeProfilerVisitor();
+      }
+      profiler.resetDocument();
+      visitors.add(profiler);
     }
     if (statistics) {
       visitors.add(new StatisticsVisitor(verbalizer));
     }
+    if (!StringUtils.isBlank(aggregatedStatistics)) {
+      if (statisticsCollector == null) {
+        statisticsCollector = new AggregatedStatisticsVisitor(
+                AggregatedStatistics.get(getAggregatedStatisticsKey()), verbalizer);
+      }
+      visitors.add(statisticsCollector);
+    }
     if (createdBy) {
-      visitors.add(new CreatedByVisitor(verbalizer));
+      // the verbalized rules are remembered for all documents
+      if (createdByVisitor == null) {
+        createdByVisitor = new CreatedByVisitor(verbalizer, createdByCompact);
+      }
+      visitors.add(createdByVisitor);
     }
     return new InferenceCrowd(visitors);
   }
 
   private RutaStream initializeStream(CAS cas, InferenceCrowd crowd)
           throws AnalysisEngineProcessException {
-    Collection<Type> filterTypes = new ArrayList<Type>();
     TypeSystem typeSystem = cas.getTypeSystem();
+    FilterManager filter = new FilterManager(getDefaultFilterTypes(typeSystem), cas);
+    Type basicType = typeSystem.getType(BASIC_TYPE);
+    seedTypes = seedAnnotations(cas);
+    RutaStream stream = new RutaStream(cas, basicType, filter, lowMemoryProfile,
+            simpleGreedyForComposed, crowd);
+
+    stream.initalizeBasics();
+    return stream;
+  }
+
+  private Collection<Type> getDefaultFilterTypes(TypeSystem typeSystem) {
+    Collection<Type> filterTypes = new ArrayList<Type>();
     for (String each : defaultFilteredTypes) {
       Type type = typeSystem.getType(each);
       if (type != null) {
         filterTypes.add(type);
       }
     }
-    FilterManager filter = new FilterManager(filterTypes, cas);
+    return filterTypes;
+  }
+
+  private void configureStream(RutaStream stream, FeatureValueIndex index) {
+    stream.setDynamicAnchoring(dynamicAnchoring);
+    stream.setGreedyRuleElement(greedyRuleElement);
+    stream.setGreedyRule(greedyRule);
+    stream.setFeatureValueIndex(index);
+    stream.setBlockExecutor(blockExecutor);
+  }
+
+  /**
+   * @return the index of the feature values of the CAS, or null if it is not enabled
+   */
+  private FeatureValueIndex createFeatureValueIndex(CAS cas) {
+    return featureValueIndex ? new FeatureValueIndex(cas) : null;
+  }
+
+  /**
+   * Applies the script on each window of the document with a stream, which only knows the basics
+   * of its window. The basics of a window are removed again before the next window is processed.
+   * The annotations overlapping a window are collected from the annotations still open at the
+   * begin of the window and from the annotation index starting at the begin of the window. The
+   * index of the feature values covers the complete CAS and is shared by all windows.
+   */
+  private void processWindows(CAS cas, InferenceCrowd crowd) throws AnalysisEngineProcessException {
+    TypeSystem typeSystem = cas.getTypeSystem();
     Type basicType = typeSystem.getType(BASIC_TYPE);
+    // basics of previous engines cover the complete document and are not used
+    List<AnnotationFS> oldBasics = new ArrayList<AnnotationFS>();
+    for (AnnotationFS each : cas.getAnnotationIndex(basicType)) {
+      oldBasics.add(each);
+    }
+    for (AnnotationFS each : oldBasics) {
+      cas.removeFsFromIndexes(each);
+    }
+    Collection<Type> filterTypes = getDefaultFilterTypes(typeSystem);
     seedTypes = seedAnnotations(cas);
-    RutaStream stream = new RutaStream(cas, basicType, filter, lowMemoryProfile,
-            simpleGreedyForComposed, crowd);
+    Type type;
+    if (windowType != null) {
+      type = typeSystem.getType(windowType);
+      if (type == null) {
+        throw new AnalysisEngineProcessException(
+                AnalysisEngineProcessException.ANNOTATOR_EXCEPTION, new Object[] {},
+                new IllegalArgumentException("Window type [" + windowType + "] is not defined"));
+      }
+    } else {
+      type = cas.getDocumentAnnotation().getType();
+    }
+    List<AnnotationFS> windows = windowType != null ? getTypeWindows(cas, type)
+            : getSizeWindows(cas, type);
+    Collection<Type> empty = new ArrayList<Type>(0);
+    AnnotationIndex<AnnotationFS> index = cas.getAnnotationIndex();
+    Type annotationType = cas.getAnnotationType();
+    List<AnnotationFS> open = new ArrayList<AnnotationFS>();
+    FeatureValueIndex featureValues = createFeatureValueIndex(cas);
+    RutaStream stream = null;
+    int processedEnd = 0;
+    for (int i = 0; i < windows.size(); i++) {
+      AnnotationFS window = windows.get(i);
+      int begin = window.getBegin();
+      int end = window.getEnd();
+      AnnotationFS marker = cas.createAnnotation(annotationType, begin, Integer.MAX_VALUE);
+
+      List<AnnotationFS> annotations = new ArrayList<AnnotationFS>();
+      for (AnnotationFS each : open) {
+        if (each.getEnd() > begin) {
+          annotations.add(each);
+        }
+      }
+      Set<AnnotationFS> processed = new HashSet<AnnotationFS>();
+      FSIterator<AnnotationFS> iterator = index.iterator();
+      iterator.moveTo(marker);
+      while (iterator.isValid()) {
+        AnnotationFS each = iterator.get();
+        if (each.getBegin() >= end) {
+          break;
+        }
+        annotations.add(each);
+        if (each.getBegin() < processedEnd) {
+          processed.add(each);
+        }
+        iterator.moveToNext();
+      }
 
-    stream.initalizeBasics();
-    return stream;
+      FilterManager filter = new FilterManager(filterTypes, empty, empty, window, type, cas);
+      stream = new RutaStream(cas, basicType, filter, lowMemoryProfile, simpleGreedyForComposed,
+              crowd);
+      stream.initalizeBasics(annotations);
+      if (debugVisitor != null) {
+        debugVisitor.setStream(stream);
+      }
+      configureStream(stream, featureValues);
+      try {
+        script.apply(stream, crowd);
+      } catch (Throwable e) {
+        throw new AnalysisEngineProcessException(
+                AnalysisEngineProcessException.ANNOTATOR_EXCEPTION, new Object[] {}, e);
+      }
+      stream.releaseBasics();
+      if (!processed.isEmpty()) {
+        removeDuplicates(cas, marker, processedEnd, processed);
+      }
+      processedEnd = Math.max(processedEnd, end);
+
+      if (i + 1 < windows.size()) {
+        int next = windows.get(i + 1).getBegin();
+        List<AnnotationFS> nextOpen = new ArrayList<AnnotationFS>();
+        for (AnnotationFS each : open) {
+          if (each.getEnd() > next) {
+            nextOpen.add(each);
+          }
+        }
+        iterator = index.iterator();
+        iterator.moveTo(marker);
+        while (iterator.isValid()) {
+          AnnotationFS each = iterator.get();
+          if (each.getBegin() >= next) {
+            break;
+          }
+          if (each.getEnd() > next) {
+            nextOpen.add(each);
+          }
+          iterator.moveToNext();
+        }
+        open = nextOpen;
+      }
+    }
+    if (stream != null) {
+      crowd.finished(stream);
+    }
+  }
+
+  /**
+   * Removes the annotations that were created again in the overlap with the previous window,
+   * i.e., annotations with the same type and offsets as an annotation that already existed.
+   */
+  private void removeDuplicates(CAS cas, AnnotationFS marker, int end,
+          Set<AnnotationFS> processed) {
+    Set<String> keys = new HashSet<String>();
+    for (AnnotationFS each : processed) {
+      keys.add(getKey(each));
+    }
+    List<AnnotationFS> toRemove = new ArrayList<AnnotationFS>();
+    FSIterator<AnnotationFS> iterator = cas.getAnnotationIndex().iterator();
+    iterator.moveTo(marker);
+    while (iterator.isValid()) {
+      AnnotationFS each = iterator.get();
+      if (each.getBegin() >= end) {
+        break;
+      }
+      if (!processed.contains(each) && keys.contains(getKey(each))) {
+        toRemove.add(each);
+      }
+      iterator.moveToNext();
+    }
+    for (AnnotationFS each : toRemove) {
+      cas.removeFsFromIndexes(each);
+    }
+  }
+
+  private String getKey(AnnotationFS annotation) {
+    return annotation.getType().getName() + "@" + annotation.getBegin() + "-"
+            + annotation.getEnd();
+  }
+
+  private List<AnnotationFS> getTypeWindows(CAS cas, Type type) {
+    List<AnnotationFS> result = new ArrayList<AnnotationFS>();
+    int processedEnd = -1;
+    for (AnnotationFS each : cas.getAnnotationIndex(type)) {
+      // windows within an already processed window are skipped
+      if (each.getEnd() > processedEnd) {
+        result.add(each);
+        processedEnd = each.getEnd();
+      }
+    }
+    return result;
+  }
+
+  private List<AnnotationFS> getSizeWindows(CAS cas, Type type) {
+    List<AnnotationFS> result = new ArrayList<AnnotationFS>();
+    String text = cas.getDocumentText();
+    int length = text == null ? 0 : text.length();
+    int begin = 0;
+    while (true) {
+      int end = Math.min(length, begin + windowSize);
+      if (end < length) {
+        end = getWindowEnd(text, begin, end);
+      }
+      result.add(cas.createAnnotation(type, begin, end));
+      if (end >= length) {
+        break;
+      }
+      int next = Math.max(begin + 1, end - windowOverlap);
+      while (next < end && !Character.isWhitespace(text.charAt(next - 1))) {
+        next++;
+      }
+      begin = next;
+    }
+    return result;
+  }
+
+  private int getWindowEnd(String text, int begin, int end) {
+    int whitespace = -1;
+    for (int i = end - 1; i > begin; i--) {
+      char c = text.charAt(i);
+      if (c == '\n') {
+        return i + 1;
+      }
+      if (whitespace == -1 && Character.isWhitespace(c)) {
+        whitespace = i + 1;
+      }
+    }
+    return whitespace == -1 ? end : whitespace;
   }
 
   private List<Type> seedAnnotations(CAS cas) throws AnalysisEngineProcessException {
@@ -718,6 +1151,8 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
   }
 
   private void initializeScript(String viewName) throws AnalysisEngineProcessException {
+    scriptWatcher.clear();
+    lastViewName = viewName;
     if (rules != null) {
       try {
         script = loadScriptByString(rules);
@@ -742,6 +1177,7 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
       } else {
         try {
           script = loadScript(scriptLocation);
+          scriptWatcher.watch(mainScript, scriptLocation);
         } catch (RutaParseRuntimeException re) {
           throw re;
         } catch (Exception e) {
@@ -753,8 +1189,8 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
       return;
     }
 
-    Map<String, RutaModule> additionalScriptsMap = new HashMap<String, RutaModule>();
-    Map<String, AnalysisEngine> additionalEnginesMap = new HashMap<String, AnalysisEngine>();
+    additionalScriptsMap = new HashMap<String, RutaModule>();
+    additionalEnginesMap = new HashMap<String, AnalysisEngine>();
 
     if (additionalUimafitEngines != null) {
       for (String eachUimafitEngine : additionalUimafitEngines) {
@@ -846,6 +1282,12 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
       }
     }
 
+    linkDependencies();
+
+    initializeVariableValues();
+  }
+
+  private void linkDependencies() {
     for (RutaModule each : additionalScriptsMap.values()) {
       each.setScriptDependencies(additionalScriptsMap);
     }
@@ -855,8 +1297,33 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
       each.setEngineDependencies(additionalEnginesMap);
     }
     script.setEngineDependencies(additionalEnginesMap);
+  }
 
-    initializeVariableValues();
+  /**
+   * Parses again only the script files that have been modified since they were loaded and links
+   * the new modules with the unchanged ones. Unchanged modules and additional engines are reused,
+   * and only the scripts and engines newly imported by a modified script are loaded.
+   */
+  private void reloadModifiedScripts(String viewName) throws AnalysisEngineProcessException {
+    Collection<String> modifiedScripts = scriptWatcher.getModifiedScripts();
+    if (modifiedScripts.isEmpty()) {
+      return;
+    }
+    for (String each : modifiedScripts) {
+      if (each.equals(mainScript) && !additionalScriptsMap.containsKey(each)) {
+        try {
+          script = loadScript(scriptWatcher.getLocation(each));
+        } catch (RutaParseRuntimeException re) {
+          throw re;
+        } catch (Exception e) {
+          throw new AnalysisEngineProcessException(e);
+        }
+        loadImports(script, additionalScriptsMap, additionalEnginesMap, viewName);
+      } else {
+        recursiveLoadScript(each, additionalScriptsMap, additionalEnginesMap, viewName);
+      }
+    }
+    linkDependencies();
   }
 
   private void initializeVariableValues() {
@@ -991,6 +1458,7 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
     } else {
       try {
         eachScript = loadScript(location);
+        scriptWatcher.watch(toLoad, location);
       } catch (IOException e) {
         throw new AnalysisEngineProcessException(new FileNotFoundException("Script [" + toLoad
                 + "] cannot be found at [" + collectionToString(scriptPaths)
@@ -1002,14 +1470,22 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
       }
     }
     additionalScripts.put(toLoad, eachScript);
+    loadImports(eachScript, additionalScripts, additionalEngines, viewName);
+  }
 
-    for (String add : eachScript.getScripts().keySet()) {
+  /**
+   * Loads the scripts and engines imported by the given module, which are not loaded yet.
+   */
+  private void loadImports(RutaModule module, Map<String, RutaModule> additionalScripts,
+          Map<String, AnalysisEngine> additionalEngines, String viewName)
+          throws AnalysisEngineProcessException {
+    for (String add : module.getScripts().keySet()) {
       if (!additionalScripts.containsKey(add)) {
         recursiveLoadScript(add, additionalScripts, additionalEngines, viewName);
       }
     }
 
-    Set<String> engineKeySet = eachScript.getEngines().keySet();
+    Set<String> engineKeySet = module.getEngines().keySet();
     for (String eachEngineLocation : engineKeySet) {
       if (!additionalEngines.containsKey(eachEngineLocation)) {
         String engineLocation = locate(eachEngineLocation, descriptorPaths, ".xml");
@@ -1109,6 +1585,34 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
     return engineLoader;
   }
 
+  /**
+   * @return the profiler with the measures of all processed documents, or null if the parameter
+   *         profile is not set
+   */
+  public TimeProfilerVisitor getProfiler() {
+    return profiler;
+  }
+
+  /**
+   * @return the statistics shared by all engines with the same value of the parameter
+   *         aggregatedStatistics, or null if the parameter is not set or no document was
+   *         processed since the collection was completed
+   */
+  public AggregatedStatistics getAggregatedStatistics() {
+    return statisticsCollector == null ? null : statisticsCollector.getStatistics();
+  }
+
+  private String getAggregatedStatisticsKey() {
+    return new File(aggregatedStatistics).getAbsolutePath();
+  }
+
+  private void releaseAggregatedStatistics() {
+    if (statisticsCollector != null) {
+      AggregatedStatistics.release(getAggregatedStatisticsKey());
+      statisticsCollector = null;
+    }
+  }
+
   private String collectionToString(Collection<?> collection) {
     StringBuilder collectionSB = new StringBuilder();
     collectionSB.append("{");
@@ -1141,6 +1645,20 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
   @Override
   public void collectionProcessComplete() throws AnalysisEngineProcessException {
     super.collectionProcessComplete();
+    if (profiler != null) {
+      getContext().getLogger().log(Level.INFO,
+              "Profile of the statements:\n" + profiler.getReport(verbalizer));
+    }
+    if (statisticsCollector != null) {
+      try {
+        statisticsCollector.getStatistics().write(new File(aggregatedStatistics));
+      } catch (IOException e) {
+        throw new AnalysisEngineProcessException(e);
+      } finally {
+        // the next collection is counted in new statistics
+        releaseAggregatedStatistics();
+      }
+    }
     if (script != null) {
       Collection<AnalysisEngine> values = script.getEngines().values();
       for (AnalysisEngine each : values) {
@@ -1149,4 +1667,14 @@ public class RutaEngine extends JCasAnnotator_ImplBase {
     }
   }
 
+  @Override
+  public void destroy() {
+    super.destroy();
+    releaseAggregatedStatistics();
+    if (blockExecutor != null) {
+      blockExecutor.shutdown();
+      blockExecutor = null;
+    }
+  }
+
 }
@@ -22,11 +22,11 @@ package org.apache.uima.ruta.engine;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.uima.UimaContext;
@@ -36,6 +36,7 @@ import org.apache.uima.cas.CASException;
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.cas.Feature;
 import org.apache.uima.cas.Type;
+import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
@@ -101,7 +102,24 @@ public class RutaModifier extends JCasAnnotator_ImplBase {
   @ConfigurationParameter(name = PARAM_DESCRIPTOR_PATHS, mandatory = false)
   private String[] descriptorPaths;
 
-  private StyleMapFactory styleMapFactory;
+  private static final String START_TAG_BEGIN = "<span style='background:";
+
+  private static final String START_TAG_END = "'>";
+
+  private static final String END_TAG = "</span>";
+
+  /**
+   * Start tags of the colored types by type name, compiled once from the style map.
+   */
+  private Map<String, String> startTags;
+
+  private TypeSystem typeSystem;
+
+  private Type[] coloredTypes = new Type[0];
+
+  private String[] coloredStartTags = new String[0];
+
+  private boolean[] subsumesBasic = new boolean[0];
 
   @Override
   public void initialize(UimaContext aContext) throws ResourceInitializationException {
@@ -113,7 +131,9 @@ public class RutaModifier extends JCasAnnotator_ImplBase {
     modifiedViewName = (String) aContext.getConfigParameterValue(RutaModifier.PARAM_OUTPUT_VIEW);
     modifiedViewName = StringUtils.isBlank(modifiedViewName) ? DEFAULT_MODIFIED_VIEW
             : modifiedViewName;
-    styleMapFactory = new StyleMapFactory();
+    String locate = RutaEngine.locate(styleMapLocation, descriptorPaths, ".xml", true);
+    startTags = compileStyleMap(locate);
+    typeSystem = null;
   }
 
   @Override
@@ -142,20 +162,21 @@ public class RutaModifier extends JCasAnnotator_ImplBase {
       } else {
         modifiedView = cas.getView(modifiedViewName);
       }
-      String locate = RutaEngine.locate(styleMapLocation, descriptorPaths, ".xml", true);
+      String documentText = cas.getDocumentText();
+      StringBuilder sb = new StringBuilder(documentText == null ? 16 : documentText.length());
       try {
-        String modifiedDocument = getModifiedDocument(cas, locate);
-        modifiedView.setDocumentText(modifiedDocument);
+        writeModifiedDocument(cas, documentText, sb);
+        modifiedView.setDocumentText(sb.toString());
       } catch (Exception e) {
         throw new AnalysisEngineProcessException(e);
       }
 
-      String documentText = modifiedView.getDocumentText();
-      if (documentText != null) {
+      String modifiedText = modifiedView.getDocumentText();
+      if (modifiedText != null) {
         File outputFile = getOutputFile(cas.getCas());
         if (outputFile != null) {
           try {
-            FileUtils.saveString2File(documentText, outputFile);
+            FileUtils.saveString2File(modifiedText, outputFile);
           } catch (IOException e) {
             throw new AnalysisEngineProcessException(e);
           }
@@ -194,77 +215,100 @@ public class RutaModifier extends JCasAnnotator_ImplBase {
     return file;
   }
 
-  private String getModifiedDocument(JCas cas, String styleMapLocation) {
-    String startTag = "<span style='background:&bgcolor'>";
-    String endTag = "</span>";
-    Map<String, StyleMapEntry> styleMap = styleMapFactory.parseStyleMapDOM(styleMapLocation);
-    List<Type> coloredTypes = new ArrayList<Type>();
-    if (styleMap != null) {
-      coloredTypes = getColoredTypes(cas, styleMap);
-    }
-    List<String> tokens = new ArrayList<String>();
+  /**
+   * Writes the text of the basics with their replacements into the given builder. Basics that are
+   * part of exactly one colored type are enclosed in a span with the background color of the type.
+   */
+  private void writeModifiedDocument(JCas cas, String documentText, StringBuilder sb) {
+    resolveColoredTypes(cas.getTypeSystem());
+    int size = coloredTypes.length;
     FSIterator<org.apache.uima.jcas.tcas.Annotation> iterator = cas.getAnnotationIndex(
             RutaBasic.type).iterator();
     while (iterator.isValid()) {
       RutaBasic each = (RutaBasic) iterator.get();
-      String replace = each.getReplacement() == null ? each.getCoveredText() : each
-              .getReplacement();
-      Type type = getColorType(each, coloredTypes, cas);
-      if (type != null && !"".equals(replace)) {
-        StyleMapEntry entry = styleMap.get(type.getName());
-        String backgroundColor = "#"
-                + Integer.toHexString(entry.getBackground().getRGB()).substring(2);
-        String newStartTag = startTag.replaceAll("&bgcolor", backgroundColor);
-        tokens.add(newStartTag);
-        tokens.add(replace);
-        tokens.add(endTag);
+      String replacement = each.getReplacement();
+      String startTag = size == 0 ? null : getStartTag(each);
+      if (startTag != null && !"".equals(replacement)) {
+        sb.append(startTag);
+        appendText(each, replacement, documentText, sb);
+        sb.append(END_TAG);
       } else {
-        tokens.add(replace);
+        appendText(each, replacement, documentText, sb);
       }
       iterator.moveToNext();
     }
-    StringBuilder sb = new StringBuilder();
-    for (String string : tokens) {
-      sb.append(string);
+  }
+
+  private void appendText(RutaBasic basic, String replacement, String documentText,
+          StringBuilder sb) {
+    if (replacement == null) {
+      sb.append(documentText, basic.getBegin(), basic.getEnd());
+    } else {
+      sb.append(replacement);
     }
-    return sb.toString();
   }
 
-  private Type getColorType(RutaBasic basic, List<Type> coloredTypes, JCas cas) {
-    if (coloredTypes.isEmpty()) {
-      return null;
+  /**
+   * @return the start tag of the only colored type of the basic, or null if the basic is part of
+   *         none or several colored types
+   */
+  private String getStartTag(RutaBasic basic) {
+    String result = null;
+    for (int i = 0; i < coloredTypes.length; i++) {
+      if (subsumesBasic[i] || basic.isPartOf(coloredTypes[i])) {
+        if (result != null) {
+          return null;
+        }
+        result = coloredStartTags[i];
+      }
+    }
+    return result;
+  }
+
+  private void resolveColoredTypes(TypeSystem ts) {
+    if (ts == typeSystem) {
+      return;
     }
-    List<Type> colorTypes = new ArrayList<Type>();
-    for (Type each : coloredTypes) {
-      if (cas.getTypeSystem().subsumes(each, basic.getType()) || basic.isPartOf(each)) {
-        colorTypes.add(each);
+    List<Type> types = new ArrayList<Type>(startTags.size());
+    List<String> tags = new ArrayList<String>(startTags.size());
+    for (Entry<String, String> entry : startTags.entrySet()) {
+      Type type = ts.getType(entry.getKey());
+      if (type != null) {
+        types.add(type);
+        tags.add(entry.getValue());
       }
     }
-    Type best = null;
-    if (colorTypes.isEmpty()) {
-    } else if (colorTypes.size() == 1) {
-      best = colorTypes.get(0);
-    } else {
-      // best = colorTypes.get(0);
+    Type basicType = ts.getType(RutaBasic.class.getName());
+    coloredTypes = types.toArray(new Type[types.size()]);
+    coloredStartTags = tags.toArray(new String[tags.size()]);
+    subsumesBasic = new boolean[coloredTypes.length];
+    for (int i = 0; i < coloredTypes.length; i++) {
+      subsumesBasic[i] = ts.subsumes(coloredTypes[i], basicType);
     }
-    return best;
+    typeSystem = ts;
   }
 
-  private List<Type> getColoredTypes(JCas cas, Map<String, StyleMapEntry> styleMap) {
-    List<Type> result = new ArrayList<Type>();
-    for (String string : styleMap.keySet()) {
-      if (string == null)
+  /**
+   * Parses the style map and creates the start tag for each type with a background color.
+   */
+  private Map<String, String> compileStyleMap(String location) {
+    Map<String, String> result = new LinkedHashMap<String, String>();
+    if (location == null) {
+      return result;
+    }
+    Map<String, StyleMapEntry> styleMap = new StyleMapFactory().parseStyleMapDOM(location);
+    if (styleMap == null) {
+      return result;
+    }
+    for (Entry<String, StyleMapEntry> entry : styleMap.entrySet()) {
+      StyleMapEntry value = entry.getValue();
+      if (entry.getKey() == null || value == null || value.getBackground() == null) {
         continue;
-      Type type = cas.getTypeSystem().getType(string);
-      if (type != null) {
-        result.add(type);
       }
+      String backgroundColor = "#"
+              + Integer.toHexString(value.getBackground().getRGB()).substring(2);
+      result.put(entry.getKey(), START_TAG_BEGIN + backgroundColor + START_TAG_END);
     }
-    Collections.sort(result, new Comparator<Type>() {
-      public int compare(Type o1, Type o2) {
-        return o1.getShortName().compareTo(o2.getShortName());
-      }
-    });
     return result;
   }
 
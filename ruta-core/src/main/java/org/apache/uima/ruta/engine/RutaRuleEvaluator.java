@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.RecognitionException;
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.TypeSystem;
+import org.apache.uima.resource.ResourceManager;
+import org.apache.uima.ruta.FilterManager;
+import org.apache.uima.ruta.RutaBlock;
+import org.apache.uima.ruta.RutaModule;
+import org.apache.uima.ruta.RutaStatement;
+import org.apache.uima.ruta.RutaStream;
+import org.apache.uima.ruta.extensions.IRutaExtension;
+import org.apache.uima.ruta.extensions.RutaExternalFactory;
+import org.apache.uima.ruta.parser.RutaLexer;
+import org.apache.uima.ruta.parser.RutaParser;
+import org.apache.uima.ruta.rule.RutaRule;
+import org.apache.uima.ruta.seed.RutaAnnotationSeeder;
+import org.apache.uima.ruta.visitor.InferenceCrowd;
+import org.apache.uima.ruta.visitor.RutaInferenceVisitor;
+
+/**
+ * Evaluates single rules without a {@link RutaEngine}, e.g., for testing many candidate rules in
+ * rule learning. The header of the script, like the package and declarations, is parsed once into
+ * a shared environment. Each rule is compiled once against this environment and can then be
+ * applied on prepared streams of several documents without writing or parsing a script file.
+ * <p>
+ * The configuration is given by the parameters of the {@link RutaEngine}. Instances are not thread
+ * safe, since all rules share the same environment.
+ */
+public class RutaRuleEvaluator {
+
+  private final RutaModule module;
+
+  private final RutaExternalFactory factory;
+
+  private final ResourceManager resourceManager;
+
+  private final String[] resourcePaths;
+
+  private final String[] seeders;
+
+  private final String[] defaultFilteredTypes;
+
+  private final boolean dynamicAnchoring;
+
+  private final boolean lowMemoryProfile;
+
+  private final boolean simpleGreedyForComposed;
+
+  private final boolean greedyRuleElement;
+
+  private final boolean greedyRule;
+
+  private final boolean strictImports;
+
+  private final InferenceCrowd crowd;
+
+  private TypeSystem lastTypeSystem;
+
+  /**
+   * @param header
+   *          the header of the script, which is applied before each rule, e.g., a package
+   *          declaration, declarations and filtering rules
+   * @param parameters
+   *          the configuration parameters of the {@link RutaEngine}, may be null
+   * @throws RecognitionException
+   *           if the header cannot be parsed
+   */
+  public RutaRuleEvaluator(String header, Map<String, Object> parameters)
+          throws RecognitionException {
+    super();
+    if (parameters == null) {
+      parameters = Collections.emptyMap();
+    }
+    resourcePaths = getValue(parameters, RutaEngine.PARAM_RESOURCE_PATHS, new String[0]);
+    seeders = getValue(parameters, RutaEngine.PARAM_SEEDERS,
+            new String[] { "org.apache.uima.ruta.seed.DefaultSeeder" });
+    defaultFilteredTypes = getValue(parameters, RutaEngine.PARAM_DEFAULT_FILTERED_TYPES,
+            new String[] { "org.apache.uima.ruta.type.SPACE", "org.apache.uima.ruta.type.BREAK",
+                "org.apache.uima.ruta.type.MARKUP" });
+    dynamicAnchoring = getValue(parameters, RutaEngine.PARAM_DYNAMIC_ANCHORING, false);
+    lowMemoryProfile = getValue(parameters, RutaEngine.PARAM_LOW_MEMORY_PROFILE, false);
+    simpleGreedyForComposed = getValue(parameters, RutaEngine.PARAM_SIMPLE_GREEDY_FOR_COMPOSED,
+            false);
+    greedyRuleElement = getValue(parameters, RutaEngine.PARAM_GREEDY_RULE_ELEMENT, false);
+    greedyRule = getValue(parameters, RutaEngine.PARAM_GREEDY_RULE, false);
+    strictImports = getValue(parameters, RutaEngine.PARAM_STRICT_IMPORTS, false);
+
+    factory = new RutaExternalFactory();
+    initializeExtensions(getValue(parameters, RutaEngine.PARAM_ADDITIONAL_EXTENSIONS,
+            new String[0]));
+    resourceManager = UIMAFramework.newDefaultResourceManager();
+
+    RutaParser parser = createParser(header);
+    module = parser.file_input("Anonymous");
+    crowd = new InferenceCrowd(new ArrayList<RutaInferenceVisitor>());
+  }
+
+  /**
+   * Compiles the given statements, e.g., several rules, in the context of the header.
+   *
+   * @param rules
+   *          the statements to compile
+   * @return the compiled statements
+   * @throws RecognitionException
+   *           if the statements cannot be parsed
+   */
+  public List<RutaStatement> compile(String rules) throws RecognitionException {
+    RutaParser parser = createParser(rules);
+    return parser.statements_input(module.getRootBlock());
+  }
+
+  /**
+   * Compiles the given rule in the context of the header. The result can be applied on several
+   * streams created by {@link #createStream(CAS)}.
+   *
+   * @param rule
+   *          a single rule
+   * @return the compiled rule
+   * @throws RecognitionException
+   *           if the rule cannot be parsed
+   * @throws IllegalArgumentException
+   *           if the string does not contain exactly one rule
+   */
+  public RutaRule compileRule(String rule) throws RecognitionException {
+    List<RutaStatement> statements = compile(rule);
+    if (statements.size() != 1 || !(statements.get(0) instanceof RutaRule)) {
+      throw new IllegalArgumentException("Expected exactly one rule, found: " + rule);
+    }
+    return (RutaRule) statements.get(0);
+  }
+
+  /**
+   * Prepares the given CAS for the application of rules: the annotations of the seeders and the
+   * basic annotations are created, and the shared environment is reset for the CAS.
+   *
+   * @param cas
+   *          the CAS the rules should be applied on
+   * @return a new stream for the CAS
+   */
+  public RutaStream createStream(CAS cas) {
+    return createStream(cas, crowd);
+  }
+
+  /**
+   * Prepares the given CAS like {@link #createStream(CAS)}, but the stream informs the given crowd
+   * about added annotations.
+   *
+   * @param cas
+   *          the CAS the rules should be applied on
+   * @param streamCrowd
+   *          the visitors that are notified by the stream
+   * @return a new stream for the CAS
+   */
+  public RutaStream createStream(CAS cas, InferenceCrowd streamCrowd) {
+    RutaBlock rootBlock = module.getRootBlock();
+    TypeSystem typeSystem = cas.getTypeSystem();
+    rootBlock.getEnvironment().reset(cas);
+    if (typeSystem != lastTypeSystem) {
+      rootBlock.getEnvironment().initializeTypes(cas, strictImports);
+      lastTypeSystem = typeSystem;
+    }
+
+    seedAnnotations(cas);
+    Collection<Type> filterTypes = new ArrayList<Type>();
+    for (String each : defaultFilteredTypes) {
+      Type type = typeSystem.getType(each);
+      if (type != null) {
+        filterTypes.add(type);
+      }
+    }
+    FilterManager filter = new FilterManager(filterTypes, cas);
+    Type basicType = typeSystem.getType(RutaEngine.BASIC_TYPE);
+    RutaStream stream = new RutaStream(cas, basicType, filter, lowMemoryProfile,
+            simpleGreedyForComposed, streamCrowd);
+    stream.initalizeBasics();
+    stream.setDynamicAnchoring(dynamicAnchoring);
+    stream.setGreedyRuleElement(greedyRuleElement);
+    stream.setGreedyRule(greedyRule);
+    return stream;
+  }
+
+  /**
+   * Applies the statements of the header and then the given rule on the stream.
+   *
+   * @param rule
+   *          a rule created by {@link #compileRule(String)}
+   * @param stream
+   *          a stream created by {@link #createStream(CAS)}
+   */
+  public void apply(RutaRule rule, RutaStream stream) {
+    apply(Collections.singletonList(rule), stream);
+  }
+
+  /**
+   * Applies the statements of the header and then the given statements on the stream.
+   *
+   * @param statements
+   *          statements created by {@link #compile(String)}
+   * @param stream
+   *          a stream created by {@link #createStream(CAS)}
+   */
+  public void apply(List<? extends RutaStatement> statements, RutaStream stream) {
+    module.apply(stream, crowd);
+    for (RutaStatement each : statements) {
+      each.apply(stream, crowd);
+    }
+    crowd.finished(stream);
+  }
+
+  public RutaModule getModule() {
+    return module;
+  }
+
+  private RutaParser createParser(String text) {
+    RutaLexer lexer = new RutaLexer(new ANTLRStringStream(text));
+    RutaParser parser = new RutaParser(new CommonTokenStream(lexer));
+    parser.setExternalFactory(factory);
+    parser.setResourcePaths(resourcePaths);
+    parser.setResourceManager(resourceManager);
+    return parser;
+  }
+
+  private void initializeExtensions(String[] extensions) {
+    for (String each : extensions) {
+      try {
+        Class<?> forName = Class.forName(each);
+        if (IRutaExtension.class.isAssignableFrom(forName)) {
+          IRutaExtension extension = (IRutaExtension) forName.newInstance();
+          for (String name : extension.getKnownExtensions()) {
+            factory.addExtension(name, extension);
+          }
+        }
+      } catch (Exception e) {
+        // same behavior as the engine: ignore unknown extensions
+      }
+    }
+  }
+
+  private void seedAnnotations(CAS cas) {
+    for (String seederClass : seeders) {
+      try {
+        RutaAnnotationSeeder seeder = (RutaAnnotationSeeder) Class.forName(seederClass)
+                .newInstance();
+        seeder.seed(cas.getDocumentText(), cas);
+      } catch (Exception e) {
+        throw new IllegalStateException("Cannot apply seeder " + seederClass, e);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T getValue(Map<String, Object> parameters, String name, T defaultValue) {
+    Object value = parameters.get(name);
+    return value == null ? defaultValue : (T) value;
+  }
+
+}
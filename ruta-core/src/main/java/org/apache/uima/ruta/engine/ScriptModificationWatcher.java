@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Remembers the modification time and a content hash of the script files loaded by the
+ * {@link RutaEngine}. The hash is only computed if the modification time has changed, so that a
+ * check for modified scripts costs one file system lookup per script in the common case.
+ */
+public class ScriptModificationWatcher {
+
+  private static class WatchedScript {
+
+    private final String location;
+
+    private long lastModified;
+
+    private byte[] hash;
+
+    private WatchedScript(String location) {
+      super();
+      this.location = location;
+    }
+  }
+
+  private final Map<String, WatchedScript> scripts = new HashMap<String, WatchedScript>();
+
+  /**
+   * Starts watching the script file with the given location.
+   *
+   * @param name
+   *          the name of the script, e.g., the complete namespace
+   * @param location
+   *          the absolute location of the script file
+   */
+  public void watch(String name, String location) {
+    WatchedScript script = new WatchedScript(location);
+    File file = new File(location);
+    script.lastModified = file.lastModified();
+    script.hash = hash(file);
+    scripts.put(name, script);
+  }
+
+  public void unwatch(String name) {
+    scripts.remove(name);
+  }
+
+  public void clear() {
+    scripts.clear();
+  }
+
+  public boolean isWatched(String name) {
+    return scripts.containsKey(name);
+  }
+
+  public String getLocation(String name) {
+    WatchedScript script = scripts.get(name);
+    return script == null ? null : script.location;
+  }
+
+  /**
+   * Returns the names of all watched scripts whose content has changed since the last call of this
+   * method or since they have been registered. Scripts that were only touched without changing their
+   * content are not reported.
+   *
+   * @return names of the modified scripts
+   */
+  public Collection<String> getModifiedScripts() {
+    List<String> result = new ArrayList<String>();
+    for (Entry<String, WatchedScript> entry : scripts.entrySet()) {
+      WatchedScript script = entry.getValue();
+      File file = new File(script.location);
+      long lastModified = file.lastModified();
+      if (lastModified == script.lastModified) {
+        continue;
+      }
+      script.lastModified = lastModified;
+      byte[] hash = hash(file);
+      if (!Arrays.equals(hash, script.hash)) {
+        script.hash = hash;
+        result.add(entry.getKey());
+      }
+    }
+    return result;
+  }
+
+  private byte[] hash(File file) {
+    if (!file.exists()) {
+      return null;
+    }
+    try {
+      MessageDigest digest = MessageDigest.getInstance("MD5");
+      return digest.digest(FileUtils.readFileToByteArray(file));
+    } catch (NoSuchAlgorithmException e) {
+      return null;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+}
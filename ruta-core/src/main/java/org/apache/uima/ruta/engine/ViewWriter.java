@@ -19,8 +19,9 @@
 
 package org.apache.uima.ruta.engine;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.IOException;
 
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
@@ -29,14 +30,13 @@ import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.cas.Feature;
 import org.apache.uima.cas.Type;
-import org.apache.uima.cas.impl.XmiCasSerializer;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.fit.component.JCasMultiplier_ImplBase;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.util.CasCopier;
-import org.apache.uima.util.XMLSerializer;
+import org.apache.uima.util.Level;
 
 /**
  * This Analysis Engine is able to serialize the processed CAS to an XMI file whereas the the source
@@ -82,32 +82,65 @@ public class ViewWriter extends JCasMultiplier_ImplBase {
 
 
 
+  /**
+   * If this boolean parameter is set to true, then the view is stored in the compressed binary
+   * format of UIMA (form 4) instead of XMI. The files get the extension <code>.bcas</code>. The
+   * default value is false.
+   */
+  public static final String PARAM_BINARY = XMIWriter.PARAM_BINARY;
+
+  @ConfigurationParameter(name = PARAM_BINARY, mandatory = false, defaultValue = "false")
+  private Boolean binary;
+
+  /**
+   * This parameter specifies the amount of threads, which write the serialized view to the disk in
+   * the background. The default value is 0: the file is written before the next CAS is processed.
+   */
+  public static final String PARAM_WRITER_THREADS = XMIWriter.PARAM_WRITER_THREADS;
+
+  @ConfigurationParameter(name = PARAM_WRITER_THREADS, mandatory = false, defaultValue = "0")
+  private Integer writerThreads;
+
+  /**
+   * This parameter specifies the maximal amount of serialized views waiting for a writer thread.
+   * If the queue is full, the file is written immediately. The default value is 16.
+   */
+  public static final String PARAM_WRITER_QUEUE_SIZE = XMIWriter.PARAM_WRITER_QUEUE_SIZE;
+
+  @ConfigurationParameter(name = PARAM_WRITER_QUEUE_SIZE, mandatory = false, defaultValue = "16")
+  private Integer writerQueueSize;
+
+  /**
+   * If this boolean parameter is set to true, then each file is forced to the storage device
+   * before it is considered as written. The default value is false.
+   */
+  public static final String PARAM_FSYNC = XMIWriter.PARAM_FSYNC;
+
+  @ConfigurationParameter(name = PARAM_FSYNC, mandatory = false, defaultValue = "false")
+  private Boolean fsync;
+
   private CAS outView;
 
+  private BackgroundFileWriter writer;
+
+  private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024 * 64);
+
   @Override
   public void initialize(UimaContext aContext) throws ResourceInitializationException {
     super.initialize(aContext);
     output = (String) aContext.getConfigParameterValue(PARAM_OUTPUT);
     inputView = (String) aContext.getConfigParameterValue(PARAM_INPUT_VIEW);
     outputView = (String) aContext.getConfigParameterValue(PARAM_OUTPUT_VIEW);
-  }
-
-  private static void writeXmi(CAS aCas, File name) throws Exception {
-    FileOutputStream out = null;
-
-    try {
-      // write XMI
-      out = new FileOutputStream(name);
-      XmiCasSerializer ser = new XmiCasSerializer(aCas.getTypeSystem());
-      XMLSerializer xmlSer = new XMLSerializer(out, false);
-      ser.serialize(aCas, xmlSer.getContentHandler());
-    } catch (Exception e) {
-      throw e;
-    } finally {
-      if (out != null) {
-        out.close();
-      }
-    }
+    binary = (Boolean) aContext.getConfigParameterValue(PARAM_BINARY);
+    writerThreads = (Integer) aContext.getConfigParameterValue(PARAM_WRITER_THREADS);
+    writerQueueSize = (Integer) aContext.getConfigParameterValue(PARAM_WRITER_QUEUE_SIZE);
+    fsync = (Boolean) aContext.getConfigParameterValue(PARAM_FSYNC);
+    binary = binary == null ? false : binary;
+    writerThreads = writerThreads == null ? 0 : writerThreads;
+    writerQueueSize = writerQueueSize == null ? 16 : writerQueueSize;
+    fsync = fsync == null ? false : fsync;
+    closeWriter();
+    writer = new BackgroundFileWriter(writerThreads, writerQueueSize, fsync);
   }
 
   @Override
@@ -115,9 +148,10 @@ public class ViewWriter extends JCasMultiplier_ImplBase {
     CAS cas = jcas.getCas();
     Type sdiType = cas.getTypeSystem().getType(RutaEngine.SOURCE_DOCUMENT_INFORMATION);
 
+    String extension = binary ? ".bcas" : ".xmi";
     File file = new File(output);
     if (file.isDirectory()) {
-      String filename = "output.xmi";
+      String filename = "output" + extension;
       file = new File(output, filename);
     }
     if (sdiType != null) {
@@ -128,8 +162,8 @@ public class ViewWriter extends JCasMultiplier_ImplBase {
         String stringValue = annotationFS.getStringValue(uriFeature);
         File f = new File(stringValue);
         String name = f.getName();
-        if (!name.endsWith(".xmi")) {
-          name = name + ".xmi";
+        if (!name.endsWith(extension)) {
+          name = name + extension;
         }
         String parent = f.getParent().endsWith("/") ? f.getParent() : f.getParent() + "/";
         file = new File(parent + output, name);
@@ -145,7 +179,7 @@ public class ViewWriter extends JCasMultiplier_ImplBase {
     CasCopier cc = new CasCopier(inView, outView, true);
     cc.copyCasView(inView, outputView, true);
     try {
-      writeXmi(outView, file);
+      XMIWriter.write(outView, binary, file, buffer, writer);
     } catch (Exception e) {
       throw new AnalysisEngineProcessException(e);
     }
@@ -157,6 +191,29 @@ public class ViewWriter extends JCasMultiplier_ImplBase {
       outView.release();
     }
     outView = null;
+    try {
+      writer.flush();
+    } catch (IOException e) {
+      // the signature of this method does not allow to report the failure
+      getContext().getLogger().log(Level.SEVERE, e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    closeWriter();
+    super.destroy();
+  }
+
+  private void closeWriter() {
+    if (writer != null) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        getContext().getLogger().log(Level.SEVERE, e.getMessage(), e);
+      }
+      writer = null;
+    }
   }
 
   public boolean hasNext() throws AnalysisEngineProcessException {
@@ -19,8 +19,10 @@
 
 package org.apache.uima.ruta.engine;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
@@ -28,12 +30,14 @@ import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.cas.Feature;
 import org.apache.uima.cas.Type;
+import org.apache.uima.cas.impl.Serialization;
 import org.apache.uima.cas.impl.XmiCasSerializer;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.util.Level;
 import org.apache.uima.util.XMLSerializer;
 
 /**
@@ -60,8 +64,50 @@ public class XMIWriter extends JCasAnnotator_ImplBase {
   @ConfigurationParameter(name = PARAM_OUTPUT, mandatory = false, defaultValue = "_InitialView")
   private String output;
 
+  /**
+   * If this boolean parameter is set to true, then the CAS is stored in the compressed binary
+   * format of UIMA (form 4) instead of XMI. The binary format is much faster to create and to
+   * load, but it requires the same type system for loading. The files get the extension
+   * <code>.bcas</code>. The default value is false.
+   */
+  public static final String PARAM_BINARY = "binary";
+
+  @ConfigurationParameter(name = PARAM_BINARY, mandatory = false, defaultValue = "false")
+  private Boolean binary;
+
+  /**
+   * This parameter specifies the amount of threads, which write the serialized CAS to the disk in
+   * the background. The default value is 0: the file is written before the next CAS is processed.
+   */
+  public static final String PARAM_WRITER_THREADS = "writerThreads";
+
+  @ConfigurationParameter(name = PARAM_WRITER_THREADS, mandatory = false, defaultValue = "0")
+  private Integer writerThreads;
+
+  /**
+   * This parameter specifies the maximal amount of serialized CASes waiting for a writer thread.
+   * If the queue is full, the file is written immediately. The default value is 16.
+   */
+  public static final String PARAM_WRITER_QUEUE_SIZE = "writerQueueSize";
+
+  @ConfigurationParameter(name = PARAM_WRITER_QUEUE_SIZE, mandatory = false, defaultValue = "16")
+  private Integer writerQueueSize;
+
+  /**
+   * If this boolean parameter is set to true, then each file is forced to the storage device
+   * before it is considered as written. The default value is false.
+   */
+  public static final String PARAM_FSYNC = "fsync";
+
+  @ConfigurationParameter(name = PARAM_FSYNC, mandatory = false, defaultValue = "false")
+  private Boolean fsync;
+
   private UimaContext context;
 
+  private BackgroundFileWriter writer;
+
+  private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024 * 64);
+
   @Override
   public void initialize(UimaContext aContext) throws ResourceInitializationException {
     super.initialize(aContext);
@@ -70,25 +116,68 @@ public class XMIWriter extends JCasAnnotator_ImplBase {
     }
     if (aContext != null) {
       output = (String) aContext.getConfigParameterValue(PARAM_OUTPUT);
+      binary = (Boolean) aContext.getConfigParameterValue(PARAM_BINARY);
+      writerThreads = (Integer) aContext.getConfigParameterValue(PARAM_WRITER_THREADS);
+      writerQueueSize = (Integer) aContext.getConfigParameterValue(PARAM_WRITER_QUEUE_SIZE);
+      fsync = (Boolean) aContext.getConfigParameterValue(PARAM_FSYNC);
       this.context = aContext;
     }
+    binary = binary == null ? false : binary;
+    writerThreads = writerThreads == null ? 0 : writerThreads;
+    writerQueueSize = writerQueueSize == null ? 16 : writerQueueSize;
+    fsync = fsync == null ? false : fsync;
+    closeWriter();
+    writer = new BackgroundFileWriter(writerThreads, writerQueueSize, fsync);
   }
 
-  private static void writeXmi(CAS aCas, File name) throws Exception {
-    FileOutputStream out = null;
-
-    try {
-      // write XMI
-      out = new FileOutputStream(name);
+  /**
+   * Serializes the CAS as XMI or in the compressed binary format (form 4).
+   */
+  static void serialize(CAS aCas, boolean binary, OutputStream out) throws Exception {
+    if (binary) {
+      Serialization.serializeWithCompression(aCas, out);
+    } else {
       XmiCasSerializer ser = new XmiCasSerializer(aCas.getTypeSystem());
       XMLSerializer xmlSer = new XMLSerializer(out, false);
       ser.serialize(aCas, xmlSer.getContentHandler());
-    } catch (Exception e) {
-      throw e;
-    } finally {
-      if (out != null) {
-        out.close();
+    }
+  }
+
+  /**
+   * Serializes the CAS into the given buffer and passes the result to the writer. Thus, the CAS
+   * can be reset before the file is written.
+   */
+  static void write(CAS aCas, boolean binary, File file, ByteArrayOutputStream buffer,
+          BackgroundFileWriter writer) throws Exception {
+    buffer.reset();
+    serialize(aCas, binary, buffer);
+    writer.write(file, buffer.toByteArray());
+  }
+
+  @Override
+  public void collectionProcessComplete() throws AnalysisEngineProcessException {
+    super.collectionProcessComplete();
+    try {
+      writer.flush();
+    } catch (IOException e) {
+      throw new AnalysisEngineProcessException(e);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    closeWriter();
+    super.destroy();
+  }
+
+  private void closeWriter() {
+    if (writer != null) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        getContext().getLogger().log(Level.SEVERE, e.getMessage(), e);
       }
+      writer = null;
     }
   }
 
@@ -98,6 +187,7 @@ public class XMIWriter extends JCasAnnotator_ImplBase {
 
     Type sdiType = cas.getTypeSystem().getType(RutaEngine.SOURCE_DOCUMENT_INFORMATION);
 
+    String extension = binary ? ".bcas" : ".xmi";
     String filename = "output.txt";
     File file = new File(output, filename);
     if (sdiType != null) {
@@ -108,8 +198,8 @@ public class XMIWriter extends JCasAnnotator_ImplBase {
         String stringValue = annotationFS.getStringValue(uriFeature);
         File f = new File(stringValue);
         String name = f.getName();
-        if (!name.endsWith(".xmi")) {
-          name = name + ".xmi";
+        if (!name.endsWith(extension)) {
+          name = name + extension;
         }
         String parent = f.getParent().endsWith("/") ? f.getParent() : f.getParent() + "/";
         file = new File(parent + output, name);
@@ -117,7 +207,7 @@ public class XMIWriter extends JCasAnnotator_ImplBase {
 
     }
     try {
-      writeXmi(cas, file);
+      write(cas, binary, file, buffer, writer);
     } catch (Exception e) {
       throw new AnalysisEngineProcessException(e);
     }
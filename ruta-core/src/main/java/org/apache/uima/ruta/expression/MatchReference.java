@@ -41,7 +41,8 @@ public class MatchReference extends RutaExpression {
 
   private IRutaExpression arg;
 
-  private TypeExpression typeExpression;
+  // assigned last when resolved, since rules can be matched concurrently
+  private volatile TypeExpression typeExpression;
 
   private FeatureExpression featureExpression;
 
@@ -62,7 +63,8 @@ public class MatchReference extends RutaExpression {
       return;
     }
     RutaEnvironment e = parent.getEnvironment();
-    typeExpression = buildTypeExpression(match, e);
+    TypeExpression typeExpression = buildTypeExpression(match, e);
+    FeatureExpression featureExpression = null;
     if (typeExpression == null) {
       String[] elements = match.split("[.]");
       StringBuilder sb = new StringBuilder();
@@ -93,6 +95,8 @@ public class MatchReference extends RutaExpression {
     if(typeExpression == null || typeExpression.getType(parent) == null) {
       throw new IllegalArgumentException("Not able to resolve type of expression: "+ match);
     }
+    this.featureExpression = featureExpression;
+    this.typeExpression = typeExpression;
   }
 
   private TypeExpression buildTypeExpression(String candidate, RutaEnvironment e) {
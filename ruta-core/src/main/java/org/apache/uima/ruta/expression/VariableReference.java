@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.expression;
+
+import org.apache.uima.ruta.RutaBlock;
+import org.apache.uima.ruta.RutaEnvironment;
+
+/**
+ * Reference to a variable that remembers the environment declaring the variable. The environment
+ * is resolved once for a block instead of walking up the parent environments for each access. The
+ * value itself is still requested from the environment, because it can change at any time.
+ */
+public class VariableReference {
+
+  private static class Resolution {
+
+    private final RutaBlock block;
+
+    private final RutaEnvironment environment;
+
+    private Resolution(RutaBlock block, RutaEnvironment environment) {
+      super();
+      this.block = block;
+      this.environment = environment;
+    }
+  }
+
+  private final String name;
+
+  // immutable, thus it can be replaced by other threads
+  private Resolution resolution;
+
+  public VariableReference(String name) {
+    super();
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the environment that declares the variable, or the environment of the block if the
+   *         variable is not declared (yet)
+   */
+  public RutaEnvironment getEnvironment(RutaBlock parent) {
+    Resolution current = resolution;
+    if (current != null && current.block == parent) {
+      return current.environment;
+    }
+    RutaEnvironment environment = parent.getEnvironment();
+    RutaEnvironment owner = environment.getVariableOwner(name);
+    if (owner == null) {
+      // maybe declared later, do not remember
+      return environment;
+    }
+    resolution = new Resolution(parent, owner);
+    return owner;
+  }
+
+  public <T> T getValue(RutaBlock parent, Class<T> type) {
+    return getEnvironment(parent).getVariableValue(name, type);
+  }
+
+  public Object getValue(RutaBlock parent) {
+    return getEnvironment(parent).getVariableValue(name);
+  }
+
+  public Class<?> getType(RutaBlock parent) {
+    return getEnvironment(parent).getVariableType(name);
+  }
+
+}
@@ -22,6 +22,7 @@ package org.apache.uima.ruta.expression.bool;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.ruta.RutaBlock;
 import org.apache.uima.ruta.RutaStream;
+import org.apache.uima.ruta.expression.number.AbstractNumberExpression;
 import org.apache.uima.ruta.expression.number.INumberExpression;
 
 public class BooleanNumberExpression extends AbstractBooleanExpression {
@@ -32,35 +33,74 @@ public class BooleanNumberExpression extends AbstractBooleanExpression {
 
   private final INumberExpression e2;
 
+  private static final int OP_UNKNOWN = -1;
+
+  private static final int OP_EQUAL = 0;
+
+  private static final int OP_NOT_EQUAL = 1;
+
+  private static final int OP_LESS = 2;
+
+  private static final int OP_LESS_EQUAL = 3;
+
+  private static final int OP_GREATER = 4;
+
+  private static final int OP_GREATER_EQUAL = 5;
+
+  private static final String[] OPERATORS = { "==", "!=", "<", "<=", ">", ">=" };
+
+  private final int opCode;
+
+  private final boolean constant;
+
+  private boolean value;
+
   public BooleanNumberExpression(INumberExpression e1, String op, INumberExpression e2) {
     super();
     this.e1 = e1;
     this.op = op;
     this.e2 = e2;
+    int code = OP_UNKNOWN;
+    for (int i = 0; i < OPERATORS.length; i++) {
+      if (OPERATORS[i].equals(op)) {
+        code = i;
+      }
+    }
+    this.opCode = code;
+    this.constant = AbstractNumberExpression.isConstant(e1)
+            && AbstractNumberExpression.isConstant(e2);
+    if (constant) {
+      value = eval(e1.getDoubleValue(null, null, null), opCode, e2.getDoubleValue(null, null, null));
+    }
   }
 
   @Override
   public boolean getBooleanValue(RutaBlock parent, AnnotationFS annotation, RutaStream stream) {
+    if (constant) {
+      return value;
+    }
     double doubleValue1 = getFristExpression().getDoubleValue(parent, annotation, stream);
     double doubleValue2 = getSecondExpression().getDoubleValue(parent, annotation, stream);
-    return eval(doubleValue1, getOperator(), doubleValue2);
+    return eval(doubleValue1, opCode, doubleValue2);
   }
 
-  private boolean eval(double t1, String op, double t2) {
-    if ("==".equals(op)) {
-      return t1 == t2;
-    } else if ("!=".equals(op)) {
-      return t1 != t2;
-    } else if ("<".equals(op)) {
-      return t1 < t2;
-    } else if ("<=".equals(op)) {
-      return t1 <= t2;
-    } else if (">".equals(op)) {
-      return t1 > t2;
-    } else if (">=".equals(op)) {
-      return t1 >= t2;
+  private boolean eval(double t1, int op, double t2) {
+    switch (op) {
+      case OP_EQUAL:
+        return t1 == t2;
+      case OP_NOT_EQUAL:
+        return t1 != t2;
+      case OP_LESS:
+        return t1 < t2;
+      case OP_LESS_EQUAL:
+        return t1 <= t2;
+      case OP_GREATER:
+        return t1 > t2;
+      case OP_GREATER_EQUAL:
+        return t1 >= t2;
+      default:
+        return false;
     }
-    return false;
   }
 
   public INumberExpression getFristExpression() {
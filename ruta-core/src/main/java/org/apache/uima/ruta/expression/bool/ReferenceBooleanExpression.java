@@ -22,19 +22,23 @@ package org.apache.uima.ruta.expression.bool;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.ruta.RutaBlock;
 import org.apache.uima.ruta.RutaStream;
+import org.apache.uima.ruta.expression.VariableReference;
 
 public class ReferenceBooleanExpression extends AbstractBooleanExpression {
 
   private final String var;
 
+  private final VariableReference reference;
+
   public ReferenceBooleanExpression(String var) {
     super();
     this.var = var;
+    this.reference = new VariableReference(var);
   }
 
   @Override
   public boolean getBooleanValue(RutaBlock parent, AnnotationFS annotation, RutaStream stream) {
-    Boolean variableValue = parent.getEnvironment().getVariableValue(var, Boolean.class);
+    Boolean variableValue = reference.getValue(parent, Boolean.class);
     if (variableValue == null) {
       return false;
     }
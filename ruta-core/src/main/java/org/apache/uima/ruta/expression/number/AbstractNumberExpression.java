@@ -30,6 +30,61 @@ import org.apache.uima.ruta.rule.RuleMatch;
 
 public abstract class AbstractNumberExpression extends AbstractStringExpression implements INumberExpression {
 
+  protected static final int OP_UNKNOWN = -1;
+
+  protected static final int OP_PLUS = 0;
+
+  protected static final int OP_MINUS = 1;
+
+  protected static final int OP_MULTIPLY = 2;
+
+  protected static final int OP_DIVIDE = 3;
+
+  protected static final int OP_MODULO = 4;
+
+  protected static final int OP_EXP = 5;
+
+  protected static final int OP_LOG = 6;
+
+  protected static final int OP_LOGN = 7;
+
+  protected static final int OP_SIN = 8;
+
+  protected static final int OP_COS = 9;
+
+  protected static final int OP_TAN = 10;
+
+  protected static final int OP_POW = 11;
+
+  private static final String[] OPERATORS = { "+", "-", "*", "/", "%", "EXP", "LOG", "LOGN", "SIN",
+      "COS", "TAN", "POW" };
+
+  /**
+   * @return the code of the operator, which can be used instead of the string in the calculation
+   */
+  protected static int getOperatorCode(String op) {
+    for (int i = 0; i < OPERATORS.length; i++) {
+      if (OPERATORS[i].equals(op)) {
+        return i;
+      }
+    }
+    return OP_UNKNOWN;
+  }
+
+  /**
+   * @return true, if the value of the expression is known without a block, annotation or stream
+   */
+  public static boolean isConstant(INumberExpression expression) {
+    if (expression instanceof SimpleNumberExpression) {
+      return true;
+    } else if (expression instanceof ComposedNumberExpression) {
+      return ((ComposedNumberExpression) expression).isConstant();
+    } else if (expression instanceof NegativeNumberExpression) {
+      return ((NegativeNumberExpression) expression).isConstant();
+    }
+    return false;
+  }
+
   public int getIntegerValue(RutaBlock parent, RuleMatch match, RuleElement element,
           RutaStream stream) {
     List<AnnotationFS> matchedAnnotationsOf = match.getMatchedAnnotationsOfElement(element);
@@ -63,85 +118,103 @@ public abstract class AbstractNumberExpression extends AbstractStringExpression
     return getFloatValue(parent, annotation, stream);
   }
   
-  protected double calculate(double t1, double t2, String op) {
-    if ("+".equals(op)) {
-      return t1 + t2;
-    } else if ("-".equals(op)) {
-      return t1 - t2;
-    } else if ("*".equals(op)) {
-      return t1 * t2;
-    } else if ("/".equals(op)) {
-      return t1 / t2;
-    } else if ("%".equals(op)) {
-      return t1 % t2;
-    } else if ("EXP".equals(op)) {
-      return Math.exp(t1);
-    } else if ("LOGN".equals(op)) {
-      return Math.log(t1);
-    } else if ("SIN".equals(op)) {
-      return Math.sin(t1);
-    } else if ("COS".equals(op)) {
-      return Math.cos(t1);
-    } else if ("TAN".equals(op)) {
-      return Math.tan(t1);
-    } else if ("POW".equals(op)) {
-      return Math.pow(t1, t2);
+  protected double calculate(double t1, double t2, int op) {
+    switch (op) {
+      case OP_PLUS:
+        return t1 + t2;
+      case OP_MINUS:
+        return t1 - t2;
+      case OP_MULTIPLY:
+        return t1 * t2;
+      case OP_DIVIDE:
+        return t1 / t2;
+      case OP_MODULO:
+        return t1 % t2;
+      case OP_EXP:
+        return Math.exp(t1);
+      case OP_LOGN:
+        return Math.log(t1);
+      case OP_SIN:
+        return Math.sin(t1);
+      case OP_COS:
+        return Math.cos(t1);
+      case OP_TAN:
+        return Math.tan(t1);
+      case OP_POW:
+        return Math.pow(t1, t2);
+      default:
+        return 0;
     }
-    return 0;
   }
 
-  protected float calculate(float t1, float t2, String op) {
-    if ("+".equals(op)) {
-      return t1 + t2;
-    } else if ("-".equals(op)) {
-      return t1 - t2;
-    } else if ("*".equals(op)) {
-      return t1 * t2;
-    } else if ("/".equals(op)) {
-      return t1 / t2;
-    } else if ("%".equals(op)) {
-      return t1 % t2;
-    } else if ("EXP".equals(op)) {
-      return (float) Math.exp(t1);
-    } else if ("LOG".equals(op)) {
-      return (float) Math.log(t1);
-    } else if ("SIN".equals(op)) {
-      return (float) Math.sin(t1);
-    } else if ("COS".equals(op)) {
-      return (float) Math.cos(t1);
-    } else if ("TAN".equals(op)) {
-      return (float) Math.tan(t1);
-    } else if ("POW".equals(op)) {
-      return (float) Math.pow(t1, t2);
+  protected float calculate(float t1, float t2, int op) {
+    switch (op) {
+      case OP_PLUS:
+        return t1 + t2;
+      case OP_MINUS:
+        return t1 - t2;
+      case OP_MULTIPLY:
+        return t1 * t2;
+      case OP_DIVIDE:
+        return t1 / t2;
+      case OP_MODULO:
+        return t1 % t2;
+      case OP_EXP:
+        return (float) Math.exp(t1);
+      case OP_LOG:
+        return (float) Math.log(t1);
+      case OP_SIN:
+        return (float) Math.sin(t1);
+      case OP_COS:
+        return (float) Math.cos(t1);
+      case OP_TAN:
+        return (float) Math.tan(t1);
+      case OP_POW:
+        return (float) Math.pow(t1, t2);
+      default:
+        return 0;
     }
-    return 0;
   }
 
-  protected int calculate(int t1, int t2, String op) {
-    if ("+".equals(op)) {
-      return t1 + t2;
-    } else if ("-".equals(op)) {
-      return t1 - t2;
-    } else if ("*".equals(op)) {
-      return t1 * t2;
-    } else if ("/".equals(op)) {
-      return t1 / t2;
-    } else if ("%".equals(op)) {
-      return t1 % t2;
-    } else if ("EXP".equals(op)) {
-      return (int) Math.exp(t1);
-    } else if ("LOG".equals(op)) {
-      return (int) Math.log(t1);
-    } else if ("SIN".equals(op)) {
-      return (int) Math.sin(t1);
-    } else if ("COS".equals(op)) {
-      return (int) Math.cos(t1);
-    } else if ("TAN".equals(op)) {
-      return (int) Math.tan(t1);
-    } else if ("POW".equals(op)) {
-      return (int) Math.pow(t1, t2);
+  protected int calculate(int t1, int t2, int op) {
+    switch (op) {
+      case OP_PLUS:
+        return t1 + t2;
+      case OP_MINUS:
+        return t1 - t2;
+      case OP_MULTIPLY:
+        return t1 * t2;
+      case OP_DIVIDE:
+        return t1 / t2;
+      case OP_MODULO:
+        return t1 % t2;
+      case OP_EXP:
+        return (int) Math.exp(t1);
+      case OP_LOG:
+        return (int) Math.log(t1);
+      case OP_SIN:
+        return (int) Math.sin(t1);
+      case OP_COS:
+        return (int) Math.cos(t1);
+      case OP_TAN:
+        return (int) Math.tan(t1);
+      case OP_POW:
+        return (int) Math.pow(t1, t2);
+      default:
+        return 0;
     }
-    return 0;
+  }
+
+  protected double calculate(double t1, double t2, String op) {
+    return calculate(t1, t2, getOperatorCode(op));
+  }
+
+  protected float calculate(float t1, float t2, String op) {
+    return calculate(t1, t2, getOperatorCode(op));
+  }
+
+  protected int calculate(int t1, int t2, String op) {
+    return calculate(t1, t2, getOperatorCode(op));
   }
 
 }
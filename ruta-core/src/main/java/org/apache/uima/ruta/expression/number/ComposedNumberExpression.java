@@ -31,52 +31,106 @@ public class ComposedNumberExpression extends AbstractNumberExpression {
 
   private final List<String> ops;
 
+  private final INumberExpression[] operands;
+
+  private final int[] opCodes;
+
+  private final boolean constant;
+
+  private double doubleValue;
+
+  private float floatValue;
+
+  private int intValue;
+
   public ComposedNumberExpression(List<INumberExpression> expressions, List<String> ops) {
     super();
     this.expressions = expressions;
     this.ops = ops;
+    this.operands = expressions.toArray(new INumberExpression[expressions.size()]);
+    this.opCodes = new int[ops.size()];
+    for (int i = 0; i < opCodes.length; i++) {
+      opCodes[i] = getOperatorCode(ops.get(i));
+    }
+    boolean allConstant = operands.length > 0;
+    for (INumberExpression each : operands) {
+      allConstant &= isConstant(each);
+    }
+    if (allConstant) {
+      // constant folding: the values do not change anymore
+      try {
+        doubleValue = calculateDouble(null, null, null);
+        floatValue = calculateFloat(null, null, null);
+        intValue = calculateInteger(null, null, null);
+      } catch (ArithmeticException e) {
+        // e.g., division by zero, which should fail when the expression is evaluated
+        allConstant = false;
+      }
+    }
+    this.constant = allConstant;
   }
 
   public double getDoubleValue(RutaBlock parent, AnnotationFS annotation, RutaStream stream) {
-    INumberExpression numberExpression = getExpressions().get(0);
+    if (constant) {
+      return doubleValue;
+    }
+    return calculateDouble(parent, annotation, stream);
+  }
+
+  public float getFloatValue(RutaBlock parent, AnnotationFS annotation, RutaStream stream) {
+    if (constant) {
+      return floatValue;
+    }
+    return calculateFloat(parent, annotation, stream);
+  }
+
+  public int getIntegerValue(RutaBlock parent, AnnotationFS annotation, RutaStream stream) {
+    if (constant) {
+      return intValue;
+    }
+    return calculateInteger(parent, annotation, stream);
+  }
+
+  private double calculateDouble(RutaBlock parent, AnnotationFS annotation, RutaStream stream) {
+    INumberExpression numberExpression = operands[0];
     if (numberExpression == null) {
       return 0;
     }
     double result = numberExpression.getDoubleValue(parent, annotation, stream);
-    for (int i = 0; i < getOperators().size(); i++) {
+    for (int i = 0; i < opCodes.length; i++) {
       double second = 0;
-      if (getExpressions().size() > i + 1) {
-        second = getExpressions().get(i + 1).getDoubleValue(parent, annotation, stream);
+      if (operands.length > i + 1) {
+        second = operands[i + 1].getDoubleValue(parent, annotation, stream);
       }
-      result = calculate(result, second, getOperators().get(i));
+      result = calculate(result, second, opCodes[i]);
     }
     return result;
   }
 
-  public float getFloatValue(RutaBlock parent, AnnotationFS annotation, RutaStream stream) {
-    INumberExpression numberExpression = getExpressions().get(0);
+  private float calculateFloat(RutaBlock parent, AnnotationFS annotation, RutaStream stream) {
+    INumberExpression numberExpression = operands[0];
     if (numberExpression == null) {
       return 0;
     }
     float result = numberExpression.getFloatValue(parent, annotation, stream);
-    for (int i = 0; i < getOperators().size(); i++) {
+    for (int i = 0; i < opCodes.length; i++) {
       float second = 0;
-      if (getExpressions().size() > i + 1) {
-        second = getExpressions().get(i + 1).getFloatValue(parent, annotation, stream);
+      if (operands.length > i + 1) {
+        second = operands[i + 1].getFloatValue(parent, annotation, stream);
       }
-      result = calculate(result, second, getOperators().get(i));
+      result = calculate(result, second, opCodes[i]);
     }
     return result;
   }
 
-  public int getIntegerValue(RutaBlock parent, AnnotationFS annotation, RutaStream stream) {
-    int result = getExpressions().get(0).getIntegerValue(parent, annotation, stream);
-    for (int i = 0; i < getOperators().size(); i++) {
+  private int calculateInteger(RutaBlock parent, AnnotationFS annotation, RutaStream stream) {
+    int result = operands[0].getIntegerValue(parent, annotation, stream);
+    for (int i = 0; i < opCodes.length; i++) {
       int second = 0;
-      if (getExpressions().size() > i + 1) {
-        second = getExpressions().get(i + 1).getIntegerValue(parent, annotation, stream);
+      if (operands.length > i + 1) {
+        second = operands[i + 1].getIntegerValue(parent, annotation, stream);
       }
-      result = calculate(result, second, getOperators().get(i));
+      result = calculate(result, second, opCodes[i]);
     }
     return result;
   }
@@ -86,6 +140,13 @@ public class ComposedNumberExpression extends AbstractNumberExpression {
     return "" + getDoubleValue(parent, annotation, stream);
   }
 
+  /**
+   * @return true, if all operands are constant and the values were calculated in advance
+   */
+  public boolean isConstant() {
+    return constant;
+  }
+
   public List<INumberExpression> getExpressions() {
     return expressions;
   }
@@ -27,20 +27,43 @@ public class NegativeNumberExpression extends AbstractNumberExpression {
 
   private final INumberExpression ne;
 
+  private final boolean constant;
+
+  private double doubleValue;
+
+  private float floatValue;
+
+  private int intValue;
+
   public NegativeNumberExpression(INumberExpression simpleNumberExpression) {
     super();
     this.ne = simpleNumberExpression;
+    this.constant = isConstant(ne);
+    if (constant) {
+      doubleValue = -ne.getDoubleValue(null, null, null);
+      floatValue = -ne.getFloatValue(null, null, null);
+      intValue = -ne.getIntegerValue(null, null, null);
+    }
   }
 
   public double getDoubleValue(RutaBlock parent, AnnotationFS annotation, RutaStream stream) {
+    if (constant) {
+      return doubleValue;
+    }
     return -ne.getDoubleValue(parent, annotation, stream);
   }
 
   public float getFloatValue(RutaBlock parent, AnnotationFS annotation, RutaStream stream) {
+    if (constant) {
+      return floatValue;
+    }
     return -ne.getFloatValue(parent, annotation, stream);
   }
 
   public int getIntegerValue(RutaBlock parent, AnnotationFS annotation, RutaStream stream) {
+    if (constant) {
+      return intValue;
+    }
     return -ne.getIntegerValue(parent, annotation, stream);
   }
 
@@ -52,4 +75,11 @@ public class NegativeNumberExpression extends AbstractNumberExpression {
     return ne;
   }
 
+  /**
+   * @return true, if the negated expression is constant and the values were calculated in advance
+   */
+  public boolean isConstant() {
+    return constant;
+  }
+
 }
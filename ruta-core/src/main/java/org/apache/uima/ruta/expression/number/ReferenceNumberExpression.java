@@ -22,18 +22,22 @@ package org.apache.uima.ruta.expression.number;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.ruta.RutaBlock;
 import org.apache.uima.ruta.RutaStream;
+import org.apache.uima.ruta.expression.VariableReference;
 
 public class ReferenceNumberExpression extends AbstractNumberExpression {
 
   private final String var;
 
+  private final VariableReference reference;
+
   public ReferenceNumberExpression(String var) {
     super();
     this.var = var;
+    this.reference = new VariableReference(var);
   }
 
   public double getDoubleValue(RutaBlock parent, AnnotationFS annotation, RutaStream stream) {
-    Object value = parent.getEnvironment().getVariableValue(getVar());
+    Object value = reference.getValue(parent);
     double variableValue = 0;
     if (value instanceof Number) {
       variableValue = ((Number) value).doubleValue();
@@ -42,7 +46,7 @@ public class ReferenceNumberExpression extends AbstractNumberExpression {
   }
 
   public float getFloatValue(RutaBlock parent, AnnotationFS annotation, RutaStream stream) {
-    Object value = parent.getEnvironment().getVariableValue(getVar());
+    Object value = reference.getValue(parent);
     float variableValue = 0;
     if (value instanceof Number) {
       variableValue = ((Number) value).floatValue();
@@ -51,7 +55,7 @@ public class ReferenceNumberExpression extends AbstractNumberExpression {
   }
 
   public int getIntegerValue(RutaBlock parent, AnnotationFS annotation, RutaStream stream) {
-    Object value = parent.getEnvironment().getVariableValue(getVar());
+    Object value = reference.getValue(parent);
     int variableValue = 0;
     if (value instanceof Number) {
       variableValue = ((Number) value).intValue();
@@ -60,7 +64,7 @@ public class ReferenceNumberExpression extends AbstractNumberExpression {
   }
 
   public String getStringValue(RutaBlock parent, AnnotationFS annotation, RutaStream stream) {
-    Class<?> variableType = parent.getEnvironment().getVariableType(getVar());
+    Class<?> variableType = reference.getType(parent);
     if (variableType.equals(Integer.class)) {
       return "" + getIntegerValue(parent, annotation, stream);
     } else {
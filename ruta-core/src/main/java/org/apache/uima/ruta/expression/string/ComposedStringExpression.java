@@ -24,25 +24,66 @@ import java.util.List;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.ruta.RutaBlock;
 import org.apache.uima.ruta.RutaStream;
+import org.apache.uima.ruta.expression.number.AbstractNumberExpression;
+import org.apache.uima.ruta.expression.number.INumberExpression;
 
 public class ComposedStringExpression extends LiteralStringExpression {
 
   private final List<IStringExpression> epxressions;
 
+  private final IStringExpression[] parts;
+
+  // the value, if all parts are constant
+  private final String value;
+
   public ComposedStringExpression(List<IStringExpression> expressions) {
     super();
     this.epxressions = expressions;
+    this.parts = expressions.toArray(new IStringExpression[expressions.size()]);
+    boolean constant = true;
+    for (IStringExpression each : parts) {
+      constant &= isConstant(each);
+    }
+    this.value = constant ? concat(null, null, null) : null;
   }
 
   @Override
   public String getStringValue(RutaBlock parent, AnnotationFS annotation, RutaStream stream) {
+    if (value != null) {
+      return value;
+    }
+    if (parts.length == 1) {
+      return String.valueOf(parts[0].getStringValue(parent, annotation, stream));
+    }
+    return concat(parent, annotation, stream);
+  }
+
+  private String concat(RutaBlock parent, AnnotationFS annotation, RutaStream stream) {
     StringBuilder result = new StringBuilder();
-    for (IStringExpression each : getExpressions()) {
+    for (IStringExpression each : parts) {
       result.append(each.getStringValue(parent, annotation, stream));
     }
     return result.toString();
   }
 
+  /**
+   * @return true, if the value of the expression was concatenated in advance
+   */
+  public boolean isConstant() {
+    return value != null;
+  }
+
+  private static boolean isConstant(IStringExpression expression) {
+    if (expression instanceof SimpleStringExpression) {
+      return true;
+    } else if (expression instanceof ComposedStringExpression) {
+      return ((ComposedStringExpression) expression).isConstant();
+    } else if (expression instanceof INumberExpression) {
+      return AbstractNumberExpression.isConstant((INumberExpression) expression);
+    }
+    return false;
+  }
+
   public List<IStringExpression> getExpressions() {
     return epxressions;
   }
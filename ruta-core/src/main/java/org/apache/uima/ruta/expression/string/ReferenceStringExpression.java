@@ -22,19 +22,23 @@ package org.apache.uima.ruta.expression.string;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.ruta.RutaBlock;
 import org.apache.uima.ruta.RutaStream;
+import org.apache.uima.ruta.expression.VariableReference;
 
 public class ReferenceStringExpression extends LiteralStringExpression {
 
   private final String var;
 
+  private final VariableReference reference;
+
   public ReferenceStringExpression(String var) {
     super();
     this.var = var;
+    this.reference = new VariableReference(var);
   }
 
   @Override
   public String getStringValue(RutaBlock parent, AnnotationFS annotation, RutaStream stream) {
-    String variableValue = parent.getEnvironment().getVariableValue(getVar(), String.class);
+    String variableValue = reference.getValue(parent, String.class);
     return variableValue;
   }
 
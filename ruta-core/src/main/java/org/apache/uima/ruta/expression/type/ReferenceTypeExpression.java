@@ -23,14 +23,18 @@ import org.apache.uima.cas.Type;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.ruta.RutaBlock;
 import org.apache.uima.ruta.RutaStream;
+import org.apache.uima.ruta.expression.VariableReference;
 
 public class ReferenceTypeExpression extends TypeExpression {
 
   private final String var;
 
+  private final VariableReference reference;
+
   public ReferenceTypeExpression(String varString) {
     super();
     this.var = varString;
+    this.reference = new VariableReference(varString);
   }
 
   @Override
@@ -51,7 +55,7 @@ public class ReferenceTypeExpression extends TypeExpression {
    */
   @Override
   public Type getType(RutaBlock parent) {
-    Type type = parent.getEnvironment().getVariableValue(var, Type.class);
+    Type type = reference.getValue(parent, Type.class);
     if(type == null) {
       throw new IllegalArgumentException("Not able to resolve type variable: " + var);
     }
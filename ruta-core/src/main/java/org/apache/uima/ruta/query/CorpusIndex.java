@@ -0,0 +1,349 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.query;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.TypeSystem;
+
+/**
+ * Persistent inverted index of a corpus, which maps the types of the annotations and the words of
+ * the document texts to the documents containing them. It is used by {@link CorpusQuery} to skip
+ * documents, in which a query rule cannot match, without deserializing them.
+ * <p>
+ * A document is identified by its path relative to the corpus directory. Its entry is only used as
+ * long as the last modification time and the length of the file are unchanged, otherwise the
+ * document is indexed again when it is processed. A type is contained in a document if there is an
+ * annotation of the type or of one of its subtypes. Words are sequences of letters, sequences of
+ * digits and all other single characters except whitespaces, like the tokens of the seeding.
+ */
+public class CorpusIndex {
+
+  private static final int VERSION = 1;
+
+  private static final int MAX_WORD_LENGTH = 128;
+
+  private static final String TYPE_PREFIX = "t:";
+
+  private static final String WORD_PREFIX = "w:";
+
+  private static class Document {
+
+    private final String path;
+
+    private final long lastModified;
+
+    private final long length;
+
+    private Document(String path, long lastModified, long length) {
+      super();
+      this.path = path;
+      this.lastModified = lastModified;
+      this.length = length;
+    }
+  }
+
+  private static class Postings {
+
+    private int[] documents = new int[4];
+
+    private int size = 0;
+
+    private void add(int document) {
+      if (size == documents.length) {
+        documents = Arrays.copyOf(documents, size * 2);
+      }
+      documents[size++] = document;
+    }
+
+    private boolean contains(int document) {
+      // the documents are added in ascending order
+      return Arrays.binarySearch(documents, 0, size, document) >= 0;
+    }
+  }
+
+  private final File file;
+
+  // null if the document was changed and indexed again
+  private List<Document> documents = new ArrayList<Document>();
+
+  private Map<String, Integer> ids = new HashMap<String, Integer>();
+
+  private Map<String, Postings> postings = new HashMap<String, Postings>();
+
+  private boolean modified = false;
+
+  /**
+   * Creates the index stored in the given file. The existing content of the file is loaded, unless
+   * it was written by an incompatible version.
+   */
+  public CorpusIndex(File file) throws IOException {
+    super();
+    this.file = file;
+    if (file.exists()) {
+      load();
+    }
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * @return the id of the document or -1, if the document is not indexed or was changed
+   */
+  public synchronized int getDocument(String path, long lastModified, long length) {
+    Integer id = ids.get(path);
+    if (id == null) {
+      return -1;
+    }
+    Document document = documents.get(id);
+    if (document.lastModified != lastModified || document.length != length) {
+      return -1;
+    }
+    return id;
+  }
+
+  /**
+   * @return true if the indexed document contains an annotation of the type with the given name
+   */
+  public boolean containsType(int document, String typeName) {
+    return contains(document, TYPE_PREFIX + typeName);
+  }
+
+  /**
+   * @return true if the text of the indexed document contains the given word
+   */
+  public boolean containsWord(int document, String word) {
+    return contains(document, WORD_PREFIX + word);
+  }
+
+  /**
+   * Indexes the types and words of the given CAS for the document. A previous entry of the
+   * document is replaced.
+   */
+  public void add(String path, long lastModified, long length, CAS cas) {
+    Set<String> keys = new LinkedHashSet<String>();
+    TypeSystem typeSystem = cas.getTypeSystem();
+    Type annotationType = cas.getAnnotationType();
+    for (Type each : typeSystem.getProperlySubsumedTypes(annotationType)) {
+      if (cas.getAnnotationIndex(each).size() > 0) {
+        keys.add(TYPE_PREFIX + each.getName());
+      }
+    }
+    String text = cas.getDocumentText();
+    if (text != null) {
+      for (String each : getWords(text)) {
+        keys.add(WORD_PREFIX + each);
+      }
+    }
+    add(new Document(path, lastModified, length), keys);
+  }
+
+  /**
+   * @return true if documents were indexed since the index was loaded or saved
+   */
+  public synchronized boolean isModified() {
+    return modified;
+  }
+
+  /**
+   * Removes the entries of changed documents and writes the index to its file.
+   */
+  public synchronized void save() throws IOException {
+    compact();
+    File parent = file.getAbsoluteFile().getParentFile();
+    if (parent != null) {
+      parent.mkdirs();
+    }
+    File tempFile = new File(file.getPath() + ".tmp");
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(
+            new FileOutputStream(tempFile))));
+    try {
+      out.writeInt(VERSION);
+      out.writeInt(documents.size());
+      for (Document each : documents) {
+        out.writeUTF(each.path);
+        out.writeLong(each.lastModified);
+        out.writeLong(each.length);
+      }
+      out.writeInt(postings.size());
+      for (Entry<String, Postings> entry : postings.entrySet()) {
+        out.writeUTF(entry.getKey());
+        Postings value = entry.getValue();
+        out.writeInt(value.size);
+        for (int i = 0; i < value.size; i++) {
+          out.writeInt(value.documents[i]);
+        }
+      }
+    } finally {
+      out.close();
+    }
+    if (file.exists() && !file.delete()) {
+      throw new IOException("Not able to replace index file " + file);
+    }
+    if (!tempFile.renameTo(file)) {
+      throw new IOException("Not able to rename " + tempFile + " to " + file);
+    }
+    modified = false;
+  }
+
+  /**
+   * Splits the text into words: sequences of letters, sequences of digits and all other single
+   * characters except whitespaces. Words longer than the supported length are skipped.
+   */
+  public static List<String> getWords(String text) {
+    List<String> result = new ArrayList<String>();
+    int length = text.length();
+    int i = 0;
+    while (i < length) {
+      char c = text.charAt(i);
+      int end = i + 1;
+      if (Character.isLetter(c)) {
+        while (end < length && Character.isLetter(text.charAt(end))) {
+          end++;
+        }
+      } else if (Character.isDigit(c)) {
+        while (end < length && Character.isDigit(text.charAt(end))) {
+          end++;
+        }
+      } else if (Character.isWhitespace(c)) {
+        i = end;
+        continue;
+      }
+      if (end - i <= MAX_WORD_LENGTH) {
+        result.add(text.substring(i, end));
+      }
+      i = end;
+    }
+    return result;
+  }
+
+  private synchronized boolean contains(int document, String key) {
+    Postings value = postings.get(key);
+    return value != null && value.contains(document);
+  }
+
+  private synchronized void add(Document document, Set<String> keys) {
+    Integer old = ids.get(document.path);
+    if (old != null) {
+      documents.set(old, null);
+    }
+    int id = documents.size();
+    documents.add(document);
+    ids.put(document.path, id);
+    for (String each : keys) {
+      Postings value = postings.get(each);
+      if (value == null) {
+        value = new Postings();
+        postings.put(each, value);
+      }
+      value.add(id);
+    }
+    modified = true;
+  }
+
+  private void compact() {
+    int[] newIds = new int[documents.size()];
+    List<Document> newDocuments = new ArrayList<Document>();
+    Map<String, Integer> newIdMap = new HashMap<String, Integer>();
+    for (int i = 0; i < documents.size(); i++) {
+      Document document = documents.get(i);
+      if (document == null) {
+        newIds[i] = -1;
+      } else {
+        newIds[i] = newDocuments.size();
+        newIdMap.put(document.path, newDocuments.size());
+        newDocuments.add(document);
+      }
+    }
+    if (newDocuments.size() == documents.size()) {
+      return;
+    }
+    Map<String, Postings> newPostings = new HashMap<String, Postings>();
+    for (Entry<String, Postings> entry : postings.entrySet()) {
+      Postings value = entry.getValue();
+      Postings newValue = new Postings();
+      for (int i = 0; i < value.size; i++) {
+        int id = newIds[value.documents[i]];
+        if (id != -1) {
+          newValue.add(id);
+        }
+      }
+      if (newValue.size > 0) {
+        newPostings.put(entry.getKey(), newValue);
+      }
+    }
+    documents = newDocuments;
+    ids = newIdMap;
+    postings = newPostings;
+  }
+
+  private void load() throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(
+            new FileInputStream(file))));
+    try {
+      if (in.readInt() != VERSION) {
+        // rebuilt by the next queries
+        return;
+      }
+      int documentCount = in.readInt();
+      for (int i = 0; i < documentCount; i++) {
+        Document document = new Document(in.readUTF(), in.readLong(), in.readLong());
+        ids.put(document.path, documents.size());
+        documents.add(document);
+      }
+      int keyCount = in.readInt();
+      for (int i = 0; i < keyCount; i++) {
+        String key = in.readUTF();
+        int size = in.readInt();
+        Postings value = new Postings();
+        value.documents = new int[Math.max(1, size)];
+        for (int j = 0; j < size; j++) {
+          value.documents[j] = in.readInt();
+        }
+        value.size = size;
+        postings.put(key, value);
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+}
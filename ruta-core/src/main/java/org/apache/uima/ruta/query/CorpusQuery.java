@@ -0,0 +1,628 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.query;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CommonTokenStream;
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.impl.Serialization;
+import org.apache.uima.cas.impl.XmiCasDeserializer;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.jcas.cas.FSArray;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.metadata.ConfigurationParameterSettings;
+import org.apache.uima.resource.metadata.TypeDescription;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.ruta.RutaBlock;
+import org.apache.uima.ruta.RutaModule;
+import org.apache.uima.ruta.RutaStatement;
+import org.apache.uima.ruta.engine.RutaEngine;
+import org.apache.uima.ruta.expression.MatchReference;
+import org.apache.uima.ruta.expression.RutaExpression;
+import org.apache.uima.ruta.expression.string.SimpleStringExpression;
+import org.apache.uima.ruta.expression.type.SimpleTypeExpression;
+import org.apache.uima.ruta.extensions.IRutaExtension;
+import org.apache.uima.ruta.extensions.RutaExternalFactory;
+import org.apache.uima.ruta.parser.RutaLexer;
+import org.apache.uima.ruta.parser.RutaParser;
+import org.apache.uima.ruta.rule.AbstractRuleElement;
+import org.apache.uima.ruta.rule.ComposedRuleElement;
+import org.apache.uima.ruta.rule.RuleElement;
+import org.apache.uima.ruta.rule.RutaLiteralMatcher;
+import org.apache.uima.ruta.rule.RutaMatcher;
+import org.apache.uima.ruta.rule.RutaRule;
+import org.apache.uima.ruta.rule.RutaRuleElement;
+import org.apache.uima.ruta.rule.RutaTypeMatcher;
+import org.apache.uima.ruta.rule.quantifier.NormalQuantifier;
+import org.apache.uima.ruta.rule.quantifier.PlusGreedy;
+import org.apache.uima.ruta.rule.quantifier.PlusReluctant;
+import org.apache.uima.ruta.rule.quantifier.RuleElementQuantifier;
+import org.apache.uima.util.CasCreationUtils;
+import org.apache.uima.util.FileUtils;
+import org.apache.uima.util.InvalidXMLException;
+import org.apache.uima.util.XMLInputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Applies query rules on the documents of a corpus without the Eclipse workbench, and reports the
+ * matches of the rules like the Query view. The documents are XMI files (ending with xmi), binary
+ * CAS files (ending with bcas) written with the same type system, or plain text files. The
+ * documents are processed by a fixed amount of worker threads, each with its own analysis engine
+ * and CAS.
+ * <p>
+ * If a {@link CorpusIndex} is set, the documents are skipped without deserializing them, if the
+ * index tells that none of the rules can match: a rule can only match if the document contains
+ * the types and words of its rule elements, which must match at least once. Only rules without
+ * actions are considered, otherwise no document is skipped. Literal rule elements are assumed to
+ * match complete words, i.e., a literal matching only a part of a word due to an annotation
+ * splitting the word is not found in a skipped document. Documents that are not yet indexed or
+ * were changed are indexed when they are processed.
+ */
+public class CorpusQuery {
+
+  /**
+   * Receives the matches of the processed documents.
+   */
+  public interface Listener {
+
+    /**
+     * Called for each processed document, possibly by different threads, but never concurrently.
+     */
+    void processed(File file, List<QueryMatch> matches);
+  }
+
+  private static final String DEBUG_MATCHED_TYPE = "org.apache.uima.ruta.type.DebugMatchedRuleMatch";
+
+  private static final String DEBUG_RULE_APPLY_TYPE = "org.apache.uima.ruta.type.DebugRuleApply";
+
+  private static final String DEBUG_BLOCK_APPLY_TYPE = "org.apache.uima.ruta.type.DebugBlockApply";
+
+  private static final String TYPE_KEY = "type:";
+
+  private static final String WORD_KEY = "word:";
+
+  private final String rules;
+
+  private final TypeSystemDescription typeSystem;
+
+  private int threads = 1;
+
+  private String[] extensions = new String[0];
+
+  private CorpusIndex index;
+
+  private volatile boolean canceled = false;
+
+  private final AtomicInteger skipped = new AtomicInteger();
+
+  /**
+   * @param rules
+   *          the query rules
+   * @param typeSystem
+   *          the type system of the documents or null, if the documents only use the types of
+   *          Ruta
+   */
+  public CorpusQuery(String rules, TypeSystemDescription typeSystem) {
+    super();
+    this.rules = rules;
+    this.typeSystem = typeSystem;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Sets the amount of worker threads processing the documents. The default value is 1.
+   */
+  public void setThreads(int threads) {
+    this.threads = Math.max(1, threads);
+  }
+
+  public String[] getExtensions() {
+    return extensions;
+  }
+
+  /**
+   * Sets the names of the classes implementing additional language extensions.
+   */
+  public void setExtensions(String[] extensions) {
+    this.extensions = extensions == null ? new String[0] : extensions;
+  }
+
+  public CorpusIndex getIndex() {
+    return index;
+  }
+
+  /**
+   * Sets the index used to skip documents or null, if all documents are processed.
+   */
+  public void setIndex(CorpusIndex index) {
+    this.index = index;
+  }
+
+  /**
+   * Stops the query after the documents currently processed.
+   */
+  public void cancel() {
+    canceled = true;
+  }
+
+  public boolean isCanceled() {
+    return canceled;
+  }
+
+  /**
+   * @return the amount of documents skipped with the index by the last query
+   */
+  public int getSkipped() {
+    return skipped.get();
+  }
+
+  /**
+   * Applies the rules on the given documents of the corpus directory. The index is saved
+   * afterwards if documents were indexed.
+   */
+  public void run(final File dir, final List<File> files, final Listener listener)
+          throws ResourceInitializationException, AnalysisEngineProcessException, IOException {
+    canceled = false;
+    skipped.set(0);
+    final AnalysisEngineDescription description = createDescription();
+    final List<List<String>> requirements = index == null ? null : getRequirements();
+    final AtomicInteger next = new AtomicInteger();
+    List<Callable<Void>> workers = new ArrayList<Callable<Void>>();
+    for (int i = 0; i < threads; i++) {
+      workers.add(new Callable<Void>() {
+        public Void call() throws Exception {
+          process(dir, files, next, description, requirements, listener);
+          return null;
+        }
+      });
+    }
+    try {
+      if (threads == 1) {
+        workers.get(0).call();
+      } else {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+          for (Future<Void> each : executor.invokeAll(workers)) {
+            each.get();
+          }
+        } finally {
+          executor.shutdownNow();
+        }
+      }
+    } catch (ExecutionException e) {
+      rethrow(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AnalysisEngineProcessException(e);
+    } catch (Exception e) {
+      rethrow(e);
+    }
+    if (index != null && index.isModified()) {
+      index.save();
+    }
+  }
+
+  /**
+   * @return the files in the directory with a name matching the filter
+   */
+  public static List<File> getFiles(File dir, final Pattern fileNameFilter, boolean recursive) {
+    List<File> result = new ArrayList<File>();
+    File[] files = dir.listFiles(new FileFilter() {
+      public boolean accept(File pathname) {
+        return pathname.isFile() && fileNameFilter.matcher(pathname.getName()).matches();
+      }
+    });
+    if (files != null) {
+      Collections.addAll(result, files);
+    }
+    if (recursive) {
+      File[] dirs = dir.listFiles(new FileFilter() {
+        public boolean accept(File pathname) {
+          return pathname.isDirectory();
+        }
+      });
+      if (dirs != null) {
+        for (File each : dirs) {
+          result.addAll(getFiles(each, fileNameFilter, recursive));
+        }
+      }
+    }
+    return result;
+  }
+
+  private void process(File dir, List<File> files, AtomicInteger next,
+          AnalysisEngineDescription description, List<List<String>> requirements,
+          Listener listener) throws Exception {
+    AnalysisEngine ae = UIMAFramework.produceAnalysisEngine(description);
+    CAS cas = ae.newCAS();
+    try {
+      int i;
+      while (!canceled && (i = next.getAndIncrement()) < files.size()) {
+        File file = files.get(i);
+        String path = getPath(dir, file);
+        long lastModified = file.lastModified();
+        long length = file.length();
+        int document = -1;
+        if (index != null) {
+          document = index.getDocument(path, lastModified, length);
+          if (document != -1 && requirements != null && !mayMatch(document, requirements)) {
+            skipped.incrementAndGet();
+            continue;
+          }
+        }
+        cas.reset();
+        read(file, cas);
+        if (index != null && document == -1) {
+          index.add(path, lastModified, length, cas);
+        }
+        removeDebugAnnotations(cas);
+        ae.process(cas);
+        List<QueryMatch> matches = getMatches(cas, file);
+        synchronized (listener) {
+          listener.processed(file, matches);
+        }
+      }
+    } finally {
+      cas.release();
+      ae.destroy();
+    }
+  }
+
+  private AnalysisEngineDescription createDescription() throws ResourceInitializationException {
+    try {
+      URL url = RutaEngine.class.getResource("BasicEngine.xml");
+      AnalysisEngineDescription description = UIMAFramework.getXMLParser()
+              .parseAnalysisEngineDescription(new XMLInputSource(url));
+      if (typeSystem != null) {
+        Collection<TypeSystemDescription> tsds = new ArrayList<TypeSystemDescription>();
+        tsds.add(description.getAnalysisEngineMetaData().getTypeSystem());
+        tsds.add(typeSystem);
+        description.getAnalysisEngineMetaData().setTypeSystem(
+                CasCreationUtils.mergeTypeSystems(tsds));
+      }
+      ConfigurationParameterSettings settings = description
+              .getAnalysisEngineMetaData().getConfigurationParameterSettings();
+      settings.setParameterValue(RutaEngine.PARAM_RULES, rules);
+      settings.setParameterValue(RutaEngine.PARAM_DEBUG, true);
+      settings.setParameterValue(RutaEngine.PARAM_DEBUG_WITH_MATCHES, true);
+      settings.setParameterValue(RutaEngine.PARAM_PROFILE, false);
+      settings.setParameterValue(RutaEngine.PARAM_STATISTICS, false);
+      settings.setParameterValue(RutaEngine.PARAM_ADDITIONAL_EXTENSIONS, extensions);
+      return description;
+    } catch (InvalidXMLException e) {
+      throw new ResourceInitializationException(e);
+    } catch (IOException e) {
+      throw new ResourceInitializationException(e);
+    }
+  }
+
+  private void read(File file, CAS cas) throws IOException, SAXException {
+    String name = file.getName();
+    if (name.endsWith("xmi") || name.endsWith("bcas")) {
+      InputStream in = new FileInputStream(file);
+      try {
+        if (name.endsWith("xmi")) {
+          XmiCasDeserializer.deserialize(in, cas, true);
+        } else {
+          Serialization.deserializeCAS(cas, in);
+        }
+      } finally {
+        in.close();
+      }
+    } else {
+      cas.setDocumentText(FileUtils.file2String(file, "UTF-8"));
+    }
+  }
+
+  private void removeDebugAnnotations(CAS cas) {
+    List<AnnotationFS> toRemove = new ArrayList<AnnotationFS>();
+    for (String each : new String[] { DEBUG_BLOCK_APPLY_TYPE, DEBUG_RULE_APPLY_TYPE,
+        DEBUG_MATCHED_TYPE }) {
+      for (AnnotationFS annotation : cas.getAnnotationIndex(cas.getTypeSystem().getType(each))) {
+        toRemove.add(annotation);
+      }
+    }
+    for (AnnotationFS each : toRemove) {
+      cas.removeFsFromIndexes(each);
+    }
+  }
+
+  private List<QueryMatch> getMatches(CAS cas, File file) {
+    List<QueryMatch> result = new ArrayList<QueryMatch>();
+    Type blockApplyType = cas.getTypeSystem().getType(DEBUG_BLOCK_APPLY_TYPE);
+    Type ruleApplyType = cas.getTypeSystem().getType(DEBUG_RULE_APPLY_TYPE);
+    Type matchedType = cas.getTypeSystem().getType(DEBUG_MATCHED_TYPE);
+    Feature innerApplyFeature = blockApplyType.getFeatureByBaseName("innerApply");
+    Feature rulesFeature = blockApplyType.getFeatureByBaseName("rules");
+    FSIterator<AnnotationFS> iterator = cas.getAnnotationIndex(blockApplyType).iterator();
+    while (iterator.isValid()) {
+      collectMatches(iterator.get(), file, blockApplyType, ruleApplyType, matchedType,
+              innerApplyFeature, rulesFeature, result);
+      iterator.moveToNext();
+    }
+    return result;
+  }
+
+  private void collectMatches(AnnotationFS fs, File file, Type blockApplyType, Type ruleApplyType,
+          Type matchedType, Feature innerApplyFeature, Feature rulesFeature,
+          List<QueryMatch> result) {
+    Feature feature = null;
+    if (fs.getType().equals(blockApplyType)) {
+      feature = innerApplyFeature;
+    } else if (fs.getType().equals(ruleApplyType)) {
+      feature = rulesFeature;
+    } else if (fs.getType().equals(matchedType)) {
+      result.add(new QueryMatch(fs.getBegin(), fs.getEnd(), fs.getCoveredText(), file));
+      return;
+    }
+    if (feature != null) {
+      FeatureStructure value = fs.getFeatureValue(feature);
+      if (value instanceof FSArray) {
+        FSArray array = (FSArray) value;
+        for (int i = 0; i < array.size(); i++) {
+          collectMatches((AnnotationFS) array.get(i), file, blockApplyType, ruleApplyType,
+                  matchedType, innerApplyFeature, rulesFeature, result);
+        }
+      }
+    }
+  }
+
+  private boolean mayMatch(int document, List<List<String>> requirements) {
+    for (List<String> keys : requirements) {
+      boolean contained = true;
+      for (String each : keys) {
+        if (each.startsWith(TYPE_KEY)) {
+          contained = index.containsType(document, each.substring(TYPE_KEY.length()));
+        } else {
+          contained = index.containsWord(document, each.substring(WORD_KEY.length()));
+        }
+        if (!contained) {
+          break;
+        }
+      }
+      if (contained) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Collects for each rule the types and words that a document needs to contain. Returns null if
+   * documents cannot be skipped, e.g., because the rules cannot be parsed or create annotations.
+   */
+  private List<List<String>> getRequirements() {
+    RutaModule module;
+    try {
+      RutaParser parser = new RutaParser(new CommonTokenStream(new RutaLexer(
+              new ANTLRStringStream(rules))));
+      RutaExternalFactory factory = new RutaExternalFactory();
+      for (String each : extensions) {
+        Class<?> extensionClass = Class.forName(each);
+        if (IRutaExtension.class.isAssignableFrom(extensionClass)) {
+          IRutaExtension extension = (IRutaExtension) extensionClass.newInstance();
+          for (String name : extension.getKnownExtensions()) {
+            factory.addExtension(name, extension);
+          }
+        }
+      }
+      parser.setExternalFactory(factory);
+      parser.setResourcePaths(new String[0]);
+      module = parser.file_input("Anonymous");
+    } catch (Exception e) {
+      // the analysis engine reports the error
+      return null;
+    }
+    Map<String, String> typeNames = getTypeNames();
+    RutaBlock block = module.getBlock(null);
+    List<List<String>> result = new ArrayList<List<String>>();
+    for (RutaStatement each : block.getElements()) {
+      if (each == null) {
+        continue;
+      }
+      if (!(each instanceof RutaRule)) {
+        return null;
+      }
+      List<RuleElement> ruleElements = ((RutaRule) each).getRuleElements();
+      if (createsAnnotations(ruleElements)) {
+        return null;
+      }
+      List<String> keys = new ArrayList<String>();
+      for (RuleElement ruleElement : ruleElements) {
+        if (ruleElement instanceof RutaRuleElement
+                && isRequired(((RutaRuleElement) ruleElement).getQuantifier())) {
+          addKeys(((RutaRuleElement) ruleElement).getMatcher(), block, typeNames, keys);
+        }
+      }
+      result.add(keys);
+    }
+    return result;
+  }
+
+  private boolean createsAnnotations(List<RuleElement> ruleElements) {
+    for (RuleElement each : ruleElements) {
+      if (each instanceof AbstractRuleElement) {
+        AbstractRuleElement element = (AbstractRuleElement) each;
+        if ((element.getActions() != null && !element.getActions().isEmpty())
+                || (element.getInlinedActionRules() != null && !element.getInlinedActionRules()
+                        .isEmpty())
+                || (element.getInlinedConditionRules() != null && !element
+                        .getInlinedConditionRules().isEmpty())) {
+          return true;
+        }
+      }
+      if (each instanceof ComposedRuleElement
+              && createsAnnotations(((ComposedRuleElement) each).getRuleElements())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isRequired(RuleElementQuantifier quantifier) {
+    return quantifier instanceof NormalQuantifier || quantifier instanceof PlusGreedy
+            || quantifier instanceof PlusReluctant;
+  }
+
+  private void addKeys(RutaMatcher matcher, RutaBlock block, Map<String, String> typeNames,
+          List<String> keys) {
+    if (matcher instanceof RutaTypeMatcher) {
+      RutaExpression expression = ((RutaTypeMatcher) matcher).getExpression();
+      String match = null;
+      if (expression instanceof MatchReference) {
+        MatchReference reference = (MatchReference) expression;
+        match = reference.getMatch();
+        if (match == null && reference.getRawTypeExpression() instanceof SimpleTypeExpression) {
+          match = ((SimpleTypeExpression) reference.getRawTypeExpression()).getTypeString();
+        }
+      }
+      String typeName = getTypeName(match, block, typeNames);
+      if (typeName != null) {
+        keys.add(TYPE_KEY + typeName);
+      }
+    } else if (matcher instanceof RutaLiteralMatcher
+            && ((RutaLiteralMatcher) matcher).getExpression() instanceof SimpleStringExpression) {
+      String value = ((SimpleStringExpression) ((RutaLiteralMatcher) matcher).getExpression())
+              .getValue();
+      for (String each : CorpusIndex.getWords(value)) {
+        keys.add(WORD_KEY + each);
+      }
+    }
+  }
+
+  /**
+   * Resolves the type of a match reference like Token or Token.pos, but only if it is a type of
+   * the documents and not a variable or a type of Ruta, which are created while processing.
+   */
+  private String getTypeName(String match, RutaBlock block, Map<String, String> typeNames) {
+    if (match == null) {
+      return null;
+    }
+    String[] parts = match.split("[.]");
+    StringBuilder sb = new StringBuilder();
+    for (String each : parts) {
+      if (sb.length() != 0) {
+        sb.append('.');
+      }
+      sb.append(each);
+      String head = sb.toString();
+      if (block.getEnvironment().ownsVariable(head)) {
+        return null;
+      }
+      if (typeNames.containsKey(head)) {
+        return typeNames.get(head);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the complete names of the document types for their complete and unambiguous short
+   *         names
+   */
+  private Map<String, String> getTypeNames() {
+    Map<String, String> result = new HashMap<String, String>();
+    if (typeSystem == null) {
+      return result;
+    }
+    Map<String, String> shortNames = new HashMap<String, String>();
+    for (TypeDescription each : typeSystem.getTypes()) {
+      String name = each.getName();
+      if (name.startsWith("uima.") || name.startsWith("org.apache.uima.ruta.type.")) {
+        continue;
+      }
+      result.put(name, name);
+      String shortName = name.substring(name.lastIndexOf('.') + 1);
+      if (shortNames.containsKey(shortName)) {
+        // ambiguous
+        shortNames.put(shortName, null);
+      } else {
+        shortNames.put(shortName, name);
+      }
+    }
+    for (Map.Entry<String, String> entry : shortNames.entrySet()) {
+      if (entry.getValue() != null && !result.containsKey(entry.getKey())) {
+        result.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return result;
+  }
+
+  private String getPath(File dir, File file) {
+    String base = dir.getAbsolutePath();
+    String path = file.getAbsolutePath();
+    if (path.startsWith(base)) {
+      path = path.substring(base.length());
+    }
+    return path.replace(File.separatorChar, '/');
+  }
+
+  private static void rethrow(Throwable e) throws ResourceInitializationException,
+          AnalysisEngineProcessException, IOException {
+    if (e instanceof ResourceInitializationException) {
+      throw (ResourceInitializationException) e;
+    }
+    if (e instanceof AnalysisEngineProcessException) {
+      throw (AnalysisEngineProcessException) e;
+    }
+    if (e instanceof IOException) {
+      throw (IOException) e;
+    }
+    if (e instanceof RuntimeException) {
+      throw (RuntimeException) e;
+    }
+    if (e instanceof Error) {
+      throw (Error) e;
+    }
+    throw new AnalysisEngineProcessException(e);
+  }
+
+}
@@ -35,6 +35,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.cas.Feature;
@@ -156,6 +160,89 @@ public class MultiTreeWordList implements RutaWordList {
     }
   }
 
+  /**
+   * Constructs a MultiTreeWordList from the given files. The words of the text files are
+   * partitioned by their first character and the subtrees of the root are built concurrently with
+   * the given executor. Other files are loaded afterwards.
+   * 
+   * @param files
+   *          the files to load
+   * @param base
+   *          the directory the names of the files are relative to
+   * @param executor
+   *          the executor used to build the subtrees of the root
+   */
+  public MultiTreeWordList(List<File> files, File base, ExecutorService executor)
+          throws IOException {
+    this.root = new MultiTextNode();
+    this.costMap = new EditDistanceCostMap();
+
+    Map<Character, List<String[]>> shards = new HashMap<Character, List<String[]>>();
+    List<String[]> remaining = new ArrayList<String[]>();
+    List<File> otherFiles = new ArrayList<File>();
+    for (File file : files) {
+      String name = getRelativePath(file, base);
+      if (!name.endsWith(".txt")) {
+        otherFiles.add(file);
+        continue;
+      }
+      BufferedReader br = new BufferedReader(new InputStreamReader(
+              new FileSystemResource(file).getInputStream(), ENCODING));
+      try {
+        String s = null;
+        while ((s = br.readLine()) != null) {
+          String[] entry = new String[] { s.trim(), name };
+          if (entry[0].length() == 0) {
+            remaining.add(entry);
+            continue;
+          }
+          Character key = entry[0].charAt(0);
+          List<String[]> shard = shards.get(key);
+          if (shard == null) {
+            shard = new ArrayList<String[]>();
+            shards.put(key, shard);
+          }
+          shard.add(entry);
+        }
+      } finally {
+        br.close();
+      }
+    }
+
+    List<Future<MultiTextNode>> futures = new ArrayList<Future<MultiTextNode>>();
+    for (Entry<Character, List<String[]>> entry : shards.entrySet()) {
+      final char key = entry.getKey();
+      final List<String[]> words = entry.getValue();
+      futures.add(executor.submit(new Callable<MultiTextNode>() {
+        @Override
+        public MultiTextNode call() throws Exception {
+          MultiTextNode shardRoot = new MultiTextNode();
+          for (String[] each : words) {
+            addWord(shardRoot, each[0], each[1]);
+          }
+          return shardRoot.getChildNode(key);
+        }
+      }));
+    }
+    try {
+      for (Future<MultiTextNode> future : futures) {
+        root.addChild(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while building the multi tree word list.", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Error while building the multi tree word list.", e.getCause());
+    }
+
+    for (String[] each : remaining) {
+      addWord(each[0], each[1]);
+    }
+    for (File file : otherFiles) {
+      load(new FileSystemResource(file), getRelativePath(file, base));
+    }
+  }
+
   private String getRelativePath(File file, File base) {
     if(base == null) {
       return file.getName();
@@ -237,6 +324,10 @@ public class MultiTreeWordList implements RutaWordList {
    *          The type of the string.
    */
   public void addWord(String s, String type) {
+    addWord(root, s, type);
+  }
+
+  private static void addWord(MultiTextNode root, String s, String type) {
 
     // Create Nodes from all chars of the strings besides the last one
     MultiTextNode pointer = root;
@@ -1350,4 +1441,8 @@ public class MultiTreeWordList implements RutaWordList {
     persistence.createMTWLFile(root, path, compress, encoding);
   }
 
+  public void createBinaryMTWLFile(String path, boolean compress) throws IOException {
+    persistence.createBinaryMTWLFile(root, path, compress);
+  }
+
 }
@@ -21,13 +21,21 @@ package org.apache.uima.ruta.resource;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -42,6 +50,11 @@ import org.xml.sax.XMLReader;
 
 public class MultiTreeWordListPersistence {
 
+  /**
+   * Header of multi tree word lists stored in the binary format.
+   */
+  public static final String BINARY_HEADER = "RMTW1";
+
   /**
    * Reads the XML-File with the specified path and creates a TreeWordList.
    * 
@@ -79,13 +92,45 @@ public class MultiTreeWordListPersistence {
     return false;
   }
 
+  /**
+   * Sniffs the content type for the binary format with the given header.
+   * 
+   * @param is
+   *          the inputStream to sniff. Must support {@link InputStream#markSupported()}
+   * @param header
+   *          the expected header of the binary format
+   * @return true if this stream starts with the header
+   */
+  public static boolean isSniffedBinaryContentType(InputStream is, String header)
+          throws IOException {
+    if (is == null)
+      throw new IOException("Stream is null");
+    if (!is.markSupported()) {
+      throw new IOException("Cannot mark stream. just wrap it in a BufferedInputStream");
+    }
+    byte[] bytes = new byte[header.length()];
+    is.mark(bytes.length);
+    int read = is.read(bytes);
+    is.reset();
+    return read == bytes.length && header.equals(new String(bytes, "US-ASCII"));
+  }
+
   public void readMTWL(MultiTextNode root, InputStream stream, String encoding) throws IOException {
     try {
       InputStream is = new BufferedInputStream(stream); // adds mark/reset support
+      if (isSniffedBinaryContentType(is, BINARY_HEADER)) {
+        readBinaryMTWL(root, is);
+        return;
+      }
       boolean isXml = isSniffedXmlContentType(is);
       if (!isXml) { // MTWL is encoded
-        is = new ZipInputStream(is);
-        ((ZipInputStream) is).getNextEntry(); // zip must contain a single entry
+        ZipInputStream zis = new ZipInputStream(is);
+        zis.getNextEntry(); // zip must contain a single entry
+        is = new BufferedInputStream(zis);
+        if (isSniffedBinaryContentType(is, BINARY_HEADER)) {
+          readBinaryMTWL(root, is);
+          return;
+        }
       }
       InputStreamReader streamReader = new InputStreamReader(is, encoding);
       TrieXMLEventHandler handler = new TrieXMLEventHandler(root);
@@ -143,6 +188,110 @@ public class MultiTreeWordListPersistence {
     writer.close();
   }
 
+  /**
+   * Reads a multi tree word list in the binary format and adds its words to the given root.
+   */
+  private void readBinaryMTWL(MultiTextNode root, InputStream stream) throws IOException {
+    DataInputStream in = new DataInputStream(stream);
+    in.skipBytes(BINARY_HEADER.length());
+    int typeCount = in.readInt();
+    String[] types = new String[typeCount];
+    for (int i = 0; i < typeCount; i++) {
+      types[i] = in.readUTF();
+    }
+    readBinaryNode(in, root, types);
+  }
+
+  private void readBinaryNode(DataInputStream in, MultiTextNode node, String[] types)
+          throws IOException {
+    if (in.readBoolean()) {
+      node.setWordEnd(true);
+    }
+    int nodeTypes = in.readInt();
+    for (int i = 0; i < nodeTypes; i++) {
+      node.addType(types[in.readInt()]);
+    }
+    int size = in.readInt();
+    for (int i = 0; i < size; i++) {
+      char c = in.readChar();
+      MultiTextNode child = node.getChildNode(c);
+      if (child == null) {
+        child = new MultiTextNode(c, false);
+        node.addChild(child);
+      }
+      readBinaryNode(in, child, types);
+    }
+  }
+
+  /**
+   * Writes the multi tree word list in a compact binary format, which is faster to load than the
+   * XML format. The types are stored once in a table and referenced by their index.
+   * 
+   * @param root
+   *          the root node of the tree
+   * @param path
+   *          the path of the new file
+   * @param compressed
+   *          option to compress the file
+   */
+  public void createBinaryMTWLFile(MultiTextNode root, String path, boolean compressed)
+          throws IOException {
+    Map<String, Integer> typeIndex = new HashMap<String, Integer>();
+    List<String> types = new ArrayList<String>();
+    collectTypes(root, typeIndex, types);
+
+    OutputStream os = new BufferedOutputStream(new FileOutputStream(path));
+    ZipOutputStream zos = null;
+    if (compressed) {
+      zos = new ZipOutputStream(os);
+      zos.putNextEntry(new ZipEntry(path));
+      os = zos;
+    }
+    DataOutputStream out = new DataOutputStream(os);
+    try {
+      out.writeBytes(BINARY_HEADER);
+      out.writeInt(types.size());
+      for (String type : types) {
+        out.writeUTF(type);
+      }
+      writeBinaryNode(out, root, typeIndex);
+      out.flush();
+      if (zos != null) {
+        zos.closeEntry();
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  private void collectTypes(MultiTextNode node, Map<String, Integer> typeIndex, List<String> types) {
+    for (String type : node.getTypes()) {
+      if (!typeIndex.containsKey(type)) {
+        typeIndex.put(type, types.size());
+        types.add(type);
+      }
+    }
+    for (MultiTextNode child : node.getChildren().values()) {
+      collectTypes(child, typeIndex, types);
+    }
+  }
+
+  private void writeBinaryNode(DataOutputStream out, MultiTextNode node,
+          Map<String, Integer> typeIndex) throws IOException {
+    out.writeBoolean(node.isWordEnd());
+    Collection<String> types = node.getTypes();
+    out.writeInt(types.size());
+    for (String type : types) {
+      out.writeInt(typeIndex.get(type));
+    }
+    Map<Character, MultiTextNode> children = node.getChildren();
+    out.writeInt(children.size());
+    for (MultiTextNode child : children.values()) {
+      out.writeChar(child.getValue());
+      writeBinaryNode(out, child, typeIndex);
+    }
+  }
+
   private void writeMTWLFile(MultiTextNode root, OutputStreamWriter writer) throws IOException {
     writer.write("<?xml version=\"1.0\" ?><root>");
     for (MultiTextNode node : root.getChildren().values()) {
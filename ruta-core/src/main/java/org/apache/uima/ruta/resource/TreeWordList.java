@@ -21,17 +21,26 @@ package org.apache.uima.ruta.resource;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -53,6 +62,12 @@ import org.xml.sax.SAXParseException;
 import org.xml.sax.XMLReader;
 
 public class TreeWordList implements RutaWordList {
+
+  /**
+   * Header of tree word lists stored in the binary format.
+   */
+  public static final String BINARY_HEADER = "RTWL1";
+
   private TextNode root;
 
   private String name;
@@ -85,7 +100,7 @@ public class TreeWordList implements RutaWordList {
       } else if (name.endsWith(".txt")) {
         buildNewTree(stream);
       } else if (name.endsWith(".twl")) {
-        readXML(stream, "UTF-8");
+        readTWL(stream, "UTF-8");
       } else {
         throw new IllegalArgumentException("File name should end with .twl or .txt, found " + name);
       }
@@ -117,7 +132,7 @@ public class TreeWordList implements RutaWordList {
   public TreeWordList(InputStream stream, String name, boolean dictRemoveWS) throws IOException {
     this.dictRemoveWS = dictRemoveWS;
     if (name.endsWith(".twl")) {
-      readXML(stream, "UTF-8");
+      readTWL(stream, "UTF-8");
     }
     if (name.endsWith(".txt")) {
       buildNewTree(stream);
@@ -138,6 +153,76 @@ public class TreeWordList implements RutaWordList {
     }
   }
 
+  /**
+   * Creates a new tree from the given words. The words are partitioned by their first character and
+   * the subtrees of the root are built concurrently with the given executor, since they do not
+   * share any node.
+   * 
+   * @param data
+   *          the words of the new tree
+   * @param executor
+   *          the executor used to build the subtrees of the root
+   * @throws IOException
+   *           when the construction of a subtree failed or was interrupted
+   */
+  public void buildNewTree(List<String> data, ExecutorService executor) throws IOException {
+    this.root = new TextNode();
+    Map<Character, List<String>> shards = new HashMap<Character, List<String>>();
+    List<String> remaining = new ArrayList<String>();
+    for (String s : data) {
+      int index = getFirstCharIndex(s);
+      if (index < 0) {
+        remaining.add(s);
+        continue;
+      }
+      Character key = s.charAt(index);
+      List<String> shard = shards.get(key);
+      if (shard == null) {
+        shard = new ArrayList<String>();
+        shards.put(key, shard);
+      }
+      shard.add(s);
+    }
+
+    List<Future<TextNode>> futures = new ArrayList<Future<TextNode>>();
+    for (Entry<Character, List<String>> entry : shards.entrySet()) {
+      final char key = entry.getKey();
+      final List<String> words = entry.getValue();
+      futures.add(executor.submit(new Callable<TextNode>() {
+        @Override
+        public TextNode call() throws Exception {
+          TextNode shardRoot = new TextNode();
+          for (String each : words) {
+            addWord(shardRoot, each, dictRemoveWS);
+          }
+          return shardRoot.getChildNode(key);
+        }
+      }));
+    }
+    try {
+      for (Future<TextNode> future : futures) {
+        root.addChild(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while building the tree word list.", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Error while building the tree word list.", e.getCause());
+    }
+    for (String s : remaining) {
+      addWord(s);
+    }
+  }
+
+  private int getFirstCharIndex(String s) {
+    for (int i = 0; i < s.length(); i++) {
+      if (!dictRemoveWS || !Character.isWhitespace(s.charAt(i))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
   /**
    * Creates a new Tree in the existing treeWordList from a file with path pathname
    * 
@@ -146,9 +231,30 @@ public class TreeWordList implements RutaWordList {
    *          stream.
    */
   public void buildNewTree(InputStream stream) throws IOException {
-    Scanner scan = new Scanner(stream, "UTF-8");
     // creating a new tree
     this.root = new TextNode();
+    for (String s : readWords(stream)) {
+      addWord(s);
+    }
+  }
+
+  /**
+   * Creates a new Tree in the existing treeWordList from a file with path pathname. The subtrees of
+   * the root are built concurrently with the given executor.
+   * 
+   * @param stream
+   *          Open InputStream containing the word for the treeWordList, this method will close the
+   *          stream.
+   * @param executor
+   *          the executor used to build the subtrees of the root
+   */
+  public void buildNewTree(InputStream stream, ExecutorService executor) throws IOException {
+    buildNewTree(readWords(stream), executor);
+  }
+
+  private List<String> readWords(InputStream stream) {
+    List<String> result = new ArrayList<String>();
+    Scanner scan = new Scanner(stream, "UTF-8");
     while (scan.hasNextLine()) {
       String s = scan.nextLine().trim();
       // HOTFIX for old formats
@@ -156,9 +262,10 @@ public class TreeWordList implements RutaWordList {
         s = s.substring(0, s.length() - 1);
         s = s.trim();
       }
-      addWord(s);
+      result.add(s);
     }
     scan.close();
+    return result;
   }
 
   /**
@@ -177,6 +284,10 @@ public class TreeWordList implements RutaWordList {
    *          The String to add
    */
   public void addWord(String s) {
+    addWord(root, s, dictRemoveWS);
+  }
+
+  private static void addWord(TextNode root, String s, boolean dictRemoveWS) {
     // Create Nodes from all chars of the strings besides the last one
     TextNode pointer = root;
     for (Character each : s.toCharArray()) {
@@ -363,6 +474,49 @@ public class TreeWordList implements RutaWordList {
     }
   }
 
+  /**
+   * Reads a tree word list in one of the supported formats: XML, binary, or one of them compressed.
+   * 
+   * @param stream
+   *          the stream of the tree word list
+   * @param encoding
+   *          the encoding of the XML format
+   */
+  public void readTWL(InputStream stream, String encoding) throws IOException {
+    InputStream is = new BufferedInputStream(stream); // adds mark/reset support
+    if (MultiTreeWordListPersistence.isSniffedBinaryContentType(is, BINARY_HEADER)) {
+      readBinary(is);
+      return;
+    }
+    if (!MultiTreeWordListPersistence.isSniffedXmlContentType(is)) {
+      is = new ZipInputStream(is);
+      ((ZipInputStream) is).getNextEntry(); // zip must contain a single entry
+      is = new BufferedInputStream(is);
+      if (MultiTreeWordListPersistence.isSniffedBinaryContentType(is, BINARY_HEADER)) {
+        readBinary(is);
+        return;
+      }
+    }
+    readXML(is, encoding);
+  }
+
+  private void readBinary(InputStream stream) throws IOException {
+    DataInputStream in = new DataInputStream(stream);
+    in.skipBytes(BINARY_HEADER.length());
+    this.root = new TextNode();
+    root.setWordEnd(in.readBoolean());
+    readBinaryChildren(in, root);
+  }
+
+  private void readBinaryChildren(DataInputStream in, TextNode parent) throws IOException {
+    int size = in.readInt();
+    for (int i = 0; i < size; i++) {
+      TextNode node = new TextNode(in.readChar(), in.readBoolean());
+      parent.addChild(node);
+      readBinaryChildren(in, node);
+    }
+  }
+
   public void readXML(InputStream stream, String encoding) throws IOException {
     try {
       InputStream is = new BufferedInputStream(stream); // adds mark/reset support
@@ -434,6 +588,47 @@ public class TreeWordList implements RutaWordList {
     writer.close();
   }
 
+  /**
+   * Writes the tree word list in a compact binary format, which is faster to load than the XML
+   * format.
+   * 
+   * @param path
+   *          the path of the new file
+   * @param compressed
+   *          option to compress the file
+   */
+  public void createBinaryTWLFile(String path, boolean compressed) throws IOException {
+    OutputStream os = new BufferedOutputStream(new FileOutputStream(path));
+    ZipOutputStream zos = null;
+    if (compressed) {
+      zos = new ZipOutputStream(os);
+      zos.putNextEntry(new ZipEntry(path));
+      os = zos;
+    }
+    DataOutputStream out = new DataOutputStream(os);
+    try {
+      out.writeBytes(BINARY_HEADER);
+      out.writeBoolean(root.isWordEnd());
+      writeBinaryChildren(out, root);
+      out.flush();
+      if (zos != null) {
+        zos.closeEntry();
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  private void writeBinaryChildren(DataOutputStream out, TextNode node) throws IOException {
+    Map<Character, TextNode> children = node.getChildren();
+    out.writeInt(children.size());
+    for (TextNode child : children.values()) {
+      out.writeChar(child.getValue());
+      out.writeBoolean(child.isWordEnd());
+      writeBinaryChildren(out, child);
+    }
+  }
+
   private void writeTWLFile(TextNode root, Writer writer) throws IOException {
     writer.write("<?xml version=\"1.0\" ?>");
     writer.write("<root>");
@@ -83,7 +83,11 @@ public abstract class AbstractRuleElement extends RutaElement implements RuleEle
     if (!ruleMatch.isApplied()) {
       ruleApply.add(ruleMatch);
       if (ruleMatch.matchedCompletely()) {
-        ruleMatch.getRule().getRoot().applyRuleElements(ruleMatch, stream, crowd);
+        if (ruleApply.isDeferringActions()) {
+          ruleApply.defer(ruleMatch);
+        } else {
+          ruleMatch.getRule().getRoot().applyRuleElements(ruleMatch, stream, crowd);
+        }
       }
       ruleMatch.setApplied(true);
     }
@@ -129,14 +133,56 @@ public abstract class AbstractRuleElement extends RutaElement implements RuleEle
   
 
   public void apply(RuleMatch ruleMatch, RutaStream stream, InferenceCrowd crowd) {
-    for (AbstractRutaAction action : actions) {
-      crowd.beginVisit(action, null);
-      action.execute(ruleMatch, this, stream, crowd);
-      crowd.endVisit(action, null);
+    if (crowd.isEmpty()) {
+      for (AbstractRutaAction action : actions) {
+        action.execute(ruleMatch, this, stream, crowd);
+      }
+    } else {
+      for (AbstractRutaAction action : actions) {
+        crowd.beginVisit(action, null);
+        action.execute(ruleMatch, this, stream, crowd);
+        crowd.endVisit(action, null);
+      }
     }
     processInlinedActionRules(ruleMatch, stream, crowd);
   }
 
+  /**
+   * Evaluates all conditions of this rule element on the given annotation. The visitors of the
+   * crowd are only notified if there are any. The returned list must not be modified.
+   */
+  protected List<EvaluatedCondition> evaluateConditions(AnnotationFS annotation,
+          RutaStream stream, InferenceCrowd crowd) {
+    int size = conditions.size();
+    if (size == 0) {
+      return Collections.emptyList();
+    }
+    boolean visit = !crowd.isEmpty();
+    if (size == 1) {
+      AbstractRutaCondition condition = conditions.get(0);
+      if (visit) {
+        crowd.beginVisit(condition, null);
+      }
+      EvaluatedCondition eval = condition.eval(annotation, this, stream, crowd);
+      if (visit) {
+        crowd.endVisit(condition, null);
+      }
+      return Collections.singletonList(eval);
+    }
+    List<EvaluatedCondition> result = new ArrayList<EvaluatedCondition>(size);
+    for (AbstractRutaCondition condition : conditions) {
+      if (visit) {
+        crowd.beginVisit(condition, null);
+      }
+      EvaluatedCondition eval = condition.eval(annotation, this, stream, crowd);
+      if (visit) {
+        crowd.endVisit(condition, null);
+      }
+      result.add(eval);
+    }
+    return result;
+  }
+
   protected boolean matchInnerRules(RuleMatch ruleMatch, RutaStream stream, InferenceCrowd crowd) {
     boolean inlinedRulesMatched = true;
     List<ScriptApply> list = processInlinedConditionRules(ruleMatch, stream, crowd);
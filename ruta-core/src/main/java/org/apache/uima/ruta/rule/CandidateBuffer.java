@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.rule;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.uima.cas.impl.TypeImpl;
+import org.apache.uima.cas.text.AnnotationFS;
+
+/**
+ * Reusable buffer for the candidates of a rule element. The offsets and the type code of the added
+ * annotations are stored in primitive arrays, which grow if needed and are kept for the next use.
+ * {@link #toList()} returns the candidates sorted by begin, descending end and type code, without
+ * duplicates, in a new list of the exact size and clears the buffer. Thus, the buffer can be used
+ * again while the returned list is still iterated, but it must not be used by several threads.
+ */
+public class CandidateBuffer {
+
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  private AnnotationFS[] annotations = new AnnotationFS[16];
+
+  private int[] begins = new int[16];
+
+  private int[] ends = new int[16];
+
+  private int[] codes = new int[16];
+
+  private int size = 0;
+
+  public void add(AnnotationFS annotation) {
+    if (size == annotations.length) {
+      grow();
+    }
+    annotations[size] = annotation;
+    begins[size] = annotation.getBegin();
+    ends[size] = annotation.getEnd();
+    codes[size] = ((TypeImpl) annotation.getType()).getCode();
+    size++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      annotations[i] = null;
+    }
+    size = 0;
+  }
+
+  /**
+   * @return the sorted candidates without duplicates in a new list
+   */
+  public List<AnnotationFS> toList() {
+    if (size == 0) {
+      return Collections.emptyList();
+    }
+    if (size == 1) {
+      List<AnnotationFS> result = Collections.singletonList(annotations[0]);
+      clear();
+      return result;
+    }
+    if (!isSorted()) {
+      sort(0, size - 1);
+    }
+    List<AnnotationFS> result = new ArrayList<AnnotationFS>(size);
+    for (int i = 0; i < size; i++) {
+      AnnotationFS each = annotations[i];
+      // duplicates are not necessarily adjacent, but have the same offsets and type
+      if (i == 0 || compare(i - 1, i) != 0 || !containsEqual(result, each, i)) {
+        result.add(each);
+      }
+    }
+    clear();
+    return result;
+  }
+
+  private boolean containsEqual(List<AnnotationFS> result, AnnotationFS annotation, int index) {
+    // go back over all candidates with the same offsets and type
+    for (int i = result.size() - 1; i >= 0; i--) {
+      AnnotationFS each = result.get(i);
+      if (each.getBegin() != begins[index] || each.getEnd() != ends[index]) {
+        return false;
+      }
+      if (each == annotation || each.equals(annotation)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isSorted() {
+    for (int i = 1; i < size; i++) {
+      if (compare(i - 1, i) > 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int compare(int i, int j) {
+    if (begins[i] != begins[j]) {
+      return begins[i] < begins[j] ? -1 : 1;
+    }
+    if (ends[i] != ends[j]) {
+      return ends[i] > ends[j] ? -1 : 1;
+    }
+    if (codes[i] != codes[j]) {
+      return codes[i] < codes[j] ? -1 : 1;
+    }
+    return 0;
+  }
+
+  private void sort(int low, int high) {
+    while (high - low >= INSERTION_SORT_THRESHOLD) {
+      int pivot = partition(low, high);
+      // recurse into the smaller part
+      if (pivot - low < high - pivot) {
+        sort(low, pivot - 1);
+        low = pivot + 1;
+      } else {
+        sort(pivot + 1, high);
+        high = pivot - 1;
+      }
+    }
+    for (int i = low + 1; i <= high; i++) {
+      for (int j = i; j > low && compare(j - 1, j) > 0; j--) {
+        swap(j - 1, j);
+      }
+    }
+  }
+
+  private int partition(int low, int high) {
+    swap((low + high) >>> 1, high);
+    int store = low;
+    for (int i = low; i < high; i++) {
+      if (compare(i, high) < 0) {
+        swap(i, store++);
+      }
+    }
+    swap(store, high);
+    return store;
+  }
+
+  private void swap(int i, int j) {
+    if (i == j) {
+      return;
+    }
+    AnnotationFS annotation = annotations[i];
+    annotations[i] = annotations[j];
+    annotations[j] = annotation;
+    int tmp = begins[i];
+    begins[i] = begins[j];
+    begins[j] = tmp;
+    tmp = ends[i];
+    ends[i] = ends[j];
+    ends[j] = tmp;
+    tmp = codes[i];
+    codes[i] = codes[j];
+    codes[j] = tmp;
+  }
+
+  private void grow() {
+    int length = annotations.length * 2;
+    AnnotationFS[] newAnnotations = new AnnotationFS[length];
+    System.arraycopy(annotations, 0, newAnnotations, 0, size);
+    annotations = newAnnotations;
+    begins = copy(begins, length);
+    ends = copy(ends, length);
+    codes = copy(codes, length);
+  }
+
+  private int[] copy(int[] array, int length) {
+    int[] result = new int[length];
+    System.arraycopy(array, 0, result, 0, size);
+    return result;
+  }
+
+}
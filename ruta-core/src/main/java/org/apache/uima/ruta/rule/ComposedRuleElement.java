@@ -30,6 +30,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 
+import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.ruta.RutaBlock;
@@ -539,17 +540,14 @@ public class ComposedRuleElement extends AbstractRuleElement implements RuleElem
     }
     int begin = textsMatched.get(0).getBegin();
     int end = textsMatched.get(textsMatched.size() - 1).getEnd();
-    AnnotationFS annotation = stream.getCas().createAnnotation(stream.getCas().getAnnotationType(),
-            begin, end);
-
-    List<EvaluatedCondition> evaluatedConditions = new ArrayList<EvaluatedCondition>(
-            conditions.size());
-    for (AbstractRutaCondition condition : conditions) {
-      crowd.beginVisit(condition, null);
-      EvaluatedCondition eval = condition.eval(annotation, this, stream, crowd);
-      crowd.endVisit(condition, null);
-      evaluatedConditions.add(eval);
+    CAS cas = stream.getCas();
+    AnnotationFS annotation;
+    synchronized (cas) {
+      // rules of a block can be matched concurrently
+      annotation = cas.createAnnotation(cas.getAnnotationType(), begin, end);
     }
+
+    List<EvaluatedCondition> evaluatedConditions = evaluateConditions(annotation, stream, crowd);
     match.setConditionInfo(evaluatedConditions);
     match.evaluateInnerMatches(true, stream);
     boolean inlinedRulesMatched = matchInnerRules(ruleMatch, stream, crowd);
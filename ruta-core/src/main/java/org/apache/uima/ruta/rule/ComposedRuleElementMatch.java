@@ -21,11 +21,11 @@ package org.apache.uima.ruta.rule;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.TreeSet;
 
 import org.apache.uima.cas.text.AnnotationFS;
@@ -42,13 +42,38 @@ public class ComposedRuleElementMatch extends RuleElementMatch {
     super(ruleElement, containerMatch);
     baseConditionMatched = false;
     ComposedRuleElement cre = (ComposedRuleElement) ruleElement;
-    innerMatches = new TreeMap<RuleElement, List<RuleElementMatch>>(new RuleElementComparator(cre));
     List<RuleElement> ruleElements = cre.getRuleElements();
+    // the keys are inserted in the order of the rule elements
+    innerMatches = newInnerMatchesMap(ruleElements.size());
     for (RuleElement eachRuleElement : ruleElements) {
       innerMatches.put(eachRuleElement, null);
     }
   }
 
+  /**
+   * Creates a copy of the given match without inner matches.
+   */
+  private ComposedRuleElementMatch(ComposedRuleElementMatch original) {
+    super(original.ruleElement, original.containerMatch);
+    setBaseConditionMatched(original.baseConditionMatched);
+    setConditions(original.conditions);
+    setConditionsMatched(original.conditionsMatched);
+    setTextsMatched(original.textsMatched);
+  }
+
+  private static Map<RuleElement, List<RuleElementMatch>> newInnerMatchesMap(int size) {
+    return new LinkedHashMap<RuleElement, List<RuleElementMatch>>(size * 2);
+  }
+
+  private static SharedMatchList toShared(List<RuleElementMatch> list) {
+    if (list instanceof SharedMatchList) {
+      return (SharedMatchList) list;
+    }
+    SharedMatchList result = new SharedMatchList();
+    result.addAll(list);
+    return result;
+  }
+
   protected void enforceUpdate() {
     textsMatchedUpdated = false;
     ComposedRuleElementMatch cm = getContainerMatch();
@@ -75,7 +100,7 @@ public class ComposedRuleElementMatch extends RuleElementMatch {
           boolean included, RutaStream stream) {
     List<RuleElementMatch> list = innerMatches.get(ruleElement);
     if (list == null) {
-      list = new ArrayList<RuleElementMatch>();
+      list = new SharedMatchList();
       innerMatches.put(ruleElement, list);
     }
     list.add(ruleElementMatch);
@@ -107,20 +132,21 @@ public class ComposedRuleElementMatch extends RuleElementMatch {
   }
 
   public ComposedRuleElementMatch copy() {
-    ComposedRuleElementMatch copy = new ComposedRuleElementMatch((ComposedRuleElement) ruleElement,
-            containerMatch);
-    copy.setBaseConditionMatched(baseConditionMatched);
-    copy.setConditions(conditions);
-    copy.setConditionsMatched(conditionsMatched);
-    copy.setTextsMatched(textsMatched);
-    Map<RuleElement, List<RuleElementMatch>> newMap = new TreeMap<RuleElement, List<RuleElementMatch>>(
-            new RuleElementComparator((ComposedRuleElement) ruleElement));
+    ComposedRuleElementMatch copy = new ComposedRuleElementMatch(this);
+    Map<RuleElement, List<RuleElementMatch>> newMap = newInnerMatchesMap(innerMatches.size());
     for (Entry<RuleElement, List<RuleElementMatch>> entry : innerMatches.entrySet()) {
       List<RuleElementMatch> value = entry.getValue();
       if (value != null) {
-        List<RuleElementMatch> newValue = new ArrayList<RuleElementMatch>();
-        for (RuleElementMatch each : value) {
-          newValue.add(each.copy());
+        SharedMatchList list = toShared(value);
+        SharedMatchList newValue;
+        if (list.containsComposed()) {
+          newValue = new SharedMatchList();
+          for (RuleElementMatch each : list) {
+            newValue.add(each instanceof ComposedRuleElementMatch ? each.copy() : each);
+          }
+        } else {
+          // the matches of other rule elements do not change anymore
+          newValue = list.share();
         }
         newMap.put(entry.getKey(), newValue);
       } else {
@@ -133,42 +159,34 @@ public class ComposedRuleElementMatch extends RuleElementMatch {
 
   public ComposedRuleElementMatch copy(ComposedRuleElementMatch extendedContainerMatch,
           boolean after) {
-    ComposedRuleElementMatch copy = new ComposedRuleElementMatch((ComposedRuleElement) ruleElement,
-            containerMatch);
-    copy.setBaseConditionMatched(baseConditionMatched);
-    copy.setConditions(conditions);
-    copy.setConditionsMatched(conditionsMatched);
-    copy.setTextsMatched(textsMatched);
-    Map<RuleElement, List<RuleElementMatch>> newMap = new TreeMap<RuleElement, List<RuleElementMatch>>(
-            new RuleElementComparator((ComposedRuleElement) ruleElement));
+    ComposedRuleElementMatch copy = new ComposedRuleElementMatch(this);
+    Map<RuleElement, List<RuleElementMatch>> newMap = newInnerMatchesMap(innerMatches.size());
     for (Entry<RuleElement, List<RuleElementMatch>> entry : innerMatches.entrySet()) {
       RuleElement key = entry.getKey();
       List<RuleElementMatch> value = entry.getValue();
       if (key.equals(extendedContainerMatch.getRuleElement())) {
-        // if (value.isEmpty()) {
         extendedContainerMatch.setContainerMatch(copy);
         if (value != null) {
-          List<RuleElementMatch> newValue = new ArrayList<RuleElementMatch>();
-          newValue.addAll(value);
+          SharedMatchList newValue = toShared(value).share();
           newValue.set(newValue.size() - 1, extendedContainerMatch);
           newMap.put(extendedContainerMatch.getRuleElement(), newValue);
         }
-        // } else {
-        // List<RuleElementMatch> newValue = new ArrayList<RuleElementMatch>();
-        // newValue.addAll(value);
-        // newValue.add(extendedContainerMatch);
-        // newMap.put(extendedContainerMatch.getRuleElement(), newValue);
-        // }
       } else {
         if (value != null) {
-          List<RuleElementMatch> newValue = new ArrayList<RuleElementMatch>();
-          for (RuleElementMatch each : value) {
-            each.setContainerMatch(copy);
-            if (each instanceof ComposedRuleElementMatch) {
-              newValue.add(((ComposedRuleElementMatch) each).copy(extendedContainerMatch, after));
-            } else {
-              newValue.add(each.copy());
+          SharedMatchList list = toShared(value);
+          SharedMatchList newValue;
+          if (list.containsComposed()) {
+            newValue = new SharedMatchList();
+            for (RuleElementMatch each : list) {
+              if (each instanceof ComposedRuleElementMatch) {
+                each.setContainerMatch(copy);
+                newValue.add(((ComposedRuleElementMatch) each).copy(extendedContainerMatch, after));
+              } else {
+                newValue.add(each);
+              }
             }
+          } else {
+            newValue = list.share();
           }
           newMap.put(entry.getKey(), newValue);
         } else {
@@ -182,23 +200,16 @@ public class ComposedRuleElementMatch extends RuleElementMatch {
 
   public ComposedRuleElementMatch copy2(ComposedRuleElementMatch extendedContainerMatch,
           boolean after) {
-    ComposedRuleElementMatch copy = new ComposedRuleElementMatch((ComposedRuleElement) ruleElement,
-            containerMatch);
-    copy.setBaseConditionMatched(baseConditionMatched);
-    copy.setConditions(conditions);
-    copy.setConditionsMatched(conditionsMatched);
-    copy.setTextsMatched(textsMatched);
-    Map<RuleElement, List<RuleElementMatch>> newMap = new TreeMap<RuleElement, List<RuleElementMatch>>(
-            new RuleElementComparator((ComposedRuleElement) ruleElement));
+    ComposedRuleElementMatch copy = new ComposedRuleElementMatch(this);
+    Map<RuleElement, List<RuleElementMatch>> newMap = newInnerMatchesMap(innerMatches.size());
     for (Entry<RuleElement, List<RuleElementMatch>> entry : innerMatches.entrySet()) {
       RuleElement key = entry.getKey();
       List<RuleElementMatch> value = entry.getValue();
       if (key.equals(extendedContainerMatch.getRuleElement())) {
         extendedContainerMatch.setContainerMatch(copy);
         if (value != null) {
-          List<RuleElementMatch> newValue = new ArrayList<RuleElementMatch>();
-          newValue.addAll(value);
-          if(!newValue.isEmpty()) {
+          SharedMatchList newValue = toShared(value).share();
+          if (!newValue.isEmpty()) {
             // there was no match
             newValue.set(newValue.size() - 1, extendedContainerMatch);
           }
@@ -206,28 +217,28 @@ public class ComposedRuleElementMatch extends RuleElementMatch {
         }
       } else {
         if (value != null && !value.isEmpty()) {
-          List<RuleElementMatch> newValue = new ArrayList<RuleElementMatch>();
-          int counter = 0;
-          for (RuleElementMatch each : value) {
-            each.setContainerMatch(copy);
-            // really need to copy all?
-            boolean isCurrentOne = false;
-            if (counter == value.size() - 1) {
-              isCurrentOne = true;
-            }
-            // should not be neccessary because empty matches are listed last
-            // if (after && counter == value.size() - 1) {
-            // isCurrentOne = true;
-            // }
-            // if (!after && counter == 0) {
-            // isCurrentOne = true;
-            // }
-            if (each instanceof ComposedRuleElementMatch && isCurrentOne) {
-              newValue.add(((ComposedRuleElementMatch) each).copy2(extendedContainerMatch, after));
-            } else {
-              newValue.add(each.copy());
+          SharedMatchList list = toShared(value);
+          SharedMatchList newValue;
+          if (list.containsComposed()) {
+            newValue = new SharedMatchList();
+            int counter = 0;
+            for (RuleElementMatch each : list) {
+              if (each instanceof ComposedRuleElementMatch) {
+                each.setContainerMatch(copy);
+                // empty matches are listed last
+                if (counter == list.size() - 1) {
+                  newValue.add(((ComposedRuleElementMatch) each).copy2(extendedContainerMatch,
+                          after));
+                } else {
+                  newValue.add(each.copy());
+                }
+              } else {
+                newValue.add(each);
+              }
+              counter++;
             }
-            counter++;
+          } else {
+            newValue = list.share();
           }
           newMap.put(entry.getKey(), newValue);
         } else {
@@ -20,6 +20,7 @@
 package org.apache.uima.ruta.rule;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.uima.ruta.condition.AbstractRutaCondition;
@@ -33,8 +34,6 @@ public class EvaluatedCondition {
 
   private final List<EvaluatedCondition> conditions;
 
-  private final List<EvaluatedCondition> noConditions = new ArrayList<EvaluatedCondition>(0);
-
   public EvaluatedCondition(AbstractRutaCondition condition, boolean value,
           List<EvaluatedCondition> conditions) {
     super();
@@ -47,7 +46,7 @@ public class EvaluatedCondition {
     super();
     this.condition = condition;
     this.value = value;
-    this.conditions = noConditions;
+    this.conditions = Collections.emptyList();
   }
 
   public EvaluatedCondition(NotCondition condition, boolean value, EvaluatedCondition eval) {
@@ -35,6 +35,10 @@ public class RuleApply extends ScriptApply {
 
   private boolean acceptMatches;
 
+  private int maxMatches = -1;
+
+  private List<RuleMatch> deferredMatches;
+
   public RuleApply(RutaStatement tme, boolean remember) {
     super(tme);
     list = new ArrayList<AbstractRuleMatch<? extends AbstractRule>>();
@@ -50,11 +54,31 @@ public class RuleApply extends ScriptApply {
       applied++;
     }
     tried++;
-    if (acceptMatches) {
+    if (acceptMatches && (maxMatches < 0 || list.size() < maxMatches)) {
       list.add(match);
     }
   }
 
+  /**
+   * Defers the execution of the actions: the complete matches are only collected and need to be
+   * applied later, see {@link RutaRule#applyDeferred}.
+   */
+  public void deferActions() {
+    deferredMatches = new ArrayList<RuleMatch>();
+  }
+
+  public boolean isDeferringActions() {
+    return deferredMatches != null;
+  }
+
+  public void defer(RuleMatch match) {
+    deferredMatches.add(match);
+  }
+
+  public List<RuleMatch> getDeferredMatches() {
+    return deferredMatches;
+  }
+
   public int getTried() {
     return tried;
   }
@@ -71,6 +95,19 @@ public class RuleApply extends ScriptApply {
     this.acceptMatches = acceptMatches;
   }
 
+  public int getMaxMatches() {
+    return maxMatches;
+  }
+
+  /**
+   * @param maxMatches
+   *          the maximal amount of matches that are remembered if matches are accepted, or a
+   *          negative value for no limit
+   */
+  public void setMaxMatches(int maxMatches) {
+    this.maxMatches = maxMatches;
+  }
+
   public void addAll(List<RuleMatch> matches) {
     for (RuleMatch ruleMatch : matches) {
       add(ruleMatch);
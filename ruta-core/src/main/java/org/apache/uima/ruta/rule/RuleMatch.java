@@ -179,7 +179,11 @@ public class RuleMatch extends AbstractRuleMatch<RutaRule> {
         }
       }
       if (cas != null && end != 0) {
-        AnnotationFS annotation = cas.createAnnotation(cas.getAnnotationType(), begin, end);
+        AnnotationFS annotation;
+        synchronized (cas) {
+          // rules of a block can be matched concurrently
+          annotation = cas.createAnnotation(cas.getAnnotationType(), begin, end);
+        }
         result.add(annotation);
       }
     }
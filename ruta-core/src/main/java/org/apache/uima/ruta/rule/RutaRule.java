@@ -56,6 +56,31 @@ public class RutaRule extends AbstractRule {
     return ruleApply;
   }
 
+  /**
+   * Matches this rule without executing its actions. The actions of the complete matches are
+   * executed afterwards by {@link #applyDeferred(RuleApply, RutaStream, InferenceCrowd)}. The
+   * matching does not modify the indexes of the CAS and can be performed concurrently on
+   * different windows.
+   */
+  public RuleApply match(RutaStream stream, InferenceCrowd crowd) {
+    RuleApply ruleApply = new RuleApply(this, stream.isGreedyAnchoring());
+    ruleApply.deferActions();
+    crowd.beginVisit(this, ruleApply);
+    RuleMatch ruleMatch = new RuleMatch(this);
+    root.startMatch(ruleMatch, ruleApply, null, null, stream, crowd);
+    crowd.endVisit(this, ruleApply);
+    return ruleApply;
+  }
+
+  /**
+   * Executes the actions of the matches collected by {@link #match(RutaStream, InferenceCrowd)}.
+   */
+  public void applyDeferred(RuleApply ruleApply, RutaStream stream, InferenceCrowd crowd) {
+    for (RuleMatch each : ruleApply.getDeferredMatches()) {
+      root.applyRuleElements(each, stream, crowd);
+    }
+  }
+
   @Override
   public String toString() {
     return root == null ? "<empty>": root.toString();
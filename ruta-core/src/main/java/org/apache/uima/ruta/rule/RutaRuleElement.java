@@ -360,8 +360,7 @@ public class RutaRuleElement extends AbstractRuleElement {
           InferenceCrowd crowd) {
     RuleElementMatch result = new RuleElementMatch(this, containerMatch);
     result.setRuleAnchor(ruleAnchor);
-    List<EvaluatedCondition> evaluatedConditions = new ArrayList<EvaluatedCondition>(
-            conditions.size());
+    List<EvaluatedCondition> evaluatedConditions = Collections.emptyList();
     // boolean base = matcher.match(annotation, stream, getParent());
     boolean base = true;
     if (matcher instanceof RutaTypeMatcher) {
@@ -374,12 +373,7 @@ public class RutaRuleElement extends AbstractRuleElement {
     }
     List<AnnotationFS> textsMatched = new ArrayList<AnnotationFS>(1);
     if (base) {
-      for (AbstractRutaCondition condition : conditions) {
-        crowd.beginVisit(condition, null);
-        EvaluatedCondition eval = condition.eval(annotation, this, stream, crowd);
-        crowd.endVisit(condition, null);
-        evaluatedConditions.add(eval);
-      }
+      evaluatedConditions = evaluateConditions(annotation, stream, crowd);
     }
     if (annotation != null) {
       textsMatched.add(annotation);
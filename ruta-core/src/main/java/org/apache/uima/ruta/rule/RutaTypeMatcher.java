@@ -19,22 +19,34 @@
 
 package org.apache.uima.ruta.rule;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.TreeSet;
 
 import org.apache.uima.cas.Feature;
 import org.apache.uima.cas.Type;
 import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.ruta.FeatureValueIndex;
 import org.apache.uima.ruta.RutaBlock;
 import org.apache.uima.ruta.RutaStream;
+import org.apache.uima.ruta.UIMAConstants;
+import org.apache.uima.ruta.expression.IRutaExpression;
 import org.apache.uima.ruta.expression.MatchReference;
 import org.apache.uima.ruta.expression.RutaExpression;
+import org.apache.uima.ruta.expression.bool.IBooleanExpression;
+import org.apache.uima.ruta.expression.bool.ReferenceBooleanExpression;
+import org.apache.uima.ruta.expression.bool.SimpleBooleanExpression;
 import org.apache.uima.ruta.expression.feature.FeatureExpression;
 import org.apache.uima.ruta.expression.feature.FeatureMatchExpression;
+import org.apache.uima.ruta.expression.number.ComposedNumberExpression;
+import org.apache.uima.ruta.expression.number.INumberExpression;
+import org.apache.uima.ruta.expression.number.ReferenceNumberExpression;
+import org.apache.uima.ruta.expression.number.SimpleNumberExpression;
+import org.apache.uima.ruta.expression.string.ComposedStringExpression;
+import org.apache.uima.ruta.expression.string.IStringExpression;
+import org.apache.uima.ruta.expression.string.ReferenceStringExpression;
+import org.apache.uima.ruta.expression.string.SimpleStringExpression;
 import org.apache.uima.ruta.expression.type.TypeExpression;
 import org.apache.uima.ruta.type.RutaBasic;
 
@@ -42,6 +54,8 @@ public class RutaTypeMatcher implements RutaMatcher {
 
   private static final boolean CHECK_ON_FEATURE = false;
 
+  private static final Object NOT_INDEXED = new Object();
+
   protected final MatchReference mr;
 
   protected AnnotationComparator comparator;
@@ -54,15 +68,13 @@ public class RutaTypeMatcher implements RutaMatcher {
 
   public Collection<AnnotationFS> getMatchingAnnotations(RutaStream stream, RutaBlock parent) {
     // TODO what about the matching direction?
-    Collection<AnnotationFS> annotations = new TreeSet<AnnotationFS>(comparator);
-    List<Type> types = getTypes(parent, stream);
-    for (Type type : types) {
-      if (type == null) {
-        continue;
-      }
+    Collection<AnnotationFS> annotations;
+    Type type = getType(parent, stream);
+    if (type == null) {
+      annotations = Collections.emptyList();
+    } else {
       Type currentDAType = stream.getCas().getDocumentAnnotation().getType();
       String name = type.getName();
-      RutaBasic firstBasicOfAll = stream.getFirstBasicOfAll();
       if ("uima.tcas.DocumentAnnotation".equals(name)
               || "org.apache.uima.ruta.type.Document".equals(name)
               || currentDAType.equals(type)
@@ -70,9 +82,13 @@ public class RutaTypeMatcher implements RutaMatcher {
 //                      .beginsWith(type)))
                       ) {
         // TODO what about dynamic windowing?
-        annotations.add(stream.getDocumentAnnotation());
+        annotations = Collections.singletonList(stream.getDocumentAnnotation());
       } else {
-        annotations.addAll(stream.getAnnotations(type));
+        annotations = getIndexedAnnotations(type, stream, parent);
+        if (annotations == null) {
+          // already sorted and without duplicates
+          annotations = stream.getAnnotations(type);
+        }
       }
     }
     FeatureExpression featureExpression = mr.getFeatureExpression(parent);
@@ -115,16 +131,21 @@ public class RutaTypeMatcher implements RutaMatcher {
           nextBasic = (RutaBasic) stream.get();
         }
       }
-      List<Type> reTypes = getTypes(parent, stream);
-      Collection<AnnotationFS> anchors = new TreeSet<AnnotationFS>(comparator);
-      for (Type eachMatchType : reTypes) {
-        Collection<AnnotationFS> beginAnchors = nextBasic.getBeginAnchors(eachMatchType);
-        if (beginAnchors != null) {
+      Collection<AnnotationFS> anchors = Collections.emptyList();
+      Type type = getType(parent, stream);
+      if (type != null) {
+        AnnotationFS documentAnnotation = stream.getDocumentAnnotation();
+        int windowBegin = documentAnnotation.getBegin();
+        int windowEnd = documentAnnotation.getEnd();
+        Collection<AnnotationFS> beginAnchors = nextBasic.getBeginAnchors(type);
+        if (beginAnchors != null && !beginAnchors.isEmpty()) {
+          CandidateBuffer buffer = stream.getCandidateBuffer();
           for (AnnotationFS afs : beginAnchors) {
-            if (afs.getBegin() >= stream.getDocumentAnnotation().getBegin() && afs.getEnd() <= stream.getDocumentAnnotation().getEnd()) {
-              anchors.add(afs);
+            if (afs.getBegin() >= windowBegin && afs.getEnd() <= windowEnd) {
+              buffer.add(afs);
             }
           }
+          anchors = buffer.toList();
         }
       }
       FeatureExpression fm = mr.getFeatureExpression(parent);
@@ -160,16 +181,19 @@ public class RutaTypeMatcher implements RutaMatcher {
           nextBasic = (RutaBasic) stream.get();
         }
       }
-      List<Type> reTypes = getTypes(parent, stream);
-      Collection<AnnotationFS> anchors = new TreeSet<AnnotationFS>(comparator);
-      for (Type eachMatchType : reTypes) {
-        Collection<AnnotationFS> endAnchors = nextBasic.getEndAnchors(eachMatchType);
-        if (endAnchors != null) {
+      Collection<AnnotationFS> anchors = Collections.emptyList();
+      Type type = getType(parent, stream);
+      if (type != null) {
+        int windowBegin = stream.getDocumentAnnotation().getBegin();
+        Collection<AnnotationFS> endAnchors = nextBasic.getEndAnchors(type);
+        if (endAnchors != null && !endAnchors.isEmpty()) {
+          CandidateBuffer buffer = stream.getCandidateBuffer();
           for (AnnotationFS afs : endAnchors) {
-            if (afs.getBegin() >= stream.getDocumentAnnotation().getBegin()) {
-              anchors.add(afs);
+            if (afs.getBegin() >= windowBegin) {
+              buffer.add(afs);
             }
           }
+          anchors = buffer.toList();
         }
       }
       FeatureExpression fm = mr.getFeatureExpression(parent);
@@ -204,19 +228,16 @@ public class RutaTypeMatcher implements RutaMatcher {
   }
 
   private boolean checkType(AnnotationFS annotation, RutaStream stream, RutaBlock parent) {
-    List<Type> types = getTypes(parent, stream);
-    for (Type type : types) {
-      String name = type.getName();
-      if ("uima.tcas.DocumentAnnotation".equals(name)
-              || stream.getDocumentAnnotationType().getName().equals(name)) {
-        return true;
-      }
-      boolean b = stream.getJCas().getTypeSystem().subsumes(type, annotation.getType());
-      if (b) {
-        return true;
-      }
+    Type type = getType(parent, stream);
+    if (type == null) {
+      return false;
     }
-    return false;
+    String name = type.getName();
+    if ("uima.tcas.DocumentAnnotation".equals(name)
+            || stream.getDocumentAnnotationType().getName().equals(name)) {
+      return true;
+    }
+    return stream.getCas().getTypeSystem().subsumes(type, annotation.getType());
   }
 
   private boolean checkFeature(AnnotationFS annotation, RutaStream stream, RutaBlock parent) {
@@ -257,15 +278,135 @@ public class RutaTypeMatcher implements RutaMatcher {
 
   public long estimateAnchors(RutaBlock parent, RutaStream stream) {
     TypeExpression typeExpression = mr.getTypeExpression(parent);
-    return stream.getHistogram(getType(typeExpression, parent, stream));
+    Type type = getType(typeExpression, parent, stream);
+    FeatureValueIndex index = stream.getFeatureValueIndex();
+    if (index != null && type != null) {
+      Feature feature = getIndexedFeature(parent);
+      if (feature != null) {
+        Object value = getIndexedValue(feature, parent, stream);
+        if (value != NOT_INDEXED) {
+          return index.count(type, feature, value);
+        }
+      }
+    }
+    return stream.getHistogram(type);
+  }
+
+  /**
+   * Looks up the annotations in the {@link FeatureValueIndex} of the stream, if the feature
+   * expression is an equality match of a primitive feature with a value that does not depend on
+   * the annotation.
+   * 
+   * @return the sorted annotations in the window of the stream, or null if the index is not
+   *         applicable
+   */
+  private Collection<AnnotationFS> getIndexedAnnotations(Type type, RutaStream stream,
+          RutaBlock parent) {
+    FeatureValueIndex index = stream.getFeatureValueIndex();
+    if (index == null) {
+      return null;
+    }
+    Feature feature = getIndexedFeature(parent);
+    if (feature == null) {
+      return null;
+    }
+    Object value = getIndexedValue(feature, parent, stream);
+    if (value == NOT_INDEXED) {
+      return null;
+    }
+    Collection<AnnotationFS> indexed = index.get(type, feature, value);
+    if (indexed.isEmpty()) {
+      return Collections.emptyList();
+    }
+    AnnotationFS windowAnnotation = stream.getDocumentAnnotation();
+    AnnotationFS documentAnnotation = stream.getCas().getDocumentAnnotation();
+    boolean inWindow = windowAnnotation.getBegin() != documentAnnotation.getBegin()
+            || windowAnnotation.getEnd() != documentAnnotation.getEnd();
+    CandidateBuffer buffer = stream.getCandidateBuffer();
+    for (AnnotationFS each : indexed) {
+      if (inWindow
+              && (each.getBegin() < windowAnnotation.getBegin() || each.getEnd() > windowAnnotation
+                      .getEnd())) {
+        continue;
+      }
+      if (stream.isVisible(each)) {
+        buffer.add(each);
+      }
+    }
+    return buffer.toList();
+  }
+
+  private Feature getIndexedFeature(RutaBlock parent) {
+    FeatureExpression featureExpression = mr.getFeatureExpression(parent);
+    if (!(featureExpression instanceof FeatureMatchExpression)) {
+      return null;
+    }
+    FeatureMatchExpression fme = (FeatureMatchExpression) featureExpression;
+    if (!FeatureMatchExpression.EQUAL.equals(fme.getOp())) {
+      return null;
+    }
+    List<Feature> features = fme.getFeatures(parent);
+    if (features == null || features.size() != 1) {
+      return null;
+    }
+    Feature feature = features.get(0);
+    return FeatureValueIndex.isSupported(feature) ? feature : null;
+  }
+
+  private Object getIndexedValue(Feature feature, RutaBlock parent, RutaStream stream) {
+    FeatureMatchExpression fme = (FeatureMatchExpression) mr.getFeatureExpression(parent);
+    IRutaExpression arg = fme.getArg();
+    if (!isIndependent(arg)) {
+      // the value possibly depends on the annotation
+      return NOT_INDEXED;
+    }
+    String rangeName = feature.getRange().getName();
+    if (rangeName.equals(UIMAConstants.TYPE_STRING) && arg instanceof IStringExpression) {
+      return ((IStringExpression) arg).getStringValue(parent, null, stream);
+    } else if (rangeName.equals(UIMAConstants.TYPE_INTEGER) && arg instanceof INumberExpression) {
+      return ((INumberExpression) arg).getIntegerValue(parent, null, stream);
+    } else if (rangeName.equals(UIMAConstants.TYPE_BOOLEAN) && arg instanceof IBooleanExpression) {
+      return ((IBooleanExpression) arg).getBooleanValue(parent, null, stream);
+    }
+    return NOT_INDEXED;
+  }
+
+  /**
+   * @return true, if the value of the expression is given by literals and variables only
+   */
+  private static boolean isIndependent(IRutaExpression expression) {
+    if (expression instanceof SimpleStringExpression
+            || expression instanceof ReferenceStringExpression
+            || expression instanceof SimpleNumberExpression
+            || expression instanceof ReferenceNumberExpression
+            || expression instanceof SimpleBooleanExpression
+            || expression instanceof ReferenceBooleanExpression) {
+      return true;
+    } else if (expression instanceof ComposedStringExpression) {
+      for (IStringExpression each : ((ComposedStringExpression) expression).getExpressions()) {
+        if (!isIndependent(each)) {
+          return false;
+        }
+      }
+      return true;
+    } else if (expression instanceof ComposedNumberExpression) {
+      for (INumberExpression each : ((ComposedNumberExpression) expression).getExpressions()) {
+        if (!isIndependent(each)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
   }
 
   public List<Type> getTypes(RutaBlock parent, RutaStream stream) {
-    List<Type> result = new ArrayList<Type>(1);
+    return Collections.singletonList(getType(parent, stream));
+  }
+
+  private Type getType(RutaBlock parent, RutaStream stream) {
     TypeExpression typeExpression = mr.getTypeExpression(parent);
-    Type type = getType(typeExpression, parent, stream);
-    result.add(type);
-    return result;
+    return getType(typeExpression, parent, stream);
   }
 
 }
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.rule;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The list of matches of one rule element within a {@link ComposedRuleElementMatch}. The matches
+ * are stored in persistent cells that point to the previous match, so that a list can be shared
+ * by several alternative matches of a rule in constant time with {@link #share()}. A change of a
+ * shared list only replaces its own reference to the last cell. Adding, replacing or removing the
+ * last match and getting the first or last match is done in constant time.
+ */
+class SharedMatchList extends AbstractList<RuleElementMatch> {
+
+  private static final class Cell {
+
+    private final RuleElementMatch match;
+
+    private final Cell previous;
+
+    // the cell of the first match, which is shared by all cells of the chain
+    private final Cell first;
+
+    private final int size;
+
+    // true if this or a previous cell contains a match of a composed rule element
+    private final boolean composed;
+
+    private Cell(RuleElementMatch match, Cell previous) {
+      super();
+      this.match = match;
+      this.previous = previous;
+      this.first = previous == null ? this : previous.first;
+      this.size = previous == null ? 1 : previous.size + 1;
+      this.composed = match instanceof ComposedRuleElementMatch
+              || (previous != null && previous.composed);
+    }
+  }
+
+  private Cell last;
+
+  public SharedMatchList() {
+    super();
+  }
+
+  private SharedMatchList(Cell last) {
+    super();
+    this.last = last;
+  }
+
+  /**
+   * @return a new list with the same matches that shares the cells with this list
+   */
+  public SharedMatchList share() {
+    return new SharedMatchList(last);
+  }
+
+  /**
+   * @return true if the list contains a match of a composed rule element, which is mutable and
+   *         needs to be copied
+   */
+  public boolean containsComposed() {
+    return last != null && last.composed;
+  }
+
+  @Override
+  public int size() {
+    return last == null ? 0 : last.size;
+  }
+
+  @Override
+  public RuleElementMatch get(int index) {
+    checkIndex(index, size());
+    if (index == 0) {
+      return last.first.match;
+    }
+    Cell cell = last;
+    for (int i = last.size - 1; i > index; i--) {
+      cell = cell.previous;
+    }
+    return cell.match;
+  }
+
+  @Override
+  public boolean add(RuleElementMatch match) {
+    last = new Cell(match, last);
+    modCount++;
+    return true;
+  }
+
+  @Override
+  public void add(int index, RuleElementMatch match) {
+    int size = size();
+    if (index == size) {
+      add(match);
+      return;
+    }
+    checkIndex(index, size);
+    RuleElementMatch[] matches = toMatchArray();
+    Cell cell = null;
+    for (int i = 0; i < matches.length; i++) {
+      if (i == index) {
+        cell = new Cell(match, cell);
+      }
+      cell = new Cell(matches[i], cell);
+    }
+    last = cell;
+    modCount++;
+  }
+
+  @Override
+  public RuleElementMatch set(int index, RuleElementMatch match) {
+    int size = size();
+    checkIndex(index, size);
+    if (index == size - 1) {
+      RuleElementMatch old = last.match;
+      last = new Cell(match, last.previous);
+      return old;
+    }
+    RuleElementMatch[] matches = toMatchArray();
+    RuleElementMatch old = matches[index];
+    matches[index] = match;
+    last = toCells(matches, -1);
+    return old;
+  }
+
+  @Override
+  public RuleElementMatch remove(int index) {
+    int size = size();
+    checkIndex(index, size);
+    RuleElementMatch old;
+    if (index == size - 1) {
+      old = last.match;
+      last = last.previous;
+    } else {
+      RuleElementMatch[] matches = toMatchArray();
+      old = matches[index];
+      last = toCells(matches, index);
+    }
+    modCount++;
+    return old;
+  }
+
+  @Override
+  public void clear() {
+    last = null;
+    modCount++;
+  }
+
+  @Override
+  public Iterator<RuleElementMatch> iterator() {
+    final RuleElementMatch[] matches = toMatchArray();
+    return new Iterator<RuleElementMatch>() {
+
+      private int next = 0;
+
+      private int removed = 0;
+
+      private boolean canRemove = false;
+
+      public boolean hasNext() {
+        return next < matches.length;
+      }
+
+      public RuleElementMatch next() {
+        if (next >= matches.length) {
+          throw new NoSuchElementException();
+        }
+        canRemove = true;
+        return matches[next++];
+      }
+
+      public void remove() {
+        if (!canRemove) {
+          throw new IllegalStateException();
+        }
+        SharedMatchList.this.remove(next - 1 - removed);
+        removed++;
+        canRemove = false;
+      }
+    };
+  }
+
+  private RuleElementMatch[] toMatchArray() {
+    RuleElementMatch[] result = new RuleElementMatch[size()];
+    Cell cell = last;
+    for (int i = result.length - 1; i >= 0; i--) {
+      result[i] = cell.match;
+      cell = cell.previous;
+    }
+    return result;
+  }
+
+  private Cell toCells(RuleElementMatch[] matches, int skip) {
+    Cell result = null;
+    for (int i = 0; i < matches.length; i++) {
+      if (i != skip) {
+        result = new Cell(matches[i], result);
+      }
+    }
+    return result;
+  }
+
+  private void checkIndex(int index, int size) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+}
@@ -617,8 +617,10 @@ public class WildCardRuleElement extends AbstractRuleElement {
     } else {
       type = cas.getTypeSystem().getType(RutaEngine.OPTIONAL_TYPE);
     }
-    AnnotationFS afs = cas.createAnnotation(type, begin, end);
-    return afs;
+    synchronized (cas) {
+      // rules of a block can be matched concurrently
+      return cas.createAnnotation(type, begin, end);
+    }
   }
 
   private void doMatch(AnnotationFS annotation, RuleMatch ruleMatch,
@@ -626,18 +628,9 @@ public class WildCardRuleElement extends AbstractRuleElement {
           InferenceCrowd crowd) {
     RuleElementMatch result = new RuleElementMatch(this, containerMatch);
     result.setRuleAnchor(ruleAnchor);
-    List<EvaluatedCondition> evaluatedConditions = new ArrayList<EvaluatedCondition>(
-            conditions.size());
     boolean base = true;
     List<AnnotationFS> textsMatched = new ArrayList<AnnotationFS>(1);
-    if (base) {
-      for (AbstractRutaCondition condition : conditions) {
-        crowd.beginVisit(condition, null);
-        EvaluatedCondition eval = condition.eval(annotation, this, stream, crowd);
-        crowd.endVisit(condition, null);
-        evaluatedConditions.add(eval);
-      }
-    }
+    List<EvaluatedCondition> evaluatedConditions = evaluateConditions(annotation, stream, crowd);
     if (annotation != null) {
       textsMatched.add(annotation);
     }
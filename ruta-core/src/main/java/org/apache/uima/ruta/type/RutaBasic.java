@@ -47,6 +47,17 @@ public class RutaBasic extends Annotation {
     return empty;
   }
 
+  /**
+   * Releases the information about the annotations starting, ending and covering this basic. The
+   * basic must not be used by a stream afterwards, e.g., because it was removed from the indexes
+   * after a window of the document was processed.
+   */
+  public void release() {
+    partOf = new int[0];
+    beginMap = new Collection<?>[0];
+    endMap = new Collection<?>[0];
+  }
+
   public boolean isLowMemoryProfile() {
     return lowMemoryProfile;
   }
@@ -0,0 +1,338 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.visitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.uima.ruta.RutaBlock;
+import org.apache.uima.ruta.RutaElement;
+import org.apache.uima.ruta.RutaModule;
+import org.apache.uima.ruta.action.AbstractRutaAction;
+import org.apache.uima.ruta.condition.AbstractRutaCondition;
+import org.apache.uima.ruta.rule.AbstractRule;
+import org.apache.uima.ruta.verbalize.RutaVerbalizer;
+
+/**
+ * Cumulative runtime statistics of conditions, actions, rules and blocks over all documents
+ * processed by one or several engines. In contrast to the {@link StatisticsVisitor}, nothing is
+ * added to the CAS. The statistics are thread safe: the counters are atomic and several engine
+ * replicas can share the same instance, see {@link #get(String)} and {@link #release(String)}.
+ * Elements of different replicas are counted in the same entry if they have the same
+ * verbalization and belong to the rule with the same id in the same script.
+ * <p>
+ * The statistics can be exported at any time with {@link #toJson()}, {@link #toCsv()} or
+ * {@link #write(File)}.
+ */
+public class AggregatedStatistics {
+
+  public static final String KIND_CONDITION = "condition";
+
+  public static final String KIND_ACTION = "action";
+
+  public static final String KIND_RULE = "rule";
+
+  public static final String KIND_BLOCK = "block";
+
+  public static final String KIND_SCRIPT = "script";
+
+  private static final Map<String, AggregatedStatistics> INSTANCES = new HashMap<String, AggregatedStatistics>();
+
+  /**
+   * The counters of all elements with the same kind and name.
+   */
+  public static class Entry {
+
+    private final String kind;
+
+    private final String name;
+
+    private final AtomicLong invocations = new AtomicLong();
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private Entry(String kind, String name) {
+      super();
+      this.kind = kind;
+      this.name = name;
+    }
+
+    void add(long delta) {
+      invocations.incrementAndGet();
+      nanos.addAndGet(delta);
+    }
+
+    public String getKind() {
+      return kind;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public long getInvocations() {
+      return invocations.get();
+    }
+
+    public long getNanos() {
+      return nanos.get();
+    }
+  }
+
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+  // the amount of users that got the shared instance and did not release it yet
+  private int users = 0;
+
+  /**
+   * Returns the shared statistics with the given key, e.g., the location of the output file, which
+   * are created if they do not exist yet. Each call should be followed by a call of
+   * {@link #release(String)}, when the statistics are not needed anymore.
+   *
+   * @return the shared statistics with the given key
+   */
+  public static synchronized AggregatedStatistics get(String key) {
+    AggregatedStatistics result = INSTANCES.get(key);
+    if (result == null) {
+      result = new AggregatedStatistics();
+      INSTANCES.put(key, result);
+    }
+    result.users++;
+    return result;
+  }
+
+  /**
+   * Releases the shared statistics with the given key. They are removed after the last user
+   * released them, so that the next call of {@link #get(String)} returns new statistics.
+   */
+  public static synchronized void release(String key) {
+    AggregatedStatistics statistics = INSTANCES.get(key);
+    if (statistics != null && --statistics.users <= 0) {
+      INSTANCES.remove(key);
+    }
+  }
+
+  /**
+   * Removes the shared statistics with the given key regardless of their users.
+   */
+  public static synchronized void remove(String key) {
+    INSTANCES.remove(key);
+  }
+
+  /**
+   * Returns the entry of the given element like {@link #getEntry(RutaElement, AbstractRule,
+   * RutaVerbalizer)}, but without the rule of a condition or action.
+   *
+   * @return the entry or null, if the element is not supported
+   */
+  public Entry getEntry(RutaElement element, RutaVerbalizer verbalizer) {
+    return getEntry(element, null, verbalizer);
+  }
+
+  /**
+   * Returns the entry of the given element. The element is verbalized, so the result should be
+   * cached by the caller.
+   *
+   * @param element
+   *          the visited element
+   * @param rule
+   *          the rule, which contains the condition or action, or null
+   * @param verbalizer
+   *          the verbalizer for the name of the entry
+   * @return the entry or null, if the element is not supported
+   */
+  public Entry getEntry(RutaElement element, AbstractRule rule, RutaVerbalizer verbalizer) {
+    String kind = getKind(element);
+    if (kind == null) {
+      return null;
+    }
+    String name = verbalize(element, verbalizer);
+    if (rule != null && !(element instanceof AbstractRule)) {
+      name = getLocation(rule) + ": " + name;
+    }
+    String key = kind + "\t" + name;
+    Entry result = entries.get(key);
+    if (result == null) {
+      Entry newEntry = new Entry(kind, name);
+      result = entries.putIfAbsent(key, newEntry);
+      if (result == null) {
+        result = newEntry;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the entries sorted by the accumulated time
+   */
+  public List<Entry> getEntries() {
+    List<Entry> result = new ArrayList<Entry>(entries.values());
+    Collections.sort(result, new Comparator<Entry>() {
+      public int compare(Entry o1, Entry o2) {
+        long t1 = o1.getNanos();
+        long t2 = o2.getNanos();
+        return t1 > t2 ? -1 : (t1 == t2 ? 0 : 1);
+      }
+    });
+    return result;
+  }
+
+  public void clear() {
+    entries.clear();
+  }
+
+  public String toCsv() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("kind,name,invocations,totalMillis,averageMicros\n");
+    for (Entry each : getEntries()) {
+      sb.append(each.getKind());
+      sb.append(",\"");
+      sb.append(each.getName().replace("\"", "\"\""));
+      sb.append("\",");
+      sb.append(each.getInvocations());
+      sb.append(",");
+      sb.append(format(each.getNanos() / 1000000.0));
+      sb.append(",");
+      sb.append(format(average(each)));
+      sb.append("\n");
+    }
+    return sb.toString();
+  }
+
+  public String toJson() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("[");
+    boolean first = true;
+    for (Entry each : getEntries()) {
+      if (!first) {
+        sb.append(",");
+      }
+      first = false;
+      sb.append("\n  {\"kind\": \"");
+      sb.append(each.getKind());
+      sb.append("\", \"name\": \"");
+      appendJsonEscaped(sb, each.getName());
+      sb.append("\", \"invocations\": ");
+      sb.append(each.getInvocations());
+      sb.append(", \"totalMillis\": ");
+      sb.append(format(each.getNanos() / 1000000.0));
+      sb.append(", \"averageMicros\": ");
+      sb.append(format(average(each)));
+      sb.append("}");
+    }
+    sb.append("\n]\n");
+    return sb.toString();
+  }
+
+  /**
+   * Writes the statistics as JSON, or as CSV if the file name ends with ".csv".
+   */
+  public synchronized void write(File file) throws IOException {
+    String content = file.getName().toLowerCase(Locale.ENGLISH).endsWith(".csv") ? toCsv()
+            : toJson();
+    FileUtils.writeStringToFile(file, content, "UTF-8");
+  }
+
+  private static String getKind(RutaElement element) {
+    if (element instanceof AbstractRutaCondition) {
+      return KIND_CONDITION;
+    } else if (element instanceof AbstractRutaAction) {
+      return KIND_ACTION;
+    } else if (element instanceof AbstractRule) {
+      return KIND_RULE;
+    } else if (element instanceof RutaBlock) {
+      return KIND_BLOCK;
+    } else if (element instanceof RutaModule) {
+      return KIND_SCRIPT;
+    }
+    return null;
+  }
+
+  private static String verbalize(RutaElement element, RutaVerbalizer verbalizer) {
+    String result;
+    if (element instanceof RutaModule) {
+      result = ((RutaModule) element).getRootBlock().getName();
+    } else if (element instanceof RutaBlock) {
+      RutaBlock block = (RutaBlock) element;
+      result = block.getNamespace() + ": " + verbalizer.verbalize(block, false);
+    } else if (element instanceof AbstractRule) {
+      AbstractRule rule = (AbstractRule) element;
+      result = getLocation(rule) + ": " + verbalizer.verbalize(rule);
+    } else {
+      result = verbalizer.verbalize(element);
+    }
+    return result.replaceAll("\\s+", " ").trim();
+  }
+
+  private static String getLocation(AbstractRule rule) {
+    String namespace = rule.getParent() == null ? "" : rule.getParent().getNamespace();
+    return namespace + "." + rule.getId();
+  }
+
+  private static double average(Entry entry) {
+    long invocations = entry.getInvocations();
+    return invocations == 0 ? 0 : entry.getNanos() / 1000.0 / invocations;
+  }
+
+  private static String format(double value) {
+    return String.format(Locale.ENGLISH, "%.3f", value);
+  }
+
+  private static void appendJsonEscaped(StringBuilder sb, String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            sb.append(String.format("\\u%04x", (int) c));
+          } else {
+            sb.append(c);
+          }
+      }
+    }
+  }
+
+}
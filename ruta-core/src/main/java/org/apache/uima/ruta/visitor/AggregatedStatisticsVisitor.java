@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.visitor;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.ruta.RutaElement;
+import org.apache.uima.ruta.RutaStream;
+import org.apache.uima.ruta.ScriptApply;
+import org.apache.uima.ruta.rule.AbstractRule;
+import org.apache.uima.ruta.rule.AbstractRuleMatch;
+import org.apache.uima.ruta.verbalize.RutaVerbalizer;
+import org.apache.uima.ruta.visitor.AggregatedStatistics.Entry;
+
+/**
+ * Adds the runtime of the visited elements to {@link AggregatedStatistics}. The entries of the
+ * elements are cached by identity, so that each element is verbalized only once. Conditions and
+ * actions are counted for the rule, in which they are visited. An instance
+ * should be reused for all documents of one engine, but must not be used by several threads.
+ */
+public class AggregatedStatisticsVisitor implements RutaInferenceVisitor {
+
+  private final AggregatedStatistics statistics;
+
+  private final RutaVerbalizer verbalizer;
+
+  private final Map<RutaElement, Entry> cache = new IdentityHashMap<RutaElement, Entry>();
+
+  private long[] starts = new long[16];
+
+  private RutaElement[] elements = new RutaElement[16];
+
+  private int depth = 0;
+
+  public AggregatedStatisticsVisitor(AggregatedStatistics statistics, RutaVerbalizer verbalizer) {
+    super();
+    this.statistics = statistics;
+    this.verbalizer = verbalizer;
+  }
+
+  public void beginVisit(RutaElement element, ScriptApply result) {
+    if (depth == starts.length) {
+      long[] newStarts = new long[starts.length * 2];
+      System.arraycopy(starts, 0, newStarts, 0, starts.length);
+      starts = newStarts;
+      RutaElement[] newElements = new RutaElement[elements.length * 2];
+      System.arraycopy(elements, 0, newElements, 0, elements.length);
+      elements = newElements;
+    }
+    elements[depth] = element;
+    starts[depth++] = System.nanoTime();
+  }
+
+  public void endVisit(RutaElement element, ScriptApply result) {
+    long end = System.nanoTime();
+    if (depth == 0) {
+      return;
+    }
+    long delta = end - starts[--depth];
+    elements[depth] = null;
+    Entry entry = cache.get(element);
+    if (entry == null) {
+      if (cache.containsKey(element)) {
+        // not supported
+        return;
+      }
+      entry = statistics.getEntry(element, getRule(), verbalizer);
+      cache.put(element, entry);
+      if (entry == null) {
+        return;
+      }
+    }
+    entry.add(delta);
+  }
+
+  public void finished(RutaStream stream, List<RutaInferenceVisitor> visitors) {
+    // visits that did not end, e.g., because of an exception
+    Arrays.fill(elements, 0, depth, null);
+    depth = 0;
+  }
+
+  /**
+   * @return the innermost rule, which is visited at the moment, or null
+   */
+  private AbstractRule getRule() {
+    for (int i = depth - 1; i >= 0; i--) {
+      if (elements[i] instanceof AbstractRule) {
+        return (AbstractRule) elements[i];
+      }
+    }
+    return null;
+  }
+
+  public AggregatedStatistics getStatistics() {
+    return statistics;
+  }
+
+  public void annotationAdded(AnnotationFS annotation,
+          AbstractRuleMatch<? extends AbstractRule> creator) {
+  }
+
+}
@@ -20,12 +20,20 @@
 package org.apache.uima.ruta.visitor;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.WeakHashMap;
 
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.Feature;
 import org.apache.uima.cas.FeatureStructure;
 import org.apache.uima.cas.Type;
+import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.ruta.RutaElement;
 import org.apache.uima.ruta.RutaStream;
@@ -34,6 +42,15 @@ import org.apache.uima.ruta.rule.AbstractRule;
 import org.apache.uima.ruta.rule.AbstractRuleMatch;
 import org.apache.uima.ruta.verbalize.RutaVerbalizer;
 
+/**
+ * Remembers which rule created which annotation. The verbalization, id and script of a rule are
+ * only computed once and an instance should therefore be reused for all documents of one engine.
+ * <p>
+ * By default, an annotation of the type {@link #TYPE} is added to the CAS for each created
+ * annotation. In the compact mode, only the address of the annotation and the index of the rule
+ * are stored in a primitive buffer. The annotations of the type {@link #TYPE} are then created on
+ * demand with {@link #materialize(CAS)}, e.g., by a consumer of the CAS that needs them.
+ */
 public class CreatedByVisitor implements RutaInferenceVisitor {
 
   public static final String TYPE = "org.apache.uima.ruta.type.DebugCreatedBy";
@@ -46,13 +63,104 @@ public class CreatedByVisitor implements RutaInferenceVisitor {
 
   public static final String FEATURE_ID = "id";
 
-  private List<FeatureStructure> fsList = new ArrayList<FeatureStructure>();
+  private static final String PROVIDED = "provided";
+
+  // the compact information of the last processed documents, per view
+  private static final Map<CAS, Provenance> PROVENANCES = Collections
+          .synchronizedMap(new WeakHashMap<CAS, Provenance>());
+
+  private static class RuleInfo {
+
+    private final String rule;
+
+    private final int id;
+
+    private final String script;
+
+    private RuleInfo(String rule, int id, String script) {
+      super();
+      this.rule = rule;
+      this.id = id;
+      this.script = script;
+    }
+  }
+
+  /**
+   * The pairs of annotation address and rule index of one view.
+   */
+  private static class Provenance {
+
+    private final String documentText;
+
+    private final int[] pairs;
+
+    private final int size;
+
+    private final RuleInfo[] rules;
+
+    private Provenance(String documentText, int[] pairs, int size, RuleInfo[] rules) {
+      super();
+      this.documentText = documentText;
+      this.pairs = pairs;
+      this.size = size;
+      this.rules = rules;
+    }
+  }
+
+  private static class PairBuffer {
+
+    private int[] pairs = new int[64];
+
+    private int size = 0;
+
+    private void add(int address, int ruleIndex) {
+      if (size + 2 > pairs.length) {
+        int[] newPairs = new int[pairs.length * 2];
+        System.arraycopy(pairs, 0, newPairs, 0, size);
+        pairs = newPairs;
+      }
+      pairs[size++] = address;
+      pairs[size++] = ruleIndex;
+    }
+  }
+
+  private final RutaVerbalizer verbalizer;
+
+  private final boolean compact;
+
+  // rules do not override equals, weak keys allow reloading the script
+  private final Map<AbstractRule, Integer> ruleIndexes = new WeakHashMap<AbstractRule, Integer>();
 
-  private RutaVerbalizer verbalizer;
+  private final List<RuleInfo> rules = new ArrayList<RuleInfo>();
+
+  private final Map<String, String> scripts = new HashMap<String, String>();
+
+  private final List<FeatureStructure> fsList = new ArrayList<FeatureStructure>();
+
+  private final Map<CAS, PairBuffer> buffers = new IdentityHashMap<CAS, PairBuffer>();
+
+  private TypeSystem typeSystem;
+
+  private Type type;
+
+  private Feature featureRule;
+
+  private Feature featureAnnotation;
+
+  private Feature featureScript;
+
+  private Feature featureId;
 
   public CreatedByVisitor(RutaVerbalizer verbalizer) {
+    this(verbalizer, false);
+  }
+
+  public CreatedByVisitor(RutaVerbalizer verbalizer, boolean compact) {
     super();
     this.verbalizer = verbalizer;
+    this.compact = compact;
+    // index 0 is reserved for annotations that were not created by a rule
+    rules.add(new RuleInfo(PROVIDED, -1, ""));
   }
 
   public void beginVisit(RutaElement element, ScriptApply result) {
@@ -65,31 +173,115 @@ public class CreatedByVisitor implements RutaInferenceVisitor {
     for (FeatureStructure each : fsList) {
       each.getCAS().addFsToIndexes(each);
     }
+    fsList.clear();
+    if (compact) {
+      // replace the information of a previous document in all views of the CAS
+      clear(stream.getCas());
+      RuleInfo[] ruleArray = rules.toArray(new RuleInfo[rules.size()]);
+      for (Entry<CAS, PairBuffer> each : buffers.entrySet()) {
+        PairBuffer buffer = each.getValue();
+        PROVENANCES.put(each.getKey(), new Provenance(each.getKey().getDocumentText(),
+                buffer.pairs, buffer.size, ruleArray));
+      }
+      buffers.clear();
+    }
   }
 
   public void annotationAdded(AnnotationFS annotation,
           AbstractRuleMatch<? extends AbstractRule> creator) {
     CAS cas = annotation.getCAS();
+    int ruleIndex = getRuleIndex(creator);
+    if (compact) {
+      PairBuffer buffer = buffers.get(cas);
+      if (buffer == null) {
+        buffer = new PairBuffer();
+        buffers.put(cas, buffer);
+      }
+      buffer.add(cas.getLowLevelCAS().ll_getFSRef(annotation), ruleIndex);
+    } else {
+      fsList.add(createFS(cas, annotation, rules.get(ruleIndex)));
+    }
+  }
+
+  /**
+   * Removes the information of a previously processed document in the compact mode from all views
+   * of the CAS. This is called before the CAS is processed again, because a reset CAS may reuse
+   * the addresses and even the document text of the previous document.
+   */
+  public static void clear(CAS cas) {
+    Iterator<CAS> views = cas.getViewIterator();
+    while (views.hasNext()) {
+      PROVENANCES.remove(views.next());
+    }
+  }
+
+  /**
+   * Creates and indexes the annotations of the type {@link #TYPE} for the annotations that were
+   * created in the given view when it was processed in the compact mode. The information is
+   * removed afterwards, so the annotations are only created once.
+   *
+   * @return the amount of created annotations, or 0 if no information is available for the
+   *         current document of the view
+   */
+  public static int materialize(CAS cas) {
+    Provenance provenance = PROVENANCES.remove(cas);
+    if (provenance == null || provenance.documentText != cas.getDocumentText()) {
+      // another document is processed by now, even if a reset CAS was not processed again
+      return 0;
+    }
     Type t = cas.getTypeSystem().getType(TYPE);
     Feature featureRule = t.getFeatureByBaseName(FEATURE_RULE);
     Feature featureAnnotation = t.getFeatureByBaseName(FEATURE_ANNOTATION);
     Feature featureScript = t.getFeatureByBaseName(FEATURE_SCRIPT);
     Feature featureId = t.getFeatureByBaseName(FEATURE_ID);
+    for (int i = 0; i < provenance.size; i += 2) {
+      FeatureStructure annotation = cas.getLowLevelCAS().ll_getFSForRef(provenance.pairs[i]);
+      RuleInfo rule = provenance.rules[provenance.pairs[i + 1]];
+      FeatureStructure fs = cas.createFS(t);
+      fs.setStringValue(featureRule, rule.rule);
+      fs.setFeatureValue(featureAnnotation, annotation);
+      fs.setIntValue(featureId, rule.id);
+      fs.setStringValue(featureScript, rule.script);
+      cas.addFsToIndexes(fs);
+    }
+    return provenance.size / 2;
+  }
+
+  private int getRuleIndex(AbstractRuleMatch<? extends AbstractRule> creator) {
+    if (creator == null) {
+      return 0;
+    }
+    AbstractRule rule = creator.getRule();
+    Integer index = ruleIndexes.get(rule);
+    if (index == null) {
+      String script = rule.getParent().getScript().getRootBlock().getNamespace();
+      String interned = scripts.get(script);
+      if (interned == null) {
+        interned = script;
+        scripts.put(script, script);
+      }
+      index = rules.size();
+      rules.add(new RuleInfo(verbalizer.verbalize(rule), rule.getId(), interned));
+      ruleIndexes.put(rule, index);
+    }
+    return index;
+  }
 
-    String ruleString = "provided";
-    String ruleScript = "";
-    int ruleId = -1;
-    if (creator != null) {
-      ruleString = verbalizer.verbalize(creator.getRule());
-      ruleId = creator.getRule().getId();
-      ruleScript = creator.getRule().getParent().getScript().getRootBlock().getNamespace();
+  private FeatureStructure createFS(CAS cas, AnnotationFS annotation, RuleInfo rule) {
+    if (cas.getTypeSystem() != typeSystem) {
+      typeSystem = cas.getTypeSystem();
+      type = typeSystem.getType(TYPE);
+      featureRule = type.getFeatureByBaseName(FEATURE_RULE);
+      featureAnnotation = type.getFeatureByBaseName(FEATURE_ANNOTATION);
+      featureScript = type.getFeatureByBaseName(FEATURE_SCRIPT);
+      featureId = type.getFeatureByBaseName(FEATURE_ID);
     }
-    FeatureStructure fs = cas.createFS(t);
-    fs.setStringValue(featureRule, ruleString);
+    FeatureStructure fs = cas.createFS(type);
+    fs.setStringValue(featureRule, rule.rule);
     fs.setFeatureValue(featureAnnotation, annotation);
-    fs.setIntValue(featureId, ruleId);
-    fs.setStringValue(featureScript, ruleScript);
-    fsList.add(fs);
+    fs.setIntValue(featureId, rule.id);
+    fs.setStringValue(featureScript, rule.script);
+    return fs;
   }
 
 }
@@ -56,6 +56,14 @@ public class DebugInfoCollectorVisitor implements RutaInferenceVisitor {
 
   private Stack<RutaElement> callStack;
 
+  private boolean streaming;
+
+  private int maxMatches = -1;
+
+  private Map<RutaStatement, int[]> keptMatches;
+
+  private RutaStream stream;
+
   public DebugInfoCollectorVisitor(boolean createDebugInfo, boolean withMatches, List<String> ids,
           RutaVerbalizer verbalizer) {
     super();
@@ -66,6 +74,26 @@ public class DebugInfoCollectorVisitor implements RutaInferenceVisitor {
     debugFactory = new DebugInfoFactory(verbalizer);
     applies = new HashMap<RutaStatement, Stack<ScriptApply>>();
     callStack = new Stack<RutaElement>();
+    keptMatches = new HashMap<RutaStatement, int[]>();
+  }
+
+  /**
+   * Creates a visitor that is able to create the debug information of each rule as soon as the
+   * rule was applied, and that keeps only a limited amount of matches of each rule.
+   *
+   * @param streaming
+   *          if true, the debug information of a rule is created when the rule was applied and its
+   *          matches are released. This requires that the stream is set with
+   *          {@link #setStream(RutaStream)}.
+   * @param maxMatches
+   *          the maximal amount of matches of each rule in a document that are included in the
+   *          debug information, or a negative value for no limit
+   */
+  public DebugInfoCollectorVisitor(boolean createDebugInfo, boolean withMatches, List<String> ids,
+          RutaVerbalizer verbalizer, boolean streaming, int maxMatches) {
+    this(createDebugInfo, withMatches, ids, verbalizer);
+    this.streaming = streaming;
+    this.maxMatches = maxMatches;
   }
 
   public DebugInfoCollectorVisitor(boolean createDebugInfo) {
@@ -95,13 +123,18 @@ public class DebugInfoCollectorVisitor implements RutaInferenceVisitor {
       applies.put(stmt, stack);
       if (result instanceof RuleApply) {
         RuleApply ra = (RuleApply) result;
-        ra.setAcceptMatches(ra.isAcceptMatches() || withMatches);
+        if (!ra.isAcceptMatches() && withMatches) {
+          ra.setAcceptMatches(true);
+          if (maxMatches >= 0) {
+            int[] kept = keptMatches.get(stmt);
+            ra.setMaxMatches(kept == null ? maxMatches : Math.max(0, maxMatches - kept[0]));
+          }
+        }
       }
     }
   }
 
   public void endVisit(RutaElement element, ScriptApply result) {
-    // TODO create UIMA stuff here not later -> save memory!
     if (element instanceof RutaStatement) {
       RutaStatement stmt = (RutaStatement) element;
       RutaBlock parent = stmt.getParent();
@@ -161,6 +194,23 @@ public class DebugInfoCollectorVisitor implements RutaInferenceVisitor {
       }
       stack.pop();
       callStack.pop();
+      if (result instanceof RuleApply) {
+        RuleApply ra = (RuleApply) result;
+        if (ra.getMaxMatches() >= 0) {
+          int[] kept = keptMatches.get(stmt);
+          if (kept == null) {
+            kept = new int[1];
+            keptMatches.put(stmt, kept);
+          }
+          kept[0] += ra.getList().size();
+        }
+        if (streaming && createDebugInfo && stream != null && element instanceof RutaRule
+                && (parent == null || parent.getRule() != element)) {
+          // the rule of a block needs its matches for the windows of the block
+          debugFactory.createDebugRuleApplyInAdvance(ra, stream, withMatches);
+          ra.getList().clear();
+        }
+      }
     }
     if (element instanceof RutaModule) {
       rootApply = result;
@@ -177,6 +227,13 @@ public class DebugInfoCollectorVisitor implements RutaInferenceVisitor {
     }
   }
 
+  /**
+   * Sets the stream that is used for creating the debug information in the streaming mode.
+   */
+  public void setStream(RutaStream stream) {
+    this.stream = stream;
+  }
+
   private Map<RutaElement, Long> getTimeInfo(List<RutaInferenceVisitor> visitors) {
     for (RutaInferenceVisitor each : visitors) {
       if (each instanceof TimeProfilerVisitor) {
@@ -20,6 +20,7 @@
 package org.apache.uima.ruta.visitor;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -63,11 +64,26 @@ public class DebugInfoFactory {
 
   private RutaVerbalizer verbalizer;
 
+  // debug information that was created before the debug information of the enclosing block
+  private Map<ScriptApply, DebugScriptApply> created = new IdentityHashMap<ScriptApply, DebugScriptApply>();
+
   public DebugInfoFactory(RutaVerbalizer verbalizer) {
     super();
     this.verbalizer = verbalizer;
   }
 
+  /**
+   * Creates the debug information of the given rule apply without the time information and
+   * remembers it for the creation of the enclosing block. Afterwards, the matches of the rule
+   * apply are not needed anymore.
+   */
+  public DebugRuleApply createDebugRuleApplyInAdvance(RuleApply ruleApply, RutaStream stream,
+          boolean withMatches) {
+    DebugRuleApply result = createDebugRuleApply(ruleApply, stream, false, withMatches, null);
+    created.put(ruleApply, result);
+    return result;
+  }
+
   public DebugBlockApply createDummyBlockApply(RuleMatch ruleMatch, RutaStream stream,
           boolean addToIndex, boolean withMatches, Map<RutaElement, Long> timeInfo) {
     JCas cas = stream.getJCas();
@@ -439,8 +455,12 @@ public class DebugInfoFactory {
 
   public DebugScriptApply createDebugScriptApply(ScriptApply apply, RutaStream stream,
           boolean addToIndex, boolean withMatches, Map<RutaElement, Long> timeInfo) {
-    DebugScriptApply debug = null;
-    if (apply instanceof BlockApply) {
+    DebugScriptApply debug = created.remove(apply);
+    if (debug != null) {
+      if (timeInfo != null) {
+        setTime(debug, apply.getElement(), timeInfo);
+      }
+    } else if (apply instanceof BlockApply) {
       debug = createDebugBlockApply((BlockApply) apply, stream, addToIndex, withMatches, timeInfo);
     } else if (apply instanceof RuleApply) {
       debug = createDebugRuleApply((RuleApply) apply, stream, addToIndex, withMatches, timeInfo);
@@ -450,4 +470,19 @@ public class DebugInfoFactory {
     return debug;
   }
 
+  private void setTime(DebugScriptApply debug, RutaElement element,
+          Map<RutaElement, Long> timeInfo) {
+    Long time = timeInfo.get(element);
+    if (time == null) {
+      return;
+    }
+    debug.setTime(time);
+    if (debug instanceof DebugRuleApply) {
+      FSArray rules = ((DebugRuleApply) debug).getRules();
+      for (int i = 0; i < rules.size(); i++) {
+        ((DebugRuleMatch) rules.get(i)).setTime(time);
+      }
+    }
+  }
+
 }
@@ -37,6 +37,13 @@ public class InferenceCrowd implements RutaInferenceVisitor {
     this.visitors = visitors;
   }
 
+  /**
+   * @return true, if there are no visitors that need to be notified
+   */
+  public boolean isEmpty() {
+    return visitors.isEmpty();
+  }
+
   public void beginVisit(RutaElement element, ScriptApply result) {
     for (RutaInferenceVisitor each : visitors) {
       each.beginVisit(element, result);
@@ -19,42 +19,302 @@
 
 package org.apache.uima.ruta.visitor;
 
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.ruta.RutaBlock;
 import org.apache.uima.ruta.RutaElement;
+import org.apache.uima.ruta.RutaModule;
+import org.apache.uima.ruta.RutaStatement;
 import org.apache.uima.ruta.RutaStream;
 import org.apache.uima.ruta.ScriptApply;
 import org.apache.uima.ruta.rule.AbstractRule;
 import org.apache.uima.ruta.rule.AbstractRuleMatch;
+import org.apache.uima.ruta.rule.RuleApply;
+import org.apache.uima.ruta.verbalize.RutaVerbalizer;
 
+/**
+ * Measures the runtime of the statements with {@link System#nanoTime()}. The visits are kept on a
+ * call stack, so that nested and repeated visits of the same statement, e.g., by a block that
+ * applies its statements in each window or by a CALL, are accumulated instead of overwriting each
+ * other. For each statement, the total time (the time of nested visits of the same statement is
+ * only counted once), the self time (without the time of the inner statements), the amount of
+ * visits, the tried and applied matches and, if supported by the JVM, the allocated bytes are
+ * summed up over all processed documents.
+ * <p>
+ * Conditions and actions are not profiled, see {@link StatisticsVisitor}.
+ */
 public class TimeProfilerVisitor implements RutaInferenceVisitor {
 
-  private Map<RutaElement, Long> timeInfo;
+  /**
+   * The accumulated measures of one statement.
+   */
+  public static class Profile {
+
+    private final RutaElement element;
+
+    private long invocations;
+
+    private long totalNanos;
+
+    private long selfNanos;
+
+    private long tried;
+
+    private long applied;
+
+    private long allocatedBytes;
+
+    // amount of active visits of this element on the call stack
+    private int active;
+
+    private Profile(RutaElement element) {
+      super();
+      this.element = element;
+    }
+
+    public RutaElement getElement() {
+      return element;
+    }
+
+    public long getInvocations() {
+      return invocations;
+    }
+
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    public long getSelfNanos() {
+      return selfNanos;
+    }
+
+    public long getTried() {
+      return tried;
+    }
+
+    public long getApplied() {
+      return applied;
+    }
+
+    /**
+     * @return the bytes allocated by the thread during the visits, or 0 if not supported
+     */
+    public long getAllocatedBytes() {
+      return allocatedBytes;
+    }
+  }
+
+  private static class Frame {
+
+    private Profile profile;
+
+    private long start;
+
+    private long children;
+
+    private long allocation;
+  }
+
+  private static final long NANOS_PER_MILLI = 1000000L;
+
+  private final Map<RutaElement, Profile> profiles = new IdentityHashMap<RutaElement, Profile>();
+
+  // nanos of the current document for the debug information
+  private final Map<RutaElement, long[]> documentNanos = new IdentityHashMap<RutaElement, long[]>();
+
+  // frames are reused in order to avoid allocations
+  private final List<Frame> stack = new ArrayList<Frame>();
+
+  private int depth = 0;
+
+  private final Object threadBean;
+
+  private final Method allocatedBytesMethod;
 
   public TimeProfilerVisitor() {
     super();
-    timeInfo = new HashMap<RutaElement, Long>();
+    Object bean = null;
+    Method method = null;
+    try {
+      // com.sun.management is not available on all JVMs
+      Class<?> beanClass = ClassLoader.getSystemClassLoader().loadClass(
+              "com.sun.management.ThreadMXBean");
+      bean = ManagementFactory.getThreadMXBean();
+      if (beanClass.isInstance(bean)) {
+        method = beanClass.getMethod("getThreadAllocatedBytes", long.class);
+        method.invoke(bean, Thread.currentThread().getId());
+      } else {
+        bean = null;
+      }
+    } catch (Exception e) {
+      bean = null;
+      method = null;
+    }
+    threadBean = bean;
+    allocatedBytesMethod = method;
   }
 
   public void beginVisit(RutaElement element, ScriptApply result) {
-    getTimeInfo().put(element, System.currentTimeMillis());
+    if (!(element instanceof RutaStatement || element instanceof RutaModule)) {
+      return;
+    }
+    Profile profile = profiles.get(element);
+    if (profile == null) {
+      profile = new Profile(element);
+      profiles.put(element, profile);
+    }
+    profile.active++;
+    Frame frame;
+    if (depth < stack.size()) {
+      frame = stack.get(depth);
+    } else {
+      frame = new Frame();
+      stack.add(frame);
+    }
+    depth++;
+    frame.profile = profile;
+    frame.children = 0;
+    frame.allocation = getAllocatedBytes();
+    frame.start = System.nanoTime();
   }
 
   public void endVisit(RutaElement element, ScriptApply result) {
-    Long start = getTimeInfo().get(element);
-    long value = System.currentTimeMillis() - start;
-    getTimeInfo().put(element, value);
+    long end = System.nanoTime();
+    if (!(element instanceof RutaStatement || element instanceof RutaModule) || depth == 0) {
+      return;
+    }
+    Frame frame = stack.get(depth - 1);
+    if (frame.profile.element != element) {
+      // unbalanced visit
+      return;
+    }
+    depth--;
+    Profile profile = frame.profile;
+    long delta = end - frame.start;
+    profile.active--;
+    profile.invocations++;
+    profile.selfNanos += delta - frame.children;
+    if (profile.active == 0) {
+      // the outermost visit contains the time of recursive visits
+      profile.totalNanos += delta;
+      long[] nanos = documentNanos.get(element);
+      if (nanos == null) {
+        nanos = new long[1];
+        documentNanos.put(element, nanos);
+      }
+      nanos[0] += delta;
+      long allocation = getAllocatedBytes();
+      if (frame.allocation >= 0 && allocation >= 0) {
+        profile.allocatedBytes += allocation - frame.allocation;
+      }
+    }
+    if (result instanceof RuleApply) {
+      RuleApply ruleApply = (RuleApply) result;
+      profile.tried += ruleApply.getTried();
+      profile.applied += ruleApply.getApplied();
+    }
+    frame.profile = null;
+    if (depth > 0) {
+      stack.get(depth - 1).children += delta;
+    }
   }
 
   public void finished(RutaStream stream, List<RutaInferenceVisitor> visitors) {
     // others do the work
   }
 
+  /**
+   * Forgets the times of the current document, but keeps the accumulated profiles.
+   */
+  public void resetDocument() {
+    documentNanos.clear();
+    // visits that did not end, e.g., because of an exception
+    while (depth > 0) {
+      depth--;
+      Frame frame = stack.get(depth);
+      frame.profile.active--;
+      frame.profile = null;
+    }
+  }
+
+  /**
+   * @return the time in milliseconds of the elements visited since the last call of
+   *         {@link #resetDocument()}
+   */
   public Map<RutaElement, Long> getTimeInfo() {
-    return timeInfo;
+    Map<RutaElement, Long> result = new HashMap<RutaElement, Long>();
+    for (Entry<RutaElement, long[]> each : documentNanos.entrySet()) {
+      result.put(each.getKey(), each.getValue()[0] / NANOS_PER_MILLI);
+    }
+    return result;
+  }
+
+  /**
+   * @return the profiles of all visited statements, sorted by their total time
+   */
+  public List<Profile> getProfiles() {
+    List<Profile> result = new ArrayList<Profile>(profiles.values());
+    Collections.sort(result, new Comparator<Profile>() {
+      public int compare(Profile o1, Profile o2) {
+        long t1 = o1.getTotalNanos();
+        long t2 = o2.getTotalNanos();
+        return t1 > t2 ? -1 : (t1 == t2 ? 0 : 1);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * @return the profiles as tab separated values, sorted by their total time
+   */
+  public String getReport(RutaVerbalizer verbalizer) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("Total(ms)\tSelf(ms)\tInvocations\tTried\tApplied\tAllocated(bytes)\tElement\n");
+    for (Profile each : getProfiles()) {
+      sb.append(String.format(Locale.ENGLISH, "%.3f\t%.3f\t%d\t%d\t%d\t%d\t%s\n",
+              (double) each.getTotalNanos() / NANOS_PER_MILLI, (double) each.getSelfNanos()
+                      / NANOS_PER_MILLI, each.getInvocations(), each.getTried(),
+              each.getApplied(), each.getAllocatedBytes(), verbalize(each.getElement(),
+                      verbalizer)));
+    }
+    return sb.toString();
+  }
+
+  private String verbalize(RutaElement element, RutaVerbalizer verbalizer) {
+    String result;
+    if (element instanceof RutaModule) {
+      return "SCRIPT " + ((RutaModule) element).getRootBlock().getName();
+    } else if (element instanceof RutaBlock) {
+      result = verbalizer.verbalize((RutaBlock) element, false);
+    } else {
+      result = verbalizer.verbalize(element);
+    }
+    if (element instanceof AbstractRule) {
+      result = ((AbstractRule) element).getId() + ": " + result;
+    }
+    return result.replaceAll("\\s+", " ");
+  }
+
+  private long getAllocatedBytes() {
+    if (threadBean == null) {
+      return -1;
+    }
+    try {
+      return (Long) allocatedBytesMethod.invoke(threadBean, Thread.currentThread().getId());
+    } catch (Exception e) {
+      return -1;
+    }
   }
 
   public void annotationAdded(AnnotationFS annotation,
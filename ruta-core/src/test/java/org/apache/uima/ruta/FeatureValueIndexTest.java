@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.ruta.descriptor.RutaBuildOptions;
+import org.apache.uima.ruta.descriptor.RutaDescriptorFactory;
+import org.apache.uima.ruta.descriptor.RutaDescriptorInformation;
+import org.apache.uima.ruta.engine.RutaEngine;
+import org.apache.uima.ruta.engine.RutaTestUtils;
+import org.apache.uima.ruta.engine.RutaTestUtils.TestFeature;
+import org.junit.Test;
+
+public class FeatureValueIndexTest {
+
+  @Test
+  public void test() {
+    test(false);
+    test(true);
+  }
+
+  private void test(boolean dynamicAnchoring) {
+    // same script and expectations, but the feature matches use the index
+    String name = FeatureMatch1Test.class.getSimpleName();
+    String namespace = this.getClass().getPackage().getName().replaceAll("\\.", "/");
+    CAS cas = null;
+    Map<String, String> complexTypes = new HashMap<String, String>();
+    Map<String, List<TestFeature>> features = new TreeMap<String, List<TestFeature>>();
+    String typeNameA = "org.apache.uima.ruta.FeatureMatchTest.A";
+    String typeNameB = "org.apache.uima.ruta.FeatureMatchTest.B";
+    String typeNameC = "org.apache.uima.ruta.FeatureMatchTest.C";
+    String typeNameD = "org.apache.uima.ruta.FeatureMatchTest.D";
+    complexTypes.put(typeNameA, "uima.tcas.Annotation");
+    complexTypes.put(typeNameB, typeNameD);
+    complexTypes.put(typeNameC, typeNameD);
+    complexTypes.put(typeNameD, "uima.tcas.Annotation");
+    List<TestFeature> listA = new ArrayList<RutaTestUtils.TestFeature>();
+    features.put(typeNameA, listA);
+    String fnab = "ab";
+    listA.add(new TestFeature(fnab, "", typeNameB));
+    String fnac = "ac";
+    listA.add(new TestFeature(fnac, "", typeNameC));
+    List<TestFeature> listB = new ArrayList<RutaTestUtils.TestFeature>();
+    features.put(typeNameB, listB);
+    String fnbc = "bc";
+    listB.add(new TestFeature(fnbc, "", typeNameC));
+    List<TestFeature> listC = new ArrayList<RutaTestUtils.TestFeature>();
+    features.put(typeNameC, listC);
+    String fnci = "ci";
+    listC.add(new TestFeature(fnci, "", "uima.cas.Integer"));
+    String fncb = "cb";
+    listC.add(new TestFeature(fncb, "", "uima.cas.Boolean"));
+    List<TestFeature> listD = new ArrayList<RutaTestUtils.TestFeature>();
+    features.put(typeNameD, listD);
+    String fnds = "ds";
+    listD.add(new TestFeature(fnds, "", "uima.cas.String"));
+
+    try {
+      Map<String, Object> parameters = new HashMap<String, Object>();
+      parameters.put(RutaEngine.PARAM_FEATURE_VALUE_INDEX, true);
+      parameters.put(RutaEngine.PARAM_DYNAMIC_ANCHORING, dynamicAnchoring);
+      cas = RutaTestUtils.process(namespace + "/" + name + RutaEngine.SCRIPT_FILE_EXTENSION,
+              namespace + "/" + name + ".txt", parameters, 50, complexTypes, features, null, null);
+    } catch (Exception e) {
+      e.printStackTrace();
+      assert (false);
+    }
+
+    RutaTestUtils.assertAnnotationsEquals(cas, 1, 1, "Marshall");
+    RutaTestUtils.assertAnnotationsEquals(cas, 2, 1, "Marshall");
+    RutaTestUtils.assertAnnotationsEquals(cas, 3, 1, "Marshall");
+    RutaTestUtils.assertAnnotationsEquals(cas, 4, 1, "Marshall");
+    RutaTestUtils.assertAnnotationsEquals(cas, 5, 3, "Peter", "Joern", "Marshall");
+    RutaTestUtils.assertAnnotationsEquals(cas, 6, 3, "Kluegl", "Kottmann", "Schor");
+    RutaTestUtils.assertAnnotationsEquals(cas, 7, 3, "Kluegl", "Kottmann", "Schor");
+    RutaTestUtils.assertAnnotationsEquals(cas, 8, 3, "Kluegl", "Kottmann", "Schor");
+    RutaTestUtils.assertAnnotationsEquals(cas, 9, 3, "Kluegl", "Kottmann", "Schor");
+    RutaTestUtils.assertAnnotationsEquals(cas, 10, 1, "Marshall");
+    RutaTestUtils.assertAnnotationsEquals(cas, 11, 1, "Marshall");
+    RutaTestUtils.assertAnnotationsEquals(cas, 12, 1, "Marshall");
+    RutaTestUtils.assertAnnotationsEquals(cas, 13, 3, "Peter", "Joern", "Marshall");
+    RutaTestUtils.assertAnnotationsEquals(cas, 14, 3, "Kluegl", "Kottmann", "Schor");
+    RutaTestUtils.assertAnnotationsEquals(cas, 15, 3, "Peter", "Joern", "Marshall");
+    RutaTestUtils.assertAnnotationsEquals(cas, 16, 1, "Peter Kluegl, Joern Kottmann, Marshall");
+    RutaTestUtils.assertAnnotationsEquals(cas, 17, 1, "Peter Kluegl, Joern Kottmann, Marshall Schor");
+    RutaTestUtils.assertAnnotationsEquals(cas, 18, 1, "Peter Kluegl, Joern Kottmann, Marshall Schor");
+
+    cas.release();
+  }
+
+  @Test
+  public void testIndex() throws Exception {
+    String typeName = "org.apache.uima.ruta.FeatureValueIndexTest.Tok";
+    Map<String, String> complexTypes = new HashMap<String, String>();
+    complexTypes.put(typeName, "uima.tcas.Annotation");
+    Map<String, List<TestFeature>> features = new TreeMap<String, List<TestFeature>>();
+    List<TestFeature> list = new ArrayList<RutaTestUtils.TestFeature>();
+    list.add(new TestFeature("pos", "", "uima.cas.String"));
+    features.put(typeName, list);
+    CAS cas = RutaTestUtils.getCAS("The big dog.", complexTypes, features);
+    Type type = cas.getTypeSystem().getType(typeName);
+    Feature feature = type.getFeatureByBaseName("pos");
+    AnnotationFS a1 = createTok(cas, type, feature, 0, 3, "DT");
+    AnnotationFS a2 = createTok(cas, type, feature, 4, 7, "JJ");
+    AnnotationFS a3 = createTok(cas, type, feature, 8, 11, "NN");
+
+    FeatureValueIndex index = new FeatureValueIndex(cas);
+    assertTrue(FeatureValueIndex.isSupported(feature));
+    assertEquals(1, index.count(type, feature, "NN"));
+    Collection<AnnotationFS> nouns = index.get(type, feature, "NN");
+    assertTrue(nouns.contains(a3));
+
+    cas.removeFsFromIndexes(a2);
+    a2.setStringValue(feature, "NN");
+    index.update(a2);
+    cas.addFsToIndexes(a2);
+    assertEquals(2, index.count(type, feature, "NN"));
+    // the result of an earlier request is not changed
+    assertEquals(1, nouns.size());
+    assertEquals(0, index.count(type, feature, "JJ"));
+
+    cas.removeFsFromIndexes(a3);
+    index.remove(a3);
+    assertEquals(1, index.count(type, feature, "NN"));
+
+    // added without the index
+    createTok(cas, type, feature, 0, 3, "NN");
+    assertEquals(2, index.count(type, feature, "NN"));
+    assertEquals(1, index.count(type, feature, "DT"));
+    assertTrue(index.get(type, feature, "DT").contains(a1));
+
+    cas.release();
+  }
+
+  @Test
+  public void testExec() throws Exception {
+    String script = "PACKAGE org.apache.uima.ruta;\n" //
+            + "UIMAFIT org.apache.uima.ruta.engine.SetStringFeatureAnnotator (type, "
+            + "org.apache.uima.ruta.Tok, feature, pos, value, NN);\n" //
+            + "DECLARE Tok (STRING pos);\n" //
+            + "DECLARE Proper, Noun;\n" //
+            + "CW{-> CREATE(Tok, \"pos\" = \"NNP\")};\n" //
+            + "Tok.pos==\"NNP\"{-> Proper};\n" //
+            + "EXEC(SetStringFeatureAnnotator);\n" //
+            + "Tok.pos==\"NN\"{-> Noun};\n";
+    RutaDescriptorFactory factory = new RutaDescriptorFactory();
+    RutaDescriptorInformation rdi = factory.parseDescriptorInformation(script);
+    AnalysisEngineDescription aed = factory.createAnalysisEngineDescription(null, rdi,
+            new RutaBuildOptions(), null, null, null, getClass().getClassLoader());
+    AnalysisEngine ae = AnalysisEngineFactory.createEngine(aed, RutaEngine.PARAM_RULES, script,
+            RutaEngine.PARAM_FEATURE_VALUE_INDEX, true);
+    Map<String, String> complexTypes = new HashMap<String, String>();
+    complexTypes.put("org.apache.uima.ruta.Tok", "uima.tcas.Annotation");
+    complexTypes.put("org.apache.uima.ruta.Proper", "uima.tcas.Annotation");
+    complexTypes.put("org.apache.uima.ruta.Noun", "uima.tcas.Annotation");
+    Map<String, List<TestFeature>> features = new TreeMap<String, List<TestFeature>>();
+    List<TestFeature> list = new ArrayList<RutaTestUtils.TestFeature>();
+    list.add(new TestFeature("pos", "", "uima.cas.String"));
+    features.put("org.apache.uima.ruta.Tok", list);
+    features.put("org.apache.uima.ruta.Proper", new ArrayList<TestFeature>());
+    features.put("org.apache.uima.ruta.Noun", new ArrayList<TestFeature>());
+    CAS cas = RutaTestUtils.getCAS("Peter and Marshall.", complexTypes, features);
+    ae.process(cas);
+
+    assertEquals(2, cas.getAnnotationIndex(cas.getTypeSystem().getType("org.apache.uima.ruta.Proper"))
+            .size());
+    // the values set by the engine are not reported to the stream
+    assertEquals(2, cas.getAnnotationIndex(cas.getTypeSystem().getType("org.apache.uima.ruta.Noun"))
+            .size());
+    cas.release();
+    ae.destroy();
+  }
+
+  private AnnotationFS createTok(CAS cas, Type type, Feature feature, int begin, int end,
+          String pos) {
+    AnnotationFS result = cas.createAnnotation(type, begin, end);
+    result.setStringValue(feature, pos);
+    cas.addFsToIndexes(result);
+    return result;
+  }
+}
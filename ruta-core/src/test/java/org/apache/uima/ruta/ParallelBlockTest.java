@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.ruta.engine.Ruta;
+import org.apache.uima.ruta.engine.RutaEngine;
+import org.apache.uima.ruta.engine.RutaTestUtils;
+import org.apache.uima.ruta.engine.RutaTestUtils.TestFeature;
+import org.junit.Test;
+
+public class ParallelBlockTest {
+
+  private static final String NUMBER = "org.apache.uima.ruta.ParallelBlockTest.Number";
+
+  @Test
+  public void test() throws Exception {
+    StringBuilder text = new StringBuilder();
+    List<Integer> offsets = new ArrayList<Integer>();
+    for (int i = 0; i < 200; i++) {
+      offsets.add(text.length());
+      text.append("Sentence number " + i + " was written by Peter Kluegl and some others.");
+      offsets.add(text.length());
+      text.append(" ");
+    }
+    String script = "BLOCK(s) T1{} {\n" //
+            + "  CW{-> T2};\n" //
+            + "  (T2 SW){-> T3};\n" //
+            + "  (CW CW){-> T4};\n" //
+            + "  SW # PERIOD{-> T5};\n" //
+            + "  T3{-> T6} SW SW;\n" //
+            + "}";
+
+    CAS expected = getCAS(text.toString(), offsets);
+    Ruta.apply(expected, script);
+    CAS actual = getCAS(text.toString(), offsets);
+    Map<String, Object> parameters = new HashMap<String, Object>();
+    parameters.put(RutaEngine.PARAM_PARALLEL_BLOCKS, 4);
+    Ruta.apply(actual, script, parameters);
+
+    for (int i = 1; i <= 6; i++) {
+      assertEquals(getCoveredTexts(expected, i), getCoveredTexts(actual, i));
+    }
+    RutaTestUtils.assertAnnotationsEquals(actual, 1, 200);
+    assertEquals(200, actual.getAnnotationIndex(RutaTestUtils.getTestType(actual, 4)).size());
+    expected.release();
+    actual.release();
+  }
+
+  @Test
+  public void testConditionOnOwnAction() throws Exception {
+    String text = "Peter Kluegl writes. Marshall Schor reads.";
+    List<Integer> offsets = new ArrayList<Integer>();
+    offsets.add(0);
+    offsets.add(20);
+    offsets.add(21);
+    offsets.add(text.length());
+    String script = "BLOCK(s) T1{} {\n" //
+            + "  CW+{-PARTOF(T2) -> MARK(T2)};\n" //
+            + "}";
+
+    CAS expected = getCAS(text, offsets);
+    Ruta.apply(expected, script);
+    CAS actual = getCAS(text, offsets);
+    Map<String, Object> parameters = new HashMap<String, Object>();
+    parameters.put(RutaEngine.PARAM_PARALLEL_BLOCKS, 2);
+    Ruta.apply(actual, script, parameters);
+
+    RutaTestUtils.assertAnnotationsEquals(expected, 2, 2, "Peter Kluegl", "Marshall Schor");
+    assertEquals(getCoveredTexts(expected, 2), getCoveredTexts(actual, 2));
+    expected.release();
+    actual.release();
+  }
+
+  @Test
+  public void testMatchOnOwnAction() throws Exception {
+    String text = "Peter Kluegl writes. Marshall Schor reads.";
+    String script = "BLOCK(s) T1{} {\n" //
+            + "  CW{-> T2};\n" //
+            + "  T2{-> UNMARK(T2)} T2;\n" //
+            + "}";
+
+    CAS expected = applySequential(text, script, null, null);
+    CAS actual = applyParallel(text, script, null, null);
+    RutaTestUtils.assertAnnotationsEquals(expected, 2, 2, "Kluegl", "Schor");
+    assertEquals(getCoveredTexts(expected, 2), getCoveredTexts(actual, 2));
+    expected.release();
+    actual.release();
+  }
+
+  @Test
+  public void testParseWithCreate() throws Exception {
+    String text = "Peter has 3 dogs. Marshall has 7 cats.";
+    String script = "INT n;\n" //
+            + "BLOCK(s) T1{} {\n" //
+            + "  NUM{PARSE(n) -> CREATE(" + NUMBER + ", \"value\" = n)};\n" //
+            + "}";
+
+    CAS expected = applySequential(text, script, getNumberType(), getNumberFeatures());
+    CAS actual = applyParallel(text, script, getNumberType(), getNumberFeatures());
+    assertEquals(Arrays.asList("10:3", "31:7"), getValues(expected));
+    assertEquals(getValues(expected), getValues(actual));
+    expected.release();
+    actual.release();
+  }
+
+  @Test
+  public void testCountWithCreate() throws Exception {
+    String text = "Peter Kluegl has 3 dogs. Marshall has 7 cats.";
+    String script = "INT c;\n" //
+            + "BLOCK(s) T1{} {\n" //
+            + "  T1{COUNT(CW, c) -> CREATE(" + NUMBER + ", \"value\" = c)};\n" //
+            + "}";
+
+    CAS expected = applySequential(text, script, getNumberType(), getNumberFeatures());
+    CAS actual = applyParallel(text, script, getNumberType(), getNumberFeatures());
+    assertEquals(Arrays.asList("0:2", "25:1"), getValues(expected));
+    assertEquals(getValues(expected), getValues(actual));
+    expected.release();
+    actual.release();
+  }
+
+  @Test
+  public void testConditionOnAssign() throws Exception {
+    String text = "Peter Kluegl writes. Marshall Schor reads.";
+    String script = "INT i = 0;\n" //
+            + "BLOCK(s) T1{} {\n" //
+            + "  CW{IF(i < 1) -> ASSIGN(i, i + 1), T2};\n" //
+            + "}";
+
+    CAS expected = applySequential(text, script, null, null);
+    CAS actual = applyParallel(text, script, null, null);
+    RutaTestUtils.assertAnnotationsEquals(expected, 2, 1, "Peter");
+    assertEquals(getCoveredTexts(expected, 2), getCoveredTexts(actual, 2));
+    expected.release();
+    actual.release();
+  }
+
+  private CAS applySequential(String text, String script, Map<String, String> complexTypes,
+          Map<String, List<TestFeature>> features) throws Exception {
+    CAS cas = getCAS(text, getSentences(text), complexTypes, features);
+    Ruta.apply(cas, script);
+    return cas;
+  }
+
+  private CAS applyParallel(String text, String script, Map<String, String> complexTypes,
+          Map<String, List<TestFeature>> features) throws Exception {
+    CAS cas = getCAS(text, getSentences(text), complexTypes, features);
+    Map<String, Object> parameters = new HashMap<String, Object>();
+    parameters.put(RutaEngine.PARAM_PARALLEL_BLOCKS, 2);
+    Ruta.apply(cas, script, parameters);
+    return cas;
+  }
+
+  private List<Integer> getSentences(String text) {
+    List<Integer> result = new ArrayList<Integer>();
+    int begin = 0;
+    int end = text.indexOf('.');
+    while (end >= 0) {
+      result.add(begin);
+      result.add(end + 1);
+      begin = end + 2;
+      end = text.indexOf('.', begin);
+    }
+    return result;
+  }
+
+  private Map<String, String> getNumberType() {
+    Map<String, String> result = new HashMap<String, String>();
+    result.put(NUMBER, "uima.tcas.Annotation");
+    return result;
+  }
+
+  private Map<String, List<TestFeature>> getNumberFeatures() {
+    Map<String, List<TestFeature>> result = new HashMap<String, List<TestFeature>>();
+    List<TestFeature> list = new ArrayList<TestFeature>();
+    list.add(new TestFeature("value", "", "uima.cas.Integer"));
+    result.put(NUMBER, list);
+    return result;
+  }
+
+  private List<String> getValues(CAS cas) {
+    Type type = cas.getTypeSystem().getType(NUMBER);
+    Feature feature = type.getFeatureByBaseName("value");
+    List<String> result = new ArrayList<String>();
+    for (AnnotationFS each : cas.getAnnotationIndex(type)) {
+      result.add(each.getBegin() + ":" + each.getIntValue(feature));
+    }
+    return result;
+  }
+
+  private CAS getCAS(String text, List<Integer> offsets) throws Exception {
+    return getCAS(text, offsets, null, null);
+  }
+
+  private CAS getCAS(String text, List<Integer> offsets, Map<String, String> complexTypes,
+          Map<String, List<TestFeature>> features) throws Exception {
+    CAS cas = RutaTestUtils.getCAS(text, complexTypes, features);
+    Type type = RutaTestUtils.getTestType(cas, 1);
+    for (int i = 0; i < offsets.size(); i += 2) {
+      cas.addFsToIndexes(cas.createAnnotation(type, offsets.get(i), offsets.get(i + 1)));
+    }
+    return cas;
+  }
+
+  private List<String> getCoveredTexts(CAS cas, int typeId) {
+    List<String> result = new ArrayList<String>();
+    for (AnnotationFS each : cas.getAnnotationIndex(RutaTestUtils.getTestType(cas, typeId))) {
+      result.add(each.getBegin() + ":" + each.getCoveredText());
+    }
+    return result;
+  }
+
+}
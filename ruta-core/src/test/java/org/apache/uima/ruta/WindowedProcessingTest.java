@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.ruta.engine.Ruta;
+import org.apache.uima.ruta.engine.RutaEngine;
+import org.apache.uima.ruta.engine.RutaTestUtils;
+import org.apache.uima.ruta.engine.RutaTestUtils.TestFeature;
+import org.junit.Test;
+
+public class WindowedProcessingTest {
+
+  private static final String TEXT = "Peter Kluegl wrote some rules.\nThe Ruta Workbench was used.\n"
+          + "Long documents are processed in windows. Each window has its own basics.\n"
+          + "Nothing is matched across the borders of the windows.";
+
+  private static final String SCRIPT = "CW{-> T1}; SW{-> T2}; (CW CW){-> T3}; (SW SW SW){-> T4};";
+
+  @Test
+  public void testWindowSize() throws Exception {
+    Map<String, Object> parameters = new HashMap<String, Object>();
+    parameters.put(RutaEngine.PARAM_WINDOW_SIZE, 40);
+    assertSameAnnotations(parameters, 1, 2, 3);
+  }
+
+  @Test
+  public void testWindowOverlap() throws Exception {
+    Map<String, Object> parameters = new HashMap<String, Object>();
+    parameters.put(RutaEngine.PARAM_WINDOW_SIZE, 50);
+    parameters.put(RutaEngine.PARAM_WINDOW_OVERLAP, 30);
+    assertSameAnnotations(parameters, 1, 2, 3, 4);
+  }
+
+  @Test(expected = ResourceInitializationException.class)
+  public void testNegativeWindowOverlap() throws Exception {
+    Map<String, Object> parameters = new HashMap<String, Object>();
+    parameters.put(RutaEngine.PARAM_WINDOW_SIZE, 50);
+    parameters.put(RutaEngine.PARAM_WINDOW_OVERLAP, -1);
+    Ruta.apply(RutaTestUtils.getCAS(TEXT), SCRIPT, parameters);
+  }
+
+  @Test(expected = ResourceInitializationException.class)
+  public void testWindowOverlapNotSmallerThanWindowSize() throws Exception {
+    Map<String, Object> parameters = new HashMap<String, Object>();
+    parameters.put(RutaEngine.PARAM_WINDOW_SIZE, 50);
+    parameters.put(RutaEngine.PARAM_WINDOW_OVERLAP, 50);
+    Ruta.apply(RutaTestUtils.getCAS(TEXT), SCRIPT, parameters);
+  }
+
+  @Test
+  public void testWindowType() throws Exception {
+    CAS cas = RutaTestUtils.getCAS("A b. C d e. F g.");
+    Ruta.apply(cas, "(CW # PERIOD){-> T5};");
+    Map<String, Object> parameters = new HashMap<String, Object>();
+    parameters.put(RutaEngine.PARAM_WINDOW_TYPE, "org.apache.uima.T5");
+    Ruta.apply(cas, "(CW ANY){-> T1}; SW PERIOD CW{-> T2}; Document{-> T3};", parameters);
+
+    RutaTestUtils.assertAnnotationsEquals(cas, 1, 3, "A b", "C d", "F g");
+    RutaTestUtils.assertAnnotationsEquals(cas, 2, 0);
+    RutaTestUtils.assertAnnotationsEquals(cas, 3, 3, "A b.", "C d e.", "F g.");
+    assertEquals(0, cas.getAnnotationIndex(getBasicType(cas)).size());
+    cas.release();
+  }
+
+  @Test
+  public void testFeatureValueIndex() throws Exception {
+    String typeName = "org.apache.uima.ruta.WindowedProcessingTest.Tok";
+    Map<String, String> complexTypes = new HashMap<String, String>();
+    complexTypes.put(typeName, "uima.tcas.Annotation");
+    Map<String, List<TestFeature>> features = new TreeMap<String, List<TestFeature>>();
+    List<TestFeature> list = new ArrayList<TestFeature>();
+    list.add(new TestFeature("pos", "", "uima.cas.String"));
+    features.put(typeName, list);
+    CAS cas = RutaTestUtils.getCAS("A b. C d e. F g.", complexTypes, features);
+    Ruta.apply(cas, "(CW # PERIOD){-> T5}; CW{-> CREATE(" + typeName + ", \"pos\" = \"NNP\")};");
+    Map<String, Object> parameters = new HashMap<String, Object>();
+    parameters.put(RutaEngine.PARAM_WINDOW_TYPE, "org.apache.uima.T5");
+    parameters.put(RutaEngine.PARAM_FEATURE_VALUE_INDEX, true);
+    // the index is shared by the windows
+    Ruta.apply(cas, "Tok.pos==\"NNP\"{-> T1}; Tok.pos==\"NNP\"{-> Tok.pos=\"NN\"};"
+            + "Tok.pos==\"NN\" ANY{-> T2};", parameters);
+
+    RutaTestUtils.assertAnnotationsEquals(cas, 1, 3, "A", "C", "F");
+    RutaTestUtils.assertAnnotationsEquals(cas, 2, 3, "b", "d", "g");
+    cas.release();
+  }
+
+  private void assertSameAnnotations(Map<String, Object> parameters, int... typeIds)
+          throws Exception {
+    CAS expected = RutaTestUtils.getCAS(TEXT);
+    Ruta.apply(expected, SCRIPT);
+    CAS actual = RutaTestUtils.getCAS(TEXT);
+    Ruta.apply(actual, SCRIPT, parameters);
+
+    for (int i : typeIds) {
+      assertEquals(getCoveredTexts(expected, i), getCoveredTexts(actual, i));
+    }
+    assertEquals(0, actual.getAnnotationIndex(getBasicType(actual)).size());
+    expected.release();
+    actual.release();
+  }
+
+  private List<String> getCoveredTexts(CAS cas, int typeId) {
+    List<String> result = new ArrayList<String>();
+    for (AnnotationFS each : cas.getAnnotationIndex(RutaTestUtils.getTestType(cas, typeId))) {
+      result.add(each.getBegin() + ":" + each.getCoveredText());
+    }
+    return result;
+  }
+
+  private Type getBasicType(CAS cas) {
+    return cas.getTypeSystem().getType(RutaEngine.BASIC_TYPE);
+  }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.engine;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class OffsetMappingTest {
+
+  @Test
+  public void testSegments() {
+    OffsetMapping mapping = new OffsetMapping();
+    mapping.delete(3);
+    mapping.keep(6);
+    mapping.keep(8);
+    mapping.delete(10);
+    mapping.keep(12);
+    mapping.delete(15);
+    mapping.setEnd(15, mapping.getTarget() + 1);
+
+    assertEquals(5, mapping.size());
+    assertEquals(0, mapping.map(0));
+    assertEquals(0, mapping.map(2));
+    assertEquals(0, mapping.map(3));
+    assertEquals(4, mapping.map(7));
+    assertEquals(5, mapping.map(8));
+    assertEquals(5, mapping.map(9));
+    assertEquals(6, mapping.map(11));
+    assertEquals(7, mapping.map(14));
+    assertEquals(8, mapping.map(15));
+  }
+
+  @Test
+  public void testSameAsArray() {
+    Random random = new Random(42);
+    int length = 10000;
+    int[] map = new int[length + 1];
+    OffsetMapping mapping = new OffsetMapping();
+    int offset = 0;
+    int target = 0;
+    while (offset < length) {
+      int end = Math.min(length, offset + random.nextInt(20));
+      if (random.nextBoolean()) {
+        mapping.keep(end);
+        while (offset < end) {
+          map[offset++] = target++;
+        }
+      } else {
+        mapping.delete(end);
+        while (offset < end) {
+          map[offset++] = target;
+        }
+      }
+    }
+    map[length] = target + 1;
+    mapping.setEnd(length, mapping.getTarget() + 1);
+
+    for (int i = 0; i <= length; i++) {
+      assertEquals(map[i], mapping.map(i));
+    }
+  }
+
+}
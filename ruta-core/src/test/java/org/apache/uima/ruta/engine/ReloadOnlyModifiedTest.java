@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.engine;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.net.URL;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.resource.ResourceSpecifier;
+import org.apache.uima.util.XMLInputSource;
+import org.junit.Test;
+
+public class ReloadOnlyModifiedTest {
+
+  @Test
+  public void test() throws Exception {
+    File dir = File.createTempFile("ReloadOnlyModifiedTest", "");
+    dir.delete();
+    dir.mkdirs();
+    File scriptFile = new File(dir, "Reload.ruta");
+    FileUtils.writeStringToFile(scriptFile, "CW{-> T1};", "UTF-8");
+
+    AnalysisEngine ae = createEngine(dir);
+    ae.reconfigure();
+
+    CAS cas = RutaTestUtils.getCAS("Some text.");
+    ae.process(cas);
+    RutaTestUtils.assertAnnotationsEquals(cas, 1, 1, "Some");
+    cas.release();
+
+    FileUtils.writeStringToFile(scriptFile, "SW{-> T1};", "UTF-8");
+    scriptFile.setLastModified(scriptFile.lastModified() + 2000);
+
+    cas = RutaTestUtils.getCAS("Some text.");
+    ae.process(cas);
+    RutaTestUtils.assertAnnotationsEquals(cas, 1, 1, "text");
+    cas.release();
+
+    cas = RutaTestUtils.getCAS("Some text.");
+    ae.process(cas);
+    RutaTestUtils.assertAnnotationsEquals(cas, 1, 1, "text");
+    cas.release();
+
+    ae.destroy();
+    FileUtils.deleteQuietly(dir);
+  }
+
+  @Test
+  public void testReuseAndNewImports() throws Exception {
+    File dir = File.createTempFile("ReloadOnlyModifiedTest", "");
+    dir.delete();
+    dir.mkdirs();
+    String engine = CountingAnnotator.class.getName();
+    File scriptFile = new File(dir, "Reload.ruta");
+    FileUtils.writeStringToFile(scriptFile, "SCRIPT Other;\nUIMAFIT " + engine + ";\n"
+            + "Document{-> CALL(Other), EXEC(CountingAnnotator)};", "UTF-8");
+    File otherFile = new File(dir, "Other.ruta");
+    FileUtils.writeStringToFile(otherFile, "CW{-> T2};", "UTF-8");
+    FileUtils.writeStringToFile(new File(dir, "Third.ruta"), "SW{-> T3};", "UTF-8");
+
+    AnalysisEngine ae = createEngine(dir);
+    ae.setConfigParameterValue(RutaEngine.PARAM_ADDITIONAL_SCRIPTS, new String[] { "Other" });
+    ae.setConfigParameterValue(RutaEngine.PARAM_ADDITIONAL_UIMAFIT_ENGINES,
+            new String[] { engine });
+    ae.reconfigure();
+    CountingAnnotator.initialized = 0;
+    CountingAnnotator.processed = 0;
+
+    CAS cas = RutaTestUtils.getCAS("Some text.");
+    ae.process(cas);
+    RutaTestUtils.assertAnnotationsEquals(cas, 2, 1, "Some");
+    cas.release();
+    int initialized = CountingAnnotator.initialized;
+
+    // the content of the other script changes, but it is not reported as modified
+    long lastModified = otherFile.lastModified();
+    FileUtils.writeStringToFile(otherFile, "SW{-> T2};", "UTF-8");
+    otherFile.setLastModified(lastModified);
+    FileUtils.writeStringToFile(scriptFile, "SCRIPT Other;\nSCRIPT Third;\nUIMAFIT " + engine
+            + ";\nDocument{-> CALL(Other), CALL(Third), EXEC(CountingAnnotator)};", "UTF-8");
+    scriptFile.setLastModified(scriptFile.lastModified() + 2000);
+
+    cas = RutaTestUtils.getCAS("Some text.");
+    ae.process(cas);
+    // the new import is loaded
+    RutaTestUtils.assertAnnotationsEquals(cas, 3, 1, "text");
+    // the unchanged module and the engine are reused
+    RutaTestUtils.assertAnnotationsEquals(cas, 2, 1, "Some");
+    assertEquals(initialized, CountingAnnotator.initialized);
+    assertEquals(2, CountingAnnotator.processed);
+    cas.release();
+
+    ae.destroy();
+    FileUtils.deleteQuietly(dir);
+  }
+
+  private AnalysisEngine createEngine(File dir) throws Exception {
+    URL url = RutaEngine.class.getClassLoader().getResource("BasicEngine.xml");
+    if (url == null) {
+      url = RutaTestUtils.class.getClassLoader().getResource("org/apache/uima/ruta/TestEngine.xml");
+    }
+    XMLInputSource in = new XMLInputSource(url);
+    ResourceSpecifier specifier = UIMAFramework.getXMLParser().parseResourceSpecifier(in);
+    AnalysisEngine ae = UIMAFramework.produceAnalysisEngine(specifier);
+    ae.setConfigParameterValue(RutaEngine.PARAM_SCRIPT_PATHS, new String[] { dir.getPath() });
+    ae.setConfigParameterValue(RutaEngine.PARAM_MAIN_SCRIPT, "Reload");
+    ae.setConfigParameterValue(RutaEngine.PARAM_RELOAD_SCRIPT, true);
+    ae.setConfigParameterValue(RutaEngine.PARAM_RELOAD_ONLY_MODIFIED, true);
+    return ae;
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.engine;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.cas.CAS;
+import org.junit.Test;
+
+public class RutaApplyTest {
+
+  @Test
+  public void testRepeatedApply() throws Exception {
+    String script = "CW{-> T1};";
+    AnalysisEngine engine = null;
+    for (int i = 0; i < 3; i++) {
+      CAS cas = RutaTestUtils.getCAS("Some text.");
+      Ruta.apply(cas, script);
+      RutaTestUtils.assertAnnotationsEquals(cas, 1, 1, "Some");
+      cas.release();
+      AnalysisEngine cached = Ruta.getCachedEngine(script, CAS.NAME_DEFAULT_SOFA, null);
+      assertNotNull(cached);
+      if (engine != null) {
+        assertSame(engine, cached);
+      }
+      engine = cached;
+    }
+    Ruta.clearEngineCache();
+    assertNull(Ruta.getCachedEngine(script, CAS.NAME_DEFAULT_SOFA, null));
+  }
+
+  @Test
+  public void testConcurrentApplyWithEviction() throws Exception {
+    final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int t = 0; t < 4; t++) {
+      final int offset = t;
+      Thread thread = new Thread() {
+        @Override
+        public void run() {
+          try {
+            for (int i = 0; i < Ruta.MAX_CACHED_ENGINES * 2; i++) {
+              // more scripts than cached engines evict engines that other threads still use
+              int type = 1 + (i + offset) % (Ruta.MAX_CACHED_ENGINES + 4);
+              CAS cas = RutaTestUtils.getCAS("Some text.");
+              Ruta.apply(cas, "CW{-> T" + type + "};");
+              RutaTestUtils.assertAnnotationsEquals(cas, type, 1, "Some");
+              cas.release();
+            }
+          } catch (Throwable e) {
+            errors.add(e);
+          }
+        }
+      };
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread each : threads) {
+      each.join();
+    }
+    Ruta.clearEngineCache();
+    if (!errors.isEmpty()) {
+      throw new AssertionError(errors.get(0));
+    }
+  }
+
+  @Test
+  public void testApplyOnView() throws Exception {
+    String script = "SW{-> T1};";
+    for (int i = 0; i < 2; i++) {
+      CAS cas = RutaTestUtils.getCAS("Some text.");
+      CAS view = cas.createView("other");
+      view.setDocumentText("Other text.");
+      Ruta.apply(view, script);
+      RutaTestUtils.assertAnnotationsEquals(view, 1, 1, "text");
+      RutaTestUtils.assertAnnotationsEquals(cas, 1, 0);
+      cas.release();
+    }
+  }
+}
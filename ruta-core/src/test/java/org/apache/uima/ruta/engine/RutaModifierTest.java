@@ -21,6 +21,7 @@ package org.apache.uima.ruta.engine;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.File;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -40,24 +41,7 @@ public class RutaModifierTest {
   @Test
   public void test() throws Exception {
     String namespace = this.getClass().getPackage().getName().replaceAll("\\.", "/");
-    URL url = HtmlAnnotator.class.getClassLoader().getResource("Modifier.xml");
-    if (url == null) {
-      url = HtmlAnnotator.class.getClassLoader().getResource(
-              "org/apache/uima/ruta/engine/Modifier.xml");
-    }
-    XMLInputSource in = new XMLInputSource(url);
-    ResourceSpecifier specifier = UIMAFramework.getXMLParser().parseResourceSpecifier(in);
-    AnalysisEngineDescription aed = (AnalysisEngineDescription) specifier;
-    
-    TypeSystemDescription basicTypeSystem = aed.getAnalysisEngineMetaData().getTypeSystem();
-    for (int i = 1; i <= 20; i++) {
-      basicTypeSystem.addType(RutaTestUtils.TYPE + i, "Type for Testing", "uima.tcas.Annotation");
-    }
-    Collection<TypeSystemDescription> tsds = new ArrayList<TypeSystemDescription>();
-    tsds.add(basicTypeSystem);
-    TypeSystemDescription mergeTypeSystems = CasCreationUtils.mergeTypeSystems(tsds);
-    aed.getAnalysisEngineMetaData().setTypeSystem(mergeTypeSystems);
-    AnalysisEngine ae = UIMAFramework.produceAnalysisEngine(aed);
+    AnalysisEngine ae = createModifier();
     ae.setConfigParameterValue(RutaModifier.PARAM_OUTPUT_LOCATION, "");
     String viewName = "modified_for_testing";
     ae.setConfigParameterValue(RutaModifier.PARAM_OUTPUT_VIEW, viewName);
@@ -83,5 +67,48 @@ public class RutaModifierTest {
     ae.destroy();
   }
 
+  @Test
+  public void testStyleMap() throws Exception {
+    URL styleMapUrl = RutaModifierTest.class.getResource("RutaModifierStyleMap.xml");
+    File styleMapFile = new File(styleMapUrl.toURI());
+    AnalysisEngine ae = createModifier();
+    ae.setConfigParameterValue(RutaModifier.PARAM_STYLE_MAP, "RutaModifierStyleMap");
+    ae.setConfigParameterValue(RutaModifier.PARAM_DESCRIPTOR_PATHS,
+            new String[] { styleMapFile.getParent() });
+    ae.reconfigure();
+
+    CAS cas = RutaTestUtils.getCAS("Some text with some more text.");
+    Ruta.apply(cas, "\"Some\"{-> T1}; \"with\"{-> T1, T2}; \"more\"{-> REPLACE(\"less\"), T2};");
+    ae.process(cas);
+
+    String text = cas.getView(RutaModifier.DEFAULT_MODIFIED_VIEW).getDocumentText();
+    assertEquals("<span style='background:#ffff00'>Some</span> text with some "
+            + "<span style='background:#00ff00'>less</span> text.", text);
+
+    cas.release();
+    ae.destroy();
+  }
+
+  private AnalysisEngine createModifier() throws Exception {
+    URL url = HtmlAnnotator.class.getClassLoader().getResource("Modifier.xml");
+    if (url == null) {
+      url = HtmlAnnotator.class.getClassLoader().getResource(
+              "org/apache/uima/ruta/engine/Modifier.xml");
+    }
+    XMLInputSource in = new XMLInputSource(url);
+    ResourceSpecifier specifier = UIMAFramework.getXMLParser().parseResourceSpecifier(in);
+    AnalysisEngineDescription aed = (AnalysisEngineDescription) specifier;
+    
+    TypeSystemDescription basicTypeSystem = aed.getAnalysisEngineMetaData().getTypeSystem();
+    for (int i = 1; i <= 20; i++) {
+      basicTypeSystem.addType(RutaTestUtils.TYPE + i, "Type for Testing", "uima.tcas.Annotation");
+    }
+    Collection<TypeSystemDescription> tsds = new ArrayList<TypeSystemDescription>();
+    tsds.add(basicTypeSystem);
+    TypeSystemDescription mergeTypeSystems = CasCreationUtils.mergeTypeSystems(tsds);
+    aed.getAnalysisEngineMetaData().setTypeSystem(mergeTypeSystems);
+    return UIMAFramework.produceAnalysisEngine(aed);
+  }
+
   
 }
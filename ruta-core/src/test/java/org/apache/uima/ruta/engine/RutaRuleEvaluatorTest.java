@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.engine;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.ruta.RutaStream;
+import org.apache.uima.ruta.rule.RutaRule;
+import org.junit.Test;
+
+public class RutaRuleEvaluatorTest {
+
+  @Test
+  public void test() throws Exception {
+    String header = "PACKAGE org.apache.uima;\nDocument{-> FILTERTYPE(PERIOD)};\n";
+    RutaRuleEvaluator evaluator = new RutaRuleEvaluator(header, null);
+    RutaRule rule1 = evaluator.compileRule("CW SW{-> MARK(T1)};");
+    RutaRule rule2 = evaluator.compileRule("SW CW{-> MARK(T2)};");
+
+    String[] documents = new String[] { "Some text. Other text.", "A b. C d. Nothing else." };
+    int[] expected = new int[] { 2, 3 };
+    for (int i = 0; i < documents.length; i++) {
+      CAS cas = RutaTestUtils.getCAS(documents[i]);
+      RutaStream stream = evaluator.createStream(cas);
+      evaluator.apply(rule1, stream);
+      evaluator.apply(rule2, stream);
+      RutaTestUtils.assertAnnotationsEquals(cas, 1, expected[i]);
+      RutaTestUtils.assertAnnotationsEquals(cas, 2, expected[i] - 1);
+      cas.release();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoSingleRule() throws Exception {
+    RutaRuleEvaluator evaluator = new RutaRuleEvaluator("", null);
+    evaluator.compileRule("CW{-> MARK(T1)}; SW{-> MARK(T2)};");
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.jcas.JCas;
+
+/**
+ * Sets the value of a string feature of all annotations of a type directly in the CAS.
+ */
+public class SetStringFeatureAnnotator extends JCasAnnotator_ImplBase {
+
+  public static final String PARAM_TYPE = "type";
+
+  public static final String PARAM_FEATURE = "feature";
+
+  public static final String PARAM_VALUE = "value";
+
+  @ConfigurationParameter(name = PARAM_TYPE, mandatory = true)
+  private String type;
+
+  @ConfigurationParameter(name = PARAM_FEATURE, mandatory = true)
+  private String feature;
+
+  @ConfigurationParameter(name = PARAM_VALUE, mandatory = true)
+  private String value;
+
+  @Override
+  public void process(JCas jcas) throws AnalysisEngineProcessException {
+    CAS cas = jcas.getCas();
+    Type t = cas.getTypeSystem().getType(type);
+    Feature f = t.getFeatureByBaseName(feature);
+    List<AnnotationFS> annotations = new ArrayList<AnnotationFS>();
+    for (AnnotationFS each : cas.getAnnotationIndex(t)) {
+      annotations.add(each);
+    }
+    for (AnnotationFS each : annotations) {
+      cas.removeFsFromIndexes(each);
+      each.setStringValue(f, value);
+      cas.addFsToIndexes(each);
+    }
+  }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.engine;
+
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngine;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.impl.Serialization;
+import org.apache.uima.util.FileUtils;
+import org.junit.Test;
+
+public class XMIWriterTest {
+
+  @Test
+  public void testBinaryInBackground() throws Exception {
+    File dir = File.createTempFile("XMIWriterTest", "");
+    dir.delete();
+    dir.mkdirs();
+    try {
+      AnalysisEngine ae = createEngine(XMIWriter.class, XMIWriter.PARAM_OUTPUT,
+              dir.getAbsolutePath(), XMIWriter.PARAM_BINARY, true, XMIWriter.PARAM_WRITER_THREADS,
+              2, XMIWriter.PARAM_WRITER_QUEUE_SIZE, 1);
+
+      CAS cas = RutaTestUtils.getCAS("Some text to be serialized.");
+      Ruta.apply(cas, "CW{-> T1};");
+      ae.process(cas);
+      ae.collectionProcessComplete();
+
+      File file = new File(dir, "output.txt");
+      assertTrue(file.exists());
+      CAS result = RutaTestUtils.getCAS("");
+      result.reset();
+      InputStream in = new FileInputStream(file);
+      try {
+        Serialization.deserializeCAS(result, in);
+      } finally {
+        in.close();
+      }
+      assertEquals(cas.getDocumentText(), result.getDocumentText());
+      RutaTestUtils.assertAnnotationsEquals(result, 1, 1, "Some");
+
+      ae.destroy();
+      cas.release();
+    } finally {
+      FileUtils.deleteRecursive(dir);
+    }
+  }
+
+}
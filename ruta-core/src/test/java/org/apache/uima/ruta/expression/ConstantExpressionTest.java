@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.expression;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.ruta.engine.Ruta;
+import org.apache.uima.ruta.engine.RutaTestUtils;
+import org.apache.uima.ruta.expression.bool.BooleanNumberExpression;
+import org.apache.uima.ruta.expression.number.ComposedNumberExpression;
+import org.apache.uima.ruta.expression.number.INumberExpression;
+import org.apache.uima.ruta.expression.number.NegativeNumberExpression;
+import org.apache.uima.ruta.expression.number.ReferenceNumberExpression;
+import org.apache.uima.ruta.expression.number.SimpleNumberExpression;
+import org.apache.uima.ruta.expression.string.ComposedStringExpression;
+import org.apache.uima.ruta.expression.string.IStringExpression;
+import org.apache.uima.ruta.expression.string.SimpleStringExpression;
+import org.junit.Test;
+
+public class ConstantExpressionTest {
+
+  private INumberExpression number(Number n) {
+    return new SimpleNumberExpression(n);
+  }
+
+  @Test
+  public void testComposedNumber() {
+    // 7 / 2 * 2
+    ComposedNumberExpression e = new ComposedNumberExpression(Arrays.asList(number(7),
+            number(2), number(2)), Arrays.asList("/", "*"));
+    assertTrue(e.isConstant());
+    assertEquals(6, e.getIntegerValue(null, null, null));
+    assertEquals(7.0, e.getDoubleValue(null, null, null), 0.0);
+    assertEquals("7.0", e.getStringValue(null, null, null));
+
+    NegativeNumberExpression negative = new NegativeNumberExpression(e);
+    assertTrue(negative.isConstant());
+    assertEquals(-6, negative.getIntegerValue(null, null, null));
+
+    ComposedNumberExpression log = new ComposedNumberExpression(Arrays.asList(number(1)),
+            Arrays.asList("LOGN"));
+    assertEquals(0.0, log.getDoubleValue(null, null, null), 0.0);
+    ComposedNumberExpression pow = new ComposedNumberExpression(Arrays.asList(number(2),
+            number(10)), Arrays.asList("POW"));
+    assertEquals(1024, pow.getIntegerValue(null, null, null));
+
+    ComposedNumberExpression variable = new ComposedNumberExpression(Arrays.asList(number(1),
+            new ReferenceNumberExpression("i")), Arrays.asList("+"));
+    assertFalse(variable.isConstant());
+  }
+
+  @Test(expected = ArithmeticException.class)
+  public void testDivisionByZero() {
+    ComposedNumberExpression e = new ComposedNumberExpression(Arrays.asList(number(1), number(0)),
+            Arrays.asList("/"));
+    assertFalse(e.isConstant());
+    e.getIntegerValue(null, null, null);
+  }
+
+  @Test
+  public void testBooleanAndString() {
+    BooleanNumberExpression b = new BooleanNumberExpression(number(2), "<=", number(3));
+    assertTrue(b.getBooleanValue(null, null, null));
+    BooleanNumberExpression b2 = new BooleanNumberExpression(number(2), "==", number(3));
+    assertFalse(b2.getBooleanValue(null, null, null));
+
+    ComposedStringExpression s = new ComposedStringExpression(Arrays.<IStringExpression> asList(
+            new SimpleStringExpression("\"a\""), (IStringExpression) number(1)));
+    assertTrue(s.isConstant());
+    assertEquals("a1", s.getStringValue(null, null, null));
+    ComposedStringExpression empty = new ComposedStringExpression(
+            Collections.<IStringExpression> emptyList());
+    assertEquals("", empty.getStringValue(null, null, null));
+  }
+
+  @Test
+  public void testVariablesInBlocks() throws Exception {
+    String script = "INT i = 1;\n";
+    script += "BLOCK(b) Document{} {\n";
+    script += "  INT j = 10;\n";
+    script += "  CW{-> ASSIGN(i, i + 1), ASSIGN(j, j + i)};\n";
+    script += "  Document{j == 19 -> MARK(T1)};\n";
+    script += "}\n";
+    script += "Document{i == 4 -> MARK(T2)};\n";
+    script += "Document{2 * 3 - 1 == 5 -> MARK(T3)};\n";
+    CAS cas = RutaTestUtils.getCAS("Some Text for Tests.");
+    Ruta.apply(cas, script);
+
+    RutaTestUtils.assertAnnotationsEquals(cas, 1, 1, "Some Text for Tests.");
+    RutaTestUtils.assertAnnotationsEquals(cas, 2, 1, "Some Text for Tests.");
+    RutaTestUtils.assertAnnotationsEquals(cas, 3, 1, "Some Text for Tests.");
+
+    cas.release();
+  }
+}
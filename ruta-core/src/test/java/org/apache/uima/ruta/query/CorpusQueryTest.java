@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.impl.XmiCasSerializer;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.ruta.engine.Ruta;
+import org.apache.uima.ruta.engine.RutaTestUtils;
+import org.apache.uima.util.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CorpusQueryTest {
+
+  private static class Collector implements CorpusQuery.Listener {
+
+    private int processed = 0;
+
+    private List<String> matches = new ArrayList<String>();
+
+    public void processed(File file, List<QueryMatch> matches) {
+      processed++;
+      for (QueryMatch each : matches) {
+        this.matches.add(file.getName() + ":" + each.getText());
+      }
+    }
+  }
+
+  private File dir;
+
+  private File indexFile;
+
+  private TypeSystemDescription typeSystem;
+
+  @Before
+  public void setUp() throws Exception {
+    dir = File.createTempFile("CorpusQueryTest", "");
+    dir.delete();
+    dir.mkdirs();
+    File corpus = new File(dir, "corpus");
+    corpus.mkdirs();
+    for (int i = 0; i < 6; i++) {
+      writeDocument(new File(corpus, "doc" + i + ".xmi"), i % 2 == 0);
+    }
+    indexFile = new File(dir, "corpus.index");
+    typeSystem = UIMAFramework.getResourceSpecifierFactory().createTypeSystemDescription();
+    for (int i = 1; i <= 3; i++) {
+      typeSystem.addType(RutaTestUtils.TYPE + i, "Type for Testing", CAS.TYPE_NAME_ANNOTATION);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    FileUtils.deleteRecursive(dir);
+  }
+
+  @Test
+  public void testWithoutIndex() throws Exception {
+    Collector collector = query("T1;", null, 1);
+    assertEquals(6, collector.processed);
+    assertEquals(3, collector.matches.size());
+    assertTrue(collector.matches.contains("doc0.xmi:Peter"));
+  }
+
+  @Test
+  public void testSkipWithIndex() throws Exception {
+    Collector first = query("T1;", new CorpusIndex(indexFile), 2);
+    assertEquals(6, first.processed);
+    assertTrue(indexFile.exists());
+
+    CorpusQuery query = new CorpusQuery("T1;", typeSystem);
+    query.setIndex(new CorpusIndex(indexFile));
+    Collector second = new Collector();
+    query.run(getCorpus(), getFiles(), second);
+    assertEquals(3, second.processed);
+    assertEquals(3, query.getSkipped());
+    assertEquals(sorted(first.matches), sorted(second.matches));
+  }
+
+  @Test
+  public void testSkipWithWords() throws Exception {
+    query("T1;", new CorpusIndex(indexFile), 1);
+
+    Collector collector = query("\"works\";", new CorpusIndex(indexFile), 1);
+    assertEquals(3, collector.processed);
+    assertEquals(3, collector.matches.size());
+
+    collector = query("\"unknown\" T1?;", new CorpusIndex(indexFile), 1);
+    assertEquals(0, collector.processed);
+  }
+
+  @Test
+  public void testNoSkipWithActions() throws Exception {
+    query("T1;", new CorpusIndex(indexFile), 1);
+
+    Collector collector = query("T1{-> T2};", new CorpusIndex(indexFile), 1);
+    assertEquals(6, collector.processed);
+    assertEquals(3, collector.matches.size());
+  }
+
+  @Test
+  public void testChangedDocument() throws Exception {
+    query("T1;", new CorpusIndex(indexFile), 1);
+
+    File changed = new File(getCorpus(), "doc1.xmi");
+    long lastModified = changed.lastModified();
+    writeDocument(changed, true);
+    changed.setLastModified(lastModified + 2000);
+
+    Collector collector = query("T1;", new CorpusIndex(indexFile), 1);
+    assertEquals(4, collector.processed);
+    assertEquals(4, collector.matches.size());
+    assertTrue(collector.matches.contains("doc1.xmi:Peter"));
+  }
+
+  private Collector query(String rules, CorpusIndex index, int threads) throws Exception {
+    CorpusQuery query = new CorpusQuery(rules, typeSystem);
+    query.setIndex(index);
+    query.setThreads(threads);
+    Collector collector = new Collector();
+    query.run(getCorpus(), getFiles(), collector);
+    return collector;
+  }
+
+  private File getCorpus() {
+    return new File(dir, "corpus");
+  }
+
+  private List<File> getFiles() {
+    return CorpusQuery.getFiles(getCorpus(), Pattern.compile(".*xmi"), true);
+  }
+
+  private List<String> sorted(List<String> list) {
+    List<String> result = new ArrayList<String>(list);
+    Collections.sort(result);
+    return result;
+  }
+
+  private void writeDocument(File file, boolean withPeter) throws Exception {
+    CAS cas = RutaTestUtils.getCAS(withPeter ? "Peter works here." : "Nothing to see here.");
+    if (withPeter) {
+      Ruta.apply(cas, "\"Peter\"{-> T1};");
+    }
+    OutputStream out = new FileOutputStream(file);
+    try {
+      XmiCasSerializer.serialize(cas, out);
+    } finally {
+      out.close();
+    }
+    cas.release();
+  }
+
+}
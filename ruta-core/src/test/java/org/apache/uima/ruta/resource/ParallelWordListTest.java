@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+public class ParallelWordListTest {
+
+  private static final List<String> WORDS = Arrays.asList("Peter", "Paul", "Mary", "Marie",
+          "Peter Kluegl", "", "Bob");
+
+  @Test
+  public void testTreeWordList() throws Exception {
+    File dir = createTempDir();
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      TreeWordList list = new TreeWordList();
+      list.buildNewTree(WORDS, executor);
+      assertWords(list);
+
+      for (boolean compress : new boolean[] { false, true }) {
+        File file = new File(dir, "list" + compress + ".twl");
+        list.createBinaryTWLFile(file.getAbsolutePath(), compress);
+        TreeWordList loaded = new TreeWordList(file.getAbsolutePath(), false);
+        assertWords(loaded);
+      }
+    } finally {
+      executor.shutdown();
+      FileUtils.deleteQuietly(dir);
+    }
+  }
+
+  @Test
+  public void testMultiTreeWordList() throws Exception {
+    File dir = createTempDir();
+    File first = new File(dir, "first.txt");
+    File second = new File(dir, "second.txt");
+    FileUtils.writeLines(first, "UTF-8", WORDS);
+    FileUtils.writeLines(second, "UTF-8", Arrays.asList("Mary", "Anna"));
+    List<File> files = Arrays.asList(first, second);
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      MultiTreeWordList expected = new MultiTreeWordList(files, dir);
+      MultiTreeWordList trie = new MultiTreeWordList(files, dir, executor);
+      assertEquals(expected, trie);
+      assertEquals(2, trie.getTypes("Mary").size());
+
+      for (boolean compress : new boolean[] { false, true }) {
+        File file = new File(dir, "list" + compress + ".mtwl");
+        trie.createBinaryMTWLFile(file.getAbsolutePath(), compress);
+        MultiTreeWordList loaded = new MultiTreeWordList(new FileInputStream(file), file.getName());
+        assertEquals(expected, loaded);
+      }
+    } finally {
+      executor.shutdown();
+      FileUtils.deleteQuietly(dir);
+    }
+  }
+
+  private void assertWords(TreeWordList list) {
+    for (String each : WORDS) {
+      if (each.length() > 0) {
+        assertTrue(each, list.contains(each, false, 0, null, 0, false));
+      }
+    }
+    assertTrue(list.containsFragment("Pe", false, 0, null, 0, false));
+    assertFalse(list.contains("Pe", false, 0, null, 0, false));
+    assertFalse(list.contains("Anna", false, 0, null, 0, false));
+  }
+
+  private File createTempDir() throws Exception {
+    File dir = File.createTempFile("ParallelWordListTest", "");
+    dir.delete();
+    dir.mkdirs();
+    return dir;
+  }
+}
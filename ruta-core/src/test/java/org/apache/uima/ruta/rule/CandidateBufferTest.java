@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.rule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.ruta.engine.RutaTestUtils;
+import org.junit.Test;
+
+public class CandidateBufferTest {
+
+  @Test
+  public void testSortedWithoutDuplicates() throws Exception {
+    CAS cas = RutaTestUtils.getCAS("Some text for the candidates of a rule element.");
+    Type annotationType = cas.getAnnotationType();
+    Type documentType = cas.getDocumentAnnotation().getType();
+    List<AnnotationFS> annotations = new ArrayList<AnnotationFS>();
+    for (int i = 0; i < 40; i++) {
+      int begin = (i * 7) % 10;
+      int end = begin + (i * 3) % 5;
+      annotations.add(cas.createAnnotation(i % 2 == 0 ? annotationType : documentType, begin, end));
+    }
+    Collections.shuffle(annotations);
+
+    CandidateBuffer buffer = new CandidateBuffer();
+    TreeSet<AnnotationFS> expected = new TreeSet<AnnotationFS>(new AnnotationComparator());
+    for (AnnotationFS each : annotations) {
+      buffer.add(each);
+      expected.add(each);
+    }
+    // duplicates
+    for (AnnotationFS each : annotations.subList(0, 10)) {
+      buffer.add(each);
+    }
+    List<AnnotationFS> list = buffer.toList();
+
+    assertEquals(0, buffer.size());
+    assertEquals(annotations.size(), list.size());
+    assertEquals(expected.size(), list.size());
+    assertTrue(list.containsAll(expected));
+    for (int i = 1; i < list.size(); i++) {
+      AnnotationFS a1 = list.get(i - 1);
+      AnnotationFS a2 = list.get(i);
+      assertTrue(a1.getBegin() < a2.getBegin() || a1.getBegin() == a2.getBegin()
+              && a1.getEnd() >= a2.getEnd());
+    }
+  }
+
+  @Test
+  public void testReuse() throws Exception {
+    CAS cas = RutaTestUtils.getCAS("Some text.");
+    AnnotationFS a1 = cas.createAnnotation(cas.getAnnotationType(), 0, 4);
+    AnnotationFS a2 = cas.createAnnotation(cas.getAnnotationType(), 0, 9);
+    CandidateBuffer buffer = new CandidateBuffer();
+    buffer.add(a1);
+    buffer.add(a2);
+    List<AnnotationFS> first = buffer.toList();
+    buffer.add(a1);
+    List<AnnotationFS> second = buffer.toList();
+
+    assertEquals(2, first.size());
+    assertEquals(a2, first.get(0));
+    assertEquals(a1, first.get(1));
+    assertEquals(Collections.singletonList(a1), second);
+  }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.rule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+public class SharedMatchListTest {
+
+  private RuleElementMatch[] createMatches(int amount) {
+    RuleElementMatch[] result = new RuleElementMatch[amount];
+    for (int i = 0; i < amount; i++) {
+      result[i] = new RuleElementMatch(null, null);
+    }
+    return result;
+  }
+
+  @Test
+  public void testShare() {
+    RuleElementMatch[] m = createMatches(5);
+    SharedMatchList list = new SharedMatchList();
+    list.add(m[0]);
+    list.add(m[1]);
+    SharedMatchList shared = list.share();
+    list.add(m[2]);
+    shared.set(1, m[3]);
+    shared.add(m[4]);
+
+    assertEquals(Arrays.asList(m[0], m[1], m[2]), list);
+    assertEquals(Arrays.asList(m[0], m[3], m[4]), shared);
+
+    shared.remove(shared.size() - 1);
+    assertEquals(Arrays.asList(m[0], m[3]), shared);
+    assertEquals(3, list.size());
+    assertFalse(list.containsComposed());
+  }
+
+  @Test
+  public void testModifications() {
+    RuleElementMatch[] m = createMatches(4);
+    SharedMatchList list = new SharedMatchList();
+    list.addAll(Arrays.asList(m[0], m[1], m[2]));
+    SharedMatchList shared = list.share();
+
+    assertSame(m[0], list.remove(0));
+    assertEquals(Arrays.asList(m[1], m[2]), list);
+    assertSame(m[1], list.get(0));
+    list.add(0, m[3]);
+    assertEquals(Arrays.asList(m[3], m[1], m[2]), list);
+    assertSame(m[3], list.get(0));
+    assertTrue(list.remove(m[1]));
+    assertEquals(Arrays.asList(m[3], m[2]), list);
+    assertEquals(Arrays.asList(m[0], m[1], m[2]), shared);
+    assertSame(m[0], shared.get(0));
+    assertSame(m[1], shared.get(1));
+
+    Iterator<RuleElementMatch> iterator = shared.iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next() != m[1]) {
+        iterator.remove();
+      }
+    }
+    assertEquals(Arrays.asList(m[1]), shared);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testSetOnEmpty() {
+    new SharedMatchList().set(-1, null);
+  }
+}
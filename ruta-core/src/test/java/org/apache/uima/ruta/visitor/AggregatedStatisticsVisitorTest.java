@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.visitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.resource.metadata.ConfigurationParameterSettings;
+import org.apache.uima.ruta.RutaModule;
+import org.apache.uima.ruta.RutaStream;
+import org.apache.uima.ruta.engine.RutaEngine;
+import org.apache.uima.ruta.engine.RutaRuleEvaluator;
+import org.apache.uima.ruta.engine.RutaTestUtils;
+import org.apache.uima.ruta.verbalize.RutaVerbalizer;
+import org.apache.uima.ruta.visitor.AggregatedStatistics.Entry;
+import org.apache.uima.util.XMLInputSource;
+import org.junit.Test;
+
+public class AggregatedStatisticsVisitorTest {
+
+  @Test
+  public void test() throws Exception {
+    String script = "PACKAGE org.apache.uima;\n";
+    script += "BLOCK(b) SW{} {\n";
+    script += "  SW{-> MARK(T1)};\n";
+    script += "}\n";
+    script += "CW SW{-> MARK(T2)};\n";
+
+    String key = getClass().getName();
+    AggregatedStatistics.remove(key);
+    AggregatedStatistics statistics = AggregatedStatistics.get(key);
+    assertTrue(statistics == AggregatedStatistics.get(key));
+
+    // two replicas with their own modules share the statistics
+    String[] documents = new String[] { "Some text. Other text.", "A b. C d. Nothing else." };
+    for (String each : documents) {
+      RutaRuleEvaluator evaluator = new RutaRuleEvaluator(script, null);
+      RutaModule module = evaluator.getModule();
+      List<RutaInferenceVisitor> visitors = new ArrayList<RutaInferenceVisitor>();
+      visitors.add(new AggregatedStatisticsVisitor(statistics, new RutaVerbalizer()));
+      InferenceCrowd crowd = new InferenceCrowd(visitors);
+      CAS cas = RutaTestUtils.getCAS(each);
+      RutaStream stream = evaluator.createStream(cas);
+      module.apply(stream, crowd);
+      // nothing is added to the CAS
+      assertFalse(cas.getIndexRepository()
+              .getAllIndexedFS(cas.getTypeSystem().getType("org.apache.uima.ruta.type.Statistics"))
+              .hasNext());
+      cas.release();
+    }
+
+    Entry innerRule = getEntry(statistics, AggregatedStatistics.KIND_RULE, "SW{ -> MARK(T1)}");
+    Entry rule = getEntry(statistics, AggregatedStatistics.KIND_RULE, "CW SW{ -> MARK(T2)}");
+    Entry innerAction = getEntry(statistics, AggregatedStatistics.KIND_ACTION, "MARK(T1)");
+    Entry action = getEntry(statistics, AggregatedStatistics.KIND_ACTION, "MARK(T2)");
+    Entry block = getEntry(statistics, AggregatedStatistics.KIND_BLOCK, "BLOCK(b) SW");
+    getEntry(statistics, AggregatedStatistics.KIND_SCRIPT, "Anonymous");
+
+    assertEquals(2, block.getInvocations());
+    // once for each small written word
+    assertEquals(5, innerRule.getInvocations());
+    assertEquals(5, innerAction.getInvocations());
+    assertEquals(2, rule.getInvocations());
+    assertEquals(5, action.getInvocations());
+    assertTrue(block.getNanos() >= innerRule.getNanos());
+
+    File dir = File.createTempFile("AggregatedStatisticsVisitorTest", "");
+    dir.delete();
+    dir.mkdirs();
+    File json = new File(dir, "statistics.json");
+    statistics.write(json);
+    String jsonContent = FileUtils.readFileToString(json, "UTF-8");
+    assertTrue(jsonContent.startsWith("["));
+    assertTrue(jsonContent.contains(": MARK(T1)\", \"invocations\": 5"));
+
+    File csv = new File(dir, "statistics.csv");
+    statistics.write(csv);
+    List<String> lines = FileUtils.readLines(csv, "UTF-8");
+    assertEquals(statistics.getEntries().size() + 1, lines.size());
+    assertEquals("kind,name,invocations,totalMillis,averageMicros", lines.get(0));
+    assertNotNull(findLine(lines, "action,\"org.apache.uima.Anonymous.", ": MARK(T2)\",5,"));
+
+    AggregatedStatistics.remove(key);
+    FileUtils.deleteQuietly(dir);
+  }
+
+  @Test
+  public void testEntriesOfRules() throws Exception {
+    File file = File.createTempFile("AggregatedStatisticsVisitorTest", ".csv");
+    AnalysisEngine ae = createEngine("SW{-> MARK(T1)};\nCW{-> MARK(T1)};", file);
+    CAS cas = RutaTestUtils.getCAS("Some text. Other text.");
+    ae.process(cas);
+    ae.collectionProcessComplete();
+
+    // the same action in two rules
+    List<String> lines = FileUtils.readLines(file, "UTF-8");
+    assertNotNull(findLine(lines, "action,\"Anonymous.1: MARK(T1)\",2,", ""));
+    assertNotNull(findLine(lines, "action,\"Anonymous.2: MARK(T1)\",2,", ""));
+
+    cas.release();
+    ae.destroy();
+    FileUtils.deleteQuietly(file);
+  }
+
+  @Test
+  public void testNextCollection() throws Exception {
+    File file = File.createTempFile("AggregatedStatisticsVisitorTest", ".csv");
+    String script = "SW{-> MARK(T1)};";
+    CAS cas = RutaTestUtils.getCAS("Some text. Other text.");
+
+    AnalysisEngine ae = createEngine(script, file);
+    ae.process(cas);
+    ae.process(cas);
+    ae.collectionProcessComplete();
+    assertNotNull(findLine(FileUtils.readLines(file, "UTF-8"), "rule,", ",2,"));
+
+    // the same engine
+    ae.process(cas);
+    ae.collectionProcessComplete();
+    assertNotNull(findLine(FileUtils.readLines(file, "UTF-8"), "rule,", ",1,"));
+    ae.destroy();
+
+    // another pipeline in the same JVM
+    ae = createEngine(script, file);
+    ae.process(cas);
+    ae.collectionProcessComplete();
+    assertNotNull(findLine(FileUtils.readLines(file, "UTF-8"), "rule,", ",1,"));
+    ae.destroy();
+
+    cas.release();
+    FileUtils.deleteQuietly(file);
+  }
+
+  private AnalysisEngine createEngine(String script, File statistics) throws Exception {
+    URL url = RutaEngine.class.getResource("BasicEngine.xml");
+    AnalysisEngineDescription aed = UIMAFramework.getXMLParser().parseAnalysisEngineDescription(
+            new XMLInputSource(url));
+    ConfigurationParameterSettings settings = aed.getAnalysisEngineMetaData()
+            .getConfigurationParameterSettings();
+    settings.setParameterValue(RutaEngine.PARAM_RULES, script);
+    settings.setParameterValue(RutaEngine.PARAM_AGGREGATED_STATISTICS,
+            statistics.getAbsolutePath());
+    return UIMAFramework.produceAnalysisEngine(aed);
+  }
+
+  private String findLine(List<String> lines, String prefix, String infix) {
+    for (String each : lines) {
+      if (each.startsWith(prefix) && each.contains(infix)) {
+        return each;
+      }
+    }
+    return null;
+  }
+
+  private Entry getEntry(AggregatedStatistics statistics, String kind, String suffix) {
+    Entry result = null;
+    for (Entry each : statistics.getEntries()) {
+      if (each.getKind().equals(kind) && each.getName().endsWith(suffix)) {
+        assertTrue("Ambiguous entry " + suffix, result == null);
+        result = each;
+      }
+    }
+    assertNotNull("No entry for " + suffix, result);
+    return result;
+  }
+}
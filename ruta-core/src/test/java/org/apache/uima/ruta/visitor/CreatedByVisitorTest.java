@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.visitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.ruta.RutaModule;
+import org.apache.uima.ruta.RutaStream;
+import org.apache.uima.ruta.engine.RutaRuleEvaluator;
+import org.apache.uima.ruta.engine.RutaTestUtils;
+import org.apache.uima.ruta.verbalize.RutaVerbalizer;
+import org.junit.Test;
+
+public class CreatedByVisitorTest {
+
+  private static final String SCRIPT = "PACKAGE org.apache.uima;\n"
+          + "SW{-> MARK(T1)};\n" + "CW SW{-> MARK(T2)};\n";
+
+  @Test
+  public void testDefault() throws Exception {
+    RutaRuleEvaluator evaluator = new RutaRuleEvaluator(SCRIPT, null);
+    CreatedByVisitor visitor = new CreatedByVisitor(new RutaVerbalizer());
+    for (String each : new String[] { "Some text. Other text.", "A b. C d." }) {
+      CAS cas = process(evaluator, visitor, each);
+      Map<String, Integer> rules = getCreatedBy(cas);
+      // one for each small written word, also for the second document
+      assertEquals(Integer.valueOf(countSmallWords(each)), rules.get("T1"));
+      cas.release();
+    }
+  }
+
+  @Test
+  public void testCompact() throws Exception {
+    RutaRuleEvaluator evaluator = new RutaRuleEvaluator(SCRIPT, null);
+    CreatedByVisitor visitor = new CreatedByVisitor(new RutaVerbalizer(), true);
+    String text = "Some text. Other text.";
+    CAS cas = process(evaluator, visitor, text);
+    Type type = cas.getTypeSystem().getType(CreatedByVisitor.TYPE);
+    assertFalse(cas.getIndexRepository().getAllIndexedFS(type).hasNext());
+
+    int created = CreatedByVisitor.materialize(cas);
+    Map<String, Integer> rules = getCreatedBy(cas);
+    assertEquals(countAll(rules), created);
+    assertEquals(Integer.valueOf(2), rules.get("T1"));
+    assertEquals(Integer.valueOf(2), rules.get("T2"));
+    // only once
+    assertEquals(0, CreatedByVisitor.materialize(cas));
+
+    // the information of the previous document is not applied to a new one
+    cas.reset();
+    cas.setDocumentText("Nothing.");
+    RutaStream stream = evaluator.createStream(cas);
+    new InferenceCrowd(new ArrayList<RutaInferenceVisitor>()).finished(stream);
+    assertEquals(0, CreatedByVisitor.materialize(cas));
+    cas.release();
+  }
+
+  @Test
+  public void testCompactWithReusedText() throws Exception {
+    RutaRuleEvaluator evaluator = new RutaRuleEvaluator(SCRIPT, null);
+    CreatedByVisitor visitor = new CreatedByVisitor(new RutaVerbalizer(), true);
+    String text = "Some text. Other text.";
+    CAS cas = RutaTestUtils.getCAS("Nothing.");
+    CAS view = cas.createView("other");
+    view.setDocumentText(text);
+    process(evaluator, visitor, view);
+
+    // a pooled CAS with the same text instance in the view, but only the other view is processed
+    cas.reset();
+    cas.setDocumentText("Nothing.");
+    view = cas.createView("other");
+    view.setDocumentText(text);
+    process(evaluator, visitor, cas);
+    assertEquals(0, CreatedByVisitor.materialize(view));
+    cas.release();
+  }
+
+  private CAS process(RutaRuleEvaluator evaluator, CreatedByVisitor visitor, String text)
+          throws Exception {
+    CAS cas = RutaTestUtils.getCAS(text);
+    process(evaluator, visitor, cas);
+    return cas;
+  }
+
+  private void process(RutaRuleEvaluator evaluator, CreatedByVisitor visitor, CAS cas) {
+    RutaModule module = evaluator.getModule();
+    List<RutaInferenceVisitor> visitors = new ArrayList<RutaInferenceVisitor>();
+    visitors.add(visitor);
+    InferenceCrowd crowd = new InferenceCrowd(visitors);
+    RutaStream stream = evaluator.createStream(cas, crowd);
+    module.apply(stream, crowd);
+    crowd.finished(stream);
+  }
+
+  private Map<String, Integer> getCreatedBy(CAS cas) {
+    Map<String, Integer> result = new HashMap<String, Integer>();
+    Type type = cas.getTypeSystem().getType(CreatedByVisitor.TYPE);
+    Feature featureRule = type.getFeatureByBaseName(CreatedByVisitor.FEATURE_RULE);
+    Feature featureAnnotation = type.getFeatureByBaseName(CreatedByVisitor.FEATURE_ANNOTATION);
+    Feature featureId = type.getFeatureByBaseName(CreatedByVisitor.FEATURE_ID);
+    Feature featureScript = type.getFeatureByBaseName(CreatedByVisitor.FEATURE_SCRIPT);
+    FSIterator<FeatureStructure> iterator = cas.getIndexRepository().getAllIndexedFS(type);
+    while (iterator.hasNext()) {
+      FeatureStructure fs = iterator.next();
+      AnnotationFS annotation = (AnnotationFS) fs.getFeatureValue(featureAnnotation);
+      String rule = fs.getStringValue(featureRule);
+      String name = annotation.getType().getShortName();
+      if (name.equals("T1")) {
+        assertEquals("SW{ -> MARK(T1)}", rule.trim());
+        assertTrue(fs.getIntValue(featureId) > 0);
+        assertEquals("org.apache.uima.Anonymous", fs.getStringValue(featureScript));
+      }
+      Integer count = result.get(name);
+      result.put(name, count == null ? 1 : count + 1);
+    }
+    return result;
+  }
+
+  private int countSmallWords(String text) {
+    int result = 0;
+    for (String each : text.split("\\W+")) {
+      if (each.length() > 0 && Character.isLowerCase(each.charAt(0))) {
+        result++;
+      }
+    }
+    return result;
+  }
+
+  private int countAll(Map<String, Integer> rules) {
+    int result = 0;
+    for (Integer each : rules.values()) {
+      result += each;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.visitor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.ruta.RutaStream;
+import org.apache.uima.ruta.engine.RutaRuleEvaluator;
+import org.apache.uima.ruta.engine.RutaTestUtils;
+import org.apache.uima.ruta.type.DebugBlockApply;
+import org.apache.uima.ruta.type.DebugMatchedRuleMatch;
+import org.apache.uima.ruta.type.DebugRuleApply;
+import org.apache.uima.ruta.type.DebugScriptApply;
+import org.apache.uima.ruta.verbalize.RutaVerbalizer;
+import org.junit.Test;
+
+public class DebugInfoCollectorVisitorTest {
+
+  private static final String SCRIPT = "PACKAGE org.apache.uima;\n" + "SW{-> MARK(T1)};\n"
+          + "BLOCK(b) Document{} {\n" + "  CW{-> MARK(T2)};\n" + "}\n";
+
+  private static final String TEXT = "Some text. Other text. More text.";
+
+  @Test
+  public void testStreaming() throws Exception {
+    List<String> expected = getDebugInfo(false, -1);
+    List<String> actual = getDebugInfo(true, -1);
+    assertEquals(expected, actual);
+    // the matches of all rules, of the block and of the script
+    assertEquals(3 + 3 + 1 + 1, count(expected, "match"));
+  }
+
+  @Test
+  public void testMaxMatches() throws Exception {
+    for (boolean streaming : new boolean[] { false, true }) {
+      List<String> debugInfo = getDebugInfo(streaming, 2);
+      // the matches of the block and the script are needed for their windows
+      assertEquals(2 + 2 + 1 + 1, count(debugInfo, "match"));
+      // but all applied matches are counted
+      assertEquals(1, count(debugInfo, "rule SW{ -> MARK(T1)} 3/3"));
+      assertEquals(1, count(debugInfo, "rule CW{ -> MARK(T2)} 3/3"));
+    }
+  }
+
+  private List<String> getDebugInfo(boolean streaming, int maxMatches) throws Exception {
+    RutaRuleEvaluator evaluator = new RutaRuleEvaluator(SCRIPT, null);
+    DebugInfoCollectorVisitor visitor = new DebugInfoCollectorVisitor(true, true,
+            new ArrayList<String>(), new RutaVerbalizer(), streaming, maxMatches);
+    List<RutaInferenceVisitor> visitors = new ArrayList<RutaInferenceVisitor>();
+    visitors.add(visitor);
+    InferenceCrowd crowd = new InferenceCrowd(visitors);
+    CAS cas = RutaTestUtils.getCAS(TEXT);
+    RutaStream stream = evaluator.createStream(cas, crowd);
+    visitor.setStream(stream);
+    evaluator.getModule().apply(stream, crowd);
+    crowd.finished(stream);
+
+    List<String> result = new ArrayList<String>();
+    Type type = cas.getTypeSystem().getType(DebugScriptApply.class.getName());
+    FSIterator<AnnotationFS> iterator = cas.getAnnotationIndex(type).iterator();
+    while (iterator.hasNext()) {
+      AnnotationFS each = iterator.next();
+      if (each instanceof DebugBlockApply) {
+        DebugBlockApply dba = (DebugBlockApply) each;
+        result.add("block " + dba.getElement().trim() + " " + dba.getApplied() + "/"
+                + dba.getTried());
+        collect(dba, result);
+      }
+    }
+    type = cas.getTypeSystem().getType(DebugMatchedRuleMatch.class.getName());
+    iterator = cas.getAnnotationIndex(type).iterator();
+    while (iterator.hasNext()) {
+      AnnotationFS each = iterator.next();
+      result.add("match " + each.getBegin() + "-" + each.getEnd());
+    }
+    Collections.sort(result);
+    cas.release();
+    return result;
+  }
+
+  private void collect(DebugBlockApply dba, List<String> result) {
+    for (int i = 0; i < dba.getInnerApply().size(); i++) {
+      DebugScriptApply inner = (DebugScriptApply) dba.getInnerApply(i);
+      if (inner instanceof DebugBlockApply) {
+        result.add("block " + inner.getElement().trim());
+        collect((DebugBlockApply) inner, result);
+      } else if (inner instanceof DebugRuleApply) {
+        DebugRuleApply dra = (DebugRuleApply) inner;
+        result.add("rule " + dra.getElement().trim() + " " + dra.getApplied() + "/"
+                + dra.getTried() + " " + dra.getBegin() + "-" + dra.getEnd() + " "
+                + dra.getRules().size());
+      }
+    }
+  }
+
+  private int count(List<String> debugInfo, String prefix) {
+    int result = 0;
+    for (String each : debugInfo) {
+      if (each.startsWith(prefix)) {
+        result++;
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.visitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.ruta.RutaBlock;
+import org.apache.uima.ruta.RutaElement;
+import org.apache.uima.ruta.RutaModule;
+import org.apache.uima.ruta.RutaStatement;
+import org.apache.uima.ruta.RutaStream;
+import org.apache.uima.ruta.engine.RutaRuleEvaluator;
+import org.apache.uima.ruta.engine.RutaTestUtils;
+import org.apache.uima.ruta.verbalize.RutaVerbalizer;
+import org.apache.uima.ruta.visitor.TimeProfilerVisitor.Profile;
+import org.junit.Test;
+
+public class TimeProfilerVisitorTest {
+
+  @Test
+  public void test() throws Exception {
+    String script = "PACKAGE org.apache.uima;\n";
+    script += "BLOCK(b) SW{} {\n";
+    script += "  SW{-> MARK(T1)};\n";
+    script += "}\n";
+    script += "CW SW{-> MARK(T2)};\n";
+    RutaRuleEvaluator evaluator = new RutaRuleEvaluator(script, null);
+    RutaModule module = evaluator.getModule();
+    List<RutaStatement> statements = module.getRootBlock().getElements();
+    RutaBlock block = (RutaBlock) statements.get(0);
+    RutaStatement innerRule = block.getElements().get(0);
+    RutaStatement rule = statements.get(1);
+
+    TimeProfilerVisitor profiler = new TimeProfilerVisitor();
+    List<RutaInferenceVisitor> visitors = new ArrayList<RutaInferenceVisitor>();
+    visitors.add(profiler);
+    InferenceCrowd crowd = new InferenceCrowd(visitors);
+
+    String[] documents = new String[] { "Some text. Other text.", "A b. C d. Nothing else." };
+    for (String each : documents) {
+      CAS cas = RutaTestUtils.getCAS(each);
+      RutaStream stream = evaluator.createStream(cas);
+      profiler.resetDocument();
+      module.apply(stream, crowd);
+      Map<RutaElement, Long> timeInfo = profiler.getTimeInfo();
+      assertNotNull(timeInfo.get(block));
+      assertNotNull(timeInfo.get(rule));
+      cas.release();
+    }
+
+    Profile moduleProfile = getProfile(profiler, module);
+    Profile blockProfile = getProfile(profiler, block);
+    Profile innerRuleProfile = getProfile(profiler, innerRule);
+    Profile ruleProfile = getProfile(profiler, rule);
+
+    // accumulated over both documents
+    assertEquals(2, moduleProfile.getInvocations());
+    assertEquals(2, blockProfile.getInvocations());
+    // once for each small written word
+    assertEquals(5, innerRuleProfile.getInvocations());
+    assertEquals(5, innerRuleProfile.getApplied());
+    assertEquals(2, ruleProfile.getInvocations());
+    assertEquals(5, ruleProfile.getApplied());
+
+    assertTrue(blockProfile.getTotalNanos() >= innerRuleProfile.getTotalNanos());
+    assertTrue(blockProfile.getSelfNanos() <= blockProfile.getTotalNanos());
+    assertTrue(moduleProfile.getTotalNanos() >= blockProfile.getTotalNanos()
+            + ruleProfile.getTotalNanos());
+    assertTrue(moduleProfile.getSelfNanos() <= moduleProfile.getTotalNanos()
+            - blockProfile.getTotalNanos());
+
+    // sorted by total time
+    assertEquals(module, profiler.getProfiles().get(0).getElement());
+    String report = profiler.getReport(new RutaVerbalizer());
+    assertEquals(profiler.getProfiles().size() + 1, report.split("\n").length);
+  }
+
+  private Profile getProfile(TimeProfilerVisitor profiler, RutaElement element) {
+    for (Profile each : profiler.getProfiles()) {
+      if (each.getElement() == element) {
+        return each;
+      }
+    }
+    throw new AssertionError("No profile for " + element);
+  }
+}
@@ -20,30 +20,13 @@
 package org.apache.uima.ruta.query.ui;
 
 import java.io.File;
-import java.io.FileFilter;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.net.URL;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.uima.UIMAFramework;
-import org.apache.uima.analysis_engine.AnalysisEngine;
-import org.apache.uima.analysis_engine.AnalysisEngineDescription;
-import org.apache.uima.cas.CAS;
-import org.apache.uima.cas.FSIterator;
-import org.apache.uima.cas.Feature;
-import org.apache.uima.cas.FeatureStructure;
-import org.apache.uima.cas.Type;
-import org.apache.uima.cas.impl.XmiCasDeserializer;
-import org.apache.uima.cas.text.AnnotationFS;
-import org.apache.uima.cas.text.AnnotationIndex;
-import org.apache.uima.jcas.cas.FSArray;
 import org.apache.uima.resource.ResourceManager;
-import org.apache.uima.resource.ResourceSpecifier;
 import org.apache.uima.resource.metadata.TypeSystemDescription;
 import org.apache.uima.ruta.addons.RutaAddonsPlugin;
 import org.apache.uima.ruta.engine.RutaEngine;
@@ -56,8 +39,8 @@ import org.apache.uima.ruta.extensions.IRutaStringFunctionExtension;
 import org.apache.uima.ruta.extensions.IRutaTypeFunctionExtension;
 import org.apache.uima.ruta.ide.core.RutaExtensionManager;
 import org.apache.uima.ruta.ide.core.builder.RutaProjectUtils;
-import org.apache.uima.util.CasCreationUtils;
-import org.apache.uima.util.FileUtils;
+import org.apache.uima.ruta.query.CorpusQuery;
+import org.apache.uima.ruta.query.QueryMatch;
 import org.apache.uima.util.XMLInputSource;
 import org.eclipse.core.commands.ExecutionEvent;
 import org.eclipse.core.commands.ExecutionException;
@@ -68,12 +51,10 @@ import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.IJobChangeEvent;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.jobs.JobChangeAdapter;
-import org.eclipse.dltk.core.DLTKCore;
 import org.eclipse.ui.handlers.HandlerUtil;
 
 public class QueryActionHandler implements IHandler {
@@ -124,17 +105,8 @@ public class QueryActionHandler implements IHandler {
       setUser(true);
     }
 
-    private String getText(File each) {
-      try {
-        return FileUtils.file2String(each, "UTF-8");
-      } catch (IOException e) {
-        DLTKCore.error(e.getMessage(), e);
-      }
-      return "";
-    }
-
     @Override
-    public IStatus run(IProgressMonitor monitor) {
+    public IStatus run(final IProgressMonitor monitor) {
       final QueryView queryView = (QueryView) HandlerUtil.getActivePart(event);
       final QueryComposite queryComposite = queryView.getComposite();
       // queryView.saveState();
@@ -146,9 +118,6 @@ public class QueryActionHandler implements IHandler {
         }
       });
 
-      int files = 0;
-      int found = 0;
-
       if (monitor.isCanceled())
         return Status.CANCEL_STATUS;
 
@@ -157,18 +126,11 @@ public class QueryActionHandler implements IHandler {
       // script += "TYPESYSTEM " + typeSystemFileText.getText();
       script += rules;
       try {
-        URL aedesc = RutaEngine.class.getResource("BasicEngine.xml");
-        XMLInputSource inae = new XMLInputSource(aedesc);
-        ResourceSpecifier specifier = UIMAFramework.getXMLParser().parseResourceSpecifier(inae);
-        ResourceManager resMgr = UIMAFramework.newDefaultResourceManager();
-        AnalysisEngineDescription aed = (AnalysisEngineDescription) specifier;
-        TypeSystemDescription basicTypeSystem = aed.getAnalysisEngineMetaData().getTypeSystem();
-
+        TypeSystemDescription importTSD = null;
         if (!StringUtils.isEmpty(typeSystemLocation)) {
           // TODO check on valid input and extend for scr
+          ResourceManager resMgr = UIMAFramework.newDefaultResourceManager();
           String tsLocation = typeSystemLocation;
-          Collection<TypeSystemDescription> tsds = new ArrayList<TypeSystemDescription>();
-          tsds.add(basicTypeSystem);
           if (typeSystemLocation.endsWith(RutaEngine.SCRIPT_FILE_EXTENSION)) {
             IFile iFile = QueryComposite.getIFile(typeSystemLocation);
             IPath scriptPath = iFile.getLocation();
@@ -180,145 +142,38 @@ public class QueryActionHandler implements IHandler {
           }
           File tsFile = new File(tsLocation);
           XMLInputSource ints = new XMLInputSource(tsFile);
-          TypeSystemDescription importTSD = UIMAFramework.getXMLParser()
-                  .parseTypeSystemDescription(ints);
+          importTSD = UIMAFramework.getXMLParser().parseTypeSystemDescription(ints);
           importTSD.resolveImports(resMgr);
-          tsds.add(importTSD);
-          TypeSystemDescription mergeTypeSystems = CasCreationUtils.mergeTypeSystems(tsds);
-          aed.getAnalysisEngineMetaData().setTypeSystem(mergeTypeSystems);
-        }
-        aed.resolveImports(resMgr);
-        AnalysisEngine ae = UIMAFramework.produceAnalysisEngine(aed, resMgr, null);
-        File tempFile = File.createTempFile("RutaQuery", RutaEngine.SCRIPT_FILE_EXTENSION);
-        tempFile.deleteOnExit();
-        FileUtils.saveString2File(script, tempFile, "UTF-8");
-        String portableString = Path.fromOSString(tempFile.getParentFile().getPath())
-                .toPortableString();
-        ae.setConfigParameterValue(RutaEngine.PARAM_SCRIPT_PATHS, new String[] { portableString });
-        String name = tempFile.getName().substring(0, tempFile.getName().length() - 5);
-        ae.setConfigParameterValue(RutaEngine.PARAM_MAIN_SCRIPT, name);
-
-        ae.setConfigParameterValue(RutaEngine.PARAM_DEBUG, true);
-        ae.setConfigParameterValue(RutaEngine.PARAM_DEBUG_WITH_MATCHES, true);
-        ae.setConfigParameterValue(RutaEngine.PARAM_PROFILE, false);
-        ae.setConfigParameterValue(RutaEngine.PARAM_STATISTICS, false);
-
-        IRutaConditionExtension[] conditionExtensions = RutaExtensionManager.getDefault()
-                .getRutaConditionExtensions();
-        IRutaActionExtension[] actionExtensions = RutaExtensionManager.getDefault()
-                .getRutaActionExtensions();
-        IRutaBooleanFunctionExtension[] booleanFunctionExtensions = RutaExtensionManager
-                .getDefault().getRutaBooleanFunctionExtensions();
-        IRutaNumberFunctionExtension[] numberFunctionExtensions = RutaExtensionManager.getDefault()
-                .getRutaNumberFunctionExtensions();
-        IRutaStringFunctionExtension[] stringFunctionExtensions = RutaExtensionManager.getDefault()
-                .getRutaStringFunctionExtensions();
-        IRutaTypeFunctionExtension[] typeFunctionExtensions = RutaExtensionManager.getDefault()
-                .getRutaTypeFunctionExtensions();
-        IRutaBlockExtension[] blockExtensions = RutaExtensionManager.getDefault()
-                .getRutaBlockExtensions();
-
-        List<String> languageExtensions = new ArrayList<String>();
-
-        for (IRutaConditionExtension each : conditionExtensions) {
-          languageExtensions.add(each.getClass().getName());
         }
-        for (IRutaActionExtension each : actionExtensions) {
-          languageExtensions.add(each.getClass().getName());
-        }
-        for (IRutaBooleanFunctionExtension each : booleanFunctionExtensions) {
-          languageExtensions.add(each.getClass().getName());
-        }
-        for (IRutaNumberFunctionExtension each : numberFunctionExtensions) {
-          languageExtensions.add(each.getClass().getName());
-        }
-        for (IRutaStringFunctionExtension each : stringFunctionExtensions) {
-          languageExtensions.add(each.getClass().getName());
-        }
-        for (IRutaTypeFunctionExtension each : typeFunctionExtensions) {
-          languageExtensions.add(each.getClass().getName());
-        }
-        for (IRutaBlockExtension each : blockExtensions) {
-          languageExtensions.add(each.getClass().getName());
-        }
-        ae.setConfigParameterValue(RutaEngine.PARAM_ADDITIONAL_EXTENSIONS,
-                languageExtensions.toArray(new String[0]));
 
-        ae.reconfigure();
-        CAS cas = ae.newCAS();
+        final CorpusQuery query = new CorpusQuery(script, importTSD);
+        query.setThreads(Runtime.getRuntime().availableProcessors());
+        query.setExtensions(getLanguageExtensions());
 
         monitor.worked(1);
 
-        if (monitor.isCanceled()) {
-          if (ae != null) {
-            ae.destroy();
-          }
-          if (cas != null) {
-            cas.release();
-          }
-          return Status.CANCEL_STATUS;
-        }
-
         File dir = new File(dataLocation);
-        List<File> inputFiles = getFiles(dir, recursive);
+        List<File> inputFiles = new ArrayList<File>();
+        if (fileNameFilter != null) {
+          inputFiles = CorpusQuery.getFiles(dir, Pattern.compile(fileNameFilter), recursive);
+        }
         monitor.beginTask("Query in " + dir.getName() + "...", inputFiles.size());
 
-        for (File each : inputFiles) {
-
-          monitor.setTaskName("Query in " + each.getName() + "...");
-
-          if (monitor.isCanceled()) {
-            if (ae != null) {
-              ae.destroy();
-            }
-            if (cas != null) {
-              cas.release();
-            }
-            return Status.CANCEL_STATUS;
-          }
-
-          cas.reset();
-          if (each.getName().endsWith("xmi")) {
-            XmiCasDeserializer.deserialize(new FileInputStream(each), cas, true);
-          } else {
-            cas.setDocumentText(getText(each));
-          }
+        query.run(dir, inputFiles, new CorpusQuery.Listener() {
 
-          Type matchedType = cas.getTypeSystem().getType(
-                  "org.apache.uima.ruta.type.DebugMatchedRuleMatch");
-          Type ruleApplyType = cas.getTypeSystem().getType(
-                  "org.apache.uima.ruta.type.DebugRuleApply");
-          Type blockApplyType = cas.getTypeSystem().getType(
-                  "org.apache.uima.ruta.type.DebugBlockApply");
+          private int files = 0;
 
-          removeDebugAnnotations(cas, matchedType, ruleApplyType, blockApplyType);
+          private int found = 0;
 
-          ae.process(cas);
-
-          Feature innerApplyFeature = blockApplyType.getFeatureByBaseName("innerApply");
-          Feature ruleApplyFeature = blockApplyType.getFeatureByBaseName("rules");
-          FSIterator<AnnotationFS> iterator = cas.getAnnotationIndex(blockApplyType).iterator();
-          boolean foundOne = false;
-          while (iterator.isValid()) {
-            if (monitor.isCanceled()) {
-              if (ae != null) {
-                ae.destroy();
-              }
-              if (cas != null) {
-                cas.release();
-              }
-              return Status.CANCEL_STATUS;
+          public void processed(File file, List<QueryMatch> matches) {
+            monitor.setTaskName("Query in " + file.getName() + "...");
+            for (QueryMatch each : matches) {
+              result.add(new QueryResult(each.getBegin(), each.getEnd(), each.getText(), file));
             }
-            AnnotationFS fs = iterator.get();
-            int find = findRuleMatches(result, fs, each, queryComposite, matchedType,
-                    ruleApplyType, blockApplyType, innerApplyFeature, ruleApplyFeature);
-            iterator.moveToNext();
-            found += find;
-            if (!foundOne && find > 0) {
-              foundOne = true;
+            found += matches.size();
+            if (!matches.isEmpty()) {
               files++;
             }
-
             final int constFound = found;
             final int constFiles = files;
             queryComposite.getDisplay().syncExec(new Runnable() {
@@ -327,13 +182,15 @@ public class QueryActionHandler implements IHandler {
                 queryComposite.setResultInfo(constFound, constFiles);
               }
             });
-
+            monitor.worked(1);
+            if (monitor.isCanceled()) {
+              query.cancel();
+            }
           }
-
-          monitor.worked(1);
+        });
+        if (monitor.isCanceled()) {
+          return Status.CANCEL_STATUS;
         }
-        cas.release();
-        ae.destroy();
         monitor.done();
       } catch (Exception e) {
         // report error in query view:
@@ -349,82 +206,46 @@ public class QueryActionHandler implements IHandler {
 
     }
 
-    public List<File> getFiles(File dir, boolean recusive) {
-      List<File> result = new ArrayList<File>();
-      if (fileNameFilter == null) {
-        return result;
-      }
-      FileFilter fileFilter = new FileFilter() {
-
-        public boolean accept(File pathname) {
-          if (Pattern.matches(fileNameFilter, pathname.getName())) {
-            return true;
-          }
-          return false;
-        }
-      };
-      for (File each : dir.listFiles(fileFilter)) {
-        result.add(each);
+    private String[] getLanguageExtensions() {
+      IRutaConditionExtension[] conditionExtensions = RutaExtensionManager.getDefault()
+              .getRutaConditionExtensions();
+      IRutaActionExtension[] actionExtensions = RutaExtensionManager.getDefault()
+              .getRutaActionExtensions();
+      IRutaBooleanFunctionExtension[] booleanFunctionExtensions = RutaExtensionManager
+              .getDefault().getRutaBooleanFunctionExtensions();
+      IRutaNumberFunctionExtension[] numberFunctionExtensions = RutaExtensionManager.getDefault()
+              .getRutaNumberFunctionExtensions();
+      IRutaStringFunctionExtension[] stringFunctionExtensions = RutaExtensionManager.getDefault()
+              .getRutaStringFunctionExtensions();
+      IRutaTypeFunctionExtension[] typeFunctionExtensions = RutaExtensionManager.getDefault()
+              .getRutaTypeFunctionExtensions();
+      IRutaBlockExtension[] blockExtensions = RutaExtensionManager.getDefault()
+              .getRutaBlockExtensions();
+
+      List<String> languageExtensions = new ArrayList<String>();
+
+      for (IRutaConditionExtension each : conditionExtensions) {
+        languageExtensions.add(each.getClass().getName());
       }
-      if (recusive) {
-        for (File subdir : dir.listFiles(new FileFilter() {
-
-          public boolean accept(File pathname) {
-            return pathname.isDirectory();
-          }
-        })) {
-          result.addAll(getFiles(subdir, recusive));
-        }
+      for (IRutaActionExtension each : actionExtensions) {
+        languageExtensions.add(each.getClass().getName());
       }
-      return result;
-    }
-
-    private void removeDebugAnnotations(CAS cas, Type matchedType, Type ruleApplyType,
-            Type blockApplyType) {
-      Collection<AnnotationFS> toRemove = new ArrayList<AnnotationFS>();
-      AnnotationIndex<AnnotationFS> annotationIndex = cas.getAnnotationIndex(blockApplyType);
-      for (AnnotationFS annotationFS : annotationIndex) {
-        toRemove.add(annotationFS);
+      for (IRutaBooleanFunctionExtension each : booleanFunctionExtensions) {
+        languageExtensions.add(each.getClass().getName());
       }
-      annotationIndex = cas.getAnnotationIndex(ruleApplyType);
-      for (AnnotationFS annotationFS : annotationIndex) {
-        toRemove.add(annotationFS);
+      for (IRutaNumberFunctionExtension each : numberFunctionExtensions) {
+        languageExtensions.add(each.getClass().getName());
       }
-      annotationIndex = cas.getAnnotationIndex(matchedType);
-      for (AnnotationFS annotationFS : annotationIndex) {
-        toRemove.add(annotationFS);
+      for (IRutaStringFunctionExtension each : stringFunctionExtensions) {
+        languageExtensions.add(each.getClass().getName());
       }
-      for (AnnotationFS annotationFS : toRemove) {
-        cas.removeFsFromIndexes(annotationFS);
+      for (IRutaTypeFunctionExtension each : typeFunctionExtensions) {
+        languageExtensions.add(each.getClass().getName());
       }
-    }
-
-    public int findRuleMatches(final List<QueryResult> result, AnnotationFS fs, File file,
-            final QueryComposite queryComposite, Type matchedType, Type ruleApplyType,
-            Type blockApplyType, Feature innerApplyFeature, Feature ruleApplyFeature) {
-      int ret = 0;
-      if (fs.getType().equals(blockApplyType)) {
-        FeatureStructure featureValue = fs.getFeatureValue(innerApplyFeature);
-        FSArray array = (FSArray) featureValue;
-        for (int i = 0; i < array.size(); i++) {
-          AnnotationFS eachApply = (AnnotationFS) array.get(i);
-          ret += findRuleMatches(result, eachApply, file, queryComposite, matchedType,
-                  ruleApplyType, blockApplyType, innerApplyFeature, ruleApplyFeature);
-        }
-      } else if (fs.getType().equals(ruleApplyType)) {
-        FeatureStructure featureValue = fs.getFeatureValue(ruleApplyFeature);
-        FSArray array = (FSArray) featureValue;
-        for (int i = 0; i < array.size(); i++) {
-          AnnotationFS eachApply = (AnnotationFS) array.get(i);
-          ret += findRuleMatches(result, eachApply, file, queryComposite, matchedType,
-                  ruleApplyType, blockApplyType, innerApplyFeature, ruleApplyFeature);
-        }
-      } else if (fs.getType().equals(matchedType)) {
-        result.add(new QueryResult(fs.getBegin(), fs.getEnd(), fs.getCoveredText(), file));
-        ret += 1;
-
+      for (IRutaBlockExtension each : blockExtensions) {
+        languageExtensions.add(each.getClass().getName());
       }
-      return ret;
+      return languageExtensions.toArray(new String[0]);
     }
   }
 
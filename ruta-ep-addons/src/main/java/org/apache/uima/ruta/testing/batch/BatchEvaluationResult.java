@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.testing.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.TypeSystem;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.ruta.testing.evaluator.ICasEvaluator;
+
+/**
+ * Aggregated evaluation counts of a batch evaluation, grouped by the type of the evaluated
+ * annotations. Documents are added concurrently by the workers of the {@link BatchEvaluationRunner}.
+ */
+public class BatchEvaluationResult {
+
+  public static final String TOTAL = "Total";
+
+  private final Map<String, EvaluationCounts> counts = new TreeMap<String, EvaluationCounts>();
+
+  private final EvaluationCounts total = new EvaluationCounts();
+
+  private final List<String> failedDocuments = new ArrayList<String>();
+
+  private int documents = 0;
+
+  /**
+   * Counts the true positives, false positives and false negatives of a CAS returned by an
+   * {@link ICasEvaluator} grouped by the type of their original annotation.
+   */
+  public static Map<String, EvaluationCounts> count(CAS resultCas) {
+    Map<String, EvaluationCounts> result = new TreeMap<String, EvaluationCounts>();
+    TypeSystem ts = resultCas.getTypeSystem();
+    count(resultCas, ts.getType(ICasEvaluator.TRUE_POSITIVE), result, 0);
+    count(resultCas, ts.getType(ICasEvaluator.FALSE_POSITIVE), result, 1);
+    count(resultCas, ts.getType(ICasEvaluator.FALSE_NEGATIVE), result, 2);
+    return result;
+  }
+
+  private static void count(CAS cas, Type type, Map<String, EvaluationCounts> result, int kind) {
+    Feature originalFeature = type.getFeatureByBaseName(ICasEvaluator.ORIGINAL);
+    FSIterator<AnnotationFS> iterator = cas.getAnnotationIndex(type).iterator();
+    while (iterator.isValid()) {
+      AnnotationFS each = iterator.get();
+      FeatureStructure original = each.getFeatureValue(originalFeature);
+      String typeName = original == null ? type.getName() : original.getType().getName();
+      EvaluationCounts typeCounts = result.get(typeName);
+      if (typeCounts == null) {
+        typeCounts = new EvaluationCounts();
+        result.put(typeName, typeCounts);
+      }
+      if (kind == 0) {
+        typeCounts.incTruePositives();
+      } else if (kind == 1) {
+        typeCounts.incFalsePositives();
+      } else {
+        typeCounts.incFalseNegatives();
+      }
+      iterator.moveToNext();
+    }
+  }
+
+  public synchronized void add(Map<String, EvaluationCounts> documentCounts) {
+    documents++;
+    for (Entry<String, EvaluationCounts> each : documentCounts.entrySet()) {
+      EvaluationCounts typeCounts = counts.get(each.getKey());
+      if (typeCounts == null) {
+        typeCounts = new EvaluationCounts();
+        counts.put(each.getKey(), typeCounts);
+      }
+      typeCounts.add(each.getValue());
+      total.add(each.getValue());
+    }
+  }
+
+  public synchronized void addFailure(String document) {
+    failedDocuments.add(document);
+  }
+
+  public synchronized int getDocuments() {
+    return documents;
+  }
+
+  public synchronized List<String> getFailedDocuments() {
+    return new ArrayList<String>(failedDocuments);
+  }
+
+  /**
+   * @return a copy of the counts of all types, sorted by the type name
+   */
+  public synchronized Map<String, EvaluationCounts> getCounts() {
+    Map<String, EvaluationCounts> result = new TreeMap<String, EvaluationCounts>();
+    for (Entry<String, EvaluationCounts> each : counts.entrySet()) {
+      EvaluationCounts copy = new EvaluationCounts();
+      copy.add(each.getValue());
+      result.put(each.getKey(), copy);
+    }
+    return Collections.unmodifiableMap(result);
+  }
+
+  public synchronized EvaluationCounts getTotal() {
+    EvaluationCounts copy = new EvaluationCounts();
+    copy.add(total);
+    return copy;
+  }
+
+  /**
+   * @return the counts and measures of all types and the total as tab separated values
+   */
+  public synchronized String toTable() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("Type\tTP\tFP\tFN\tPrecision\tRecall\tF1\n");
+    for (Entry<String, EvaluationCounts> each : counts.entrySet()) {
+      appendRow(sb, each.getKey(), each.getValue());
+    }
+    appendRow(sb, TOTAL, total);
+    return sb.toString();
+  }
+
+  private void appendRow(StringBuilder sb, String name, EvaluationCounts c) {
+    sb.append(String.format(Locale.ENGLISH, "%s\t%d\t%d\t%d\t%.4f\t%.4f\t%.4f\n", name,
+            c.getTruePositives(), c.getFalsePositives(), c.getFalseNegatives(), c.getPrecision(),
+            c.getRecall(), c.getFOne()));
+  }
+
+}
@@ -0,0 +1,579 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.testing.batch;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.impl.XmiCasDeserializer;
+import org.apache.uima.cas.impl.XmiCasSerializer;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.metadata.FsIndexDescription;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.ruta.engine.RutaEngine;
+import org.apache.uima.ruta.testing.evaluator.ExactCasEvaluatorFactory;
+import org.apache.uima.ruta.testing.evaluator.ICasEvaluator;
+import org.apache.uima.ruta.testing.evaluator.ICasEvaluatorFactory;
+import org.apache.uima.util.CasCreationUtils;
+import org.apache.uima.util.InvalidXMLException;
+import org.apache.uima.util.XMLInputSource;
+import org.apache.uima.util.XMLSerializer;
+
+/**
+ * Evaluates pairs of test (gold) and run XMI files without Eclipse, e.g., for the regression
+ * evaluation of rule sets on a build server. The run file of a test file is the file with the same
+ * relative path in the run folder. The documents are evaluated with several threads, each with its
+ * own pair of CASes. The counts of each document are added to the {@link BatchEvaluationResult} and
+ * reported to the listeners as soon as the document is evaluated. The result CASes with the true
+ * positive, false positive and false negative annotations are written by a separate thread, so
+ * that the evaluation does not wait for the serialization.
+ * <p>
+ * Command line usage:
+ *
+ * <pre>
+ * -typeSystem &lt;descriptor&gt; -test &lt;folder&gt; -run &lt;folder&gt; [-output &lt;folder&gt;]
+ * [-evaluator &lt;factory class&gt;] [-threads &lt;n&gt;] [-view &lt;name&gt;] [-exclude &lt;types&gt;]
+ * [-includeSubtypes &lt;boolean&gt;] [-allTypes &lt;boolean&gt;] [-recursive &lt;boolean&gt;]
+ * [-onlyErrors &lt;boolean&gt;]
+ * </pre>
+ */
+public class BatchEvaluationRunner {
+
+  public static final String ARG_TYPE_SYSTEM = "-typeSystem";
+
+  public static final String ARG_TEST_FOLDER = "-test";
+
+  public static final String ARG_RUN_FOLDER = "-run";
+
+  public static final String ARG_OUTPUT_FOLDER = "-output";
+
+  public static final String ARG_EVALUATOR = "-evaluator";
+
+  public static final String ARG_THREADS = "-threads";
+
+  public static final String ARG_VIEW = "-view";
+
+  public static final String ARG_EXCLUDE = "-exclude";
+
+  public static final String ARG_INCLUDE_SUBTYPES = "-includeSubtypes";
+
+  public static final String ARG_ALL_TYPES = "-allTypes";
+
+  public static final String ARG_RECURSIVE = "-recursive";
+
+  public static final String ARG_ONLY_ERRORS = "-onlyErrors";
+
+  public static final String RESULT_FILE_EXTENSION = ".result.xmi";
+
+  public static final String REPORT_FILE = "evaluation.tsv";
+
+  private static final String XMI_FILE_EXTENSION = ".xmi";
+
+  private final File typeSystemDescriptor;
+
+  private final File testFolder;
+
+  private final File runFolder;
+
+  private File outputFolder;
+
+  private String evaluatorFactory = ExactCasEvaluatorFactory.class.getName();
+
+  private int threads = Runtime.getRuntime().availableProcessors();
+
+  private String view;
+
+  private List<String> excludedTypes = new ArrayList<String>();
+
+  private boolean includeSubtypes = false;
+
+  private boolean useAllTypes = false;
+
+  private boolean recursive = true;
+
+  private boolean writeOnlyErrors = false;
+
+  private final List<IBatchEvaluationListener> listeners = new ArrayList<IBatchEvaluationListener>();
+
+  /**
+   * @param typeSystemDescriptor
+   *          a type system or analysis engine descriptor with the types of the XMI files
+   * @param testFolder
+   *          the folder with the test (gold) XMI files
+   * @param runFolder
+   *          the folder with the XMI files created by the rules
+   */
+  public BatchEvaluationRunner(File typeSystemDescriptor, File testFolder, File runFolder) {
+    super();
+    this.typeSystemDescriptor = typeSystemDescriptor;
+    this.testFolder = testFolder;
+    this.runFolder = runFolder;
+  }
+
+  /**
+   * Evaluates all test files and waits until all result files are written.
+   */
+  public BatchEvaluationResult run() throws InvalidXMLException, ResourceInitializationException,
+          IOException, InterruptedException {
+    ICasEvaluatorFactory factory = createFactory();
+    TypeSystemDescription tsd = createTypeSystemDescription();
+    List<File> testFiles = getFiles(testFolder, recursive);
+    BatchEvaluationResult result = new BatchEvaluationResult();
+
+    int numThreads = Math.max(1, threads);
+    // the writer needs its own CASes in order to not block the workers
+    int poolSize = outputFolder == null ? numThreads : 2 * numThreads;
+    BlockingQueue<CAS[]> pool = new ArrayBlockingQueue<CAS[]>(poolSize);
+    List<CAS[]> all = new ArrayList<CAS[]>();
+    for (int i = 0; i < poolSize; i++) {
+      CAS[] cases = new CAS[] { createCas(tsd), createCas(tsd) };
+      all.add(cases);
+      pool.add(cases);
+    }
+
+    ExecutorService workers = Executors.newFixedThreadPool(numThreads);
+    ExecutorService writer = outputFolder == null ? null : Executors.newSingleThreadExecutor();
+    try {
+      for (File each : testFiles) {
+        // blocks if all CASes are in use, which also limits the amount of pending tasks
+        CAS[] cases = pool.take();
+        workers.execute(new EvaluationTask(each, cases, factory, pool, writer, result));
+      }
+    } finally {
+      workers.shutdown();
+      workers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+      if (writer != null) {
+        writer.shutdown();
+        writer.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+      }
+      for (CAS[] each : all) {
+        each[0].release();
+        each[1].release();
+      }
+    }
+    if (outputFolder != null) {
+      writeReport(result, new File(outputFolder, REPORT_FILE));
+    }
+    return result;
+  }
+
+  private class EvaluationTask implements Runnable {
+
+    private final File testFile;
+
+    private final CAS[] cases;
+
+    private final ICasEvaluatorFactory factory;
+
+    private final BlockingQueue<CAS[]> pool;
+
+    private final ExecutorService writer;
+
+    private final BatchEvaluationResult result;
+
+    private EvaluationTask(File testFile, CAS[] cases, ICasEvaluatorFactory factory,
+            BlockingQueue<CAS[]> pool, ExecutorService writer, BatchEvaluationResult result) {
+      super();
+      this.testFile = testFile;
+      this.cases = cases;
+      this.factory = factory;
+      this.pool = pool;
+      this.writer = writer;
+      this.result = result;
+    }
+
+    public void run() {
+      String document = getRelativePath(testFolder, testFile);
+      boolean handedOver = false;
+      try {
+        CAS testCas = cases[0];
+        CAS runCas = cases[1];
+        testCas.reset();
+        runCas.reset();
+        File runFile = new File(runFolder, document);
+        if (!runFile.exists()) {
+          throw new FileNotFoundException(runFile.getAbsolutePath());
+        }
+        deserialize(testFile, testCas);
+        deserialize(runFile, runCas);
+        if (view != null) {
+          testCas = testCas.getView(view);
+          runCas = runCas.getView(view);
+        }
+        ICasEvaluator evaluator = factory.createEvaluator();
+        CAS resultCas = evaluator.evaluate(testCas, runCas, excludedTypes, includeSubtypes,
+                useAllTypes);
+        Map<String, EvaluationCounts> counts = BatchEvaluationResult.count(resultCas);
+        fireDocumentEvaluated(document, counts, result);
+        if (writer != null && (!writeOnlyErrors || hasErrors(counts))) {
+          File resultFile = new File(outputFolder, getResultPath(document));
+          writer.execute(new WriteTask(document, resultCas, resultFile, cases, pool, result));
+          handedOver = true;
+        }
+      } catch (Exception e) {
+        result.addFailure(document);
+        fireDocumentFailed(document, e);
+      } finally {
+        if (!handedOver) {
+          pool.add(cases);
+        }
+      }
+    }
+  }
+
+  private class WriteTask implements Runnable {
+
+    private final String document;
+
+    private final CAS cas;
+
+    private final File file;
+
+    private final CAS[] cases;
+
+    private final BlockingQueue<CAS[]> pool;
+
+    private final BatchEvaluationResult result;
+
+    private WriteTask(String document, CAS cas, File file, CAS[] cases, BlockingQueue<CAS[]> pool,
+            BatchEvaluationResult result) {
+      super();
+      this.document = document;
+      this.cas = cas;
+      this.file = file;
+      this.cases = cases;
+      this.pool = pool;
+      this.result = result;
+    }
+
+    public void run() {
+      try {
+        writeXmi(cas, file);
+      } catch (Exception e) {
+        // the document was evaluated, but its result is missing in the output
+        result.addFailure(document);
+        fireDocumentFailed(document, e);
+      } finally {
+        pool.add(cases);
+      }
+    }
+  }
+
+  public void addListener(IBatchEvaluationListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(IBatchEvaluationListener listener) {
+    listeners.remove(listener);
+  }
+
+  public void setOutputFolder(File outputFolder) {
+    this.outputFolder = outputFolder;
+  }
+
+  /**
+   * @param evaluatorFactory
+   *          the class name of an {@link ICasEvaluatorFactory}
+   */
+  public void setEvaluatorFactory(String evaluatorFactory) {
+    this.evaluatorFactory = evaluatorFactory;
+  }
+
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  public void setView(String view) {
+    this.view = view;
+  }
+
+  public void setExcludedTypes(List<String> excludedTypes) {
+    this.excludedTypes = excludedTypes;
+  }
+
+  public void setIncludeSubtypes(boolean includeSubtypes) {
+    this.includeSubtypes = includeSubtypes;
+  }
+
+  public void setUseAllTypes(boolean useAllTypes) {
+    this.useAllTypes = useAllTypes;
+  }
+
+  public void setRecursive(boolean recursive) {
+    this.recursive = recursive;
+  }
+
+  /**
+   * @param writeOnlyErrors
+   *          write only the result CASes that contain false positives or false negatives
+   */
+  public void setWriteOnlyErrors(boolean writeOnlyErrors) {
+    this.writeOnlyErrors = writeOnlyErrors;
+  }
+
+  private void fireDocumentEvaluated(String document, Map<String, EvaluationCounts> counts,
+          BatchEvaluationResult result) {
+    // the listeners should see the aggregate including this document
+    synchronized (listeners) {
+      result.add(counts);
+      for (IBatchEvaluationListener each : listeners) {
+        each.documentEvaluated(document, counts, result);
+      }
+    }
+  }
+
+  private void fireDocumentFailed(String document, Exception exception) {
+    synchronized (listeners) {
+      for (IBatchEvaluationListener each : listeners) {
+        each.documentFailed(document, exception);
+      }
+    }
+  }
+
+  private ICasEvaluatorFactory createFactory() {
+    try {
+      return (ICasEvaluatorFactory) Class.forName(evaluatorFactory).newInstance();
+    } catch (Exception e) {
+      throw new IllegalArgumentException("Cannot create evaluator factory " + evaluatorFactory, e);
+    }
+  }
+
+  private TypeSystemDescription createTypeSystemDescription() throws InvalidXMLException,
+          IOException, ResourceInitializationException {
+    Object descriptor = UIMAFramework.getXMLParser().parse(
+            new XMLInputSource(typeSystemDescriptor));
+    TypeSystemDescription tsd = null;
+    if (descriptor instanceof AnalysisEngineDescription) {
+      tsd = CasCreationUtils
+              .mergeDelegateAnalysisEngineTypeSystems((AnalysisEngineDescription) descriptor);
+    } else if (descriptor instanceof TypeSystemDescription) {
+      tsd = (TypeSystemDescription) descriptor;
+      tsd.resolveImports();
+    } else {
+      throw new IllegalArgumentException("Not a type system or analysis engine descriptor: "
+              + typeSystemDescriptor);
+    }
+    // the evaluation types are required even if the descriptor does not import them
+    URL internalUrl = RutaEngine.class.getResource("InternalTypeSystem.xml");
+    TypeSystemDescription internal = UIMAFramework.getXMLParser().parseTypeSystemDescription(
+            new XMLInputSource(internalUrl));
+    return CasCreationUtils.mergeTypeSystems(Arrays.asList(tsd, internal));
+  }
+
+  private static CAS createCas(TypeSystemDescription tsd) throws ResourceInitializationException {
+    return CasCreationUtils.createCas(tsd, null, new FsIndexDescription[0]);
+  }
+
+  private static boolean hasErrors(Map<String, EvaluationCounts> counts) {
+    for (EvaluationCounts each : counts.values()) {
+      if (each.getFalsePositives() > 0 || each.getFalseNegatives() > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static List<File> getFiles(File dir, boolean recursive) {
+    List<File> result = new ArrayList<File>();
+    File[] listFiles = dir.listFiles();
+    if (listFiles != null) {
+      Arrays.sort(listFiles);
+      for (File each : listFiles) {
+        if (each.isHidden()) {
+          continue;
+        }
+        if (each.isFile() && each.getName().endsWith(XMI_FILE_EXTENSION)) {
+          result.add(each);
+        } else if (each.isDirectory() && recursive) {
+          result.addAll(getFiles(each, recursive));
+        }
+      }
+    }
+    return result;
+  }
+
+  private static String getRelativePath(File folder, File file) {
+    return folder.toURI().relativize(file.toURI()).getPath();
+  }
+
+  private static String getResultPath(String document) {
+    return document.substring(0, document.length() - XMI_FILE_EXTENSION.length())
+            + RESULT_FILE_EXTENSION;
+  }
+
+  private static void deserialize(File file, CAS cas) throws Exception {
+    InputStream in = null;
+    try {
+      in = new FileInputStream(file);
+      XmiCasDeserializer.deserialize(in, cas, true);
+    } finally {
+      if (in != null) {
+        in.close();
+      }
+    }
+  }
+
+  private static void writeXmi(CAS cas, File file) throws Exception {
+    file.getParentFile().mkdirs();
+    OutputStream out = null;
+    try {
+      out = new FileOutputStream(file);
+      XmiCasSerializer ser = new XmiCasSerializer(cas.getTypeSystem());
+      XMLSerializer xmlSer = new XMLSerializer(out, false);
+      ser.serialize(cas, xmlSer.getContentHandler());
+    } finally {
+      if (out != null) {
+        out.close();
+      }
+    }
+  }
+
+  private static void writeReport(BatchEvaluationResult result, File file) throws IOException {
+    file.getParentFile().mkdirs();
+    Writer out = null;
+    try {
+      out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+      out.write(result.toTable());
+    } finally {
+      if (out != null) {
+        out.close();
+      }
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    int exitCode = execute(args);
+    if (exitCode != 0) {
+      System.exit(exitCode);
+    }
+  }
+
+  /**
+   * Evaluates the documents specified by the command line arguments and prints the results.
+   * 
+   * @return the exit code, which is 1 if documents could not be evaluated or written, and 0
+   *         otherwise
+   */
+  static int execute(String[] args) throws Exception {
+    BatchEvaluationRunner runner = parseCmdLineArgs(args);
+    if (runner == null) {
+      throw new IllegalArgumentException("Passed arguments are invalid! Required: "
+              + ARG_TYPE_SYSTEM + " " + ARG_TEST_FOLDER + " " + ARG_RUN_FOLDER);
+    }
+    runner.addListener(new IBatchEvaluationListener() {
+      public void documentEvaluated(String document, Map<String, EvaluationCounts> documentCounts,
+              BatchEvaluationResult result) {
+        EvaluationCounts documentTotal = new EvaluationCounts();
+        for (EvaluationCounts each : documentCounts.values()) {
+          documentTotal.add(each);
+        }
+        System.out.println(document + "\t" + documentTotal + "\t" + BatchEvaluationResult.TOTAL
+                + ": " + result.getTotal());
+      }
+
+      public void documentFailed(String document, Exception exception) {
+        System.err.println(document + "\t" + exception);
+      }
+    });
+    BatchEvaluationResult result = runner.run();
+    System.out.println();
+    System.out.print(result.toTable());
+    if (!result.getFailedDocuments().isEmpty()) {
+      System.err.println(result.getFailedDocuments().size() + " documents failed.");
+      return 1;
+    }
+    return 0;
+  }
+
+  private static BatchEvaluationRunner parseCmdLineArgs(String[] args) {
+    File typeSystem = null;
+    File test = null;
+    File run = null;
+    List<String[]> options = new ArrayList<String[]>();
+    int index = 0;
+    while (index < args.length) {
+      String each = args[index++];
+      if (index >= args.length) {
+        return null;
+      }
+      String value = args[index++];
+      if (ARG_TYPE_SYSTEM.equals(each)) {
+        typeSystem = new File(value);
+      } else if (ARG_TEST_FOLDER.equals(each)) {
+        test = new File(value);
+      } else if (ARG_RUN_FOLDER.equals(each)) {
+        run = new File(value);
+      } else {
+        options.add(new String[] { each, value });
+      }
+    }
+    if (typeSystem == null || test == null || run == null) {
+      return null;
+    }
+    BatchEvaluationRunner runner = new BatchEvaluationRunner(typeSystem, test, run);
+    for (String[] each : options) {
+      String name = each[0];
+      String value = each[1];
+      if (ARG_OUTPUT_FOLDER.equals(name)) {
+        runner.setOutputFolder(new File(value));
+      } else if (ARG_EVALUATOR.equals(name)) {
+        runner.setEvaluatorFactory(value);
+      } else if (ARG_THREADS.equals(name)) {
+        runner.setThreads(Integer.parseInt(value));
+      } else if (ARG_VIEW.equals(name)) {
+        runner.setView(value);
+      } else if (ARG_EXCLUDE.equals(name)) {
+        runner.setExcludedTypes(Arrays.asList(value.split(",")));
+      } else if (ARG_INCLUDE_SUBTYPES.equals(name)) {
+        runner.setIncludeSubtypes(Boolean.parseBoolean(value));
+      } else if (ARG_ALL_TYPES.equals(name)) {
+        runner.setUseAllTypes(Boolean.parseBoolean(value));
+      } else if (ARG_RECURSIVE.equals(name)) {
+        runner.setRecursive(Boolean.parseBoolean(value));
+      } else if (ARG_ONLY_ERRORS.equals(name)) {
+        runner.setWriteOnlyErrors(Boolean.parseBoolean(value));
+      } else {
+        return null;
+      }
+    }
+    return runner;
+  }
+
+}
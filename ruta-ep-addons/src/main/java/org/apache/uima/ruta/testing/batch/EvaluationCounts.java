@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.testing.batch;
+
+import java.util.Locale;
+
+/**
+ * True positives, false positives and false negatives of one type, together with the measures
+ * derived from them.
+ */
+public class EvaluationCounts {
+
+  private int truePositives;
+
+  private int falsePositives;
+
+  private int falseNegatives;
+
+  public EvaluationCounts() {
+    super();
+  }
+
+  public EvaluationCounts(int truePositives, int falsePositives, int falseNegatives) {
+    super();
+    this.truePositives = truePositives;
+    this.falsePositives = falsePositives;
+    this.falseNegatives = falseNegatives;
+  }
+
+  public void add(EvaluationCounts other) {
+    truePositives += other.truePositives;
+    falsePositives += other.falsePositives;
+    falseNegatives += other.falseNegatives;
+  }
+
+  public void incTruePositives() {
+    truePositives++;
+  }
+
+  public void incFalsePositives() {
+    falsePositives++;
+  }
+
+  public void incFalseNegatives() {
+    falseNegatives++;
+  }
+
+  public int getTruePositives() {
+    return truePositives;
+  }
+
+  public int getFalsePositives() {
+    return falsePositives;
+  }
+
+  public int getFalseNegatives() {
+    return falseNegatives;
+  }
+
+  public double getPrecision() {
+    if (truePositives == 0) {
+      return 0;
+    }
+    return (double) truePositives / (truePositives + falsePositives);
+  }
+
+  public double getRecall() {
+    if (truePositives == 0) {
+      return 0;
+    }
+    return (double) truePositives / (truePositives + falseNegatives);
+  }
+
+  public double getFOne() {
+    double precision = getPrecision();
+    double recall = getRecall();
+    if (precision + recall == 0) {
+      return 0;
+    }
+    return 2 * precision * recall / (precision + recall);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(Locale.ENGLISH, "TP=%d FP=%d FN=%d P=%.4f R=%.4f F1=%.4f",
+            truePositives, falsePositives, falseNegatives, getPrecision(), getRecall(), getFOne());
+  }
+
+}
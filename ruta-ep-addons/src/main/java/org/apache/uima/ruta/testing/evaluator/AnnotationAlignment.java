@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.testing.evaluator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.text.AnnotationFS;
+
+/**
+ * Index of the feature structures of the run CAS, which is used by the evaluators in order to find
+ * the candidates for a test annotation without comparing it to every run annotation. The feature
+ * structures are grouped by the name of their type and sorted by their begin, so that candidates
+ * with the same offsets, nested candidates and overlapping candidates are found with a binary
+ * search.
+ * <p>
+ * All methods return the candidates in the order of the given collection, so that the evaluators
+ * select the same match as with a linear search. The methods that match annotations of any type
+ * expect the annotations in the order of the annotation index, like returned by
+ * AbstractCasEvaluator.getAnnotations().
+ */
+public class AnnotationAlignment {
+
+  private static class Key {
+
+    private final String typeName;
+
+    private final int begin;
+
+    private final int end;
+
+    private Key(FeatureStructure fs) {
+      super();
+      this.typeName = fs.getType().getName();
+      if (fs instanceof AnnotationFS) {
+        this.begin = ((AnnotationFS) fs).getBegin();
+        this.end = ((AnnotationFS) fs).getEnd();
+      } else {
+        this.begin = -1;
+        this.end = -1;
+      }
+    }
+
+    @Override
+    public int hashCode() {
+      return (typeName.hashCode() * 31 + begin) * 31 + end;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return begin == other.begin && end == other.end && typeName.equals(other.typeName);
+    }
+  }
+
+  /**
+   * Annotations sorted by begin with the maximal end of all previous annotations.
+   */
+  private static class Bucket {
+
+    private final AnnotationFS[] annotations;
+
+    private final int[] begins;
+
+    private final int[] ends;
+
+    private final int[] orders;
+
+    private final int[] maxEnds;
+
+    private Bucket(List<AnnotationFS> list, List<Integer> listOrders) {
+      super();
+      final int size = list.size();
+      Integer[] sorted = new Integer[size];
+      for (int i = 0; i < size; i++) {
+        sorted[i] = i;
+      }
+      final List<AnnotationFS> fList = list;
+      // stable, keeps the given order for equal begins
+      Arrays.sort(sorted, new Comparator<Integer>() {
+        public int compare(Integer o1, Integer o2) {
+          int b1 = fList.get(o1).getBegin();
+          int b2 = fList.get(o2).getBegin();
+          return b1 < b2 ? -1 : (b1 == b2 ? 0 : 1);
+        }
+      });
+      annotations = new AnnotationFS[size];
+      begins = new int[size];
+      ends = new int[size];
+      orders = new int[size];
+      maxEnds = new int[size];
+      int max = Integer.MIN_VALUE;
+      for (int i = 0; i < size; i++) {
+        AnnotationFS each = list.get(sorted[i]);
+        annotations[i] = each;
+        begins[i] = each.getBegin();
+        ends[i] = each.getEnd();
+        orders[i] = listOrders.get(sorted[i]);
+        max = Math.max(max, ends[i]);
+        maxEnds[i] = max;
+      }
+    }
+
+    private int firstWithBegin(int begin) {
+      int low = 0;
+      int high = begins.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (begins[mid] < begin) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+    private int firstWithMaxEnd(int end) {
+      int low = 0;
+      int high = maxEnds.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (maxEnds[mid] < end) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+  }
+
+  private final Map<Key, List<FeatureStructure>> exact = new HashMap<Key, List<FeatureStructure>>();
+
+  private final Map<String, Bucket> buckets = new HashMap<String, Bucket>();
+
+  private final Bucket all;
+
+  public AnnotationAlignment(Collection<? extends FeatureStructure> runs) {
+    super();
+    Map<String, List<AnnotationFS>> byType = new HashMap<String, List<AnnotationFS>>();
+    Map<String, List<Integer>> byTypeOrders = new HashMap<String, List<Integer>>();
+    List<AnnotationFS> allAnnotations = new ArrayList<AnnotationFS>();
+    List<Integer> allOrders = new ArrayList<Integer>();
+    int order = 0;
+    for (FeatureStructure each : runs) {
+      Key key = new Key(each);
+      List<FeatureStructure> list = exact.get(key);
+      if (list == null) {
+        list = new ArrayList<FeatureStructure>(1);
+        exact.put(key, list);
+      }
+      list.add(each);
+      if (each instanceof AnnotationFS) {
+        AnnotationFS a = (AnnotationFS) each;
+        List<AnnotationFS> typeList = byType.get(key.typeName);
+        if (typeList == null) {
+          typeList = new ArrayList<AnnotationFS>();
+          byType.put(key.typeName, typeList);
+          byTypeOrders.put(key.typeName, new ArrayList<Integer>());
+        }
+        typeList.add(a);
+        byTypeOrders.get(key.typeName).add(order);
+        allAnnotations.add(a);
+        allOrders.add(order);
+      }
+      order++;
+    }
+    for (String each : byType.keySet()) {
+      buckets.put(each, new Bucket(byType.get(each), byTypeOrders.get(each)));
+    }
+    all = new Bucket(allAnnotations, allOrders);
+  }
+
+  /**
+   * @return the feature structures with the same type name and the same offsets as the given one
+   */
+  public List<FeatureStructure> getSameOffsets(FeatureStructure test) {
+    List<FeatureStructure> result = exact.get(new Key(test));
+    if (result == null) {
+      return Collections.emptyList();
+    }
+    return result;
+  }
+
+  /**
+   * @return the first annotation with the same type name and the same offsets as the given one,
+   *         or null
+   */
+  public FeatureStructure getFirstWithSameOffsets(FeatureStructure test) {
+    List<FeatureStructure> result = exact.get(new Key(test));
+    return result == null ? null : result.get(0);
+  }
+
+  /**
+   * @return the annotations with the same type name that are contained in the given annotation or
+   *         that contain the given annotation
+   */
+  public List<FeatureStructure> getNested(AnnotationFS test) {
+    Bucket bucket = buckets.get(test.getType().getName());
+    if (bucket == null) {
+      return Collections.emptyList();
+    }
+    int begin = test.getBegin();
+    int end = test.getEnd();
+    List<Integer> found = new ArrayList<Integer>();
+    int first = bucket.firstWithBegin(begin);
+    for (int i = first; i < bucket.begins.length && bucket.begins[i] <= end; i++) {
+      if (bucket.ends[i] <= end) {
+        found.add(i);
+      }
+    }
+    for (int i = bucket.firstWithMaxEnd(end); i < bucket.begins.length
+            && bucket.begins[i] <= begin; i++) {
+      if (bucket.ends[i] >= end && !(i >= first && bucket.ends[i] <= end)) {
+        found.add(i);
+      }
+    }
+    return inOrder(bucket, found);
+  }
+
+  /**
+   * @return the first annotation of any type that overlaps with or touches the given annotation,
+   *         or null
+   */
+  public AnnotationFS getFirstOverlapping(AnnotationFS test) {
+    int begin = test.getBegin();
+    int end = test.getEnd();
+    int result = -1;
+    // annotations starting before that reach the begin
+    int covering = all.firstWithMaxEnd(begin);
+    if (covering < all.begins.length && all.begins[covering] <= begin) {
+      result = covering;
+    }
+    // annotations starting within
+    int within = all.firstWithBegin(begin);
+    if (within < all.begins.length && all.begins[within] <= end
+            && (result == -1 || all.orders[within] < all.orders[result])) {
+      result = within;
+    }
+    return result == -1 ? null : all.annotations[result];
+  }
+
+  /**
+   * @return the first annotation of any type whose covered text in the given document text
+   *         contains the given text, or null
+   */
+  public AnnotationFS getFirstContainingText(String documentText, String text) {
+    int result = -1;
+    int occurrence = documentText.indexOf(text);
+    while (occurrence != -1) {
+      // the first annotation that reaches the end of the occurrence needs to start before it
+      int i = all.firstWithMaxEnd(occurrence + text.length());
+      if (i < all.begins.length && all.begins[i] <= occurrence
+              && (result == -1 || all.orders[i] < all.orders[result])) {
+        result = i;
+      }
+      occurrence = documentText.indexOf(text, occurrence + 1);
+    }
+    return result == -1 ? null : all.annotations[result];
+  }
+
+  private List<FeatureStructure> inOrder(final Bucket bucket, List<Integer> found) {
+    if (found.isEmpty()) {
+      return Collections.emptyList();
+    }
+    Collections.sort(found, new Comparator<Integer>() {
+      public int compare(Integer o1, Integer o2) {
+        int i1 = bucket.orders[o1];
+        int i2 = bucket.orders[o2];
+        return i1 < i2 ? -1 : (i1 == i2 ? 0 : 1);
+      }
+    });
+    List<FeatureStructure> result = new ArrayList<FeatureStructure>(found.size());
+    for (Integer each : found) {
+      result.add(bucket.annotations[each]);
+    }
+    return result;
+  }
+
+}
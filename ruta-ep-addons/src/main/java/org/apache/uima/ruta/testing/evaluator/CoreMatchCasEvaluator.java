@@ -52,14 +52,17 @@ public class CoreMatchCasEvaluator extends AbstractCasEvaluator {
     List<AnnotationFS> fn = new ArrayList<AnnotationFS>();
     List<AnnotationFS> tp = new ArrayList<AnnotationFS>();
 
+    AnnotationAlignment alignment = new AnnotationAlignment(runAnnotations);
+    String runText = run.getDocumentText();
     for (AnnotationFS eachTest : testAnnotations) {
       boolean found = false;
-      for (AnnotationFS eachRun : runAnnotations) {
-        if (matchCore(eachTest, eachRun)) {
-          matched.add(eachRun);
-          found = true;
-          break;
-        }
+      // the first run annotation that contains the core term of the test annotation
+      String coreTerm = getCoreTerm(eachTest);
+      AnnotationFS eachRun = coreTerm == null ? null : alignment.getFirstContainingText(runText,
+              coreTerm);
+      if (eachRun != null) {
+        matched.add(eachRun);
+        found = true;
       }
       if (!found) {
         AnnotationFS createAnnotation = run.createAnnotation(falseNegativeType,
@@ -102,22 +105,16 @@ public class CoreMatchCasEvaluator extends AbstractCasEvaluator {
     return run;
   }
 
-  private boolean matchCore(AnnotationFS a1, AnnotationFS a2) {
-
+  private String getCoreTerm(AnnotationFS a) {
     String coreTerm = null;
-    StringTokenizer tokenizer = new StringTokenizer(a1.getCoveredText());
+    StringTokenizer tokenizer = new StringTokenizer(a.getCoveredText());
     while (tokenizer.hasMoreTokens()) {
       String token = tokenizer.nextToken();
       if (Character.isUpperCase(token.charAt(0)) && token.length() > 3) {
         coreTerm = token;
       }
     }
-
-    // check, if coreTerm is contained in a2
-    if (coreTerm != null && a2.getCoveredText().indexOf(coreTerm) != -1)
-      return true;
-
-    return false;
+    return coreTerm;
   }
 
 }
@@ -28,6 +28,7 @@ import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.CASException;
 import org.apache.uima.cas.CASRuntimeException;
 import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.FeatureStructure;
 import org.apache.uima.cas.Type;
 import org.apache.uima.cas.text.AnnotationFS;
 
@@ -51,14 +52,13 @@ public class ExactCasEvaluator extends AbstractCasEvaluator {
     List<AnnotationFS> fn = new ArrayList<AnnotationFS>();
     List<AnnotationFS> tp = new ArrayList<AnnotationFS>();
 
+    AnnotationAlignment alignment = new AnnotationAlignment(runAnnotations);
     for (AnnotationFS eachTest : testAnnotations) {
       boolean found = false;
-      for (AnnotationFS eachRun : runAnnotations) {
-        if (match(eachTest, eachRun)) {
-          matched.add(eachRun);
-          found = true;
-          break;
-        }
+      FeatureStructure eachRun = alignment.getFirstWithSameOffsets(eachTest);
+      if (eachRun != null) {
+        matched.add((AnnotationFS) eachRun);
+        found = true;
       }
       if (!found) {
         AnnotationFS createAnnotation = run.createAnnotation(falseNegativeType,
@@ -78,9 +78,13 @@ public class FeatureCasEvaluator extends AbstractCasEvaluator {
     List<FeatureStructure> fp = new ArrayList<FeatureStructure>();
     List<FeatureStructure> fn = new ArrayList<FeatureStructure>();
     List<FeatureStructure> tp = new ArrayList<FeatureStructure>();
+    AnnotationAlignment alignment = new AnnotationAlignment(runFSs);
     for (FeatureStructure eachTest : testFSs) {
       boolean found = false;
-      for (FeatureStructure eachRun : runFSs) {
+      // only nested annotations of the same type can match
+      List<FeatureStructure> candidates = eachTest instanceof AnnotationFS ? alignment
+              .getNested((AnnotationFS) eachTest) : alignment.getSameOffsets(eachTest);
+      for (FeatureStructure eachRun : candidates) {
         if (match(eachTest, eachRun)) {
           matched.add(eachRun);
 
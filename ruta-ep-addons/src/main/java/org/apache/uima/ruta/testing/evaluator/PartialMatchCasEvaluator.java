@@ -51,14 +51,14 @@ public class PartialMatchCasEvaluator extends AbstractCasEvaluator {
     List<AnnotationFS> fn = new ArrayList<AnnotationFS>();
     List<AnnotationFS> tp = new ArrayList<AnnotationFS>();
 
+    AnnotationAlignment alignment = new AnnotationAlignment(runAnnotations);
     for (AnnotationFS eachTest : testAnnotations) {
       boolean found = false;
-      for (AnnotationFS eachRun : runAnnotations) {
-        if (contains(eachTest, eachRun) || overlap(eachTest, eachRun)) {
-          matched.add(eachRun);
-          found = true;
-          break;
-        }
+      // the first run annotation that is contained in or overlaps with the test annotation
+      AnnotationFS eachRun = alignment.getFirstOverlapping(eachTest);
+      if (eachRun != null) {
+        matched.add(eachRun);
+        found = true;
       }
       if (!found) {
         AnnotationFS createAnnotation = run.createAnnotation(falseNegativeType,
@@ -101,21 +101,4 @@ public class PartialMatchCasEvaluator extends AbstractCasEvaluator {
     return run;
   }
 
-  private boolean overlap(AnnotationFS a1, AnnotationFS a2) {
-    if (a1 != null && a2 != null) {
-      if ((a1.getBegin() <= a2.getBegin() && a1.getEnd() >= a2.getBegin())
-              || (a1.getBegin() >= a2.getBegin() && a1.getBegin() <= a2.getEnd()))
-        return true;
-    }
-    return false;
-  }
-
-  private boolean contains(AnnotationFS a1, AnnotationFS a2) {
-    if (a1 != null && a2 != null) {
-      if (a1.getBegin() <= a2.getBegin() && a1.getEnd() >= a2.getEnd())
-        return true;
-    }
-    return false;
-  }
-
 }
@@ -72,9 +72,10 @@ public class TemplateCasEvaluator implements ICasEvaluator {
     List<FeatureStructure> fn = new ArrayList<FeatureStructure>();
     List<FeatureStructure> tp = new ArrayList<FeatureStructure>();
 
+    AnnotationAlignment alignment = new AnnotationAlignment(runFSs);
     for (FeatureStructure eachTest : testFSs) {
       boolean found = false;
-      for (FeatureStructure eachRun : runFSs) {
+      for (FeatureStructure eachRun : alignment.getSameOffsets(eachTest)) {
         if (match(eachTest, eachRun)) {
           matched.add(eachRun);
           found = true;
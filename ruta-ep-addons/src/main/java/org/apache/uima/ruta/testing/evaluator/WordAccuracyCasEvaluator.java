@@ -30,6 +30,7 @@ import org.apache.uima.cas.CASException;
 import org.apache.uima.cas.CASRuntimeException;
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.FeatureStructure;
 import org.apache.uima.cas.Type;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.ruta.seed.DefaultSeeder;
@@ -60,14 +61,13 @@ public class WordAccuracyCasEvaluator extends AbstractCasEvaluator {
     testAnnotations = expand(testAnnotations, test, getWordTypes(test));
     runAnnotations = expand(runAnnotations, run, getWordTypes(run));
 
+    AnnotationAlignment alignment = new AnnotationAlignment(runAnnotations);
     for (AnnotationFS eachTest : testAnnotations) {
       boolean found = false;
-      for (AnnotationFS eachRun : runAnnotations) {
-        if (match(eachTest, eachRun)) {
-          matched.add(eachRun);
-          found = true;
-          break;
-        }
+      FeatureStructure eachRun = alignment.getFirstWithSameOffsets(eachTest);
+      if (eachRun != null) {
+        matched.add((AnnotationFS) eachRun);
+        found = true;
       }
       if (!found) {
         AnnotationFS createAnnotation = run.createAnnotation(falseNegativeType,
@@ -82,9 +82,10 @@ public class WordTemplateCasEvaluator extends AbstractCasEvaluator {
       final DefaultSeeder scanner = new DefaultSeeder();
       scanner.seed(test.getDocumentText(), test);
     }
+    AnnotationAlignment alignment = new AnnotationAlignment(runFSs);
     for (FeatureStructure eachTest : testFSs) {
       boolean found = false;
-      for (FeatureStructure eachRun : runFSs) {
+      for (FeatureStructure eachRun : alignment.getSameOffsets(eachTest)) {
         if (match(eachTest, eachRun, wordTypes)) {
           matched.add(eachRun);
           found = true;
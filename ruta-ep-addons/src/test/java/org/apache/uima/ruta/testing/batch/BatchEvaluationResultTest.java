@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.testing.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.ruta.testing.evaluator.ICasEvaluator;
+import org.junit.Test;
+
+public class BatchEvaluationResultTest {
+
+  @Test
+  public void testAdd() {
+    BatchEvaluationResult result = new BatchEvaluationResult();
+    Map<String, EvaluationCounts> first = new TreeMap<String, EvaluationCounts>();
+    first.put("A", new EvaluationCounts(1, 0, 1));
+    first.put("B", new EvaluationCounts(2, 1, 0));
+    result.add(first);
+    Map<String, EvaluationCounts> second = new TreeMap<String, EvaluationCounts>();
+    second.put("A", new EvaluationCounts(3, 2, 0));
+    result.add(second);
+    result.addFailure("missing.xmi");
+
+    assertEquals(2, result.getDocuments());
+    assertEquals(1, result.getFailedDocuments().size());
+    Map<String, EvaluationCounts> counts = result.getCounts();
+    assertEquals(4, counts.get("A").getTruePositives());
+    assertEquals(2, counts.get("A").getFalsePositives());
+    assertEquals(1, counts.get("A").getFalseNegatives());
+    assertEquals(2, counts.get("B").getTruePositives());
+    EvaluationCounts total = result.getTotal();
+    assertEquals(6, total.getTruePositives());
+    assertEquals(3, total.getFalsePositives());
+    assertEquals(1, total.getFalseNegatives());
+
+    // the returned counts are copies
+    counts.get("A").incTruePositives();
+    total.incTruePositives();
+    assertEquals(4, result.getCounts().get("A").getTruePositives());
+    assertEquals(6, result.getTotal().getTruePositives());
+
+    String[] lines = result.toTable().split("\n");
+    assertEquals(4, lines.length);
+    assertTrue(lines[1].startsWith("A\t4\t2\t1\t"));
+    assertTrue(lines[3].startsWith(BatchEvaluationResult.TOTAL + "\t6\t3\t1\t"));
+  }
+
+  @Test
+  public void testCount() throws Exception {
+    CAS cas = BatchEvaluationRunnerTest.createCas("Peter and Marshall");
+    Type name = cas.getTypeSystem().getType(BatchEvaluationRunnerTest.NAME);
+    addResult(cas, ICasEvaluator.TRUE_POSITIVE, name, 0, 5);
+    addResult(cas, ICasEvaluator.FALSE_POSITIVE, name, 6, 9);
+    addResult(cas, ICasEvaluator.FALSE_NEGATIVE, name, 10, 18);
+    addResult(cas, ICasEvaluator.FALSE_NEGATIVE, name, 0, 18);
+
+    Map<String, EvaluationCounts> counts = BatchEvaluationResult.count(cas);
+    assertEquals(1, counts.size());
+    EvaluationCounts nameCounts = counts.get(BatchEvaluationRunnerTest.NAME);
+    assertEquals(1, nameCounts.getTruePositives());
+    assertEquals(1, nameCounts.getFalsePositives());
+    assertEquals(2, nameCounts.getFalseNegatives());
+    cas.release();
+  }
+
+  private void addResult(CAS cas, String resultTypeName, Type originalType, int begin, int end) {
+    Type resultType = cas.getTypeSystem().getType(resultTypeName);
+    Feature feature = resultType.getFeatureByBaseName(ICasEvaluator.ORIGINAL);
+    AnnotationFS result = cas.createAnnotation(resultType, begin, end);
+    result.setFeatureValue(feature, cas.createAnnotation(originalType, begin, end));
+    cas.addFsToIndexes(result);
+  }
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.testing.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.impl.XmiCasSerializer;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.ruta.engine.RutaEngine;
+import org.apache.uima.util.CasCreationUtils;
+import org.apache.uima.util.FileUtils;
+import org.apache.uima.util.XMLInputSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchEvaluationRunnerTest {
+
+  static final String NAME = "org.apache.uima.ruta.testing.batch.Name";
+
+  private static class Listener implements IBatchEvaluationListener {
+
+    private final List<String> evaluated = Collections.synchronizedList(new ArrayList<String>());
+
+    private final List<String> failed = Collections.synchronizedList(new ArrayList<String>());
+
+    public void documentEvaluated(String document, Map<String, EvaluationCounts> documentCounts,
+            BatchEvaluationResult result) {
+      evaluated.add(document);
+    }
+
+    public void documentFailed(String document, Exception exception) {
+      failed.add(document);
+    }
+  }
+
+  private File dir;
+
+  private File typeSystem;
+
+  private File test;
+
+  private File run;
+
+  private File output;
+
+  @Before
+  public void setUp() throws Exception {
+    dir = File.createTempFile("BatchEvaluationRunnerTest", "");
+    dir.delete();
+    dir.mkdirs();
+    typeSystem = new File(dir, "TypeSystem.xml");
+    OutputStream out = new FileOutputStream(typeSystem);
+    try {
+      createTypeSystemDescription().toXML(out);
+    } finally {
+      out.close();
+    }
+    test = new File(dir, "test");
+    run = new File(dir, "run");
+    output = new File(dir, "output");
+    for (int i = 0; i < 4; i++) {
+      writeXmi(new File(test, "doc" + i + ".xmi"), 0, 5, 10, 18);
+      writeXmi(new File(run, "doc" + i + ".xmi"), 0, 5, 6, 9);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    FileUtils.deleteRecursive(dir);
+  }
+
+  @Test
+  public void testRun() throws Exception {
+    BatchEvaluationRunner runner = new BatchEvaluationRunner(typeSystem, test, run);
+    runner.setOutputFolder(output);
+    runner.setThreads(2);
+    Listener listener = new Listener();
+    runner.addListener(listener);
+    BatchEvaluationResult result = runner.run();
+
+    assertEquals(4, result.getDocuments());
+    assertTrue(result.getFailedDocuments().isEmpty());
+    assertEquals(4, listener.evaluated.size());
+    EvaluationCounts counts = result.getCounts().get(NAME);
+    assertEquals(4, counts.getTruePositives());
+    assertEquals(4, counts.getFalsePositives());
+    assertEquals(4, counts.getFalseNegatives());
+    assertTrue(new File(output, "doc0" + BatchEvaluationRunner.RESULT_FILE_EXTENSION).exists());
+    assertTrue(new File(output, BatchEvaluationRunner.REPORT_FILE).exists());
+    assertEquals(0, BatchEvaluationRunner.execute(getArgs()));
+  }
+
+  @Test
+  public void testMissingRunFile() throws Exception {
+    new File(run, "doc1.xmi").delete();
+    BatchEvaluationRunner runner = new BatchEvaluationRunner(typeSystem, test, run);
+    Listener listener = new Listener();
+    runner.addListener(listener);
+    BatchEvaluationResult result = runner.run();
+
+    assertEquals(3, result.getDocuments());
+    assertEquals(Arrays.asList("doc1.xmi"), result.getFailedDocuments());
+    assertEquals(Arrays.asList("doc1.xmi"), listener.failed);
+    assertEquals(1, BatchEvaluationRunner.execute(getArgs()));
+  }
+
+  @Test
+  public void testFailedWrite() throws Exception {
+    // a folder cannot be written as result file
+    new File(output, "doc2" + BatchEvaluationRunner.RESULT_FILE_EXTENSION).mkdirs();
+    BatchEvaluationRunner runner = new BatchEvaluationRunner(typeSystem, test, run);
+    runner.setOutputFolder(output);
+    Listener listener = new Listener();
+    runner.addListener(listener);
+    BatchEvaluationResult result = runner.run();
+
+    assertEquals(4, result.getDocuments());
+    assertEquals(Arrays.asList("doc2.xmi"), result.getFailedDocuments());
+    assertEquals(Arrays.asList("doc2.xmi"), listener.failed);
+    assertEquals(1, BatchEvaluationRunner.execute(getArgs()));
+  }
+
+  private String[] getArgs() {
+    return new String[] { BatchEvaluationRunner.ARG_TYPE_SYSTEM, typeSystem.getPath(),
+        BatchEvaluationRunner.ARG_TEST_FOLDER, test.getPath(),
+        BatchEvaluationRunner.ARG_RUN_FOLDER, run.getPath(),
+        BatchEvaluationRunner.ARG_OUTPUT_FOLDER, output.getPath() };
+  }
+
+  private void writeXmi(File file, int... offsets) throws Exception {
+    CAS cas = createCas("Peter and Marshall");
+    Type type = cas.getTypeSystem().getType(NAME);
+    for (int i = 0; i < offsets.length; i += 2) {
+      cas.addFsToIndexes(cas.createAnnotation(type, offsets[i], offsets[i + 1]));
+    }
+    file.getParentFile().mkdirs();
+    OutputStream out = new FileOutputStream(file);
+    try {
+      XmiCasSerializer.serialize(cas, out);
+    } finally {
+      out.close();
+    }
+    cas.release();
+  }
+
+  static CAS createCas(String text) throws Exception {
+    URL url = RutaEngine.class.getResource("InternalTypeSystem.xml");
+    TypeSystemDescription internal = UIMAFramework.getXMLParser().parseTypeSystemDescription(
+            new XMLInputSource(url));
+    TypeSystemDescription tsd = CasCreationUtils.mergeTypeSystems(Arrays.asList(
+            createTypeSystemDescription(), internal));
+    CAS cas = CasCreationUtils.createCas(tsd, null, null);
+    cas.setDocumentText(text);
+    return cas;
+  }
+
+  private static TypeSystemDescription createTypeSystemDescription() {
+    TypeSystemDescription tsd = UIMAFramework.getResourceSpecifierFactory()
+            .createTypeSystemDescription();
+    tsd.addType(NAME, "", CAS.TYPE_NAME_ANNOTATION);
+    return tsd;
+  }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.testing.batch;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class EvaluationCountsTest {
+
+  @Test
+  public void testMeasures() {
+    EvaluationCounts counts = new EvaluationCounts(3, 1, 2);
+    assertEquals(0.75, counts.getPrecision(), 0.0001);
+    assertEquals(0.6, counts.getRecall(), 0.0001);
+    assertEquals(2 * 0.75 * 0.6 / (0.75 + 0.6), counts.getFOne(), 0.0001);
+  }
+
+  @Test
+  public void testWithoutTruePositives() {
+    EvaluationCounts counts = new EvaluationCounts(0, 2, 3);
+    assertEquals(0, counts.getPrecision(), 0);
+    assertEquals(0, counts.getRecall(), 0);
+    assertEquals(0, counts.getFOne(), 0);
+  }
+
+  @Test
+  public void testAdd() {
+    EvaluationCounts counts = new EvaluationCounts();
+    counts.add(new EvaluationCounts(1, 2, 3));
+    counts.add(new EvaluationCounts(4, 5, 6));
+    counts.incTruePositives();
+    counts.incFalsePositives();
+    counts.incFalseNegatives();
+    assertEquals(6, counts.getTruePositives());
+    assertEquals(8, counts.getFalsePositives());
+    assertEquals(10, counts.getFalseNegatives());
+  }
+
+}
@@ -22,8 +22,10 @@ package org.apache.uima.ruta.textruler.core;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Type;
 
 /**
  * 
@@ -49,6 +51,9 @@ public class CasCache {
 
     public CAS cas;
 
+    // token indexes of the cached CAS by root type, dropped together with the entry
+    public Map<Type, TextRulerTokenIndex> tokenIndexes;
+
     public MLCacheEntry prev;
 
     public MLCacheEntry next;
@@ -168,6 +173,23 @@ public class CasCache {
     return entry.cas;
   }
 
+  public TextRulerTokenIndex getTokenIndex(String fileName, Type rootType) {
+    CAS cas = getCAS(fileName);
+    if (DISABLE_CACHE) {
+      return new TextRulerTokenIndex(cas, rootType);
+    }
+    MLCacheEntry entry = map.get(fileName);
+    if (entry.tokenIndexes == null) {
+      entry.tokenIndexes = new HashMap<Type, TextRulerTokenIndex>();
+    }
+    TextRulerTokenIndex result = entry.tokenIndexes.get(rootType);
+    if (result == null || !result.isValid(cas)) {
+      result = new TextRulerTokenIndex(cas, rootType);
+      entry.tokenIndexes.put(rootType, result);
+    }
+    return result;
+  }
+
   private void debugList() {
     if (tail == null)
       return;
@@ -187,8 +209,11 @@ public class CasCache {
 
   public Collection<CAS> getCachedCASes() {
     ArrayList<CAS> result = new ArrayList<CAS>();
-    for (MLCacheEntry e : map.values())
+    for (MLCacheEntry e : map.values()) {
+      // the caller may modify the CAS
+      e.tokenIndexes = null;
       result.add(e.cas);
+    }
     return result;
   }
 
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.textruler.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.impl.Serialization;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.ruta.textruler.TextRulerPlugin;
+
+/**
+ *
+ * SerializedCasStore is the second level below the CasCache: it keeps the documents in the
+ * compressed binary serialization of UIMA (form 6), which is much smaller than a CAS on the heap
+ * and much faster to load than an XMI file. The store is bounded by the amount of bytes. If the
+ * limit is exceeded, the least recently used documents are written to the spill directory, or are
+ * dropped if no spill directory is given and need to be loaded from their XMI file again.
+ *
+ * The store is not thread safe.
+ */
+public class SerializedCasStore {
+
+  private static final String SPILL_FILE_EXTENSION = ".bcas";
+
+  private final long maxBytes;
+
+  private final File spillDirectory;
+
+  private long bytes = 0;
+
+  // access order for the "least recently used" policy
+  private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<String, byte[]>(16,
+          0.75f, true);
+
+  private final Map<String, File> spilled = new HashMap<String, File>();
+
+  public SerializedCasStore(long maxBytes, File spillDirectory) {
+    super();
+    this.maxBytes = maxBytes;
+    this.spillDirectory = spillDirectory;
+  }
+
+  public boolean contains(String key) {
+    return memory.containsKey(key) || spilled.containsKey(key);
+  }
+
+  /**
+   * Stores the current content of the CAS. Documents that are larger than the limit are not stored.
+   */
+  public void put(String key, CAS cas) {
+    remove(key);
+    byte[] data;
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      // form 6, the target type system is the type system of the CAS
+      Serialization.serializeWithCompression(cas, out, cas.getTypeSystem());
+      data = out.toByteArray();
+    } catch (IOException e) {
+      TextRulerPlugin.error(e);
+      return;
+    } catch (ResourceInitializationException e) {
+      TextRulerPlugin.error(e);
+      return;
+    }
+    if (data.length > maxBytes) {
+      spill(key, data);
+      return;
+    }
+    memory.put(key, data);
+    bytes += data.length;
+    Iterator<Entry<String, byte[]>> iterator = memory.entrySet().iterator();
+    while (bytes > maxBytes && iterator.hasNext()) {
+      Entry<String, byte[]> eldest = iterator.next();
+      iterator.remove();
+      bytes -= eldest.getValue().length;
+      spill(eldest.getKey(), eldest.getValue());
+    }
+  }
+
+  /**
+   * Fills the given CAS with the stored document.
+   *
+   * @return true if the document was stored and loaded, false otherwise
+   */
+  public boolean load(String key, CAS cas) {
+    byte[] data = memory.get(key);
+    if (data == null) {
+      File file = spilled.get(key);
+      if (file == null) {
+        return false;
+      }
+      try {
+        data = Files.readAllBytes(file.toPath());
+      } catch (IOException e) {
+        TextRulerPlugin.error(e);
+        spilled.remove(key);
+        return false;
+      }
+    }
+    try {
+      cas.reset();
+      Serialization.deserializeCAS(cas, new ByteArrayInputStream(data));
+      return true;
+    } catch (Exception e) {
+      TextRulerPlugin.error(e);
+      remove(key);
+      return false;
+    }
+  }
+
+  public void remove(String key) {
+    byte[] data = memory.remove(key);
+    if (data != null) {
+      bytes -= data.length;
+    }
+    File file = spilled.remove(key);
+    if (file != null) {
+      file.delete();
+    }
+  }
+
+  public long getMemoryBytes() {
+    return bytes;
+  }
+
+  public void clear() {
+    memory.clear();
+    bytes = 0;
+    for (File each : spilled.values()) {
+      each.delete();
+    }
+    spilled.clear();
+  }
+
+  private void spill(String key, byte[] data) {
+    if (spillDirectory == null) {
+      return;
+    }
+    try {
+      spillDirectory.mkdirs();
+      File file = File.createTempFile("cas", SPILL_FILE_EXTENSION, spillDirectory);
+      Files.write(file.toPath(), data);
+      spilled.put(key, file);
+    } catch (IOException e) {
+      TextRulerPlugin.error(e);
+    }
+  }
+
+}
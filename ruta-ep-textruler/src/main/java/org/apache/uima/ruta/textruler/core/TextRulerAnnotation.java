@@ -73,6 +73,15 @@ public class TextRulerAnnotation {
     }
   }
 
+  public TextRulerAnnotation(TextRulerExampleDocument document, int begin, int end, Type type,
+          String coveredText) {
+    this.document = document;
+    this.begin = begin;
+    this.end = end;
+    this.type = type;
+    this.coveredText = coveredText;
+  }
+
   public TextRulerAnnotation(AnnotationFS afs, TextRulerExampleDocument document) {
     this(afs, document, null);
   }
@@ -22,12 +22,18 @@ package org.apache.uima.ruta.textruler.core;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.uima.analysis_engine.AnalysisEngine;
@@ -36,7 +42,10 @@ import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.resource.ResourceConfigurationException;
+import org.apache.uima.ruta.RutaStatement;
+import org.apache.uima.ruta.RutaStream;
 import org.apache.uima.ruta.engine.RutaEngine;
+import org.apache.uima.ruta.engine.RutaRuleEvaluator;
 import org.apache.uima.ruta.ide.core.builder.RutaProjectUtils;
 import org.apache.uima.ruta.textruler.TextRulerPlugin;
 import org.apache.uima.ruta.textruler.core.TextRulerTarget.MLTargetType;
@@ -84,6 +93,8 @@ public abstract class TextRulerBasicLearner implements TextRulerLearner, CasCach
 
   protected CasCache casCache;
 
+  protected SerializedCasStore casStore;
+
   protected CAS algTestCAS;
 
   private boolean skip;
@@ -96,7 +107,21 @@ public abstract class TextRulerBasicLearner implements TextRulerLearner, CasCach
 
   private double maxErrorRate = 5;
 
-  private Map<String, TextRulerStatisticsCollector> inducedRules = new TreeMap<String, TextRulerStatisticsCollector>();
+  private Map<String, TextRulerStatisticsCollector> inducedRules = new ConcurrentHashMap<String, TextRulerStatisticsCollector>();
+
+  private int testThreads = 1;
+
+  private ExecutorService testExecutor;
+
+  private List<RuleTestWorker> testWorkers = new ArrayList<RuleTestWorker>();
+
+  private RutaRuleEvaluator ruleEvaluator;
+
+  private String ruleEvaluatorHeader;
+
+  private String compiledRuleContent;
+
+  private List<RutaStatement> compiledRule;
 
   public TextRulerBasicLearner(String inputDir, String prePropTMFile, String tmpDir,
           String[] slotNames, Set<String> filterSet, boolean skip, TextRulerLearnerDelegate delegate) {
@@ -128,7 +153,14 @@ public abstract class TextRulerBasicLearner implements TextRulerLearner, CasCach
     IPreferenceStore store = TextRulerPlugin.getDefault().getPreferenceStore();
     maxErrorRate = store.getInt(TextRulerPreferences.MAX_ERROR_RATE);
     int casChacheSize = store.getInt(TextRulerPreferences.CAS_CACHE);
+    testThreads = Math.max(1, store.getInt(TextRulerPreferences.TEST_THREADS));
     this.casCache = new CasCache(casChacheSize, this);
+    int casStoreSize = store.getInt(TextRulerPreferences.CAS_STORE_SIZE);
+    if (casStoreSize > 0) {
+      File spillDirectory = store.getBoolean(TextRulerPreferences.CAS_STORE_SPILL) ? new File(
+              tempDirectory() + "casstore") : null;
+      this.casStore = new SerializedCasStore(casStoreSize * 1024L * 1024L, spillDirectory);
+    }
   }
 
   protected String tempDirectory() {
@@ -195,6 +227,10 @@ public abstract class TextRulerBasicLearner implements TextRulerLearner, CasCach
     } catch (ResourceConfigurationException e) {
       TextRulerPlugin.error(e);
     }
+    ruleEvaluator = null;
+    compiledRuleContent = null;
+    compiledRule = null;
+    releaseTestWorkers();
   }
 
   protected boolean checkForMandatoryTypes() {
@@ -272,12 +308,16 @@ public abstract class TextRulerBasicLearner implements TextRulerLearner, CasCach
       }
       casCache.clear();
       casCache = null;
+      if (casStore != null) {
+        casStore.clear();
+      }
       exampleDocuments = null; // clear reference
       if (algTestCAS != null) {
         algTestCAS.reset();
         GlobalCASSource.releaseCAS(algTestCAS); // algTestCAS.release();
         algTestCAS = null;
       }
+      releaseTestWorkers();
       if (shouldAbort())
         sendStatusUpdateToDelegate("Aborted!", TextRulerLearnerState.ML_ABORTED, false);
     } else {
@@ -287,7 +327,19 @@ public abstract class TextRulerBasicLearner implements TextRulerLearner, CasCach
   }
 
   public CAS loadCAS(String fileName, CAS reuseCAS) {
-    return TextRulerToolkit.readCASfromXMIFile(fileName, ae, reuseCAS);
+    if (casStore != null && casStore.contains(fileName)) {
+      CAS cas = reuseCAS != null ? reuseCAS : GlobalCASSource.allocCAS(ae);
+      if (casStore.load(fileName, cas)) {
+        return cas;
+      }
+      reuseCAS = cas;
+    }
+    CAS cas = TextRulerToolkit.readCASfromXMIFile(fileName, ae, reuseCAS);
+    if (casStore != null && cas != null) {
+      // store the plain document before subclasses add annotations to it
+      casStore.put(fileName, cas);
+    }
+    return cas;
   }
 
   protected void sendStatusUpdateToDelegate(String statusString, TextRulerLearnerState state,
@@ -361,11 +413,10 @@ public abstract class TextRulerBasicLearner implements TextRulerLearner, CasCach
       MemoryWatch.watch();
     }
     try {
-      rule.saveToRulesFile(getTempRulesFileName());
       if (TextRulerToolkit.DEBUG) {
         TextRulerToolkit.writeCAStoXMIFile(testCas, tempDirectory() + "testCas.xmi");
       }
-      ae.process(testCas);
+      applyRuleOnTestCAS(rule, testCas);
       if (TextRulerToolkit.DEBUG) {
         TextRulerToolkit.writeCAStoXMIFile(testCas, tempDirectory() + "testCasProcessed.xmi");
       }
@@ -376,6 +427,62 @@ public abstract class TextRulerBasicLearner implements TextRulerLearner, CasCach
     }
   }
 
+  /**
+   * Applies the rule on the test CAS. The rule is compiled only once and applied in memory if
+   * possible. Otherwise, the rule is written to the temporary rules file, which is applied by the
+   * analysis engine.
+   */
+  protected void applyRuleOnTestCAS(TextRulerRule rule, CAS testCas)
+          throws AnalysisEngineProcessException {
+    List<RutaStatement> statements = getCompiledRule(rule);
+    if (statements != null) {
+      RutaStream stream = ruleEvaluator.createStream(testCas);
+      ruleEvaluator.apply(statements, stream);
+    } else {
+      rule.saveToRulesFile(getTempRulesFileName());
+      ae.process(testCas);
+    }
+  }
+
+  private List<RutaStatement> getCompiledRule(TextRulerRule rule) {
+    String content = rule.getRulesFileContent();
+    if (content.equals(compiledRuleContent)) {
+      return compiledRule;
+    }
+    compiledRuleContent = content;
+    compiledRule = null;
+    String header = getFileHeaderString(false);
+    if (!content.startsWith(header)) {
+      return null;
+    }
+    try {
+      if (ruleEvaluator == null || !header.equals(ruleEvaluatorHeader)) {
+        ruleEvaluator = new RutaRuleEvaluator(header, getRuleEvaluatorParameters());
+        ruleEvaluatorHeader = header;
+      }
+      compiledRule = ruleEvaluator.compile(content.substring(header.length()));
+    } catch (Exception e) {
+      // fall back to the rules file
+      ruleEvaluator = null;
+      compiledRule = null;
+    }
+    return compiledRule;
+  }
+
+  private Map<String, Object> getRuleEvaluatorParameters() {
+    Map<String, Object> parameters = new HashMap<String, Object>();
+    AnalysisEngine analysisEngine = getAnalysisEngine();
+    String[] names = new String[] { RutaEngine.PARAM_RESOURCE_PATHS, RutaEngine.PARAM_SEEDERS,
+        RutaEngine.PARAM_DEFAULT_FILTERED_TYPES, RutaEngine.PARAM_ADDITIONAL_EXTENSIONS,
+        RutaEngine.PARAM_DYNAMIC_ANCHORING, RutaEngine.PARAM_LOW_MEMORY_PROFILE,
+        RutaEngine.PARAM_SIMPLE_GREEDY_FOR_COMPOSED, RutaEngine.PARAM_GREEDY_RULE_ELEMENT,
+        RutaEngine.PARAM_GREEDY_RULE, RutaEngine.PARAM_STRICT_IMPORTS };
+    for (String name : names) {
+      parameters.put(name, analysisEngine.getConfigParameterValue(name));
+    }
+    return parameters;
+  }
+
   // if you have many rules to test, please use testRulesOnDocumentSet for
   // performance issues !!
   public void testRuleOnDocumentSet(final TextRulerRule rule,
@@ -414,6 +521,10 @@ public abstract class TextRulerBasicLearner implements TextRulerLearner, CasCach
           final TextRulerExampleDocumentSet documents) {
     if (rules.isEmpty())
       return;
+    if (testThreads > 1 && rules.size() > 1 && !TextRulerToolkit.DEBUG
+            && testRulesOnDocumentSetInParallel(rules, documents)) {
+      return;
+    }
     List<TextRulerStatisticsCollector> sums = new ArrayList<TextRulerStatisticsCollector>();
     TextRulerExampleDocument[] sortedDocs = documents.getSortedDocumentsInCacheOptimizedOrder();
     TextRulerTarget target = rules.get(0).getTarget();
@@ -430,7 +541,7 @@ public abstract class TextRulerBasicLearner implements TextRulerLearner, CasCach
       String ruleString = theRule.getRuleString();
       System.out.println("testing: " + ruleString);
       if (inducedRules.containsKey(ruleString)) {
-        theRule.setCoveringStatistics(inducedRules.get(ruleString));
+        sums.set(ruleIndex, inducedRules.get(ruleString));
         System.out.println("skipped with " + inducedRules.get(ruleString));
       } else {
         TextRulerStatisticsCollector sumC = sums.get(ruleIndex);
@@ -457,6 +568,265 @@ public abstract class TextRulerBasicLearner implements TextRulerLearner, CasCach
       rules.get(ruleIndex).setCoveringStatistics(sums.get(ruleIndex));
   }
 
+  /**
+   * Tests the rules on the documents with several threads. Each thread uses its own test CAS and
+   * evaluates the rules in memory. Each rule is compiled once by the worker it is assigned to and
+   * only applied by this worker, since the compiled rules share the environment of the rule
+   * evaluator of the worker. The documents are processed in the same order as in the
+   * sequential mode and the statistics of each document are added in this order, so the results
+   * do not depend on the amount of threads.
+   * 
+   * @return false if the rules cannot be tested in parallel, e.g., because they cannot be
+   *         compiled, true otherwise
+   */
+  private boolean testRulesOnDocumentSetInParallel(final List<? extends TextRulerRule> rules,
+          final TextRulerExampleDocumentSet documents) {
+    final TextRulerTarget target = rules.get(0).getTarget();
+    if (target.isLeftCorrection() || target.isRightCorrection()) {
+      // correction targets are compared using the shared analysis engine
+      return false;
+    }
+    final String header = getFileHeaderString(false);
+    // rules with the same string are tested only once
+    Map<String, Integer> firstIndex = new HashMap<String, Integer>();
+    List<Integer> toTest = new ArrayList<Integer>();
+    for (int ruleIndex = 0; ruleIndex < rules.size(); ruleIndex++) {
+      TextRulerRule theRule = rules.get(ruleIndex);
+      String ruleString = theRule.getRuleString();
+      if (inducedRules.containsKey(ruleString) || firstIndex.containsKey(ruleString)) {
+        continue;
+      }
+      firstIndex.put(ruleString, ruleIndex);
+      toTest.add(ruleIndex);
+    }
+
+    List<RuleTestWorker> workers = getTestWorkers(header);
+    if (workers.isEmpty()) {
+      return false;
+    }
+    final List<List<Integer>> assignments = new ArrayList<List<Integer>>();
+    for (int w = 0; w < workers.size(); w++) {
+      assignments.add(new ArrayList<Integer>());
+    }
+    for (int i = 0; i < toTest.size(); i++) {
+      assignments.get(i % workers.size()).add(toTest.get(i));
+    }
+    if (!compileRules(workers, assignments, rules)) {
+      return false;
+    }
+    List<TextRulerStatisticsCollector> sums = new ArrayList<TextRulerStatisticsCollector>();
+    for (int ruleIndex = 0; ruleIndex < rules.size(); ruleIndex++) {
+      sums.add(new TextRulerStatisticsCollector());
+    }
+    final boolean collectNegatives = collectNegativeCoveredInstancesWhenTesting();
+    TextRulerExampleDocument[] sortedDocs = documents.getSortedDocumentsInCacheOptimizedOrder();
+    for (final TextRulerExampleDocument theDoc : sortedDocs) {
+      if (toTest.isEmpty()) {
+        break;
+      }
+      // the cache is only accessed by this thread
+      final CAS docCas = theDoc.getCAS();
+      docCas.getDocumentAnnotation();
+      Set<Integer> active = new HashSet<Integer>(toTest);
+
+      List<Future<Map<Integer, TextRulerStatisticsCollector>>> futures = new ArrayList<Future<Map<Integer, TextRulerStatisticsCollector>>>();
+      for (int w = 0; w < workers.size(); w++) {
+        final RuleTestWorker worker = workers.get(w);
+        final List<Integer> assigned = new ArrayList<Integer>();
+        for (Integer ruleIndex : assignments.get(w)) {
+          if (active.contains(ruleIndex)) {
+            assigned.add(ruleIndex);
+          }
+        }
+        if (assigned.isEmpty()) {
+          continue;
+        }
+        futures.add(testExecutor.submit(new Callable<Map<Integer, TextRulerStatisticsCollector>>() {
+          @Override
+          public Map<Integer, TextRulerStatisticsCollector> call() throws Exception {
+            Map<Integer, TextRulerStatisticsCollector> result = new HashMap<Integer, TextRulerStatisticsCollector>();
+            for (Integer ruleIndex : assigned) {
+              TextRulerRule theRule = rules.get(ruleIndex);
+              TextRulerStatisticsCollector c = new TextRulerStatisticsCollector();
+              try {
+                theDoc.resetAndFillTestCAS(worker.testCas, target, docCas);
+                worker.apply(ruleIndex);
+                compareOriginalDocumentWithTestCAS(theDoc, worker.testCas, theRule.getTarget(), c,
+                        collectNegatives);
+              } catch (Exception e) {
+                TextRulerPlugin.error(e);
+              }
+              result.put(ruleIndex, c);
+            }
+            worker.testCas.reset();
+            return result;
+          }
+        }));
+      }
+
+      Map<Integer, TextRulerStatisticsCollector> results = new HashMap<Integer, TextRulerStatisticsCollector>();
+      try {
+        for (Future<Map<Integer, TextRulerStatisticsCollector>> future : futures) {
+          results.putAll(future.get());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return true;
+      } catch (ExecutionException e) {
+        TextRulerPlugin.error(e);
+      }
+
+      List<Integer> remaining = new ArrayList<Integer>();
+      for (Integer ruleIndex : toTest) {
+        TextRulerStatisticsCollector sumC = sums.get(ruleIndex);
+        TextRulerStatisticsCollector c = results.get(ruleIndex);
+        if (c != null) {
+          sumC.add(c);
+        }
+        double errorRate = sumC.n / Math.max(sumC.p, 1);
+        if (errorRate > maxErrorRate) {
+          System.out.println("stopped:" + sumC);
+        } else {
+          remaining.add(ruleIndex);
+        }
+      }
+      toTest = remaining;
+      if (shouldAbort())
+        return true;
+    }
+
+    for (int ruleIndex = 0; ruleIndex < rules.size(); ruleIndex++) {
+      String ruleString = rules.get(ruleIndex).getRuleString();
+      Integer first = firstIndex.get(ruleString);
+      if (first != null && first == ruleIndex) {
+        inducedRules.put(ruleString, sums.get(ruleIndex));
+      } else if (inducedRules.containsKey(ruleString)) {
+        sums.set(ruleIndex, inducedRules.get(ruleString));
+      }
+      rules.get(ruleIndex).setCoveringStatistics(sums.get(ruleIndex));
+    }
+    return true;
+  }
+
+  /**
+   * Compiles the rules with the workers they are assigned to. The workers compile concurrently.
+   * 
+   * @return false if a rule cannot be compiled
+   */
+  private boolean compileRules(List<RuleTestWorker> workers,
+          final List<List<Integer>> assignments, final List<? extends TextRulerRule> rules) {
+    List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+    for (int w = 0; w < workers.size(); w++) {
+      final RuleTestWorker worker = workers.get(w);
+      final List<Integer> assigned = assignments.get(w);
+      futures.add(testExecutor.submit(new Callable<Boolean>() {
+        @Override
+        public Boolean call() throws Exception {
+          for (Integer ruleIndex : assigned) {
+            if (!worker.compile(ruleIndex, rules.get(ruleIndex))) {
+              return false;
+            }
+          }
+          return true;
+        }
+      }));
+    }
+    boolean result = true;
+    try {
+      for (Future<Boolean> future : futures) {
+        result &= future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ExecutionException e) {
+      TextRulerPlugin.error(e);
+      return false;
+    }
+    return result;
+  }
+
+  /**
+   * Test CAS and rule evaluator of one thread used for testing rules in parallel. The evaluator is
+   * not thread safe: a worker is used by at most one task at a time and only applies the rules it
+   * has compiled itself.
+   */
+  private class RuleTestWorker {
+
+    private final String header;
+
+    private final CAS testCas;
+
+    private final RutaRuleEvaluator evaluator;
+
+    private final Map<Integer, List<RutaStatement>> compiled = new HashMap<Integer, List<RutaStatement>>();
+
+    private RuleTestWorker(String header) throws Exception {
+      super();
+      this.header = header;
+      this.testCas = GlobalCASSource.allocCAS(getAnalysisEngine());
+      this.evaluator = new RutaRuleEvaluator(header, getRuleEvaluatorParameters());
+    }
+
+    /**
+     * @return false if the rule cannot be compiled
+     */
+    private boolean compile(int ruleIndex, TextRulerRule rule) {
+      String content = rule.getRulesFileContent();
+      if (!content.startsWith(header)) {
+        return false;
+      }
+      try {
+        compiled.put(ruleIndex, evaluator.compile(content.substring(header.length())));
+      } catch (Exception e) {
+        return false;
+      }
+      return true;
+    }
+
+    private void apply(int ruleIndex) throws Exception {
+      List<RutaStatement> statements = compiled.get(ruleIndex);
+      if (statements == null) {
+        throw new IllegalStateException("Rule " + ruleIndex + " was not compiled by this worker.");
+      }
+      RutaStream stream = evaluator.createStream(testCas);
+      evaluator.apply(statements, stream);
+    }
+  }
+
+  private List<RuleTestWorker> getTestWorkers(String header) {
+    if (!testWorkers.isEmpty() && !header.equals(testWorkers.get(0).header)) {
+      releaseTestWorkers();
+    }
+    if (testWorkers.isEmpty()) {
+      try {
+        for (int i = 0; i < testThreads; i++) {
+          testWorkers.add(new RuleTestWorker(header));
+        }
+      } catch (Exception e) {
+        TextRulerPlugin.error(e);
+        releaseTestWorkers();
+        return testWorkers;
+      }
+      testExecutor = Executors.newFixedThreadPool(testThreads);
+    }
+    for (RuleTestWorker each : testWorkers) {
+      each.compiled.clear();
+    }
+    return testWorkers;
+  }
+
+  private void releaseTestWorkers() {
+    for (RuleTestWorker each : testWorkers) {
+      GlobalCASSource.releaseCAS(each.testCas);
+    }
+    testWorkers.clear();
+    if (testExecutor != null) {
+      testExecutor.shutdownNow();
+      testExecutor = null;
+    }
+  }
+
   public void testRulesOnDocument(final List<? extends TextRulerRule> rules,
           final TextRulerExampleDocument document) {
     if (rules.isEmpty())
@@ -79,6 +79,13 @@ public class TextRulerExampleDocument {
     return casCache.getCAS(casFileName);
   }
 
+  // the index of the annotations subsumed by the root type, e.g., the tokens, of the CAS of this
+  // document. It is built once each time the CAS gets loaded by the cache and rebuilt if the CAS
+  // was modified.
+  public TextRulerTokenIndex getTokenIndex(Type rootType) {
+    return casCache.getTokenIndex(casFileName, rootType);
+  }
+
   public List<TextRulerExample> getPositiveExamples() {
     return positiveExamples;
   }
@@ -159,14 +166,13 @@ public class TextRulerExampleDocument {
       for (TextRulerExample wrongTag : wrongTags) {
         // test, if there's a corresponding positive example
         // somewhere around (within maxDistance)
-        List<AnnotationFS> left = TextRulerToolkit.getAnnotationsBeforePosition(docCAS, wrongTag
-                .getAnnotation().getBegin(), target.getMaxShiftDistance(), TextRulerToolkit
-                .getFilterSetWithSlotNames(target.slotNames, filterSet), tokensRootType);
-        List<AnnotationFS> right = TextRulerToolkit.getAnnotationsAfterPosition(docCAS, wrongTag
-                .getAnnotation().getEnd(), target.getMaxShiftDistance() + 1, TextRulerToolkit
-                .getFilterSetWithSlotNames(target.slotNames, filterSet), tokensRootType);
-
-        right.remove(0);
+        TextRulerTokenIndex index = getTokenIndex(tokensRootType);
+        int[] left = index.getIndicesBeforePosition(wrongTag.getAnnotation().getBegin(),
+                target.getMaxShiftDistance(), TextRulerToolkit.getFilterSetWithSlotNames(
+                        target.slotNames, filterSet));
+        int[] right = index.getIndicesAfterPosition(wrongTag.getAnnotation().getEnd(),
+                target.getMaxShiftDistance() + 1, TextRulerToolkit.getFilterSetWithSlotNames(
+                        target.slotNames, filterSet));
 
         // TODO stop after the first found match or create one bad
         // example for each found occurence ??!!
@@ -174,9 +180,9 @@ public class TextRulerExampleDocument {
         // example...
         int leftDistance = 0;
         TextRulerExample leftCorrectTag = null;
-        for (int i = left.size() - 1; i >= 0; i--) {
+        for (int i = left.length - 1; i >= 0; i--) {
           leftDistance++;
-          TextRulerAnnotation needle = TextRulerToolkit.convertToTargetAnnotation(left.get(i),
+          TextRulerAnnotation needle = TextRulerToolkit.convertToTargetAnnotation(index, left[i],
                   this, target, docCAS.getTypeSystem());
           // Only checks the beginning of needle
           leftCorrectTag = TextRulerExampleDocument.exampleListContainsAnnotation(correctTags,
@@ -187,10 +193,11 @@ public class TextRulerExampleDocument {
 
         int rightDistance = 0;
         TextRulerExample rightCorrectTag = null;
-        for (AnnotationFS fs : right) {
+        // the first annotation after the position is skipped
+        for (int i = 1; i < right.length; i++) {
           rightDistance++;
-          TextRulerAnnotation needle = TextRulerToolkit.convertToTargetAnnotation(fs, this, target,
-                  docCAS.getTypeSystem());
+          TextRulerAnnotation needle = TextRulerToolkit.convertToTargetAnnotation(index, right[i],
+                  this, target, docCAS.getTypeSystem());
           // Only checks the beginning of needle
           rightCorrectTag = TextRulerExampleDocument.exampleListContainsAnnotation(correctTags,
                   needle);
@@ -259,8 +266,13 @@ public class TextRulerExampleDocument {
   // test-CAS for testing e.g. rule or rule set..
   // caution: testCas gets reset fist!
   public void resetAndFillTestCAS(CAS testCas, TextRulerTarget target) {
+    resetAndFillTestCAS(testCas, target, getCAS());
+  }
+
+  // same as above, but with the CAS of this document already taken from the cache. The document
+  // CAS is only read, so several test CASes can be filled concurrently.
+  public void resetAndFillTestCAS(CAS testCas, TextRulerTarget target, CAS docCas) {
     testCas.reset();
-    CAS docCas = getCAS();
 
     CasCopier cc = new CasCopier(docCas, testCas);
     testCas.setDocumentText(docCas.getDocumentText());
@@ -161,10 +161,10 @@ public class TextRulerExampleDocumentSet {
       TypeSystem ts = aCas.getTypeSystem();
       for (AnnotationFS a : slots) {
 
-        List<AnnotationFS> slotTokens = TextRulerToolkit.getAnnotationsWithinBounds(aCas, a
-                .getBegin(), a.getEnd(), TextRulerToolkit.getFilterSetWithSlotName(slotName,
-                filterSet), ts.getType(TextRulerToolkit.RUTA_ANY_TYPE_NAME));
-        int len = slotTokens.size();
+        int[] slotTokens = doc.getTokenIndex(ts.getType(TextRulerToolkit.RUTA_ANY_TYPE_NAME))
+                .getIndicesWithinBounds(a.getBegin(), a.getEnd(),
+                        TextRulerToolkit.getFilterSetWithSlotName(slotName, filterSet));
+        int len = slotTokens.length;
         if (len > maxLen)
           maxLen = len;
         Integer key = new Integer(len);
@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.textruler.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+
+/**
+ *
+ * TextRulerTokenIndex holds the annotations of a document that are subsumed by a given root type,
+ * e.g., all tokens, in the order of the annotation index. Begins, ends and types are stored in
+ * primitive arrays, so that the lookups of the learners (annotations before, after or within a
+ * position) are answered with a binary search instead of iterating the CAS index from the beginning
+ * of the document for every example. The queries return positions in this index, so that the
+ * learners can read begin, end, type and covered text without accessing the CAS.
+ *
+ * The index is built once for each document CAS loaded by the CasCache (see
+ * TextRulerExampleDocument.getTokenIndex). The CasCache builds a new index if the document text or
+ * the amount of indexed annotations has changed, see {@link #isValid(CAS)}.
+ */
+public class TextRulerTokenIndex {
+
+  private final String documentText;
+
+  private final int[] begins;
+
+  private final int[] ends;
+
+  private final int[] typeCodes;
+
+  private final Type[] types;
+
+  private final AnnotationFS[] annotations;
+
+  private final String[] coveredTexts;
+
+  private final Type rootType;
+
+  public TextRulerTokenIndex(CAS cas, Type rootType) {
+    super();
+    this.rootType = rootType;
+    documentText = cas.getDocumentText();
+    List<AnnotationFS> list = new ArrayList<AnnotationFS>();
+    FSIterator<AnnotationFS> it = rootType == null ? cas.getAnnotationIndex().iterator() : cas
+            .getAnnotationIndex(rootType).iterator();
+    while (it.isValid()) {
+      list.add(it.get());
+      it.moveToNext();
+    }
+    int size = list.size();
+    begins = new int[size];
+    ends = new int[size];
+    typeCodes = new int[size];
+    annotations = list.toArray(new AnnotationFS[size]);
+    coveredTexts = new String[size];
+    Map<Type, Integer> codes = new HashMap<Type, Integer>();
+    List<Type> typeList = new ArrayList<Type>();
+    for (int i = 0; i < size; i++) {
+      AnnotationFS each = annotations[i];
+      begins[i] = each.getBegin();
+      ends[i] = each.getEnd();
+      Type type = each.getType();
+      Integer code = codes.get(type);
+      if (code == null) {
+        code = typeList.size();
+        codes.put(type, code);
+        typeList.add(type);
+      }
+      typeCodes[i] = code;
+    }
+    types = typeList.toArray(new Type[typeList.size()]);
+  }
+
+  public int size() {
+    return annotations.length;
+  }
+
+  public int getBegin(int index) {
+    return begins[index];
+  }
+
+  public int getEnd(int index) {
+    return ends[index];
+  }
+
+  public Type getType(int index) {
+    return types[typeCodes[index]];
+  }
+
+  public AnnotationFS getAnnotation(int index) {
+    return annotations[index];
+  }
+
+  public String getCoveredText(int index) {
+    String result = coveredTexts[index];
+    if (result == null) {
+      result = documentText.substring(begins[index], ends[index]);
+      coveredTexts[index] = result;
+    }
+    return result;
+  }
+
+  /**
+   * Creates the annotation at the given position without accessing the CAS.
+   */
+  public TextRulerAnnotation getTextRulerAnnotation(int index, TextRulerExampleDocument document) {
+    return new TextRulerAnnotation(document, begins[index], ends[index], getType(index),
+            getCoveredText(index));
+  }
+
+  /**
+   * Checks whether the index still reflects the given CAS, which is the case if neither the
+   * document text nor the amount of annotations of the root type has changed.
+   */
+  public boolean isValid(CAS cas) {
+    if (cas.getDocumentText() != documentText) {
+      return false;
+    }
+    int size = rootType == null ? cas.getAnnotationIndex().size() : cas.getAnnotationIndex(
+            rootType).size();
+    return size == annotations.length;
+  }
+
+  /**
+   * Same as TextRulerToolkit.getAnnotationsWithinBounds, but restricted to the root type of this
+   * index.
+   * 
+   * @return the positions of the annotations in this index in ascending order
+   */
+  public int[] getIndicesWithinBounds(int start, int end, Set<String> filterSet) {
+    boolean[] filtered = getFilteredTypes(filterSet);
+    int[] result = new int[8];
+    int count = 0;
+    for (int i = firstIndexWithBegin(start); i < begins.length && begins[i] <= end; i++) {
+      if (ends[i] <= end && !filtered[typeCodes[i]]) {
+        if (count == result.length) {
+          result = Arrays.copyOf(result, count * 2);
+        }
+        result[count++] = i;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  /**
+   * Same as TextRulerToolkit.getAnnotationsBeforePosition, but restricted to the root type of this
+   * index.
+   * 
+   * @return the positions of the annotations in this index in ascending order
+   */
+  public int[] getIndicesBeforePosition(int position, int maxCount, Set<String> filterSet) {
+    if (maxCount <= 0) {
+      return getIndicesWithinBounds(0, position, filterSet);
+    }
+    boolean[] filtered = getFilteredTypes(filterSet);
+    int[] result = new int[maxCount];
+    int count = 0;
+    // collect backwards from the position and reverse afterwards
+    for (int i = firstIndexWithBegin(position + 1) - 1; i >= 0 && count < maxCount; i--) {
+      if (ends[i] <= position && !filtered[typeCodes[i]]) {
+        result[count++] = i;
+      }
+    }
+    for (int i = 0, j = count - 1; i < j; i++, j--) {
+      int tmp = result[i];
+      result[i] = result[j];
+      result[j] = tmp;
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  /**
+   * Same as TextRulerToolkit.getAnnotationsAfterPosition, but restricted to the root type of this
+   * index.
+   * 
+   * @return the positions of the annotations in this index in ascending order
+   */
+  public int[] getIndicesAfterPosition(int position, int maxCount, Set<String> filterSet) {
+    int maxPos = documentText.length() - 1;
+    if (maxCount <= 0) {
+      return getIndicesWithinBounds(position, maxPos, filterSet);
+    }
+    boolean[] filtered = getFilteredTypes(filterSet);
+    int[] result = new int[maxCount];
+    int count = 0;
+    for (int i = firstIndexWithBegin(position); i < begins.length && begins[i] <= maxPos
+            && count < maxCount; i++) {
+      if (ends[i] <= maxPos && !filtered[typeCodes[i]]) {
+        result[count++] = i;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  public List<AnnotationFS> getAnnotationsWithinBounds(int start, int end, Set<String> filterSet) {
+    return getAnnotations(getIndicesWithinBounds(start, end, filterSet));
+  }
+
+  public List<AnnotationFS> getAnnotationsBeforePosition(int position, int maxCount,
+          Set<String> filterSet) {
+    return getAnnotations(getIndicesBeforePosition(position, maxCount, filterSet));
+  }
+
+  public List<AnnotationFS> getAnnotationsAfterPosition(int position, int maxCount,
+          Set<String> filterSet) {
+    return getAnnotations(getIndicesAfterPosition(position, maxCount, filterSet));
+  }
+
+  private List<AnnotationFS> getAnnotations(int[] indices) {
+    List<AnnotationFS> result = new ArrayList<AnnotationFS>(indices.length);
+    for (int each : indices) {
+      result.add(annotations[each]);
+    }
+    return result;
+  }
+
+  private boolean[] getFilteredTypes(Set<String> filterSet) {
+    boolean[] result = new boolean[types.length];
+    if (filterSet != null) {
+      for (int i = 0; i < types.length; i++) {
+        result[i] = filterSet.contains(types[i].getName());
+      }
+    }
+    return result;
+  }
+
+  private int firstIndexWithBegin(int begin) {
+    int low = 0;
+    int high = begins.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (begins[mid] < begin) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+}
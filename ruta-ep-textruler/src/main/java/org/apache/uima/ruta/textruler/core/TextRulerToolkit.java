@@ -303,6 +303,22 @@ public class TextRulerToolkit {
     return getAnnotationWithinBounds(aCas, start, end, filterSet, rootType);
   }
 
+  // same as above, but using the token index of the document
+  public static List<AnnotationFS> getAnnotationsBeforePosition(TextRulerExampleDocument doc,
+          int position, int maxCount, Set<String> filterSet, Type rootType) {
+    return doc.getTokenIndex(rootType).getAnnotationsBeforePosition(position, maxCount, filterSet);
+  }
+
+  public static List<AnnotationFS> getAnnotationsAfterPosition(TextRulerExampleDocument doc,
+          int position, int maxCount, Set<String> filterSet, Type rootType) {
+    return doc.getTokenIndex(rootType).getAnnotationsAfterPosition(position, maxCount, filterSet);
+  }
+
+  public static List<AnnotationFS> getAnnotationsWithinBounds(TextRulerExampleDocument doc,
+          int start, int end, Set<String> filterSet, Type rootType) {
+    return doc.getTokenIndex(rootType).getAnnotationsWithinBounds(start, end, filterSet);
+  }
+
   public static List<AnnotationFS> getOtherAnnotationsOverToken(CAS aCas,
           AnnotationFS tokenAnnotation, Set<String> filterSet) {
     List<AnnotationFS> result = new ArrayList<AnnotationFS>();
@@ -547,16 +563,29 @@ public class TextRulerToolkit {
 
   public static synchronized TextRulerAnnotation convertToTargetAnnotation(AnnotationFS fs,
           TextRulerExampleDocument doc, TextRulerTarget target, TypeSystem ts) {
-    AnnotationFS theAnnotation;
+    // boundaries are created without an annotation in the CAS
+    if (target.type == MLTargetType.SINGLE_LEFT_BOUNDARY)
+      return new TextRulerAnnotation(doc, fs.getBegin(), fs.getBegin(),
+              ts.getType(target.getSingleSlotTypeName()), "");
+    else if (target.type == MLTargetType.SINGLE_RIGHT_BOUNDARY)
+      return new TextRulerAnnotation(doc, fs.getEnd(), fs.getEnd(),
+              ts.getType(target.getSingleSlotTypeName()), "");
+    else
+      return new TextRulerAnnotation(fs, doc);
+  }
+
+  // same as above, but for an annotation of the token index of the document
+  public static synchronized TextRulerAnnotation convertToTargetAnnotation(
+          TextRulerTokenIndex index, int i, TextRulerExampleDocument doc, TextRulerTarget target,
+          TypeSystem ts) {
     if (target.type == MLTargetType.SINGLE_LEFT_BOUNDARY)
-      theAnnotation = fs.getCAS().createAnnotation(ts.getType(target.getSingleSlotTypeName()),
-              fs.getBegin(), fs.getBegin());
+      return new TextRulerAnnotation(doc, index.getBegin(i), index.getBegin(i),
+              ts.getType(target.getSingleSlotTypeName()), "");
     else if (target.type == MLTargetType.SINGLE_RIGHT_BOUNDARY)
-      theAnnotation = fs.getCAS().createAnnotation(ts.getType(target.getSingleSlotTypeName()),
-              fs.getEnd(), fs.getEnd());
+      return new TextRulerAnnotation(doc, index.getEnd(i), index.getEnd(i),
+              ts.getType(target.getSingleSlotTypeName()), "");
     else
-      theAnnotation = fs;
-    return new TextRulerAnnotation(theAnnotation, doc);
+      return index.getTextRulerAnnotation(i, doc);
   }
 
   public static synchronized List<Feature> getFilteredAnnotationFeatures(AnnotationFS afs) {
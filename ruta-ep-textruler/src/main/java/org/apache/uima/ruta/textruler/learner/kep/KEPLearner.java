@@ -46,6 +46,7 @@ import org.apache.uima.ruta.textruler.core.TextRulerRuleItem;
 import org.apache.uima.ruta.textruler.core.TextRulerRulePattern;
 import org.apache.uima.ruta.textruler.core.TextRulerStatisticsCollector;
 import org.apache.uima.ruta.textruler.core.TextRulerTarget;
+import org.apache.uima.ruta.textruler.core.TextRulerTokenIndex;
 import org.apache.uima.ruta.textruler.core.TextRulerToolkit;
 import org.apache.uima.ruta.textruler.extension.TextRulerLearnerDelegate;
 import org.apache.uima.ruta.textruler.learner.kep.KEPRuleItemCondition.Condition;
@@ -862,21 +863,22 @@ public class KEPLearner extends TextRulerBasicLearner {
     List<Type> result = new ArrayList<Type>();
     Map<String, List<TextRulerExample>> countMap = new HashMap<String, List<TextRulerExample>>();
     for (TextRulerExample example : examples) {
-      for (AnnotationFS a : TextRulerToolkit.getAnnotationsWithinBounds(example.getDocumentCAS(),
-              example.getAnnotation().getBegin(), example.getAnnotation().getEnd(),
-              filterSetWithSlotNames, null)) {
-        if (!filterSetWithSlotNames.contains(a.getType().getName()))
-          if (((!countOnlyCoveringTokens) && (a.getBegin() >= example.getAnnotation().getBegin() && a
-                  .getEnd() <= example.getAnnotation().getEnd()))
-                  || (a.getBegin() == example.getAnnotation().getBegin() && a.getEnd() == example
-                          .getAnnotation().getEnd())) {
-            List<TextRulerExample> list = countMap.get(a.getType().getName());
+      TextRulerTokenIndex index = example.getDocument().getTokenIndex(null);
+      for (int a : index.getIndicesWithinBounds(example.getAnnotation().getBegin(), example
+              .getAnnotation().getEnd(), filterSetWithSlotNames)) {
+        String typeName = index.getType(a).getName();
+        if (!filterSetWithSlotNames.contains(typeName))
+          if (((!countOnlyCoveringTokens) && (index.getBegin(a) >= example.getAnnotation()
+                  .getBegin() && index.getEnd(a) <= example.getAnnotation().getEnd()))
+                  || (index.getBegin(a) == example.getAnnotation().getBegin() && index.getEnd(a) ==
+                          example.getAnnotation().getEnd())) {
+            List<TextRulerExample> list = countMap.get(typeName);
             if (list == null) {
               list = new ArrayList<TextRulerExample>();
               list.add(example);
             } else if (!list.contains(example))
               list.add(example);
-            countMap.put(a.getType().getName(), list);
+            countMap.put(typeName, list);
           }
       }
     }
@@ -31,7 +31,6 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.Type;
 import org.apache.uima.cas.TypeSystem;
-import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.ruta.engine.RutaEngine;
 import org.apache.uima.ruta.textruler.TextRulerPlugin;
 import org.apache.uima.ruta.textruler.core.GlobalCASSource;
@@ -45,6 +44,7 @@ import org.apache.uima.ruta.textruler.core.TextRulerShiftExample;
 import org.apache.uima.ruta.textruler.core.TextRulerStatisticsCollector;
 import org.apache.uima.ruta.textruler.core.TextRulerTarget;
 import org.apache.uima.ruta.textruler.core.TextRulerTarget.MLTargetType;
+import org.apache.uima.ruta.textruler.core.TextRulerTokenIndex;
 import org.apache.uima.ruta.textruler.core.TextRulerToolkit;
 import org.apache.uima.ruta.textruler.extension.TextRulerLearnerDelegate;
 import org.apache.uima.util.FileUtils;
@@ -500,12 +500,11 @@ public abstract class BasicLP2 extends TextRulerBasicLearner {
         for (TextRulerExample wrongTag : wrongTags) {
           // test, if there's a corresponding positive example
           // somewhere around (within maxDistance)
-          List<AnnotationFS> left = TextRulerToolkit.getAnnotationsBeforePosition(docCAS, wrongTag
-                  .getAnnotation().getBegin(), maxDistance, TextRulerToolkit
-                  .getFilterSetWithSlotNames(slotNames, filterSet), tokensRootType);
-          List<AnnotationFS> right = TextRulerToolkit.getAnnotationsAfterPosition(docCAS, wrongTag
-                  .getAnnotation().getEnd(), maxDistance, TextRulerToolkit
-                  .getFilterSetWithSlotNames(slotNames, filterSet), tokensRootType);
+          TextRulerTokenIndex index = doc.getTokenIndex(tokensRootType);
+          int[] left = index.getIndicesBeforePosition(wrongTag.getAnnotation().getBegin(),
+                  maxDistance, TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet));
+          int[] right = index.getIndicesAfterPosition(wrongTag.getAnnotation().getEnd(),
+                  maxDistance, TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet));
 
           // TODO stop after the first found match or create one bad
           // example for each found occurence ??!!
@@ -513,10 +512,10 @@ public abstract class BasicLP2 extends TextRulerBasicLearner {
           // example...
           int leftDistance = 0;
           TextRulerExample leftCorrectTag = null;
-          for (int i = left.size() - 1; i >= 0; i--) {
+          for (int i = left.length - 1; i >= 0; i--) {
             leftDistance++;
-            TextRulerAnnotation needle = TextRulerToolkit.convertToTargetAnnotation(left.get(i),
-                    doc, target, docCAS.getTypeSystem());
+            TextRulerAnnotation needle = TextRulerToolkit.convertToTargetAnnotation(index,
+                    left[i], doc, target, docCAS.getTypeSystem());
             leftCorrectTag = TextRulerToolkit.exampleListContainsAnnotation(correctTags, needle);
             if (leftCorrectTag != null)
               break;
@@ -524,10 +523,10 @@ public abstract class BasicLP2 extends TextRulerBasicLearner {
 
           int rightDistance = 0;
           TextRulerExample rightCorrectTag = null;
-          for (AnnotationFS fs : right) {
+          for (int each : right) {
             rightDistance++;
-            TextRulerAnnotation needle = TextRulerToolkit.convertToTargetAnnotation(fs, doc,
-                    target, docCAS.getTypeSystem());
+            TextRulerAnnotation needle = TextRulerToolkit.convertToTargetAnnotation(index, each,
+                    doc, target, docCAS.getTypeSystem());
             rightCorrectTag = TextRulerToolkit.exampleListContainsAnnotation(correctTags, needle);
             if (rightCorrectTag != null)
               break;
@@ -29,7 +29,6 @@ import java.util.Set;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.Type;
 import org.apache.uima.cas.TypeSystem;
-import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.ruta.engine.RutaEngine;
 import org.apache.uima.ruta.textruler.TextRulerPlugin;
 import org.apache.uima.ruta.textruler.core.TextRulerAnnotation;
@@ -39,6 +38,7 @@ import org.apache.uima.ruta.textruler.core.TextRulerRuleItem;
 import org.apache.uima.ruta.textruler.core.TextRulerRulePattern;
 import org.apache.uima.ruta.textruler.core.TextRulerTarget;
 import org.apache.uima.ruta.textruler.core.TextRulerTarget.MLTargetType;
+import org.apache.uima.ruta.textruler.core.TextRulerTokenIndex;
 import org.apache.uima.ruta.textruler.core.TextRulerToolkit;
 import org.apache.uima.ruta.textruler.extension.TextRulerLearnerDelegate;
 import org.apache.uima.ruta.textruler.learner.lp2.LP2RuleItem.MLLP2ContextConstraint;
@@ -211,17 +211,17 @@ public class NaiveLP2 extends BasicLP2 {
     int thePosition = target.type == MLTargetType.SINGLE_LEFT_BOUNDARY ? exampleAnnotation
             .getBegin() : exampleAnnotation.getEnd();
 
-    List<AnnotationFS> leftContext = TextRulerToolkit.getAnnotationsBeforePosition(docCas,
-            thePosition, windowSize,
-            TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet), tokensRootType);
-    List<AnnotationFS> rightContext = TextRulerToolkit.getAnnotationsAfterPosition(docCas,
-            thePosition, windowSize,
-            TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet), tokensRootType);
+    TextRulerTokenIndex index = example.getDocument().getTokenIndex(tokensRootType);
+    int[] leftContext = index.getIndicesBeforePosition(thePosition, windowSize,
+            TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet));
+    int[] rightContext = index.getIndicesAfterPosition(thePosition, windowSize,
+            TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet));
 
     // the left context has to be reversed since we get the arrayList from
     // the slot's point of view!
-    for (int i = leftContext.size() - 1; i >= 0; i--) {
-      TextRulerAnnotation annot = new TextRulerAnnotation(leftContext.get(i), example.getDocument());
+    for (int i = leftContext.length - 1; i >= 0; i--) {
+      TextRulerAnnotation annot = index.getTextRulerAnnotation(leftContext[i],
+              example.getDocument());
       LP2RuleItem item = new LP2RuleItem();
       item.setWordConstraint(annot);
       if (item.getWordConstraint().isRegExpConstraint())
@@ -229,8 +229,8 @@ public class NaiveLP2 extends BasicLP2 {
       rule.addPreFillerItem(item);
     }
 
-    for (AnnotationFS afs : rightContext) {
-      TextRulerAnnotation annot = new TextRulerAnnotation(afs, example.getDocument());
+    for (int each : rightContext) {
+      TextRulerAnnotation annot = index.getTextRulerAnnotation(each, example.getDocument());
       LP2RuleItem item = new LP2RuleItem();
       item.setWordConstraint(annot);
       if (item.getWordConstraint().isRegExpConstraint())
@@ -21,6 +21,7 @@ package org.apache.uima.ruta.textruler.learner.lp2;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -41,6 +42,7 @@ import org.apache.uima.ruta.textruler.core.TextRulerRuleList;
 import org.apache.uima.ruta.textruler.core.TextRulerStatisticsCollector;
 import org.apache.uima.ruta.textruler.core.TextRulerTarget;
 import org.apache.uima.ruta.textruler.core.TextRulerTarget.MLTargetType;
+import org.apache.uima.ruta.textruler.core.TextRulerTokenIndex;
 import org.apache.uima.ruta.textruler.core.TextRulerToolkit;
 import org.apache.uima.ruta.textruler.extension.TextRulerLearnerDelegate;
 import org.apache.uima.ruta.textruler.learner.lp2.LP2RuleItem.MLLP2ContextConstraint;
@@ -479,33 +481,35 @@ public class OptimizedLP2 extends BasicLP2 {
 
     boolean isLeftBoundary = (target.type == MLTargetType.SINGLE_LEFT_BOUNDARY || target.type == MLTargetType.SINGLE_LEFT_CORRECTION);
     int thePosition = isLeftBoundary ? exampleAnnotation.getBegin() : exampleAnnotation.getEnd();
-    List<AnnotationFS> leftContext = TextRulerToolkit.getAnnotationsBeforePosition(docCas,
-            thePosition, windowSize,
-            TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet), tokensRootType);
+    TextRulerTokenIndex index = example.getDocument().getTokenIndex(tokensRootType);
+    int[] leftContext = index.getIndicesBeforePosition(thePosition, windowSize,
+            TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet));
 
-    List<AnnotationFS> rightContext;
+    int[] rightContext;
     if (target.type == MLTargetType.SINGLE_LEFT_CORRECTION
             || target.type == MLTargetType.SINGLE_RIGHT_CORRECTION) {
-      rightContext = TextRulerToolkit.getAnnotationsAfterPosition(docCas, thePosition,
-              windowSize + 1, TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet),
-              tokensRootType);
-      rightContext.remove(0);
+      rightContext = index.getIndicesAfterPosition(thePosition, windowSize + 1,
+              TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet));
+      if (rightContext.length > 0) {
+        rightContext = Arrays.copyOfRange(rightContext, 1, rightContext.length);
+      }
     } else {
-      rightContext = TextRulerToolkit.getAnnotationsAfterPosition(docCas, thePosition, windowSize,
-              TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet), tokensRootType);
+      rightContext = index.getIndicesAfterPosition(thePosition, windowSize,
+              TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet));
     }
 
-    int totalCount = leftContext.size() + rightContext.size();
+    int totalCount = leftContext.length + rightContext.length;
 
     // LEFT CONTEXT (PRE FILLER PATTERN)
     // result.add(createStartRuleForConstraint(example, 0, true, null));
 
-    for (int index = 0; index < totalCount; index++) {
-      boolean isPre = index < leftContext.size();
-      int prePostIndex = isPre ? index : index - leftContext.size();
-      AnnotationFS tokenAFS = isPre ? leftContext.get(leftContext.size() - 1 - prePostIndex)
-              : rightContext.get(prePostIndex);
-      TextRulerAnnotation tokenAnnotation = new TextRulerAnnotation(tokenAFS, example.getDocument());
+    for (int i = 0; i < totalCount; i++) {
+      boolean isPre = i < leftContext.length;
+      int prePostIndex = isPre ? i : i - leftContext.length;
+      int tokenIndex = isPre ? leftContext[leftContext.length - 1 - prePostIndex]
+              : rightContext[prePostIndex];
+      TextRulerAnnotation tokenAnnotation = index.getTextRulerAnnotation(tokenIndex,
+              example.getDocument());
       LP2RuleItem wordItem = new LP2RuleItem();
 
       // one rule with only the word constraint:
@@ -561,7 +565,7 @@ public class OptimizedLP2 extends BasicLP2 {
       // MLLP2OtherConstraint is not yet capable of this!
 
       List<AnnotationFS> featureAnnotations = TextRulerToolkit.getOtherAnnotationsOverToken(docCas,
-              tokenAFS, filterSetWithSlotNames);
+              index.getAnnotation(tokenIndex), filterSetWithSlotNames);
       if (TextRulerToolkit.DEBUG && featureAnnotations.size() > 1) {
         TextRulerToolkit.log("FOUND MORE THAN ONE EXTRA TOKEN FEATURE ANNOTATION !");
         for (AnnotationFS featA : featureAnnotations)
@@ -31,7 +31,6 @@ import java.util.Set;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.Type;
 import org.apache.uima.cas.TypeSystem;
-import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.ruta.textruler.core.TextRulerAnnotation;
 import org.apache.uima.ruta.textruler.core.TextRulerBasicLearner;
 import org.apache.uima.ruta.textruler.core.TextRulerExample;
@@ -41,6 +40,7 @@ import org.apache.uima.ruta.textruler.core.TextRulerRuleList;
 import org.apache.uima.ruta.textruler.core.TextRulerRulePattern;
 import org.apache.uima.ruta.textruler.core.TextRulerStatisticsCollector;
 import org.apache.uima.ruta.textruler.core.TextRulerTarget;
+import org.apache.uima.ruta.textruler.core.TextRulerTokenIndex;
 import org.apache.uima.ruta.textruler.core.TextRulerToolkit;
 import org.apache.uima.ruta.textruler.core.TextRulerWordConstraint;
 import org.apache.uima.ruta.textruler.extension.TextRulerLearnerDelegate;
@@ -181,20 +181,21 @@ public class Rapier extends TextRulerBasicLearner {
   }
 
   private void addAvailablePosTagConstraintToItem(RapierRuleItem item,
-          AnnotationFS tokenAnnotation, TextRulerExample example) {
+          TextRulerAnnotation tokenAnnotation, TextRulerExample example) {
 
     if (posTagRootTypeName != null && posTagRootTypeName.length() > 0) {
       CAS cas = example.getDocumentCAS();
       TypeSystem ts = cas.getTypeSystem();
       Type posTagsRootType = ts.getType(posTagRootTypeName);
       if (ts != null) {
-        List<AnnotationFS> posTagAnnotations = TextRulerToolkit.getAnnotationsWithinBounds(cas,
-                tokenAnnotation.getBegin(), tokenAnnotation.getEnd(), null, posTagsRootType);
-        if (posTagAnnotations.size() > 0) {
-          AnnotationFS posTag = posTagAnnotations.get(0);
-          if (posTag.getBegin() == tokenAnnotation.getBegin()
-                  && posTag.getEnd() == tokenAnnotation.getEnd())
-            item.addTagConstraint(posTag.getType().getShortName());
+        TextRulerTokenIndex posTagIndex = example.getDocument().getTokenIndex(posTagsRootType);
+        int[] posTags = posTagIndex.getIndicesWithinBounds(tokenAnnotation.getBegin(),
+                tokenAnnotation.getEnd(), null);
+        if (posTags.length > 0) {
+          int posTag = posTags[0];
+          if (posTagIndex.getBegin(posTag) == tokenAnnotation.getBegin()
+                  && posTagIndex.getEnd(posTag) == tokenAnnotation.getEnd())
+            item.addTagConstraint(posTagIndex.getType(posTag).getShortName());
         }
       }
     }
@@ -210,38 +211,36 @@ public class Rapier extends TextRulerBasicLearner {
       Type tokensRootType = ts.getType(TextRulerToolkit.RUTA_ANY_TYPE_NAME);
 
       // first, get all words/tokens:
-      List<AnnotationFS> before = TextRulerToolkit.getAnnotationsBeforePosition(
-              example.getDocumentCAS(), slotAnnotation.getBegin(), -1,
-              TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet), tokensRootType);
-      List<AnnotationFS> after = TextRulerToolkit.getAnnotationsAfterPosition(
-              example.getDocumentCAS(), slotAnnotation.getEnd(), -1,
-              TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet), tokensRootType);
-      List<AnnotationFS> inside = TextRulerToolkit.getAnnotationsWithinBounds(
-              example.getDocumentCAS(), slotAnnotation.getBegin(), slotAnnotation.getEnd(),
-              TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet), tokensRootType);
+      TextRulerTokenIndex index = example.getDocument().getTokenIndex(tokensRootType);
+      int[] before = index.getIndicesBeforePosition(slotAnnotation.getBegin(), -1,
+              TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet));
+      int[] after = index.getIndicesAfterPosition(slotAnnotation.getEnd(), -1,
+              TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet));
+      int[] inside = index.getIndicesWithinBounds(slotAnnotation.getBegin(),
+              slotAnnotation.getEnd(), TextRulerToolkit.getFilterSetWithSlotNames(slotNames,
+                      filterSet));
 
       // the before annotations have to be reversed:
-      for (int i = before.size() - 1; i >= 0; i--) {
-        AnnotationFS afs = before.get(i);
+      for (int i = before.length - 1; i >= 0; i--) {
+        TextRulerAnnotation token = index.getTextRulerAnnotation(before[i], example.getDocument());
         RapierRuleItem ruleItem = new RapierRuleItem();
-        ruleItem.addWordConstraint(new TextRulerWordConstraint(new TextRulerAnnotation(afs, example
-                .getDocument())));
-        addAvailablePosTagConstraintToItem(ruleItem, afs, example);
+        ruleItem.addWordConstraint(new TextRulerWordConstraint(token));
+        addAvailablePosTagConstraintToItem(ruleItem, token, example);
         rule.addPreFillerItem(ruleItem);
       }
 
-      for (AnnotationFS afs : inside) {
+      for (int each : inside) {
+        TextRulerAnnotation token = index.getTextRulerAnnotation(each, example.getDocument());
         RapierRuleItem ruleItem = new RapierRuleItem();
-        ruleItem.addWordConstraint(new TextRulerWordConstraint(new TextRulerAnnotation(afs, example
-                .getDocument())));
-        addAvailablePosTagConstraintToItem(ruleItem, afs, example);
+        ruleItem.addWordConstraint(new TextRulerWordConstraint(token));
+        addAvailablePosTagConstraintToItem(ruleItem, token, example);
         rule.addFillerItem(ruleItem);
       }
-      for (AnnotationFS afs : after) {
+      for (int each : after) {
+        TextRulerAnnotation token = index.getTextRulerAnnotation(each, example.getDocument());
         RapierRuleItem ruleItem = new RapierRuleItem();
-        ruleItem.addWordConstraint(new TextRulerWordConstraint(new TextRulerAnnotation(afs, example
-                .getDocument())));
-        addAvailablePosTagConstraintToItem(ruleItem, afs, example);
+        ruleItem.addWordConstraint(new TextRulerWordConstraint(token));
+        addAvailablePosTagConstraintToItem(ruleItem, token, example);
         rule.addPostFillerItem(ruleItem);
       }
 
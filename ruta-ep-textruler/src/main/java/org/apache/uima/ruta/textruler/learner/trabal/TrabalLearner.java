@@ -1682,11 +1682,10 @@ public class TrabalLearner extends TextRulerBasicLearner {
       MemoryWatch.watch();
     }
     try {
-      rule.saveToRulesFile(getTempRulesFileName());
       if (TextRulerToolkit.DEBUG) {
         TextRulerToolkit.writeCAStoXMIFile(testCas, tempDirectory() + "testCas.xmi");
       }
-      ae.process(testCas);
+      applyRuleOnTestCAS(rule, testCas);
       removeBasics(testCas);
       if (TextRulerToolkit.DEBUG) {
         TextRulerToolkit.writeCAStoXMIFile(testCas, tempDirectory() + "testCasProcessed.xmi");
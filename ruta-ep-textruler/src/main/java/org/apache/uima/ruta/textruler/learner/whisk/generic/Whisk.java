@@ -326,8 +326,9 @@ public class Whisk extends TextRulerBasicLearner {
           Type posTagsRootType = ts.getType(posTagRootTypeName);
           if (ts != null) {
             // POS-Tags created by our test hmm tagger.
-            List<AnnotationFS> posTagAnnotations = TextRulerToolkit.getAnnotationsWithinBounds(cas,
-                    tokenAnnotation.getBegin(), tokenAnnotation.getEnd(), null, posTagsRootType);
+            List<AnnotationFS> posTagAnnotations = TextRulerToolkit.getAnnotationsWithinBounds(
+                    example.getDocument(), tokenAnnotation.getBegin(), tokenAnnotation.getEnd(),
+                    null, posTagsRootType);
             if (posTagAnnotations.size() > 0) {
               AnnotationFS posTag = posTagAnnotations.get(0);
               if (posTag.getBegin() == tokenAnnotation.getBegin()
@@ -40,6 +40,7 @@ import org.apache.uima.ruta.textruler.core.TextRulerRulePattern;
 import org.apache.uima.ruta.textruler.core.TextRulerSlotPattern;
 import org.apache.uima.ruta.textruler.core.TextRulerStatisticsCollector;
 import org.apache.uima.ruta.textruler.core.TextRulerTarget;
+import org.apache.uima.ruta.textruler.core.TextRulerTokenIndex;
 import org.apache.uima.ruta.textruler.core.TextRulerToolkit;
 import org.apache.uima.ruta.textruler.extension.TextRulerLearnerDelegate;
 import org.apache.uima.ruta.textruler.learner.whisk.token.WhiskRuleItem.MLWhiskOtherConstraint;
@@ -269,8 +270,9 @@ public class Whisk extends TextRulerBasicLearner {
         Type posTagsRootType = ts.getType(posTagRootTypeName);
         if (ts != null) {
           // POS-Tags created by our test hmm tagger.
-          List<AnnotationFS> posTagAnnotations = TextRulerToolkit.getAnnotationsWithinBounds(cas,
-                  tokenAnnotation.getBegin(), tokenAnnotation.getEnd(), null, posTagsRootType);
+          List<AnnotationFS> posTagAnnotations = TextRulerToolkit.getAnnotationsWithinBounds(
+                  example.getDocument(), tokenAnnotation.getBegin(), tokenAnnotation.getEnd(),
+                  null, posTagsRootType);
           if (posTagAnnotations.size() > 0) {
             AnnotationFS posTag = posTagAnnotations.get(0);
             if (posTag.getBegin() == tokenAnnotation.getBegin()
@@ -614,14 +616,15 @@ public class Whisk extends TextRulerBasicLearner {
   public List<WhiskRuleItem> getAllTermsOfExample(TextRulerExample example) {
     CAS cas = example.getDocumentCAS();
     Type tokensRootType = cas.getTypeSystem().getType(TextRulerToolkit.RUTA_ANY_TYPE_NAME);
-    List<AnnotationFS> all = TextRulerToolkit.getAnnotationsWithinBounds(cas, 0, cas
-            .getDocumentText().length() + 1, TextRulerToolkit.getFilterSetWithSlotNames(slotNames,
-            filterSet), tokensRootType);
+    TextRulerTokenIndex index = example.getDocument().getTokenIndex(tokensRootType);
+    int[] all = index.getIndicesWithinBounds(0, cas.getDocumentText().length() + 1,
+            TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet));
 
     List<WhiskRuleItem> result = new ArrayList<WhiskRuleItem>();
     int i = 0;
-    for (AnnotationFS afs : all) {
-      WhiskRuleItem term = new WhiskRuleItem(new TextRulerAnnotation(afs, example.getDocument()));
+    for (int each : all) {
+      WhiskRuleItem term = new WhiskRuleItem(index.getTextRulerAnnotation(each,
+              example.getDocument()));
       term.setTermNumberInExample(i);
       i++;
       result.add(term);
@@ -28,7 +28,6 @@ import java.util.Set;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.Type;
 import org.apache.uima.cas.TypeSystem;
-import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.ruta.textruler.TextRulerPlugin;
 import org.apache.uima.ruta.textruler.core.TextRulerAnnotation;
 import org.apache.uima.ruta.textruler.core.TextRulerBasicLearner;
@@ -38,6 +37,7 @@ import org.apache.uima.ruta.textruler.core.TextRulerRuleItem;
 import org.apache.uima.ruta.textruler.core.TextRulerRulePattern;
 import org.apache.uima.ruta.textruler.core.TextRulerSlotPattern;
 import org.apache.uima.ruta.textruler.core.TextRulerTarget;
+import org.apache.uima.ruta.textruler.core.TextRulerTokenIndex;
 import org.apache.uima.ruta.textruler.core.TextRulerToolkit;
 import org.apache.uima.ruta.textruler.extension.TextRulerLearnerDelegate;
 
@@ -390,17 +390,17 @@ public class Wien extends TextRulerBasicLearner {
               doc.getPositiveExamples().size() - 1);
       TypeSystem ts = cas.getTypeSystem();
       Type tokenType = ts.getType(TextRulerToolkit.RUTA_ALL_TYPE_NAME);
-      List<AnnotationFS> headTokens = TextRulerToolkit.getAnnotationsBeforePosition(cas,
-              firstExample.getAnnotations()[0].getBegin(), 0, TextRulerToolkit
-                      .getFilterSetWithSlotNames(slotNames, filterSet), tokenType);
+      TextRulerTokenIndex index = doc.getTokenIndex(tokenType);
+      int[] headTokens = index.getIndicesBeforePosition(firstExample.getAnnotations()[0]
+              .getBegin(), 0, TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet));
       TextRulerAnnotation[] lastExampleAnnotations = lastExample.getAnnotations();
-      List<AnnotationFS> tailTokens = TextRulerToolkit.getAnnotationsAfterPosition(cas,
+      int[] tailTokens = index.getIndicesAfterPosition(
               lastExampleAnnotations[lastExampleAnnotations.length - 1].getEnd(), 0,
-              TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet), tokenType);
-      for (AnnotationFS afs : headTokens)
-        head.add(new WienRuleItem(new TextRulerAnnotation(afs, doc)));
-      for (AnnotationFS afs : tailTokens)
-        tail.add(new WienRuleItem(new TextRulerAnnotation(afs, doc)));
+              TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet));
+      for (int each : headTokens)
+        head.add(new WienRuleItem(index.getTextRulerAnnotation(each, doc)));
+      for (int each : tailTokens)
+        tail.add(new WienRuleItem(index.getTextRulerAnnotation(each, doc)));
       PatternPair p = new PatternPair();
       p.l.addAll(head);
       p.r.addAll(tail);
@@ -417,6 +417,7 @@ public class Wien extends TextRulerBasicLearner {
       CAS cas = doc.getCAS();
       TypeSystem ts = cas.getTypeSystem();
       Type tokenType = ts.getType(TextRulerToolkit.RUTA_ALL_TYPE_NAME);
+      TextRulerTokenIndex index = doc.getTokenIndex(tokenType);
       List<TextRulerExample> examples = doc.getPositiveExamples();
       for (int i = 0; i < examples.size() - 1; i++) {
         // get separator between i'th and (i+1)'th example:
@@ -424,12 +425,11 @@ public class Wien extends TextRulerBasicLearner {
         TextRulerAnnotation[] exampleAnnotations2 = examples.get(i + 1).getAnnotations();
         TextRulerAnnotation lastOf1 = exampleAnnotations1[exampleAnnotations1.length - 1];
         TextRulerAnnotation firstOf2 = exampleAnnotations2[0];
-        List<AnnotationFS> theTokens = TextRulerToolkit.getAnnotationsWithinBounds(cas, lastOf1
-                .getEnd(), firstOf2.getBegin(), TextRulerToolkit.getFilterSetWithSlotNames(
-                slotNames, filterSet), tokenType);
+        int[] theTokens = index.getIndicesWithinBounds(lastOf1.getEnd(), firstOf2.getBegin(),
+                TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet));
         TextRulerRulePattern thePattern = new TextRulerRulePattern();
-        for (AnnotationFS afs : theTokens)
-          thePattern.add(new WienRuleItem(new TextRulerAnnotation(afs, doc)));
+        for (int each : theTokens)
+          thePattern.add(new WienRuleItem(index.getTextRulerAnnotation(each, doc)));
         if (thePattern.size() > 0)
           result.add(thePattern);
 
@@ -445,6 +445,7 @@ public class Wien extends TextRulerBasicLearner {
     CAS cas = doc.getCAS();
     TypeSystem ts = cas.getTypeSystem();
     Type tokenType = ts.getType(TextRulerToolkit.RUTA_ALL_TYPE_NAME);
+    TextRulerTokenIndex index = doc.getTokenIndex(tokenType);
     List<TextRulerExample> examples = doc.getPositiveExamples();
     boolean isLastSlot = slotIndex >= slotNames.length - 1;
     for (int ei = 0; ei < examples.size(); ei++) {
@@ -464,17 +465,17 @@ public class Wien extends TextRulerBasicLearner {
           nextSlotAnnotation = null;
       }
 
-      List<AnnotationFS> theTokens;
+      int[] theTokens;
       if (nextSlotAnnotation == null)
-        theTokens = TextRulerToolkit.getAnnotationsAfterPosition(cas, slotAnnotation.getEnd(), 0,
-                TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet), tokenType);
+        theTokens = index.getIndicesAfterPosition(slotAnnotation.getEnd(), 0,
+                TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet));
       else
-        theTokens = TextRulerToolkit.getAnnotationsWithinBounds(cas, slotAnnotation.getEnd(),
+        theTokens = index.getIndicesWithinBounds(slotAnnotation.getEnd(),
                 nextSlotAnnotation.getBegin(), TextRulerToolkit.getFilterSetWithSlotNames(
-                        slotNames, filterSet), tokenType);
+                        slotNames, filterSet));
       TextRulerRulePattern thePattern = new TextRulerRulePattern();
-      for (AnnotationFS afs : theTokens)
-        thePattern.add(new WienRuleItem(new TextRulerAnnotation(afs, doc)));
+      for (int each : theTokens)
+        thePattern.add(new WienRuleItem(index.getTextRulerAnnotation(each, doc)));
       if (thePattern.size() > 0)
         result.add(thePattern);
     }
@@ -489,6 +490,7 @@ public class Wien extends TextRulerBasicLearner {
     CAS cas = doc.getCAS();
     TypeSystem ts = cas.getTypeSystem();
     Type tokenType = ts.getType(TextRulerToolkit.RUTA_ALL_TYPE_NAME);
+    TextRulerTokenIndex index = doc.getTokenIndex(tokenType);
     List<TextRulerExample> examples = doc.getPositiveExamples();
 
     boolean isFirstSlot = slotIndex == 0;
@@ -508,17 +510,17 @@ public class Wien extends TextRulerBasicLearner {
           prevSlotAnnotation = null;
       }
 
-      List<AnnotationFS> theTokens;
+      int[] theTokens;
       if (prevSlotAnnotation == null)
-        theTokens = TextRulerToolkit.getAnnotationsBeforePosition(cas, slotAnnotation.getBegin(),
-                0, TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet), tokenType);
+        theTokens = index.getIndicesBeforePosition(slotAnnotation.getBegin(), 0,
+                TextRulerToolkit.getFilterSetWithSlotNames(slotNames, filterSet));
       else
-        theTokens = TextRulerToolkit.getAnnotationsWithinBounds(cas, prevSlotAnnotation.getEnd(),
+        theTokens = index.getIndicesWithinBounds(prevSlotAnnotation.getEnd(),
                 slotAnnotation.getBegin(), TextRulerToolkit.getFilterSetWithSlotNames(slotNames,
-                        filterSet), tokenType);
+                        filterSet));
       TextRulerRulePattern thePattern = new TextRulerRulePattern();
-      for (AnnotationFS afs : theTokens)
-        thePattern.add(new WienRuleItem(new TextRulerAnnotation(afs, doc), true));
+      for (int each : theTokens)
+        thePattern.add(new WienRuleItem(index.getTextRulerAnnotation(each, doc), true));
       if (thePattern.size() > 0)
         result.add(thePattern);
     }
@@ -531,15 +533,16 @@ public class Wien extends TextRulerBasicLearner {
     CAS cas = doc.getCAS();
     TypeSystem ts = cas.getTypeSystem();
     Type tokenType = ts.getType(TextRulerToolkit.RUTA_ALL_TYPE_NAME);
+    TextRulerTokenIndex index = doc.getTokenIndex(tokenType);
     List<TextRulerExample> examples = doc.getPositiveExamples();
     for (TextRulerExample e : examples) {
       TextRulerAnnotation slotAnnotation = e.getAnnotations()[slotIndex];
-      List<AnnotationFS> theTokens = TextRulerToolkit.getAnnotationsWithinBounds(cas,
-              slotAnnotation.getBegin(), slotAnnotation.getEnd(), TextRulerToolkit
-                      .getFilterSetWithSlotNames(slotNames, filterSet), tokenType);
+      int[] theTokens = index.getIndicesWithinBounds(slotAnnotation.getBegin(),
+              slotAnnotation.getEnd(), TextRulerToolkit.getFilterSetWithSlotNames(slotNames,
+                      filterSet));
       TextRulerRulePattern thePattern = new TextRulerRulePattern();
-      for (AnnotationFS afs : theTokens)
-        thePattern.add(new WienRuleItem(new TextRulerAnnotation(afs, doc)));
+      for (int each : theTokens)
+        thePattern.add(new WienRuleItem(index.getTextRulerAnnotation(each, doc)));
       if (thePattern.size() > 0)
         result.add(thePattern);
     }
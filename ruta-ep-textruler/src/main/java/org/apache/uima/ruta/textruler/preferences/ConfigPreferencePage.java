@@ -33,6 +33,9 @@ public class ConfigPreferencePage extends FieldEditorPreferencePage implements I
   private BooleanFieldEditor lowMemoryProfile;
   private IntegerFieldEditor maxErrorRate;
   private IntegerFieldEditor casCache;
+  private IntegerFieldEditor testThreads;
+  private IntegerFieldEditor casStoreSize;
+  private BooleanFieldEditor casStoreSpill;
 
 
   public ConfigPreferencePage() {
@@ -61,6 +64,18 @@ public class ConfigPreferencePage extends FieldEditorPreferencePage implements I
     casCache = new IntegerFieldEditor(TextRulerPreferences.CAS_CACHE,
             "CAS cache size.", getFieldEditorParent());
     addField(casCache);
+
+    testThreads = new IntegerFieldEditor(TextRulerPreferences.TEST_THREADS,
+            "Threads for testing rules.", getFieldEditorParent());
+    addField(testThreads);
+
+    casStoreSize = new IntegerFieldEditor(TextRulerPreferences.CAS_STORE_SIZE,
+            "Size of serialized CAS store in MB (0 = disabled).", getFieldEditorParent());
+    addField(casStoreSize);
+
+    casStoreSpill = new BooleanFieldEditor(TextRulerPreferences.CAS_STORE_SPILL,
+            "Spill serialized CASes to temporary directory.", getFieldEditorParent());
+    addField(casStoreSpill);
     
   }
 }
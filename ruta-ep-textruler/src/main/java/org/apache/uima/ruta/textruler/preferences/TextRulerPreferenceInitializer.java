@@ -41,6 +41,9 @@ public class TextRulerPreferenceInitializer extends AbstractPreferenceInitialize
     store.setDefault(TextRulerPreferences.LOW_MEMORY_PROFILE, false);
     store.setDefault(TextRulerPreferences.MAX_ERROR_RATE, 10);
     store.setDefault(TextRulerPreferences.CAS_CACHE, 50);
+    store.setDefault(TextRulerPreferences.TEST_THREADS, 1);
+    store.setDefault(TextRulerPreferences.CAS_STORE_SIZE, 100);
+    store.setDefault(TextRulerPreferences.CAS_STORE_SPILL, false);
     
     List<TextRulerLearnerController> availableControllers = TextRulerController.getAvailableControllers();
     for (TextRulerLearnerController each : availableControllers) {
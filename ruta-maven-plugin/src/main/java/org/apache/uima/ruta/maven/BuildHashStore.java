@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.maven;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Persistent store of content hashes of build inputs. It is used to skip inputs that have not
+ * changed since the last build, even if the build context reports a delta, e.g., in a command line
+ * build that does not support incremental builds.
+ */
+public class BuildHashStore {
+
+  private final File file;
+
+  private final Properties properties = new Properties();
+
+  public BuildHashStore(File file) {
+    super();
+    this.file = file;
+    if (file.exists()) {
+      InputStream is = null;
+      try {
+        is = new FileInputStream(file);
+        properties.load(is);
+      } catch (IOException e) {
+        // start with an empty store
+        properties.clear();
+      } catch (IllegalArgumentException e) {
+        // malformed escape sequence in a corrupt store
+        properties.clear();
+      } finally {
+        IOUtils.closeQuietly(is);
+      }
+    }
+  }
+
+  public String get(String key) {
+    return properties.getProperty(key);
+  }
+
+  public void put(String key, String value) {
+    if (value == null) {
+      properties.remove(key);
+    } else {
+      properties.setProperty(key, value);
+    }
+  }
+
+  public void remove(String key) {
+    properties.remove(key);
+  }
+
+  public boolean isUnchanged(String key, String hash) {
+    return hash != null && hash.equals(properties.getProperty(key));
+  }
+
+  public void save() throws IOException {
+    file.getParentFile().mkdirs();
+    OutputStream os = null;
+    try {
+      os = new FileOutputStream(file);
+      properties.store(os, "UIMA Ruta build hashes");
+    } finally {
+      IOUtils.closeQuietly(os);
+    }
+  }
+
+  /**
+   * Computes a hash of the content of the given files and of the additional strings, e.g., the
+   * configuration of the build.
+   * 
+   * @param files
+   *          the input files
+   * @param additional
+   *          additional values that influence the result of the build
+   * @return the hex string of the hash, or null if one of the files cannot be read
+   */
+  public static String hash(File[] files, String... additional) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      return null;
+    }
+    try {
+      for (File each : files) {
+        digest.update(FileUtils.readFileToByteArray(each));
+      }
+    } catch (IOException e) {
+      return null;
+    }
+    for (String each : additional) {
+      digest.update(StringUtils.defaultString(each).getBytes());
+      digest.update((byte) 0);
+    }
+    byte[] bytes = digest.digest();
+    StringBuilder sb = new StringBuilder();
+    for (byte b : bytes) {
+      sb.append(String.format("%02x", b));
+    }
+    return sb.toString();
+  }
+
+}
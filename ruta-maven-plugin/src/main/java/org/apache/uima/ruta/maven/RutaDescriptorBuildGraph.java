@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.maven;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.uima.ruta.descriptor.RutaDescriptorInformation;
+
+/**
+ * Dependency graph of the scripts of one build. A script depends on the scripts it imports if they
+ * are built in the same build, since its type system descriptor refers to their type system
+ * descriptors. Scripts are released for building only after all of their dependencies are built.
+ */
+public class RutaDescriptorBuildGraph {
+
+  private final Map<RutaDescriptorInformation, List<RutaDescriptorInformation>> dependents = new HashMap<RutaDescriptorInformation, List<RutaDescriptorInformation>>();
+
+  private final Map<RutaDescriptorInformation, Integer> pending = new LinkedHashMap<RutaDescriptorInformation, Integer>();
+
+  private final List<RutaDescriptorInformation> ready = new ArrayList<RutaDescriptorInformation>();
+
+  public RutaDescriptorBuildGraph(Collection<RutaDescriptorInformation> infos) {
+    super();
+    Map<String, RutaDescriptorInformation> byName = new HashMap<String, RutaDescriptorInformation>();
+    for (RutaDescriptorInformation each : infos) {
+      byName.put(getQualifiedName(each), each);
+      dependents.put(each, new ArrayList<RutaDescriptorInformation>());
+    }
+    for (RutaDescriptorInformation each : infos) {
+      int count = 0;
+      for (String eachImport : each.getImportedScripts()) {
+        RutaDescriptorInformation dependency = byName.get(eachImport);
+        if (dependency != null && dependency != each) {
+          dependents.get(dependency).add(each);
+          count++;
+        }
+      }
+      if (count == 0) {
+        ready.add(each);
+      } else {
+        pending.put(each, count);
+      }
+    }
+  }
+
+  /**
+   * @return the scripts that do not depend on other scripts of this build
+   */
+  public List<RutaDescriptorInformation> getReady() {
+    return ready;
+  }
+
+  /**
+   * Marks the given script as built.
+   * 
+   * @param info
+   *          the built script
+   * @return the scripts whose dependencies are now all built
+   */
+  public List<RutaDescriptorInformation> built(RutaDescriptorInformation info) {
+    List<RutaDescriptorInformation> result = new ArrayList<RutaDescriptorInformation>();
+    List<RutaDescriptorInformation> list = dependents.get(info);
+    if (list == null) {
+      return result;
+    }
+    for (RutaDescriptorInformation each : list) {
+      Integer count = pending.get(each);
+      if (count == null) {
+        continue;
+      }
+      if (count == 1) {
+        pending.remove(each);
+        result.add(each);
+      } else {
+        pending.put(each, count - 1);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the scripts that have not been released yet, e.g., because of cyclic imports or
+   *         failed dependencies
+   */
+  public Collection<RutaDescriptorInformation> getBlocked() {
+    return new ArrayList<RutaDescriptorInformation>(pending.keySet());
+  }
+
+  public static String getQualifiedName(RutaDescriptorInformation info) {
+    String packageString = info.getPackageString();
+    if (StringUtils.isBlank(packageString)) {
+      return info.getScriptName();
+    }
+    return packageString + "." + info.getScriptName();
+  }
+
+}
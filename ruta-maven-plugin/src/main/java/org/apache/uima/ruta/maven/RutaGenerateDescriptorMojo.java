@@ -28,10 +28,23 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.antlr.runtime.RecognitionException;
 import org.apache.commons.io.IOUtils;
@@ -86,6 +99,16 @@ public class RutaGenerateDescriptorMojo extends AbstractMojo {
 
   private static final String RUTA_NATURE = "org.apache.uima.ruta.ide.nature";
 
+  private static final String HASH_STORE_FILE = "ruta-descriptor-build.properties";
+
+  static final String NAME_SUFFIX = ".name";
+
+  static final String IMPORTS_SUFFIX = ".imports";
+
+  private enum BuildStatus {
+    BUILT, RETRY, FAILED
+  }
+
   @Component
   private MavenProject project;
 
@@ -194,6 +217,20 @@ public class RutaGenerateDescriptorMojo extends AbstractMojo {
   @Parameter(required = false)
   private String[] buildPaths;
 
+  /**
+   * Amount of threads used to parse the script files and to build the descriptors of scripts that
+   * do not depend on each other. The amount of available processors is used by default.
+   */
+  @Parameter(defaultValue = "0", required = false)
+  private int buildThreads;
+
+  /**
+   * Option to skip script files whose content and build configuration did not change since the
+   * last build, even if the build context reports a modification.
+   */
+  @Parameter(defaultValue = "true", required = false)
+  private boolean skipUnchanged;
+
   public void execute() throws MojoExecutionException, MojoFailureException {
 
     if (!typeSystemOutputDirectory.exists()) {
@@ -260,15 +297,33 @@ public class RutaGenerateDescriptorMojo extends AbstractMojo {
       return;
     }
 
+    BuildHashStore hashStore = new BuildHashStore(new File(project.getBuild().getDirectory(),
+            HASH_STORE_FILE));
+    String configuration = getConfigurationString();
+
     List<File> filesToBuild = new ArrayList<File>();
+    Map<File, String> hashes = new HashMap<File, String>();
+    Set<String> changedScripts = new HashSet<String>();
+    List<File> unchangedFiles = new ArrayList<File>();
     for (String each : files) {
       File file = new File(each);
+      String path = file.getAbsolutePath();
       boolean descriptorMissing = isDescriptorMissing(file);
       boolean hasDelta = buildContext.hasDelta(file);
-      if (descriptorMissing || hasDelta) {
+      String hash = BuildHashStore.hash(new File[] { file }, configuration);
+      hashes.put(file, hash);
+      boolean unchanged = skipUnchanged && hashStore.isUnchanged(path, hash);
+      if (descriptorMissing || (hasDelta && !unchanged)) {
         filesToBuild.add(file);
+        String scriptName = hashStore.get(path + NAME_SUFFIX);
+        if (scriptName != null) {
+          changedScripts.add(scriptName);
+        }
+      } else {
+        unchangedFiles.add(file);
       }
     }
+    addDependentScripts(filesToBuild, unchangedFiles, changedScripts, hashStore);
 
     if (filesToBuild.isEmpty()) {
       getLog().info("UIMA Ruta Building: Skipped, since no changes were detected.");
@@ -279,50 +334,226 @@ public class RutaGenerateDescriptorMojo extends AbstractMojo {
       maxBuildRetries = filesToBuild.size() * 3;
     }
 
-    Queue<RutaDescriptorInformation> toBuild = new LinkedList<RutaDescriptorInformation>();
+    int threads = buildThreads > 0 ? buildThreads : Runtime.getRuntime().availableProcessors();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      Map<RutaDescriptorInformation, File> infos = parseDescriptorInformations(filesToBuild,
+              factory, options, executor);
+      Queue<RutaDescriptorInformation> toBuild = buildInParallel(infos, factory, options,
+              executor, hashStore, hashes);
+
+      int count = 0;
+      while (!toBuild.isEmpty() && count <= maxBuildRetries) {
+        RutaDescriptorInformation descriptorInformation = toBuild.poll();
+        BuildStatus status = build(factory, options, descriptorInformation, true);
+        if (status == BuildStatus.RETRY) {
+          toBuild.add(descriptorInformation);
+          count++;
+        } else {
+          storeHash(hashStore, infos.get(descriptorInformation), descriptorInformation,
+                  status == BuildStatus.BUILT ? hashes.get(infos.get(descriptorInformation))
+                          : null);
+        }
+      }
+
+      for (RutaDescriptorInformation eachFailed : toBuild) {
+        String scriptName = eachFailed.getScriptName();
+        getLog().warn("Failed to build UIMA Ruta script: " + scriptName);
+        storeHash(hashStore, infos.get(eachFailed), eachFailed, null);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
 
-    for (File file : filesToBuild) {
+    try {
+      hashStore.save();
+    } catch (IOException e) {
+      getLog().warn("Failed to store build hashes", e);
+    }
+  }
+
+  /**
+   * Adds unchanged scripts to the build, which (transitively) import a changed script, since their
+   * type systems refer to the types of the imported scripts.
+   */
+  static void addDependentScripts(List<File> filesToBuild, List<File> unchangedFiles,
+          Set<String> changedScripts, BuildHashStore hashStore) {
+    boolean added = true;
+    while (added && !changedScripts.isEmpty()) {
+      added = false;
+      Iterator<File> iterator = unchangedFiles.iterator();
+      while (iterator.hasNext()) {
+        File file = iterator.next();
+        String path = file.getAbsolutePath();
+        String imports = hashStore.get(path + IMPORTS_SUFFIX);
+        if (imports == null) {
+          continue;
+        }
+        for (String each : StringUtils.split(imports, ',')) {
+          if (changedScripts.contains(each)) {
+            iterator.remove();
+            filesToBuild.add(file);
+            String scriptName = hashStore.get(path + NAME_SUFFIX);
+            if (scriptName != null) {
+              changedScripts.add(scriptName);
+            }
+            added = true;
+            break;
+          }
+        }
+      }
+    }
+  }
+
+  private Map<RutaDescriptorInformation, File> parseDescriptorInformations(
+          List<File> filesToBuild, final RutaDescriptorFactory factory,
+          final RutaBuildOptions options, ExecutorService executor) {
+    List<Future<RutaDescriptorInformation>> futures = new ArrayList<Future<RutaDescriptorInformation>>();
+    for (final File file : filesToBuild) {
+      futures.add(executor.submit(new Callable<RutaDescriptorInformation>() {
+        public RutaDescriptorInformation call() throws Exception {
+          return factory.parseDescriptorInformation(file, options);
+        }
+      }));
+    }
+    Map<RutaDescriptorInformation, File> result = new LinkedHashMap<RutaDescriptorInformation, File>();
+    for (int i = 0; i < filesToBuild.size(); i++) {
+      File file = filesToBuild.get(i);
       try {
-        RutaDescriptorInformation descriptorInformation = factory.parseDescriptorInformation(file,
-                options);
-        toBuild.add(descriptorInformation);
-      } catch (RecognitionException re) {
-        getLog().warn("Failed to parse UIMA Ruta script file: " + file.getAbsolutePath(), re);
-      } catch (IOException ioe) {
-        getLog().warn("Failed to load UIMA Ruta script file: " + file.getAbsolutePath(), ioe);
+        result.put(futures.get(i).get(), file);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RecognitionException) {
+          getLog().warn("Failed to parse UIMA Ruta script file: " + file.getAbsolutePath(), cause);
+        } else if (cause instanceof IOException) {
+          getLog().warn("Failed to load UIMA Ruta script file: " + file.getAbsolutePath(), cause);
+        } else {
+          getLog().warn("Failed to process UIMA Ruta script file: " + file.getAbsolutePath(),
+                  cause);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
       }
     }
+    return result;
+  }
 
-    int count = 0;
-    while (!toBuild.isEmpty() && count <= maxBuildRetries) {
-      RutaDescriptorInformation descriptorInformation = toBuild.poll();
-      String scriptName = descriptorInformation.getScriptName();
+  /**
+   * Builds the descriptors in the order of the imports of the scripts. Scripts whose dependencies
+   * are already built are built concurrently.
+   * 
+   * @return the scripts that need to be built again, because they have cyclic imports or a
+   *         dependency was not found
+   */
+  private Queue<RutaDescriptorInformation> buildInParallel(
+          Map<RutaDescriptorInformation, File> infos, final RutaDescriptorFactory factory,
+          final RutaBuildOptions options, ExecutorService executor, BuildHashStore hashStore,
+          Map<File, String> hashes) {
+    Queue<RutaDescriptorInformation> result = new LinkedList<RutaDescriptorInformation>();
+    RutaDescriptorBuildGraph graph = new RutaDescriptorBuildGraph(infos.keySet());
+    CompletionService<BuildStatus> completionService = new ExecutorCompletionService<BuildStatus>(
+            executor);
+    Map<Future<BuildStatus>, RutaDescriptorInformation> running = new HashMap<Future<BuildStatus>, RutaDescriptorInformation>();
+    for (RutaDescriptorInformation each : graph.getReady()) {
+      running.put(submitBuild(completionService, factory, options, each), each);
+    }
+    while (!running.isEmpty()) {
+      Future<BuildStatus> future;
+      BuildStatus status;
       try {
-        createDescriptors(factory, options, descriptorInformation);
-      } catch (RecognitionException re) {
-        getLog().warn("Failed to parse UIMA Ruta script: " + scriptName, re);
-      } catch (IOException ioe) {
-        toBuild.add(descriptorInformation);
+        future = completionService.take();
+        status = future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (ExecutionException e) {
+        getLog().warn("Failed to build UIMA Ruta script", e.getCause());
+        continue;
+      }
+      RutaDescriptorInformation info = running.remove(future);
+      File file = infos.get(info);
+      if (status == BuildStatus.BUILT) {
+        storeHash(hashStore, file, info, hashes.get(file));
+        for (RutaDescriptorInformation each : graph.built(info)) {
+          running.put(submitBuild(completionService, factory, options, each), each);
+        }
+      } else if (status == BuildStatus.RETRY) {
+        result.add(info);
+      } else {
+        storeHash(hashStore, file, info, null);
+      }
+    }
+    result.addAll(graph.getBlocked());
+    return result;
+  }
+
+  private Future<BuildStatus> submitBuild(CompletionService<BuildStatus> completionService,
+          final RutaDescriptorFactory factory, final RutaBuildOptions options,
+          final RutaDescriptorInformation info) {
+    return completionService.submit(new Callable<BuildStatus>() {
+      public BuildStatus call() throws Exception {
+        return build(factory, options, info, false);
+      }
+    });
+  }
+
+  private BuildStatus build(RutaDescriptorFactory factory, RutaBuildOptions options,
+          RutaDescriptorInformation descriptorInformation, boolean logRetry) {
+    String scriptName = descriptorInformation.getScriptName();
+    try {
+      createDescriptors(factory, options, descriptorInformation);
+      return BuildStatus.BUILT;
+    } catch (RecognitionException re) {
+      getLog().warn("Failed to parse UIMA Ruta script: " + scriptName, re);
+    } catch (IOException ioe) {
+      if (logRetry) {
         getLog().warn(
                 "Tried to build " + scriptName
                         + ", but failed (dependency probably not yet build): " + ioe.getMessage());
-        count++;
-      } catch (SAXException saxe) {
-        getLog().warn("Failed to write descriptor: " + scriptName, saxe);
-      } catch (URISyntaxException urise) {
-        getLog().warn("Failed to get uri: " + scriptName, urise);
-      } catch (ResourceInitializationException rie) {
-        getLog().warn("Failed initialize resource: " + scriptName, rie);
-      } catch (InvalidXMLException ixmle) {
-        getLog().warn("Invalid XML while building descriptor: " + scriptName, ixmle);
       }
+      return BuildStatus.RETRY;
+    } catch (SAXException saxe) {
+      getLog().warn("Failed to write descriptor: " + scriptName, saxe);
+    } catch (URISyntaxException urise) {
+      getLog().warn("Failed to get uri: " + scriptName, urise);
+    } catch (ResourceInitializationException rie) {
+      getLog().warn("Failed initialize resource: " + scriptName, rie);
+    } catch (InvalidXMLException ixmle) {
+      getLog().warn("Invalid XML while building descriptor: " + scriptName, ixmle);
     }
+    return BuildStatus.FAILED;
+  }
 
-    for (RutaDescriptorInformation eachFailed : toBuild) {
-      String scriptName = eachFailed.getScriptName();
-      getLog().warn("Failed to build UIMA Ruta script: " + scriptName);
+  private void storeHash(BuildHashStore hashStore, File file, RutaDescriptorInformation info,
+          String hash) {
+    if (file == null) {
+      return;
     }
+    String path = file.getAbsolutePath();
+    synchronized (hashStore) {
+      hashStore.put(path, hash);
+      hashStore.put(path + NAME_SUFFIX, RutaDescriptorBuildGraph.getQualifiedName(info));
+      hashStore.put(path + IMPORTS_SUFFIX, StringUtils.join(info.getImportedScripts(), ','));
+    }
+  }
 
+  private String getConfigurationString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(typeSystemOutputDirectory).append('|');
+    sb.append(analysisEngineOutputDirectory).append('|');
+    sb.append(typeSystemTemplate).append('|');
+    sb.append(analysisEngineTemplate).append('|');
+    sb.append(Arrays.toString(scriptPaths)).append('|');
+    sb.append(Arrays.toString(descriptorPaths)).append('|');
+    sb.append(Arrays.toString(resourcePaths)).append('|');
+    sb.append(typeSystemSuffix).append('|');
+    sb.append(analysisEngineSuffix).append('|');
+    sb.append(encoding).append('|');
+    sb.append(importByName).append('|');
+    sb.append(resolveImports).append('|');
+    sb.append(Arrays.toString(extensionPackages));
+    return sb.toString();
   }
 
   private boolean isDescriptorMissing(File file) {
@@ -389,10 +620,12 @@ public class RutaGenerateDescriptorMojo extends AbstractMojo {
     Pair<AnalysisEngineDescription, TypeSystemDescription> descriptions = factory
             .createDescriptions(engineOutput, typeSystemOutput, descriptorInformation, options,
                     scriptPaths, descriptorPaths, resourcePaths);
-    write(descriptions.getKey(), engineOutput);
-    write(descriptions.getValue(), typeSystemOutput);
-    buildContext.refresh(analysisEngineOutputDirectory);
-    buildContext.refresh(typeSystemOutputDirectory);
+    synchronized (buildContext) {
+      write(descriptions.getKey(), engineOutput);
+      write(descriptions.getValue(), typeSystemOutput);
+      buildContext.refresh(analysisEngineOutputDirectory);
+      buildContext.refresh(typeSystemOutputDirectory);
+    }
   }
 
   private void write(XMLizable desc, String aFilename) throws SAXException, IOException {
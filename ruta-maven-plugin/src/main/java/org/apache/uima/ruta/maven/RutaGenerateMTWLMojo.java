@@ -23,6 +23,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.maven.model.FileSet;
 import org.apache.maven.plugin.AbstractMojo;
@@ -74,6 +76,28 @@ public class RutaGenerateMTWLMojo extends AbstractMojo {
   @Parameter(defaultValue = "true", required = true)
   private boolean compress;
 
+  /**
+   * Write the multi tree word list in a compact binary format instead of XML.
+   */
+  @Parameter(defaultValue = "false", required = false)
+  private boolean binary;
+
+  /**
+   * Amount of threads used to build the subtrees of the multi tree word list. The amount of
+   * available processors is used by default.
+   */
+  @Parameter(defaultValue = "0", required = false)
+  private int buildThreads;
+
+  /**
+   * Option to skip the generation if the content of the source files and the configuration did not
+   * change since the last build, even if the build context reports a modification.
+   */
+  @Parameter(defaultValue = "true", required = false)
+  private boolean skipUnchanged;
+
+  private static final String HASH_STORE_FILE = "ruta-mtwl-build.properties";
+
   public void execute() throws MojoExecutionException, MojoFailureException {
     File parentFile = outputFile.getParentFile();
     if (!parentFile.exists()) {
@@ -95,24 +119,55 @@ public class RutaGenerateMTWLMojo extends AbstractMojo {
       return;
     }
     
+    File baseDirectory = new File(inputFiles.getDirectory());
+    BuildHashStore hashStore = new BuildHashStore(new File(project.getBuild().getDirectory(),
+            HASH_STORE_FILE));
+    String key = outputFile.getAbsolutePath();
+    List<String> additional = new ArrayList<String>();
+    for (File each : files) {
+      additional.add(baseDirectory.toPath().relativize(each.toPath()).toString());
+    }
+    additional.add(compress + "|" + encoding + "|" + binary);
+    String hash = BuildHashStore.hash(files.toArray(new File[0]),
+            additional.toArray(new String[0]));
+    if (skipUnchanged && outputFile.exists() && hashStore.isUnchanged(key, hash)) {
+      getLog().info("No changed files to process... skipping.");
+      return;
+    }
+
     getLog().info("Processing following files: " + files.toString());
     
+    int threads = buildThreads > 0 ? buildThreads : Runtime.getRuntime().availableProcessors();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
     MultiTreeWordList trie = null;
     try {
-      trie = new MultiTreeWordList(files, new File(inputFiles.getDirectory()));
+      trie = new MultiTreeWordList(files, baseDirectory, executor);
     } catch (IOException e) {
       getLog().warn("Error creating MTWL file.", e);
+    } finally {
+      executor.shutdownNow();
     }
 
+    hashStore.put(key, null);
     if (trie != null) {
       try {
-        trie.createMTWLFile(outputFile.getAbsolutePath(), compress, encoding);
+        if (binary) {
+          trie.createBinaryMTWLFile(outputFile.getAbsolutePath(), compress);
+        } else {
+          trie.createMTWLFile(outputFile.getAbsolutePath(), compress, encoding);
+        }
         buildContext.refresh(outputFile);
+        hashStore.put(key, hash);
       } catch (IOException e) {
         getLog().warn("Error writing MTWL file.", e);
       }
     }
 
+    try {
+      hashStore.save();
+    } catch (IOException e) {
+      getLog().warn("Failed to store build hashes", e);
+    }
   }
   
   public static List<File> getFilesIfModifiedOrNotExists(FileSet fileSet, File outputFile, BuildContext buildContext) throws IOException {
@@ -19,13 +19,18 @@
 package org.apache.uima.ruta.maven;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.maven.model.FileSet;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -76,6 +81,28 @@ public class RutaGenerateTWLMojo extends AbstractMojo {
   @Parameter(defaultValue = "true", required = true)
   private boolean compress;
 
+  /**
+   * Write the tree word list in a compact binary format instead of XML.
+   */
+  @Parameter(defaultValue = "false", required = false)
+  private boolean binary;
+
+  /**
+   * Amount of threads used to build the subtrees of a tree word list. The amount of available
+   * processors is used by default.
+   */
+  @Parameter(defaultValue = "0", required = false)
+  private int buildThreads;
+
+  /**
+   * Option to skip source files whose content and configuration did not change since the last
+   * build, even if the build context reports a modification.
+   */
+  @Parameter(defaultValue = "true", required = false)
+  private boolean skipUnchanged;
+
+  private static final String HASH_STORE_FILE = "ruta-twl-build.properties";
+
   public void execute() throws MojoExecutionException, MojoFailureException {
     if (!outputDirectory.exists()) {
       outputDirectory.mkdirs();
@@ -95,29 +122,71 @@ public class RutaGenerateTWLMojo extends AbstractMojo {
       getLog().debug("No modified files to process... skipping.");
       return;
     }
-    getLog().debug("Processing following files: " + inputOutputMap.keySet().toString());
 
-    Set<Entry<File, File>> entrySet = inputOutputMap.entrySet();
-    for (Entry<File, File> each : entrySet) {
-      File inputFile = each.getKey();
-      File outputFile = each.getValue();
-      TreeWordList list = null;
-      try {
-        list = new TreeWordList(inputFile.getAbsolutePath(), false);
-      } catch (IOException e) {
-        getLog().warn("Error generating twl.", e);
+    BuildHashStore hashStore = new BuildHashStore(new File(project.getBuild().getDirectory(),
+            HASH_STORE_FILE));
+    String configuration = compress + "|" + encoding + "|" + binary;
+    Map<File, String> hashes = new LinkedHashMap<>();
+    for (File inputFile : inputOutputMap.keySet().toArray(new File[0])) {
+      String hash = BuildHashStore.hash(new File[] { inputFile }, configuration);
+      if (skipUnchanged && inputOutputMap.get(inputFile).exists()
+              && hashStore.isUnchanged(inputFile.getAbsolutePath(), hash)) {
+        inputOutputMap.remove(inputFile);
+      } else {
+        hashes.put(inputFile, hash);
       }
-      if (list != null) {
+    }
+    if (inputOutputMap.isEmpty()) {
+      getLog().debug("No changed files to process... skipping.");
+      return;
+    }
+    getLog().debug("Processing following files: " + inputOutputMap.keySet().toString());
+
+    int threads = buildThreads > 0 ? buildThreads : Runtime.getRuntime().availableProcessors();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      Set<Entry<File, File>> entrySet = inputOutputMap.entrySet();
+      for (Entry<File, File> each : entrySet) {
+        File inputFile = each.getKey();
+        File outputFile = each.getValue();
+        TreeWordList list = null;
+        InputStream stream = null;
         try {
-          outputFile.getParentFile().mkdirs();
-          list.createTWLFile(outputFile.getAbsolutePath(), compress, encoding);
-          buildContext.refresh(outputFile);
+          stream = new FileInputStream(inputFile);
+          list = new TreeWordList();
+          list.buildNewTree(stream, executor);
         } catch (IOException e) {
-          getLog().warn("Error writing twl file.", e);
+          list = null;
+          getLog().warn("Error generating twl.", e);
+        } finally {
+          IOUtils.closeQuietly(stream);
+        }
+        String hash = null;
+        if (list != null) {
+          try {
+            outputFile.getParentFile().mkdirs();
+            if (binary) {
+              list.createBinaryTWLFile(outputFile.getAbsolutePath(), compress);
+            } else {
+              list.createTWLFile(outputFile.getAbsolutePath(), compress, encoding);
+            }
+            buildContext.refresh(outputFile);
+            hash = hashes.get(inputFile);
+          } catch (IOException e) {
+            getLog().warn("Error writing twl file.", e);
+          }
         }
+        hashStore.put(inputFile.getAbsolutePath(), hash);
       }
+    } finally {
+      executor.shutdownNow();
     }
 
+    try {
+      hashStore.save();
+    } catch (IOException e) {
+      getLog().warn("Failed to store build hashes", e);
+    }
   }
 
   private Map<File, File> getModifiedFilesMap(FileSet fileSet, File outputDirectory, BuildContext buildContext) throws IOException {
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.maven;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+
+public class BuildHashStoreTest extends TestCase {
+
+  private File dir;
+
+  @Override
+  protected void setUp() throws Exception {
+    dir = File.createTempFile("BuildHashStoreTest", "");
+    dir.delete();
+    dir.mkdirs();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    FileUtils.deleteQuietly(dir);
+  }
+
+  public void testUnchanged() throws Exception {
+    File script = write("A.ruta", "DECLARE A;");
+    File storeFile = new File(dir, "store/hashes.properties");
+    BuildHashStore store = new BuildHashStore(storeFile);
+    String hash = BuildHashStore.hash(new File[] { script }, "config");
+    assertFalse(store.isUnchanged(script.getAbsolutePath(), hash));
+    store.put(script.getAbsolutePath(), hash);
+    store.save();
+
+    store = new BuildHashStore(storeFile);
+    assertTrue(store.isUnchanged(script.getAbsolutePath(),
+            BuildHashStore.hash(new File[] { script }, "config")));
+    // another configuration
+    assertFalse(store.isUnchanged(script.getAbsolutePath(),
+            BuildHashStore.hash(new File[] { script }, "other")));
+    // changed content
+    write("A.ruta", "DECLARE B;");
+    assertFalse(store.isUnchanged(script.getAbsolutePath(),
+            BuildHashStore.hash(new File[] { script }, "config")));
+    // unreadable files are never unchanged
+    assertNull(BuildHashStore.hash(new File[] { new File(dir, "missing.ruta") }, "config"));
+    assertFalse(store.isUnchanged(script.getAbsolutePath(), null));
+  }
+
+  public void testMissingStore() throws Exception {
+    File script = write("A.ruta", "DECLARE A;");
+    BuildHashStore store = new BuildHashStore(new File(dir, "missing.properties"));
+    assertFalse(store.isUnchanged(script.getAbsolutePath(),
+            BuildHashStore.hash(new File[] { script }, "config")));
+  }
+
+  public void testCorruptStore() throws Exception {
+    File script = write("A.ruta", "DECLARE A;");
+    String hash = BuildHashStore.hash(new File[] { script }, "config");
+    File storeFile = write("hashes.properties", script.getAbsolutePath().replace("\\", "/")
+            + "=" + hash + "\nbroken=\\uZZZZ\n");
+    BuildHashStore store = new BuildHashStore(storeFile);
+    assertFalse(store.isUnchanged(script.getAbsolutePath(), hash));
+    assertNull(store.get("broken"));
+  }
+
+  public void testChangedImport() throws Exception {
+    File a = write("A.ruta", "PACKAGE p; DECLARE A;");
+    File b = write("B.ruta", "PACKAGE p; SCRIPT p.A; DECLARE B;");
+    File c = write("C.ruta", "PACKAGE p; SCRIPT p.B; DECLARE C;");
+    File d = write("D.ruta", "PACKAGE p; DECLARE D;");
+    BuildHashStore store = new BuildHashStore(new File(dir, "hashes.properties"));
+    register(store, a, "p.A");
+    register(store, b, "p.B", "p.A");
+    register(store, c, "p.C", "p.B");
+    register(store, d, "p.D");
+
+    // A has changed, B imports A and C imports B
+    List<File> filesToBuild = new ArrayList<File>(Arrays.asList(a));
+    List<File> unchangedFiles = new ArrayList<File>(Arrays.asList(b, c, d));
+    Set<String> changedScripts = new HashSet<String>(Arrays.asList("p.A"));
+    RutaGenerateDescriptorMojo.addDependentScripts(filesToBuild, unchangedFiles, changedScripts,
+            store);
+    assertEquals(new HashSet<File>(Arrays.asList(a, b, c)), new HashSet<File>(filesToBuild));
+    assertEquals(Arrays.asList(d), unchangedFiles);
+
+    // nothing imports D
+    filesToBuild = new ArrayList<File>(Arrays.asList(d));
+    unchangedFiles = new ArrayList<File>(Arrays.asList(a, b, c));
+    changedScripts = new HashSet<String>(Arrays.asList("p.D"));
+    RutaGenerateDescriptorMojo.addDependentScripts(filesToBuild, unchangedFiles, changedScripts,
+            store);
+    assertEquals(Arrays.asList(d), filesToBuild);
+    assertEquals(Arrays.asList(a, b, c), unchangedFiles);
+  }
+
+  private void register(BuildHashStore store, File file, String name, String... imports) {
+    String path = file.getAbsolutePath();
+    store.put(path, BuildHashStore.hash(new File[] { file }, "config"));
+    store.put(path + RutaGenerateDescriptorMojo.NAME_SUFFIX, name);
+    if (imports.length > 0) {
+      store.put(path + RutaGenerateDescriptorMojo.IMPORTS_SUFFIX,
+              StringUtils.join(imports, ','));
+    }
+  }
+
+  private File write(String name, String content) throws Exception {
+    File file = new File(dir, name);
+    FileUtils.writeStringToFile(file, content, "UTF-8");
+    return file;
+  }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.uima.ruta.maven;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.uima.ruta.descriptor.RutaDescriptorInformation;
+
+public class RutaDescriptorBuildGraphTest extends TestCase {
+
+  public void testOrder() {
+    RutaDescriptorInformation a = createInfo("p", "A");
+    RutaDescriptorInformation b = createInfo("p", "B", "p.A");
+    RutaDescriptorInformation c = createInfo("p", "C", "p.A", "p.B");
+    RutaDescriptorInformation d = createInfo("p", "D", "other.External");
+    RutaDescriptorBuildGraph graph = new RutaDescriptorBuildGraph(Arrays.asList(c, b, a, d));
+
+    assertEquals(new HashSet<RutaDescriptorInformation>(Arrays.asList(a, d)),
+            new HashSet<RutaDescriptorInformation>(graph.getReady()));
+    assertEquals(Arrays.asList(b), graph.built(a));
+    assertEquals(Collections.emptyList(), graph.built(d));
+    assertEquals(Arrays.asList(c), graph.built(b));
+    assertEquals(Collections.emptyList(), graph.built(c));
+    assertTrue(graph.getBlocked().isEmpty());
+  }
+
+  public void testBuildOrderRespectsImports() {
+    List<RutaDescriptorInformation> infos = new ArrayList<RutaDescriptorInformation>();
+    infos.add(createInfo(null, "E", "D"));
+    infos.add(createInfo(null, "D", "B", "C"));
+    infos.add(createInfo(null, "C", "A"));
+    infos.add(createInfo(null, "B", "A"));
+    infos.add(createInfo(null, "A"));
+    RutaDescriptorBuildGraph graph = new RutaDescriptorBuildGraph(infos);
+
+    List<String> order = new ArrayList<String>();
+    List<RutaDescriptorInformation> queue = new ArrayList<RutaDescriptorInformation>(
+            graph.getReady());
+    while (!queue.isEmpty()) {
+      RutaDescriptorInformation info = queue.remove(0);
+      for (String each : info.getImportedScripts()) {
+        assertTrue(each + " before " + info.getScriptName(), order.contains(each));
+      }
+      order.add(info.getScriptName());
+      queue.addAll(graph.built(info));
+    }
+    assertEquals(5, order.size());
+    assertTrue(graph.getBlocked().isEmpty());
+  }
+
+  public void testCycle() {
+    RutaDescriptorInformation a = createInfo("p", "A", "p.C");
+    RutaDescriptorInformation b = createInfo("p", "B", "p.A");
+    RutaDescriptorInformation c = createInfo("p", "C", "p.B");
+    RutaDescriptorInformation d = createInfo("p", "D", "p.C");
+    RutaDescriptorInformation e = createInfo("p", "E", "p.E");
+    RutaDescriptorBuildGraph graph = new RutaDescriptorBuildGraph(Arrays.asList(a, b, c, d, e));
+
+    // a script importing itself is no dependency
+    assertEquals(Arrays.asList(e), graph.getReady());
+    assertEquals(Collections.emptyList(), graph.built(e));
+    assertEquals(new HashSet<RutaDescriptorInformation>(Arrays.asList(a, b, c, d)),
+            new HashSet<RutaDescriptorInformation>(graph.getBlocked()));
+  }
+
+  public void testQualifiedName() {
+    assertEquals("p.q.A", RutaDescriptorBuildGraph.getQualifiedName(createInfo("p.q", "A")));
+    assertEquals("A", RutaDescriptorBuildGraph.getQualifiedName(createInfo("", "A")));
+  }
+
+  private RutaDescriptorInformation createInfo(String packageString, String name,
+          String... imports) {
+    RutaDescriptorInformation info = new RutaDescriptorInformation();
+    info.setPackageString(packageString);
+    info.setScriptName(name);
+    for (String each : imports) {
+      info.addScript(each);
+    }
+    return info;
+  }
+
+}